@@ -31,6 +31,8 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 import buildcraft.api.core.BCLog;
 import buildcraft.api.schematics.ISchematicBlock;
 
+import buildcraft.lib.misc.data.PackedIntArray;
+
 import buildcraft.builders.client.ClientArchitectTables;
 import buildcraft.builders.item.ItemSchematicSingle;
 import buildcraft.builders.snapshot.Blueprint;
@@ -106,7 +108,7 @@ public enum BCBuildersEventDist {
                 Blueprint blueprint = new Blueprint();
                 blueprint.size = new BlockPos(1, 1, 1);
                 blueprint.offset = BlockPos.ORIGIN;
-                blueprint.data = new int[] {0};
+                blueprint.data = new PackedIntArray(1);
                 blueprint.palette.add(schematicBlock);
                 blueprint.computeKey();
                 snapshot = blueprint;
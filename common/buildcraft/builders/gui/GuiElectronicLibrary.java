@@ -73,7 +73,7 @@ public class GuiElectronicLibrary extends GuiBC8<ContainerElectronicLibrary> {
             String text = header == null ? key.toString() : header.name;
             drawString(fontRenderer, text, rect.x, rect.y, colour);
         });
-        delButton.enabled = getSnapshots().getSnapshot(container.tile.selected) != null;
+        delButton.enabled = getSnapshots().contains(container.tile.selected);
     }
 
     private GlobalSavedDataSnapshots getSnapshots() {
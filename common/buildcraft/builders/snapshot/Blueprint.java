@@ -13,13 +13,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.nbt.NBTTagInt;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.Rotation;
 import net.minecraft.util.math.BlockPos;
@@ -33,10 +34,11 @@ import buildcraft.api.schematics.ISchematicBlock;
 import buildcraft.api.schematics.ISchematicEntity;
 
 import buildcraft.lib.misc.NBTUtilBC;
+import buildcraft.lib.misc.data.PackedIntArray;
 
 public class Blueprint extends Snapshot {
     public final List<ISchematicBlock> palette = new ArrayList<>();
-    public int[] data;
+    public PackedIntArray data;
     public final List<ISchematicEntity> entities = new ArrayList<>();
 
     @Override
@@ -46,7 +48,7 @@ public class Blueprint extends Snapshot {
         blueprint.facing = facing;
         blueprint.offset = offset;
         blueprint.palette.addAll(palette);
-        blueprint.data = data.clone();
+        blueprint.data = data.copy();
         blueprint.entities.addAll(entities);
         blueprint.computeKey();
         return blueprint;
@@ -61,15 +63,7 @@ public class Blueprint extends Snapshot {
     public NBTTagCompound serializeNBT() {
         NBTTagCompound nbt = super.serializeNBT();
         nbt.setTag("palette", NBTUtilBC.writeCompoundList(palette.stream().map(SchematicBlockManager::writeToNBT)));
-        NBTTagList list = new NBTTagList();
-        for (int z = 0; z < size.getZ(); z++) {
-            for (int y = 0; y < size.getY(); y++) {
-                for (int x = 0; x < size.getX(); x++) {
-                    list.appendTag(new NBTTagInt(data[posToIndex(x, y, z)]));
-                }
-            }
-        }
-        nbt.setTag("data", list);
+        nbt.setTag("data", writeData(data));
         nbt.setTag("entities", NBTUtilBC.writeCompoundList(entities.stream().map(SchematicEntityManager::writeToNBT)));
         return nbt;
     }
@@ -86,38 +80,71 @@ public class Blueprint extends Snapshot {
             // schematics through mod additions/deletions)
             palette.add(SchematicBlockManager.readFromNBT(schematicBlockTag));
         }
-        data = new int[Snapshot.getDataSize(size)];
-        NBTTagList serializedDataList = nbt.hasKey("data", Constants.NBT.TAG_LIST)
-            ? nbt.getTagList("data", Constants.NBT.TAG_INT)
-            : null;
-        int[] serializedDataIntArray = nbt.hasKey("data", Constants.NBT.TAG_INT_ARRAY)
-            ? nbt.getIntArray("data")
-            : null;
-        if (serializedDataIntArray == null && serializedDataList == null) {
+        data = readData(nbt);
+        for (int i = 0; i < data.size(); i++) {
+            if (data.get(i) >= palette.size()) {
+                throw new InvalidInputDataException(
+                    "Palette index " + data.get(i) + " is outside of the palette (" + palette.size() + ")"
+                );
+            }
+        }
+        for (NBTTagCompound schematicEntityTag :
+            NBTUtilBC.readCompoundList(nbt.getTag("entities")).collect(Collectors.toList())) {
+            entities.add(SchematicEntityManager.readFromNBT(schematicEntityTag));
+        }
+    }
+
+    /** Writes the packed data either as runs of the same palette index or as the raw packed array, whichever is
+     * smaller. Mostly empty or repetitive blueprints compress down to a few bytes per run this way, and the squished
+     * file is compressed again on top of that. */
+    private static NBTTagCompound writeData(PackedIntArray data) {
+        NBTTagCompound nbt = new NBTTagCompound();
+        byte[] runs = data.writeRuns();
+        if (runs.length <= data.getMemoryUsage()) {
+            nbt.setByteArray("runs", runs);
+        } else {
+            nbt.setInteger("bits", data.getBits());
+            nbt.setByteArray("packed", data.writePacked());
+        }
+        return nbt;
+    }
+
+    private PackedIntArray readData(NBTTagCompound nbt) throws InvalidInputDataException {
+        int dataSize = getDataSize();
+        if (nbt.hasKey("data", Constants.NBT.TAG_COMPOUND)) {
+            NBTTagCompound dataTag = nbt.getCompoundTag("data");
+            if (dataTag.hasKey("runs", Constants.NBT.TAG_BYTE_ARRAY)) {
+                return PackedIntArray.readRuns(dataTag.getByteArray("runs"), dataSize);
+            }
+            if (dataTag.hasKey("packed", Constants.NBT.TAG_BYTE_ARRAY)) {
+                return PackedIntArray.readPacked(dataTag.getByteArray("packed"), dataSize, dataTag.getInteger("bits"));
+            }
             throw new InvalidInputDataException("Can't read a blueprint with no data!");
         }
-        int serializedDataLength = serializedDataList == null
-            ? serializedDataIntArray.length
-            : serializedDataList.tagCount();
-        if (serializedDataLength != getDataSize()) {
+        // Older blueprints stored one int per block
+        int[] serializedData;
+        if (nbt.hasKey("data", Constants.NBT.TAG_INT_ARRAY)) {
+            serializedData = nbt.getIntArray("data");
+        } else if (nbt.hasKey("data", Constants.NBT.TAG_LIST)) {
+            NBTTagList serializedDataList = nbt.getTagList("data", Constants.NBT.TAG_INT);
+            serializedData = new int[serializedDataList.tagCount()];
+            for (int i = 0; i < serializedData.length; i++) {
+                serializedData[i] = serializedDataList.getIntAt(i);
+            }
+        } else {
+            throw new InvalidInputDataException("Can't read a blueprint with no data!");
+        }
+        if (serializedData.length != dataSize) {
             throw new InvalidInputDataException(
-                "Serialized data has length of " + serializedDataLength +
+                "Serialized data has length of " + serializedData.length +
                     ", but we expected " +
-                    getDataSize() + " (" + size.toString() + ")"
+                    dataSize + " (" + size.toString() + ")"
             );
         }
-        for (int z = 0; z < size.getZ(); z++) {
-            for (int y = 0; y < size.getY(); y++) {
-                for (int x = 0; x < size.getX(); x++) {
-                    data[posToIndex(x, y, z)] = serializedDataList == null
-                        ? serializedDataIntArray[posToIndex(x, y, z)]
-                        : serializedDataList.getIntAt(posToIndex(x, y, z));
-                }
-            }
-        }
-        for (NBTTagCompound schematicEntityTag :
-            NBTUtilBC.readCompoundList(nbt.getTag("entities")).collect(Collectors.toList())) {
-            entities.add(SchematicEntityManager.readFromNBT(schematicEntityTag));
+        try {
+            return PackedIntArray.of(serializedData);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputDataException("Invalid blueprint data", e);
         }
     }
 
@@ -128,33 +155,31 @@ public class Blueprint extends Snapshot {
 
     @SuppressWarnings("WeakerAccess")
     public class BuildingInfo extends Snapshot.BuildingInfo {
-        public final List<ItemStack>[] toPlaceRequiredItems;
-        public final List<FluidStack>[] toPlaceRequiredFluids;
         public final List<ISchematicBlock> rotatedPalette;
+        /** The items and fluids required to place each (rotated) palette entry, or null for air. Every block that uses
+         * the same palette entry shares these, so they don't need to be stored per block. */
+        private final List<ItemStack>[] paletteRequiredItems;
+        private final List<FluidStack>[] paletteRequiredFluids;
         public final Set<ISchematicEntity> entities;
         public final Map<ISchematicEntity, List<ItemStack>> entitiesRequiredItems;
         public final Map<ISchematicEntity, List<FluidStack>> entitiesRequiredFluids;
 
         public BuildingInfo(BlockPos basePos, Rotation rotation) {
             super(basePos, rotation);
-            // noinspection unchecked
-            toPlaceRequiredItems = (List<ItemStack>[]) new List<?>[getDataSize()];
-            // noinspection unchecked
-            toPlaceRequiredFluids = (List<FluidStack>[]) new List<?>[getDataSize()];
             rotatedPalette = ImmutableList.copyOf(
                 palette.stream()
                     .map(schematicBlock -> schematicBlock.getRotated(rotation))
                     .collect(Collectors.toList())
             );
-            for (int z = 0; z < getSnapshot().size.getZ(); z++) {
-                for (int y = 0; y < getSnapshot().size.getY(); y++) {
-                    for (int x = 0; x < getSnapshot().size.getX(); x++) {
-                        ISchematicBlock schematicBlock = rotatedPalette.get(data[posToIndex(x, y, z)]);
-                        if (!schematicBlock.isAir()) {
-                            toPlaceRequiredItems[posToIndex(x, y, z)] = schematicBlock.computeRequiredItems();
-                            toPlaceRequiredFluids[posToIndex(x, y, z)] = schematicBlock.computeRequiredFluids();
-                        }
-                    }
+            // noinspection unchecked
+            paletteRequiredItems = (List<ItemStack>[]) new List<?>[rotatedPalette.size()];
+            // noinspection unchecked
+            paletteRequiredFluids = (List<FluidStack>[]) new List<?>[rotatedPalette.size()];
+            for (int i = 0; i < rotatedPalette.size(); i++) {
+                ISchematicBlock schematicBlock = rotatedPalette.get(i);
+                if (!schematicBlock.isAir()) {
+                    paletteRequiredItems[i] = schematicBlock.computeRequiredItems();
+                    paletteRequiredFluids[i] = schematicBlock.computeRequiredFluids();
                 }
             }
             ImmutableSet.Builder<ISchematicEntity> entitiesBuilder = ImmutableSet.builder();
@@ -173,6 +198,20 @@ public class Blueprint extends Snapshot {
             entitiesRequiredFluids = entitiesRequiredFluidsBuilder.build();
         }
 
+        public ISchematicBlock getSchematicBlock(int index) {
+            return rotatedPalette.get(data.get(index));
+        }
+
+        @Nullable
+        public List<ItemStack> getToPlaceRequiredItems(int index) {
+            return paletteRequiredItems[data.get(index)];
+        }
+
+        @Nullable
+        public List<FluidStack> getToPlaceRequiredFluids(int index) {
+            return paletteRequiredFluids[data.get(index)];
+        }
+
         @Override
         public Blueprint getSnapshot() {
             return Blueprint.this;
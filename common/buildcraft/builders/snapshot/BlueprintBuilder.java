@@ -57,10 +57,8 @@ public class BlueprintBuilder extends SnapshotBuilder<ITileForBlueprintBuilder>
     private ISchematicBlock getSchematicBlock(BlockPos blockPos) {
         return getBuildingInfo().box.contains(blockPos)
             ?
-            getBuildingInfo().rotatedPalette.get(
-                getBuildingInfo().getSnapshot().data[getBuildingInfo().getSnapshot().posToIndex(
-                    getBuildingInfo().fromWorld(blockPos)
-                )]
+            getBuildingInfo().getSchematicBlock(
+                getBuildingInfo().getSnapshot().posToIndex(getBuildingInfo().fromWorld(blockPos))
             )
             : null;
     }
@@ -181,8 +179,8 @@ public class BlueprintBuilder extends SnapshotBuilder<ITileForBlueprintBuilder>
     @Override
     protected boolean hasEnoughToPlaceItems(BlockPos blockPos) {
         return tryExtractRequired(
-            getBuildingInfo().toPlaceRequiredItems[posToIndex(blockPos)],
-            getBuildingInfo().toPlaceRequiredFluids[posToIndex(blockPos)],
+            getBuildingInfo().getToPlaceRequiredItems(posToIndex(blockPos)),
+            getBuildingInfo().getToPlaceRequiredFluids(posToIndex(blockPos)),
             true
         ).isPresent();
     }
@@ -190,8 +188,8 @@ public class BlueprintBuilder extends SnapshotBuilder<ITileForBlueprintBuilder>
     @Override
     protected List<ItemStack> getToPlaceItems(BlockPos blockPos) {
         return tryExtractRequired(
-            getBuildingInfo().toPlaceRequiredItems[posToIndex(blockPos)],
-            getBuildingInfo().toPlaceRequiredFluids[posToIndex(blockPos)],
+            getBuildingInfo().getToPlaceRequiredItems(posToIndex(blockPos)),
+            getBuildingInfo().getToPlaceRequiredFluids(posToIndex(blockPos)),
             false
         ).orElse(null);
     }
@@ -340,8 +338,8 @@ public class BlueprintBuilder extends SnapshotBuilder<ITileForBlueprintBuilder>
                 checkResults[posToIndex(blockPos)] != CHECK_RESULT_CORRECT
                     ?
                     getDisplayRequired(
-                        getBuildingInfo().toPlaceRequiredItems[posToIndex(blockPos)],
-                        getBuildingInfo().toPlaceRequiredFluids[posToIndex(blockPos)]
+                        getBuildingInfo().getToPlaceRequiredItems(posToIndex(blockPos)),
+                        getBuildingInfo().getToPlaceRequiredFluids(posToIndex(blockPos))
                     ).collect(Collectors.toList())
                     : Collections.emptyList();
             return true;
@@ -79,7 +79,7 @@ public class FakeWorld extends World {
                     BlockPos pos = new BlockPos(x, y, z).add(BLUEPRINT_OFFSET);
                     if (snapshot instanceof Blueprint) {
                         ISchematicBlock schematicBlock = ((Blueprint) snapshot).palette
-                            .get(((Blueprint) snapshot).data[snapshot.posToIndex(x, y, z)]);
+                            .get(((Blueprint) snapshot).data.get(snapshot.posToIndex(x, y, z)));
                         if (!schematicBlock.isAir()) {
                             schematicBlock.buildWithoutChecks(this, pos);
                         }
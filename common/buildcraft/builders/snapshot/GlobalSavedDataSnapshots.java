@@ -10,12 +10,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
@@ -25,28 +30,60 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 
-import org.apache.commons.lang3.tuple.Pair;
-
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.relauncher.Side;
 
+import buildcraft.api.enums.EnumSnapshotType;
+
+import buildcraft.lib.misc.NBTUtilBC;
 import buildcraft.lib.misc.data.SingleCache;
 import buildcraft.lib.nbt.NbtSquisher;
 
+/** Stores every snapshot as its own file in a per-side directory, along with a small index file that holds the key
+ * (and so the header), type and size of every snapshot. Listing the snapshots only ever needs the index: a snapshot
+ * file is only read in full when its contents are actually requested, and it is only deserialized when something
+ * needs the {@link Snapshot} object rather than just its bytes.
+ * <p>
+ * Loaded snapshots are kept in an LRU cache that is bounded by the total number of blocks that they cover, so a
+ * library of large blueprints can't fill up the heap. The most recently used snapshot is always kept as well, even if
+ * it is too big for the cache on its own. */
 public class GlobalSavedDataSnapshots {
     private static final String SNAPSHOT_FILE_EXTENSION = ".bcnbt";
+    private static final String INDEX_FILE_NAME = "index.dat";
+    private static final int INDEX_VERSION = 1;
+    /** The maximum number of blocks (summed over {@link Snapshot#getDataSize()}) that the cache can hold at once. A
+     * snapshot that is bigger than this on its own is only kept while it is the most recently used one. */
+    private static final long MAX_RESIDENT_BLOCKS = 1 << 24;
     private static final Map<Side, GlobalSavedDataSnapshots> INSTANCES = new EnumMap<>(Side.class);
     private final LoadingCache<Snapshot.Key, Optional<Snapshot>> snapshotsCache = CacheBuilder.newBuilder()
+        // A single segment, so that the maximum weight applies to the whole cache rather than being split up
+        .concurrencyLevel(1)
+        .maximumWeight(MAX_RESIDENT_BLOCKS)
+        .<Snapshot.Key, Optional<Snapshot>> weigher((key, snapshot) -> snapshot.map(Snapshot::getDataSize).orElse(0) + 1)
         .expireAfterAccess(10, TimeUnit.MINUTES)
-        .build(CacheLoader.from(key -> Optional.ofNullable(readSnapshot(key)).map(Pair::getLeft)));
+        .build(CacheLoader.from(this::readSnapshot));
+    /** The most recently used snapshot, which is kept even if {@link #snapshotsCache} evicts it. */
+    @Nullable
+    private volatile Snapshot lastSnapshot;
     private final SingleCache<List<Snapshot.Key>> listCache = new SingleCache<>(
         this::readList,
         1,
         TimeUnit.SECONDS
     );
+    /** Every indexed snapshot file, by file name. */
+    private final Map<String, IndexEntry> index = new LinkedHashMap<>();
+    /** The last modified time of every snapshot file that couldn't be indexed, so that it isn't read again until it
+     * changes. */
+    private final Map<String, Long> unreadableFiles = new HashMap<>();
     private final File snapshotsFile;
+    private final File indexFile;
 
     private GlobalSavedDataSnapshots(Side side) {
         snapshotsFile = new File(
@@ -60,6 +97,8 @@ public class GlobalSavedDataSnapshots {
         } else if (!snapshotsFile.isDirectory()) {
             throw new IllegalStateException("The snapshots directory was not a directory: " + snapshotsFile);
         }
+        indexFile = new File(snapshotsFile, INDEX_FILE_NAME);
+        readIndex();
     }
 
     public static void reInit(Side side) {
@@ -77,68 +116,170 @@ public class GlobalSavedDataSnapshots {
         return get(world.isRemote ? Side.CLIENT : Side.SERVER);
     }
 
-    private Pair<Snapshot, File> readSnapshot(Snapshot.Key key) {
-        File[] files = snapshotsFile.listFiles();
-        if (files != null) {
-            for (File snapshotFile : files) {
-                if (snapshotFile.getName().startsWith(key.toString()) &&
-                    snapshotFile.getName().endsWith(SNAPSHOT_FILE_EXTENSION)) {
-                    try (FileInputStream fileInputStream = new FileInputStream(snapshotFile)) {
-                        Snapshot snapshot = Snapshot.readFromNBT(NbtSquisher.expand(fileInputStream));
-                        if (Objects.equals(snapshot.key, key)) {
-                            return Pair.of(snapshot, snapshotFile);
-                        }
-                    } catch (IOException e) {
-                        new IOException("Failed to read the snapshot " + snapshotFile, e).printStackTrace();
-                    }
+    private static String getFileName(Snapshot.Key key) {
+        return key.toString() + SNAPSHOT_FILE_EXTENSION;
+    }
+
+    // Index
+
+    private void readIndex() {
+        index.clear();
+        if (indexFile.isFile()) {
+            try (FileInputStream fileInputStream = new FileInputStream(indexFile)) {
+                NBTTagCompound nbt = CompressedStreamTools.readCompressed(fileInputStream);
+                if (nbt.getInteger("version") == INDEX_VERSION) {
+                    NBTUtilBC.readCompoundList(nbt.getTag("entries")).map(IndexEntry::new).forEach(
+                        entry -> index.put(entry.fileName, entry)
+                    );
                 }
+            } catch (IOException e) {
+                new IOException("Failed to read the snapshot index " + indexFile, e).printStackTrace();
+                index.clear();
             }
         }
-        return null;
+        refreshIndex();
     }
 
-    private List<Snapshot.Key> readList() {
-        ImmutableList.Builder<Snapshot.Key> listBuilder = ImmutableList.builder();
+    private void writeIndex() {
+        NBTTagCompound nbt = new NBTTagCompound();
+        nbt.setInteger("version", INDEX_VERSION);
+        nbt.setTag("entries", NBTUtilBC.writeCompoundList(index.values().stream().map(IndexEntry::writeToNBT)));
+        File tempFile = new File(snapshotsFile, INDEX_FILE_NAME + ".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile)) {
+            CompressedStreamTools.writeCompressed(nbt, fileOutputStream);
+        } catch (IOException e) {
+            new IOException("Failed to write the snapshot index " + tempFile, e).printStackTrace();
+            return;
+        }
+        if (indexFile.exists() && !indexFile.delete() || !tempFile.renameTo(indexFile)) {
+            new IOException("Failed to replace the snapshot index " + indexFile).printStackTrace();
+        }
+    }
+
+    /** Brings the index up to date with the snapshot files that are actually in the directory, only reading the
+     * files that have been added or changed since they were last indexed. */
+    private synchronized void refreshIndex() {
+        boolean changed = false;
+        Set<String> seen = new HashSet<>();
         File[] files = snapshotsFile.listFiles();
         if (files != null) {
             for (File snapshotFile : files) {
-                if (snapshotFile.getName().endsWith(SNAPSHOT_FILE_EXTENSION)) {
-                    try (FileInputStream fileInputStream = new FileInputStream(snapshotFile)) {
-                        Snapshot snapshot = Snapshot.readFromNBT(NbtSquisher.expand(fileInputStream));
-                        if (snapshotFile.getName().startsWith(snapshot.key.toString())) {
-                            listBuilder.add(snapshot.key);
-                        }
-                    } catch (IOException io) {
-                        new IOException("Failed to read the snapshot " + snapshotFile, io).printStackTrace();
-                    }
+                String fileName = snapshotFile.getName();
+                if (!fileName.endsWith(SNAPSHOT_FILE_EXTENSION)) {
+                    continue;
+                }
+                seen.add(fileName);
+                IndexEntry entry = index.get(fileName);
+                if (entry != null && entry.matches(snapshotFile)) {
+                    continue;
                 }
+                Long failedModified = unreadableFiles.get(fileName);
+                if (failedModified != null && failedModified == snapshotFile.lastModified()) {
+                    continue;
+                }
+                IndexEntry newEntry = indexFile(snapshotFile);
+                if (newEntry == null) {
+                    unreadableFiles.put(fileName, snapshotFile.lastModified());
+                    changed |= index.remove(fileName) != null;
+                } else {
+                    unreadableFiles.remove(fileName);
+                    index.put(fileName, newEntry);
+                    changed = true;
+                }
+            }
+        }
+        unreadableFiles.keySet().retainAll(seen);
+        changed |= index.keySet().retainAll(seen);
+        if (changed) {
+            writeIndex();
+        }
+    }
+
+    /** Reads the key, type and size of a snapshot file, without deserializing any of its schematics. */
+    @Nullable
+    private static IndexEntry indexFile(File snapshotFile) {
+        try (FileInputStream fileInputStream = new FileInputStream(snapshotFile)) {
+            NBTTagCompound nbt = NbtSquisher.expand(fileInputStream);
+            EnumSnapshotType type = NBTUtilBC.readEnum(nbt.getTag("type"), EnumSnapshotType.class);
+            Snapshot.Key key = new Snapshot.Key(nbt.getCompoundTag("key"));
+            if (type == null || !snapshotFile.getName().equals(getFileName(key))) {
+                return null;
             }
+            BlockPos size = NBTUtil.getPosFromTag(nbt.getCompoundTag("size"));
+            return new IndexEntry(snapshotFile, key, type, size);
+        } catch (IOException e) {
+            new IOException("Failed to read the snapshot " + snapshotFile, e).printStackTrace();
+            return null;
+        }
+    }
+
+    @Nullable
+    private synchronized File getIndexedFile(Snapshot.Key key) {
+        String fileName = getFileName(key);
+        IndexEntry entry = index.get(fileName);
+        if (entry == null || !Objects.equals(entry.key, key)) {
+            return null;
+        }
+        return new File(snapshotsFile, fileName);
+    }
+
+    // Snapshots
+
+    private Optional<Snapshot> readSnapshot(Snapshot.Key key) {
+        byte[] bytes = getSnapshotBytes(key);
+        if (bytes != null) {
+            try {
+                Snapshot snapshot = Snapshot.readFromNBT(NbtSquisher.expand(bytes));
+                if (Objects.equals(snapshot.key, key)) {
+                    return Optional.of(snapshot);
+                }
+            } catch (IOException e) {
+                new IOException("Failed to read the snapshot " + key, e).printStackTrace();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private synchronized List<Snapshot.Key> readList() {
+        refreshIndex();
+        ImmutableList.Builder<Snapshot.Key> listBuilder = ImmutableList.builder();
+        for (IndexEntry entry : index.values()) {
+            listBuilder.add(entry.key);
         }
         return listBuilder.build();
     }
 
-    public void addSnapshot(Snapshot snapshot) {
-        File snapshotFile = new File(
-            snapshotsFile,
-            snapshot.key.toString() + SNAPSHOT_FILE_EXTENSION
-        );
+    public synchronized void addSnapshot(Snapshot snapshot) {
+        File snapshotFile = new File(snapshotsFile, getFileName(snapshot.key));
         if (!snapshotFile.exists()) {
             try (FileOutputStream fileOutputStream = new FileOutputStream(snapshotFile)) {
                 NbtSquisher.squishVanilla(Snapshot.writeToNBT(snapshot), fileOutputStream);
             } catch (IOException e) {
                 new IOException("Failed to write the snapshot file: " + snapshotFile, e).printStackTrace();
             }
+            if (snapshotFile.exists()) {
+                index.put(
+                    snapshotFile.getName(),
+                    new IndexEntry(snapshotFile, snapshot.key, snapshot.getType(), snapshot.size)
+                );
+                writeIndex();
+            }
         }
         snapshotsCache.invalidate(snapshot.key);
+        lastSnapshot = null;
         listCache.clear();
     }
 
-    public void removeSnapshot(Snapshot.Key key) {
-        Optional.ofNullable(readSnapshot(key)).map(Pair::getRight).ifPresent(snapshotFile -> {
+    public synchronized void removeSnapshot(Snapshot.Key key) {
+        Optional.ofNullable(getIndexedFile(key)).ifPresent(snapshotFile -> {
             if (!snapshotFile.delete()) {
-                new IOException("Failed to read the snapshot file: " + snapshotFile).printStackTrace();
+                new IOException("Failed to delete the snapshot file: " + snapshotFile).printStackTrace();
+            } else {
+                index.remove(snapshotFile.getName());
+                writeIndex();
             }
             snapshotsCache.invalidate(key);
+            lastSnapshot = null;
         });
         listCache.clear();
     }
@@ -146,10 +287,88 @@ public class GlobalSavedDataSnapshots {
     @Nullable
     public Snapshot getSnapshot(@Nullable Snapshot.Key key) {
         if (key == null) return null;
-        return snapshotsCache.getUnchecked(key).orElse(null);
+        Snapshot last = lastSnapshot;
+        if (last != null && last.key.equals(key)) {
+            return last;
+        }
+        Snapshot snapshot = snapshotsCache.getUnchecked(key).orElse(null);
+        if (snapshot != null) {
+            lastSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /** @return True if there is a snapshot with the given key. Only reads the index, so this is cheap enough to call
+     *         every frame. */
+    public boolean contains(@Nullable Snapshot.Key key) {
+        return key != null && getIndexedFile(key) != null;
+    }
+
+    /** @return The raw (squished) contents of the snapshot file for the given key, exactly as stored on disk, or null
+     *         if there is no snapshot with the given key. This doesn't deserialize the snapshot, so it is a lot cheaper
+     *         than {@link #getSnapshot(Snapshot.Key)} when the snapshot is just going to be sent somewhere else. */
+    @Nullable
+    public byte[] getSnapshotBytes(@Nullable Snapshot.Key key) {
+        if (key == null) return null;
+        File snapshotFile = getIndexedFile(key);
+        if (snapshotFile == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(snapshotFile.toPath());
+        } catch (IOException e) {
+            new IOException("Failed to read the snapshot " + snapshotFile, e).printStackTrace();
+            return null;
+        }
     }
 
     public List<Snapshot.Key> getList() {
         return listCache.get();
     }
+
+    private static final class IndexEntry {
+        final String fileName;
+        final long length;
+        final long lastModified;
+        final Snapshot.Key key;
+        final EnumSnapshotType type;
+        final BlockPos size;
+
+        IndexEntry(File file, Snapshot.Key key, EnumSnapshotType type, BlockPos size) {
+            this.fileName = file.getName();
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+            this.key = key;
+            this.type = type;
+            this.size = size;
+        }
+
+        IndexEntry(NBTTagCompound nbt) {
+            fileName = nbt.getString("file");
+            length = nbt.getLong("length");
+            key = new Snapshot.Key(nbt.getCompoundTag("key"));
+            EnumSnapshotType readType = NBTUtilBC.readEnum(nbt.getTag("type"), EnumSnapshotType.class);
+            // An entry with an unknown type never matches its file, so the file just gets indexed again
+            lastModified = readType == null ? -1 : nbt.getLong("lastModified");
+            type = readType == null ? EnumSnapshotType.BLUEPRINT : readType;
+            size = nbt.hasKey("size", Constants.NBT.TAG_COMPOUND)
+                ? NBTUtil.getPosFromTag(nbt.getCompoundTag("size"))
+                : BlockPos.ORIGIN;
+        }
+
+        NBTTagCompound writeToNBT() {
+            NBTTagCompound nbt = new NBTTagCompound();
+            nbt.setString("file", fileName);
+            nbt.setLong("length", length);
+            nbt.setLong("lastModified", lastModified);
+            nbt.setTag("key", key.serializeNBT());
+            nbt.setTag("type", NBTUtilBC.writeEnum(type));
+            nbt.setTag("size", NBTUtil.createPosTag(size));
+            return nbt;
+        }
+
+        boolean matches(File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
 }
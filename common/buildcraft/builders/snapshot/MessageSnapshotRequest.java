@@ -36,7 +36,7 @@ public class MessageSnapshotRequest implements IMessage {
     }
 
     public static final IMessageHandler<MessageSnapshotRequest, MessageSnapshotResponse> HANDLER = (message, ctx) -> {
-        Snapshot snapshot = GlobalSavedDataSnapshots.get(Side.SERVER).getSnapshot(message.key);
-        return snapshot != null ? new MessageSnapshotResponse(snapshot) : null;
+        byte[] data = GlobalSavedDataSnapshots.get(Side.SERVER).getSnapshotBytes(message.key);
+        return data != null ? new MessageSnapshotResponse(data) : null;
     };
 }
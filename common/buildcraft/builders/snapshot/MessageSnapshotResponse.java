@@ -9,49 +9,37 @@ package buildcraft.builders.snapshot;
 import java.io.IOException;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
-
-import net.minecraft.nbt.CompressedStreamTools;
 
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 
+import buildcraft.lib.nbt.NbtSquisher;
+
+/** Sends a snapshot to the client as the squished bytes that it is stored as on disk, so the server never has to
+ * deserialize (or re-serialize) a snapshot just to send it. */
 public class MessageSnapshotResponse implements IMessage {
+    private byte[] data;
     private Snapshot snapshot;
 
     @SuppressWarnings("unused")
     public MessageSnapshotResponse() {
     }
 
-    public MessageSnapshotResponse(Snapshot snapshot) {
-        this.snapshot = snapshot;
+    /** @param data The squished snapshot, as returned by {@link GlobalSavedDataSnapshots#getSnapshotBytes}. */
+    public MessageSnapshotResponse(byte[] data) {
+        this.data = data;
     }
 
     @Override
     public void toBytes(ByteBuf buf) {
-
-//        byte[] bytes = NbtSquisher.squishBuildCraftV1(Snapshot.writeToNBT(snapshot));
-//        buf.writeInt(bytes.length);
-//        buf.writeBytes(bytes);
-//        try {
-//            CompressedStreamTools.write(Snapshot.writeToNBT(snapshot), new ByteBufOutputStream(buf));
-//        } catch (IOException e) {
-//            throw new RuntimeException(e);
-//        }
-        try {
-            CompressedStreamTools.writeCompressed(Snapshot.writeToNBT(snapshot), new ByteBufOutputStream(buf));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        buf.writeInt(data.length);
+        buf.writeBytes(data);
     }
 
     @Override
     public void fromBytes(ByteBuf buf) {
         try {
-//            snapshot = Snapshot.readFromNBT(NbtSquisher.expand(buf.readBytes(buf.readInt()).array()));
-//            snapshot = Snapshot.readFromNBT(CompressedStreamTools.read(new ByteBufInputStream(buf), NBTSizeTracker.INFINITE));
-            snapshot = Snapshot.readFromNBT(CompressedStreamTools.readCompressed(new ByteBufInputStream(buf)));
+            snapshot = Snapshot.readFromNBT(NbtSquisher.expand(buf.readSlice(buf.readInt())));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
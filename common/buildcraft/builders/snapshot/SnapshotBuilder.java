@@ -9,27 +9,27 @@ package buildcraft.builders.snapshot;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import javax.annotation.Nonnull;
-
 import com.google.common.collect.ImmutableList;
 
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.world.IWorldEventListener;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 
@@ -37,12 +37,13 @@ import net.minecraftforge.common.util.INBTSerializable;
 
 import buildcraft.api.mj.MjAPI;
 
+import buildcraft.lib.block.ILocalBlockUpdateSubscriber;
+import buildcraft.lib.block.LocalBlockUpdateNotifier;
 import buildcraft.lib.misc.BlockUtil;
 import buildcraft.lib.misc.MessageUtil;
 import buildcraft.lib.misc.NBTUtilBC;
 import buildcraft.lib.misc.VecUtil;
 import buildcraft.lib.net.PacketBufferBC;
-import buildcraft.lib.world.WorldEventListenerAdapter;
 
 public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> implements INBTSerializable<NBTTagCompound> {
     private static final int MAX_QUEUE_SIZE = 16;
@@ -57,21 +58,33 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
     private static final byte REQUIRED_UNKNOWN = 0;
     private static final byte REQUIRED_TRUE = 1;
     private static final byte REQUIRED_FALSE = 2;
+    /** The number of blocks checked per tick by the sweep, until every block has been checked at least once. */
     private static final int CHECKS_PER_TICK = 10;
+    /** The number of blocks checked per tick by the sweep once every block has been checked. Changes are normally
+     * picked up from block updates, so this only catches changes that didn't cause one. */
+    private static final int BACKGROUND_CHECKS_PER_TICK = 1;
+    /** The maximum number of blocks from {@link #dirtyQueue} that are checked per tick. */
+    private static final int MAX_DIRTY_CHECKS_PER_TICK = 256;
     private static final long MAX_POWER_PER_TICK = 256 * MjAPI.MJ;
 
     protected final T tile;
-    private final IWorldEventListener worldEventListener = new WorldEventListenerAdapter() {
+    private final ILocalBlockUpdateSubscriber blockUpdateSubscriber = new ILocalBlockUpdateSubscriber() {
+        @Override
+        public BlockPos getUpdateMin() {
+            Snapshot.BuildingInfo info = getBuildingInfo();
+            return info == null ? tile.getBuilderPos() : info.box.min();
+        }
+
+        @Override
+        public BlockPos getUpdateMax() {
+            Snapshot.BuildingInfo info = getBuildingInfo();
+            return info == null ? tile.getBuilderPos() : info.box.max();
+        }
+
         @Override
-        public void notifyBlockUpdate(@Nonnull World world,
-                                      @Nonnull BlockPos pos,
-                                      @Nonnull IBlockState oldState,
-                                      @Nonnull IBlockState newState,
-                                      int flags) {
+        public void setWorldUpdated(World world, BlockPos pos, IBlockState oldState, IBlockState newState, int flags) {
             if (tile.getBuilder() == SnapshotBuilder.this && getBuildingInfo() != null && getBuildingInfo().box.contains(pos)) {
-                if (check(pos)) {
-                    afterChecks();
-                }
+                markDirty(pos);
             }
         }
     };
@@ -89,7 +102,26 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
     private int[] breakOrder;
     private int[] placeOrder;
     private int[] checkOrder;
+    /** Inverse of {@link #breakOrder}: maps a block index to its position in the break order. */
+    private int[] breakOrderPositions;
+    /** Inverse of {@link #placeOrder}: maps a block index to its position in the place order. */
+    private int[] placeOrderPositions;
+    /** Positions in {@link #breakOrder} of every block that needs breaking, but doesn't have a task yet. */
+    private BitSet breakPending;
+    /** Positions in {@link #placeOrder} of every block that needs placing, but doesn't have a task yet. */
+    private BitSet placePending;
+    /** Block indexes that currently have a break task. */
+    private BitSet breakQueued;
+    /** Block indexes that currently have a place task. */
+    private BitSet placeQueued;
+    private int breakPendingCount;
+    private int placePendingCount;
     private int currentCheckIndex;
+    /** True if the sweep has gone through every block since the snapshot was set up. */
+    private boolean firstSweepDone;
+    /** Block indexes that have changed in the world, and need to be checked again. */
+    private final IntArrayFIFOQueue dirtyQueue = new IntArrayFIFOQueue();
+    private BitSet dirty;
     public Vec3d robotPos = null;
     public Vec3d prevRobotPos = null;
     public int leftToBreak = 0;
@@ -104,13 +136,15 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
 
     public void validate() {
         if (!tile.getWorldBC().isRemote) {
-            tile.getWorldBC().addEventListener(worldEventListener);
+            LocalBlockUpdateNotifier.instance(tile.getWorldBC())
+                .registerSubscriberForUpdateNotifications(blockUpdateSubscriber);
         }
     }
 
     public void invalidate() {
         if (!tile.getWorldBC().isRemote) {
-            tile.getWorldBC().removeEventListener(worldEventListener);
+            LocalBlockUpdateNotifier.instance(tile.getWorldBC())
+                .removeSubscriberFromUpdateNotifications(blockUpdateSubscriber);
         }
     }
 
@@ -168,6 +202,9 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
 
     public void updateSnapshot() {
         tile.getWorldBC().profiler.startSection("init");
+        if (!tile.getWorldBC().isRemote) {
+            LocalBlockUpdateNotifier.instance(tile.getWorldBC()).updateSubscriber(blockUpdateSubscriber);
+        }
         checkResults = new byte[
             getBuildingInfo().box.size().getX() *
                 getBuildingInfo().box.size().getY() *
@@ -204,9 +241,88 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
             )))
             .mapToInt(this::posToIndex)
             .toArray();
+        breakOrderPositions = invertOrder(breakOrder);
+        placeOrderPositions = invertOrder(placeOrder);
+        breakPending = new BitSet(breakOrder.length);
+        placePending = new BitSet(placeOrder.length);
+        breakQueued = new BitSet(checkResults.length);
+        placeQueued = new BitSet(checkResults.length);
+        breakPendingCount = 0;
+        placePendingCount = 0;
+        dirty = new BitSet(checkResults.length);
+        dirtyQueue.clear();
+        currentCheckIndex = 0;
+        firstSweepDone = false;
         tile.getWorldBC().profiler.endSection();
     }
 
+    /** Queues the given position to be checked on the next tick. */
+    private void markDirty(BlockPos blockPos) {
+        if (dirty == null) {
+            return;
+        }
+        int i = posToIndex(blockPos);
+        if (!dirty.get(i)) {
+            dirty.set(i);
+            dirtyQueue.enqueue(i);
+        }
+    }
+
+    private static int[] invertOrder(int[] order) {
+        int[] positions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            positions[order[i]] = i;
+        }
+        return positions;
+    }
+
+    /** Updates the pending state of a single block, after its check result or queued state has changed. */
+    private void updatePending(int i) {
+        if (breakPending == null) {
+            return;
+        }
+        boolean shouldBreak = checkResults[i] == CHECK_RESULT_TO_BREAK && !breakQueued.get(i);
+        int breakPosition = breakOrderPositions[i];
+        if (shouldBreak != breakPending.get(breakPosition)) {
+            breakPending.set(breakPosition, shouldBreak);
+            breakPendingCount += shouldBreak ? 1 : -1;
+        }
+        boolean shouldPlace = checkResults[i] == CHECK_RESULT_TO_PLACE && !placeQueued.get(i);
+        int placePosition = placeOrderPositions[i];
+        if (shouldPlace != placePending.get(placePosition)) {
+            placePending.set(placePosition, shouldPlace);
+            placePendingCount += shouldPlace ? 1 : -1;
+        }
+    }
+
+    /** Recomputes every pending and queued state from scratch, after the check results or tasks have been replaced
+     * wholesale. */
+    private void rebuildPending() {
+        breakPending.clear();
+        placePending.clear();
+        breakQueued.clear();
+        placeQueued.clear();
+        breakPendingCount = 0;
+        placePendingCount = 0;
+        breakTasks.forEach(breakTask -> breakQueued.set(posToIndex(breakTask.pos)));
+        placeTasks.forEach(placeTask -> placeQueued.set(posToIndex(placeTask.pos)));
+        for (int i = 0; i < checkResults.length; i++) {
+            updatePending(i);
+        }
+    }
+
+    private void removeBreakTask(BreakTask breakTask) {
+        int i = posToIndex(breakTask.pos);
+        breakQueued.clear(i);
+        updatePending(i);
+    }
+
+    private void removePlaceTask(PlaceTask placeTask) {
+        int i = posToIndex(placeTask.pos);
+        placeQueued.clear(i);
+        updatePending(i);
+    }
+
     public void resourcesChanged() {
         Arrays.fill(requiredCache, REQUIRED_UNKNOWN);
     }
@@ -225,7 +341,18 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
         breakOrder = null;
         placeOrder = null;
         checkOrder = null;
+        breakOrderPositions = null;
+        placeOrderPositions = null;
+        breakPending = null;
+        placePending = null;
+        breakQueued = null;
+        placeQueued = null;
+        breakPendingCount = 0;
+        placePendingCount = 0;
+        dirty = null;
+        dirtyQueue.clear();
         currentCheckIndex = 0;
+        firstSweepDone = false;
         robotPos = null;
         prevRobotPos = null;
         leftToBreak = 0;
@@ -276,12 +403,24 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
 
         boolean checkResultsChanged = false;
 
-        tile.getWorldBC().profiler.startSection("scan");
-        for (int i = 0; i < CHECKS_PER_TICK; i++) {
+        tile.getWorldBC().profiler.startSection("dirty");
+        for (int checks = 0; checks < MAX_DIRTY_CHECKS_PER_TICK && !dirtyQueue.isEmpty(); checks++) {
+            int i = dirtyQueue.dequeueInt();
+            dirty.clear(i);
+            if (check(indexToPos(i))) {
+                checkResultsChanged = true;
+            }
+        }
+        tile.getWorldBC().profiler.endStartSection("scan");
+        int sweepChecks = firstSweepDone ? BACKGROUND_CHECKS_PER_TICK : CHECKS_PER_TICK;
+        for (int i = 0; i < sweepChecks; i++) {
             if (check(indexToPos(currentCheckIndex))) {
                 checkResultsChanged = true;
             }
             currentCheckIndex = (currentCheckIndex + 1) % checkOrder.length;
+            if (currentCheckIndex == 0) {
+                firstSweepDone = true;
+            }
         }
         tile.getWorldBC().profiler.endSection();
 
@@ -291,6 +430,7 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
             BreakTask breakTask = iterator.next();
             if (checkResults[posToIndex(breakTask.pos)] == CHECK_RESULT_CORRECT) {
                 iterator.remove();
+                removeBreakTask(breakTask);
                 cancelBreakTask(breakTask);
             }
         }
@@ -300,6 +440,7 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
             PlaceTask placeTask = iterator.next();
             if (checkResults[posToIndex(placeTask.pos)] == CHECK_RESULT_CORRECT) {
                 iterator.remove();
+                removePlaceTask(placeTask);
                 cancelPlaceTask(placeTask);
             }
         }
@@ -311,66 +452,56 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
         tile.getWorldBC().profiler.startSection("add tasks");
         tile.getWorldBC().profiler.startSection("break");
         if (tile.canExcavate()) {
-            Set<Integer> breakTasksIndexes = breakTasks.stream()
-                .map(breakTask -> posToIndex(breakTask.pos))
-                .collect(Collectors.toSet());
-            int[] blocks = Arrays.stream(breakOrder)
-                .filter(i -> checkResults[i] == CHECK_RESULT_TO_BREAK && !breakTasksIndexes.contains(i))
-                .toArray();
-            leftToBreak = blocks.length;
-            if (blocks.length != 0) {
+            leftToBreak = breakPendingCount;
+            if (leftToBreak != 0) {
                 isDone = false;
             }
-            Arrays.stream(blocks)
-                .mapToObj(this::indexToPos)
-                .filter(blockPos -> BlockUtil.getFluidWithFlowing(tile.getWorldBC(), blockPos) == null)
-                .map(blockPos ->
-                    new BreakTask(
-                        blockPos,
-                        0
-                    )
-                )
-                .limit(MAX_QUEUE_SIZE - breakTasks.size())
-                .forEach(breakTasks::add);
+            for (int position = breakPending.nextSetBit(0);
+                 position >= 0 && breakTasks.size() < MAX_QUEUE_SIZE;
+                 position = breakPending.nextSetBit(position + 1)) {
+                int i = breakOrder[position];
+                BlockPos blockPos = indexToPos(i);
+                if (BlockUtil.getFluidWithFlowing(tile.getWorldBC(), blockPos) == null) {
+                    breakTasks.add(new BreakTask(blockPos, 0));
+                    breakQueued.set(i);
+                    updatePending(i);
+                }
+            }
         } else {
             leftToBreak = 0;
         }
         tile.getWorldBC().profiler.endSection();
         tile.getWorldBC().profiler.startSection("place");
-        {
-            Set<Integer> placeTasksIndexes = placeTasks.stream()
-                .map(placeTask -> posToIndex(placeTask.pos))
-                .collect(Collectors.toSet());
-            int[] blocks = Arrays.stream(placeOrder)
-                .filter(i -> checkResults[i] == CHECK_RESULT_TO_PLACE && !placeTasksIndexes.contains(i))
-                .toArray();
-            leftToPlace = blocks.length;
-            if (!tile.canExcavate() || breakTasks.isEmpty()) {
-                if (blocks.length != 0) {
-                    isDone = false;
+        leftToPlace = placePendingCount;
+        if (!tile.canExcavate() || breakTasks.isEmpty()) {
+            if (leftToPlace != 0) {
+                isDone = false;
+            }
+            int toConsider = MAX_QUEUE_SIZE - placeTasks.size();
+            for (int position = placePending.nextSetBit(0);
+                 position >= 0 && toConsider > 0;
+                 position = placePending.nextSetBit(position + 1)) {
+                int i = placeOrder[position];
+                if (requiredCache[i] == REQUIRED_UNKNOWN) {
+                    requiredCache[i] = hasEnoughToPlaceItems(indexToPos(i)) ? REQUIRED_TRUE : REQUIRED_FALSE;
+                }
+                if (requiredCache[i] != REQUIRED_TRUE) {
+                    continue;
+                }
+                BlockPos blockPos = indexToPos(i);
+                if (!isReadyToPlace(blockPos)) {
+                    continue;
+                }
+                toConsider--;
+                if (!canPlace(blockPos)) {
+                    continue;
+                }
+                PlaceTask placeTask = new PlaceTask(blockPos, getToPlaceItems(blockPos), 0);
+                if (placeTask.items != null) {
+                    placeTasks.add(placeTask);
+                    placeQueued.set(i);
+                    updatePending(i);
                 }
-                Arrays.stream(blocks)
-                    .filter(i -> {
-                        if (requiredCache[i] != REQUIRED_UNKNOWN) {
-                            return requiredCache[i] == REQUIRED_TRUE;
-                        }
-                        boolean has = hasEnoughToPlaceItems(indexToPos(i));
-                        requiredCache[i] = has ? REQUIRED_TRUE : REQUIRED_FALSE;
-                        return has;
-                    })
-                    .mapToObj(this::indexToPos)
-                    .filter(this::isReadyToPlace)
-                    .limit(MAX_QUEUE_SIZE - placeTasks.size())
-                    .filter(this::canPlace)
-                    .map(blockPos ->
-                        new PlaceTask(
-                            blockPos,
-                            getToPlaceItems(blockPos),
-                            0
-                        )
-                    )
-                    .filter(placeTask -> placeTask.items != null)
-                    .forEach(placeTasks::add);
             }
         }
         tile.getWorldBC().profiler.endSection();
@@ -417,10 +548,11 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
                     if (!stacks.isPresent()) {
                         cancelBreakTask(breakTask);
                     }
+                    iterator.remove();
+                    removeBreakTask(breakTask);
                     if (check(breakTask.pos)) {
                         checkResultsChanged = true;
                     }
-                    iterator.remove();
                 } else {
                     tile.getWorldBC().profiler.startSection("work");
                     tile.getWorldBC().sendBlockBreakProgress(
@@ -451,10 +583,11 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
                         cancelPlaceTask(placeTask);
                     }
                     tile.getWorldBC().profiler.endSection();
+                    iterator.remove();
+                    removePlaceTask(placeTask);
                     if (check(placeTask.pos)) {
                         checkResultsChanged = true;
                     }
-                    iterator.remove();
                 }
             }
         }
@@ -498,12 +631,22 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
                 checkResults[i] = CHECK_RESULT_TO_BREAK;
             }
         }
-        return prev != checkResults[i];
+        if (prev != checkResults[i]) {
+            updatePending(i);
+            return true;
+        }
+        return false;
     }
 
     protected void afterChecks() {
     }
 
+    public void getDebugInfo(List<String> left, List<String> right, EnumFacing side) {
+        left.add("pending dirty = " + dirtyQueue.size());
+        left.add("sweep = " + currentCheckIndex + (firstSweepDone ? " (background)" : " (first pass)"));
+        left.add("pending break = " + breakPendingCount + ", place = " + placePendingCount);
+    }
+
     public void writeToByteBuf(PacketBufferBC buffer) {
         buffer.writeInt(breakTasks.size());
         breakTasks.forEach(breakTask -> breakTask.writePayload(buffer));
@@ -529,18 +672,24 @@ public abstract class SnapshotBuilder<T extends ITileForSnapshotBuilder> impleme
         nbt.setTag("breakTasks", NBTUtilBC.writeCompoundList(breakTasks.stream().map(BreakTask::writeToNBT)));
         nbt.setTag("placeTasks", NBTUtilBC.writeCompoundList(placeTasks.stream().map(PlaceTask::writeToNBT)));
         nbt.setInteger("currentCheckIndex", currentCheckIndex);
+        nbt.setBoolean("firstSweepDone", firstSweepDone);
         return nbt;
     }
 
     @Override
     public void deserializeNBT(NBTTagCompound nbt) {
         updateSnapshot();
-        checkResults = nbt.getByteArray("checkResults");
+        byte[] savedCheckResults = nbt.getByteArray("checkResults");
+        if (savedCheckResults.length == checkResults.length) {
+            checkResults = savedCheckResults;
+        }
         breakTasks.clear();
         NBTUtilBC.readCompoundList(nbt.getTag("breakTasks")).map(BreakTask::new).forEach(breakTasks::add);
         placeTasks.clear();
         NBTUtilBC.readCompoundList(nbt.getTag("placeTasks")).map(PlaceTask::new).forEach(placeTasks::add);
         currentCheckIndex = nbt.getInteger("currentCheckIndex");
+        firstSweepDone = nbt.getBoolean("firstSweepDone");
+        rebuildPending();
     }
 
     public class BreakTask {
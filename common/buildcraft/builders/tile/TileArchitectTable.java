@@ -50,6 +50,7 @@ import buildcraft.lib.misc.data.Box;
 import buildcraft.lib.misc.data.BoxIterator;
 import buildcraft.lib.misc.data.EnumAxisOrder;
 import buildcraft.lib.misc.data.IdAllocator;
+import buildcraft.lib.misc.data.PackedIntArray;
 import buildcraft.lib.net.PacketBufferBC;
 import buildcraft.lib.tile.TileBC_Neptune;
 import buildcraft.lib.tile.item.ItemHandlerManager.EnumAccess;
@@ -98,7 +99,7 @@ public class TileArchitectTable extends TileBC_Neptune implements ITickable, IDe
     public boolean markerBox = false;
     private BitSet templateScannedBlocks;
     private final List<ISchematicBlock> blueprintScannedPalette = new ArrayList<>();
-    private int[] blueprintScannedData;
+    private PackedIntArray blueprintScannedData;
     private final List<ISchematicEntity> blueprintScannedEntities = new ArrayList<>();
     private BoxIterator boxIterator;
     private boolean isValid = false;
@@ -209,7 +210,7 @@ public class TileArchitectTable extends TileBC_Neptune implements ITickable, IDe
         if (templateScannedBlocks == null || blueprintScannedData == null) {
             boxIterator = new BoxIterator(box, EnumAxisOrder.XZY.getMinToMaxOrder(), true);
             templateScannedBlocks = new BitSet(Snapshot.getDataSize(size));
-            blueprintScannedData = new int[Snapshot.getDataSize(size)];
+            blueprintScannedData = new PackedIntArray(Snapshot.getDataSize(size));
         }
 
         // Read from world
@@ -225,7 +226,7 @@ public class TileArchitectTable extends TileBC_Neptune implements ITickable, IDe
                 index = blueprintScannedPalette.size();
                 blueprintScannedPalette.add(schematicBlock);
             }
-            blueprintScannedData[Snapshot.posToIndex(box.size(), schematicPos)] = index;
+            blueprintScannedData.set(Snapshot.posToIndex(box.size(), schematicPos), index);
         }
 
         createAndSendMessage(NET_SCAN, buffer -> MessageUtil.writeBlockPos(buffer, worldScanPos));
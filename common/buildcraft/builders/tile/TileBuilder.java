@@ -410,6 +410,7 @@ public class TileBuilder extends TileBC_Neptune
         left.add("basePoses = " + (basePoses == null ? "null" : basePoses.size()));
         left.add("currentBasePosIndex = " + currentBasePosIndex);
         left.add("isDone = " + isDone);
+        Optional.ofNullable(getBuilder()).ifPresent(builder -> builder.getDebugInfo(left, right, side));
     }
 
     @Override
@@ -40,7 +40,6 @@ import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.world.IWorldEventListener;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 
@@ -57,6 +56,8 @@ import buildcraft.api.mj.MjCapabilityHelper;
 import buildcraft.api.tiles.IDebuggable;
 
 import buildcraft.lib.block.BlockBCBase_Neptune;
+import buildcraft.lib.block.ILocalBlockUpdateSubscriber;
+import buildcraft.lib.block.LocalBlockUpdateNotifier;
 import buildcraft.lib.chunkload.ChunkLoaderManager;
 import buildcraft.lib.chunkload.IChunkLoadingTile;
 import buildcraft.lib.client.render.DetachedRenderer;
@@ -77,11 +78,11 @@ import buildcraft.lib.misc.data.EnumAxisOrder;
 import buildcraft.lib.mj.MjBatteryReceiver;
 import buildcraft.lib.net.PacketBufferBC;
 import buildcraft.lib.tile.TileBC_Neptune;
-import buildcraft.lib.world.WorldEventListenerAdapter;
 
 import buildcraft.builders.BCBuildersBlocks;
 import buildcraft.builders.BCBuildersEventDist;
 import buildcraft.builders.client.render.AdvDebuggerQuarry;
+import buildcraft.core.BCCoreConfig;
 import buildcraft.core.marker.VolumeCache;
 import buildcraft.core.marker.VolumeConnection;
 import buildcraft.core.marker.VolumeSubCache;
@@ -115,10 +116,33 @@ public class TileQuarry extends TileBC_Neptune implements ITickable, IDebuggable
     public Vec3d prevClientDrillPos;
     private long debugPowerRate = 0;
     public List<AxisAlignedBB> collisionBoxes = ImmutableList.of();
-    private final IWorldEventListener worldEventListener = new WorldEventListenerAdapter() {
+    private final ILocalBlockUpdateSubscriber blockUpdateSubscriber = new ILocalBlockUpdateSubscriber() {
         @Override
-        public void notifyBlockUpdate(@Nonnull World world, @Nonnull BlockPos pos, @Nonnull IBlockState oldState, @Nonnull IBlockState newState,
-                                      int flags) {
+        public BlockPos getUpdateMin() {
+            if (!frameBox.isInitialized() || !miningBox.isInitialized()) {
+                return TileQuarry.this.pos;
+            }
+            return new BlockPos(
+                Math.min(frameBox.min().getX(), miningBox.min().getX()),
+                Math.min(frameBox.min().getY(), miningBox.min().getY()),
+                Math.min(frameBox.min().getZ(), miningBox.min().getZ())
+            );
+        }
+
+        @Override
+        public BlockPos getUpdateMax() {
+            if (!frameBox.isInitialized() || !miningBox.isInitialized()) {
+                return TileQuarry.this.pos;
+            }
+            return new BlockPos(
+                Math.max(frameBox.max().getX(), miningBox.max().getX()),
+                Math.max(frameBox.max().getY(), miningBox.max().getY()),
+                Math.max(frameBox.max().getZ(), miningBox.max().getZ())
+            );
+        }
+
+        @Override
+        public void setWorldUpdated(World world, BlockPos pos, IBlockState oldState, IBlockState newState, int flags) {
             if (frameBox.isInitialized() && miningBox.isInitialized()) {
                 if (frameBox.contains(pos)) {
                     check(pos);
@@ -289,7 +313,11 @@ public class TileQuarry extends TileBC_Neptune implements ITickable, IDebuggable
             min = null;
             max = null;
             VolumeSubCache cache = VolumeCache.INSTANCE.getSubCache(getWorld());
-            for (BlockPos markerPos : cache.getAllMarkers()) {
+            // Any volume that the quarry could use has a corner within the maximum marker distance of the area
+            int dist = BCCoreConfig.markerMaxDistance;
+            BlockPos searchMin = areaPos.add(-dist, -dist, -dist);
+            BlockPos searchMax = areaPos.add(dist, dist, dist);
+            for (BlockPos markerPos : cache.getMarkersInBox(searchMin, searchMax)) {
                 TileMarkerVolume marker = (TileMarkerVolume) cache.getMarker(markerPos);
                 if (marker == null) {
                     continue;
@@ -360,6 +388,7 @@ public class TileQuarry extends TileBC_Neptune implements ITickable, IDebuggable
         miningBox.reset();
         miningBox.setMin(new BlockPos(min.getX() + 1, 0, min.getZ() + 1));
         miningBox.setMax(new BlockPos(max.getX() - 1, max.getY() - 1, max.getZ() - 1));
+        LocalBlockUpdateNotifier.instance(world).updateSubscriber(blockUpdateSubscriber);
         updatePoses();
     }
 
@@ -428,7 +457,7 @@ public class TileQuarry extends TileBC_Neptune implements ITickable, IDebuggable
         super.validate();
         BCBuildersEventDist.INSTANCE.validateQuarry(this);
         if (!world.isRemote) {
-            world.addEventListener(worldEventListener);
+            LocalBlockUpdateNotifier.instance(world).registerSubscriberForUpdateNotifications(blockUpdateSubscriber);
         }
     }
 
@@ -437,7 +466,7 @@ public class TileQuarry extends TileBC_Neptune implements ITickable, IDebuggable
         super.invalidate();
         BCBuildersEventDist.INSTANCE.invalidateQuarry(this);
         if (!world.isRemote) {
-            world.removeEventListener(worldEventListener);
+            LocalBlockUpdateNotifier.instance(world).removeSubscriberFromUpdateNotifications(blockUpdateSubscriber);
             ChunkLoaderManager.releaseChunksFor(this);
         }
     }
@@ -29,6 +29,7 @@ import buildcraft.lib.BCLibConfig.TimeGap;
 import buildcraft.lib.config.EnumRestartRequirement;
 import buildcraft.lib.config.FileConfigManager;
 import buildcraft.lib.misc.ConfigUtil;
+import buildcraft.lib.misc.MathUtil;
 import buildcraft.lib.registry.RegistryConfig;
 
 public class BCCoreConfig {
@@ -61,8 +62,10 @@ public class BCCoreConfig {
     private static Property propUseLongLocalizedName;
     private static Property propDisplayTimeGap;
     private static Property propUseSwappableSprites;
+    private static Property propCompileExpressions;
     private static Property propChunkLoadLevel;
     private static Property propItemRenderRotation;
+    private static Property propItemRenderLodDistance;
     private static Property propItemLifespan;
     private static Property propPumpsConsumeWater;
     private static Property propMarkerMaxDistance;
@@ -150,6 +153,12 @@ public class BCCoreConfig {
                 + "when changing config options such as colour blind mode.");
         game.setTo(propUseSwappableSprites);
 
+        propCompileExpressions = config.get(general, "compileExpressions", false);
+        propCompileExpressions.setComment(
+            "Compile the expressions used by models and guis into bytecode, rather than evaluating them directly. "
+                + "This is experimental, so disable it again if you get errors when models or guis are loaded.");
+        game.setTo(propCompileExpressions);
+
         propItemRenderRotation =
             config.get(display, "itemRenderRotation", RenderRotation.ENABLED.name().toLowerCase(Locale.ROOT));
         propItemRenderRotation.setComment(
@@ -157,6 +166,12 @@ public class BCCoreConfig {
                 + "'disabled' for no rotation, or 'horizontals_only' to only rotate items when going horizontally.");
         ConfigUtil.setEnumProperty(propItemRenderRotation, RenderRotation.values());
 
+        propItemRenderLodDistance = config.get(display, "itemRenderLodDistance", 24);
+        propItemRenderLodDistance.setMinValue(0).setMaxValue(256);
+        propItemRenderLodDistance.setComment(
+            "The distance (in blocks) beyond which items travelling through pipes are drawn as simple cubes, "
+                + "rather than with their full model. Set to 0 to always use the full model.");
+
         propChunkLoadLevel =
             config.get(general, "chunkLoadLevel", ChunkLoaderLevel.SELF_TILES.name().toLowerCase(Locale.ROOT));
         propChunkLoadLevel.setComment("");
@@ -236,11 +251,13 @@ public class BCCoreConfig {
         BCLibConfig.itemLifespan = propItemLifespan.getInt();
         pumpsConsumeWater = propPumpsConsumeWater.getBoolean();
         markerMaxDistance = propMarkerMaxDistance.getInt();
-        pumpMaxDistance = propPumpMaxDistance.getInt();
+        // Forge doesn't enforce the min and max values, and pumps save their fluid bodies with 9 bits per axis
+        pumpMaxDistance = MathUtil.clamp(propPumpMaxDistance.getInt(), 16, 128);
         BCLibConfig.colourBlindMode = propColourBlindMode.getBoolean();
         BCLibConfig.displayTimeGap = ConfigUtil.parseEnumForConfig(propDisplayTimeGap, TimeGap.TICKS);
         BCLibConfig.rotateTravelingItems =
             ConfigUtil.parseEnumForConfig(propItemRenderRotation, RenderRotation.ENABLED);
+        BCLibConfig.itemRenderLodDistance = MathUtil.clamp(propItemRenderLodDistance.getInt(), 0, 256);
 
         if (EnumRestartRequirement.WORLD.hasBeenRestarted(restarted)) {
             BCLibConfig.chunkLoadingLevel =
@@ -250,6 +267,7 @@ public class BCCoreConfig {
                 worldGen = propWorldGen.getBoolean();
                 worldGenWaterSpring = propWorldGenWaterSpring.getBoolean();
                 BCLibConfig.useSwappableSprites = propUseSwappableSprites.getBoolean();
+                BCLibConfig.compileExpressions = propCompileExpressions.getBoolean();
             }
         }
         BCLibConfig.refreshConfigs();
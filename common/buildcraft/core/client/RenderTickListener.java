@@ -48,6 +48,7 @@ import buildcraft.lib.misc.StackUtil;
 import buildcraft.lib.misc.VecUtil;
 import buildcraft.lib.misc.data.Box;
 
+import buildcraft.core.BCCoreConfig;
 import buildcraft.core.BCCoreItems;
 import buildcraft.core.item.ItemMapLocation;
 import buildcraft.core.item.ItemMarkerConnector;
@@ -219,7 +220,12 @@ public class RenderTickListener {
         Profiler profiler = Minecraft.getMinecraft().mcProfiler;
         profiler.startSection("compute");
         Set<LaserData_BC8> toRender = new HashSet<>();
-        for (final BlockPos a : cache.getAllMarkers()) {
+        // Each pair is only rendered from one end, so a visible line can have that end up to two line lengths further
+        // away than the render distance
+        int renderDistance = Minecraft.getMinecraft().gameSettings.renderDistanceChunks * 16;
+        double searchDistance = renderDistance + 2 * BCCoreConfig.markerMaxDistance;
+        BlockPos playerPos = new BlockPos(player);
+        for (final BlockPos a : cache.getMarkersWithin(playerPos, searchDistance)) {
             for (final BlockPos b : cache.getValidConnections(a)) {
                 if (a.toLong() > b.toLong()) {
                     // Only render each pair once
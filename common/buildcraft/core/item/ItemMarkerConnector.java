@@ -33,6 +33,7 @@ import buildcraft.lib.misc.PositionUtil.Line;
 import buildcraft.lib.misc.PositionUtil.LineSkewResult;
 import buildcraft.lib.misc.VecUtil;
 
+import buildcraft.core.BCCoreConfig;
 import buildcraft.core.marker.volume.Addon;
 import buildcraft.core.marker.volume.EnumAddonSlot;
 import buildcraft.core.marker.volume.Lock;
@@ -62,7 +63,11 @@ public class ItemMarkerConnector extends ItemBC_Neptune {
         MarkerLineInteraction best = null;
         Vec3d playerPos = player.getPositionVector().addVector(0, player.getEyeHeight(), 0);
         Vec3d playerLook = player.getLookVec();
-        for (BlockPos marker : cache.getAllMarkers()) {
+        // The player can only interact with lines that pass within 3 blocks of them, and lines can't be longer than the
+        // maximum marker distance
+        double searchDistance = BCCoreConfig.markerMaxDistance + 4;
+        BlockPos playerBlock = new BlockPos(playerPos);
+        for (BlockPos marker : cache.getMarkersWithin(playerBlock, searchDistance)) {
             ImmutableList<BlockPos> possibles = cache.getValidConnections(marker);
             for (BlockPos possible : possibles) {
                 MarkerLineInteraction interaction = new MarkerLineInteraction(marker, possible, playerPos, playerLook);
@@ -71,14 +71,10 @@ public class PathSubCache extends MarkerSubCache<PathConnection> {
     @Override
     public ImmutableList<BlockPos> getValidConnections(BlockPos from) {
         ImmutableList.Builder<BlockPos> list = ImmutableList.builder();
-        final int maxLengthSquared = BCCoreConfig.markerMaxDistance * BCCoreConfig.markerMaxDistance;
-        for (BlockPos pos : getAllMarkers()) {
+        for (BlockPos pos : getMarkersWithin(from, BCCoreConfig.markerMaxDistance)) {
             if (pos.equals(from)) {
                 continue;
             }
-            if (pos.distanceSq(from) > maxLengthSquared) {
-                continue;
-            }
             if (canConnect(from, pos) || canConnect(pos, from)) {
                 list.add(pos);
             }
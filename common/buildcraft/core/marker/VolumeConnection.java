@@ -29,6 +29,8 @@ public class VolumeConnection extends MarkerConnection<VolumeConnection> {
 
     private final Set<BlockPos> makeup = new HashSet<>();
     private final Box box = new Box();
+    /** The axes that the makeup is connected along, recomputed whenever the makeup changes. */
+    private final EnumSet<Axis> connectedAxis = EnumSet.noneOf(EnumFacing.Axis.class);
 
     public static boolean tryCreateConnection(VolumeSubCache subCache, BlockPos from, BlockPos to) {
         if (canCreateConnection(subCache, from, to)) {
@@ -84,7 +86,7 @@ public class VolumeConnection extends MarkerConnection<VolumeConnection> {
     }
 
     public boolean canAddMarker(BlockPos to) {
-        Set<Axis> taken = getConnectedAxis();
+        Set<Axis> taken = connectedAxis;
         for (BlockPos from : makeup) {
             EnumFacing direct = PositionUtil.getDirectFacingOffset(from, to);
             if (direct != null && !taken.contains(direct.getAxis())) {
@@ -98,6 +100,7 @@ public class VolumeConnection extends MarkerConnection<VolumeConnection> {
         if (canMergeWith(other)) {
             makeup.addAll(other.makeup);
             other.makeup.clear();
+            other.createBox();
             createBox();
             subCache.refreshConnection(other);
             subCache.refreshConnection(this);
@@ -107,8 +110,8 @@ public class VolumeConnection extends MarkerConnection<VolumeConnection> {
     }
 
     public boolean canMergeWith(VolumeConnection other) {
-        EnumSet<Axis> us = getConnectedAxis();
-        EnumSet<Axis> them = other.getConnectedAxis();
+        EnumSet<Axis> us = connectedAxis;
+        EnumSet<Axis> them = other.connectedAxis;
         if (us.size() != 1 || them.size() != 1) {
             return false;
         }
@@ -129,16 +132,7 @@ public class VolumeConnection extends MarkerConnection<VolumeConnection> {
     }
 
     public EnumSet<Axis> getConnectedAxis() {
-        EnumSet<Axis> taken = EnumSet.noneOf(EnumFacing.Axis.class);
-        for (BlockPos a : getMarkerPositions()) {
-            for (BlockPos b : getMarkerPositions()) {
-                EnumFacing offset = PositionUtil.getDirectFacingOffset(a, b);
-                if (offset != null) {
-                    taken.add(offset.getAxis());
-                }
-            }
-        }
-        return taken;
+        return EnumSet.copyOf(connectedAxis);
     }
 
     @Override
@@ -151,6 +145,15 @@ public class VolumeConnection extends MarkerConnection<VolumeConnection> {
         for (BlockPos p : makeup) {
             box.extendToEncompass(p);
         }
+        connectedAxis.clear();
+        for (BlockPos a : makeup) {
+            for (BlockPos b : makeup) {
+                EnumFacing offset = PositionUtil.getDirectFacingOffset(a, b);
+                if (offset != null) {
+                    connectedAxis.add(offset.getAxis());
+                }
+            }
+        }
     }
 
     public Box getBox() {
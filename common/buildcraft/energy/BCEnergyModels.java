@@ -110,7 +110,7 @@ public class BCEnergyModels {
 
     private static MutableQuad[] getEngineQuads(ModelHolderVariable model, TileEngineBase_BC8 tile,
         float partialTicks) {
-        ENGINE_PROGRESS.value = tile.getProgressClient(partialTicks);
+        ENGINE_PROGRESS.value = tile.getProgressClientModel(partialTicks);
         ENGINE_STAGE.value = tile.getPowerStage();
         ENGINE_FACING.value = tile.getCurrentFacing();
         if (tile.clientModelData.hasNoNodes()) {
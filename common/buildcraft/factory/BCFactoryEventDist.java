@@ -7,12 +7,16 @@
 package buildcraft.factory;
 
 import net.minecraftforge.client.event.TextureStitchEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.WorldTickEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
 import buildcraft.factory.client.render.RenderMiningWell;
 import buildcraft.factory.client.render.RenderPump;
+import buildcraft.factory.tile.HeatExchangeStructureManager;
 
 public enum BCFactoryEventDist {
     INSTANCE;
@@ -23,4 +27,16 @@ public enum BCFactoryEventDist {
         RenderPump.textureStitchPost();
         RenderMiningWell.textureStitchPost();
     }
+
+    @SubscribeEvent
+    public void worldTick(WorldTickEvent event) {
+        if (event.phase == Phase.END) {
+            HeatExchangeStructureManager.onWorldPostTick(event.world);
+        }
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        HeatExchangeStructureManager.onWorldUnload(event.getWorld());
+    }
 }
@@ -79,7 +79,7 @@ public class BlockFloodGate extends BlockBCTile_Neptune {
                             if (!floodGate.openSides.remove(side)) {
                                 floodGate.openSides.add(side);
                             }
-                            floodGate.queue.clear();
+                            floodGate.clearQueue();
                             floodGate.sendNetworkUpdate(TileBC_Neptune.NET_RENDER_DATA);
                             return true;
                         }
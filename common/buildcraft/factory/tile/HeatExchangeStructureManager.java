@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.factory.tile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import net.minecraftforge.fluids.FluidStack;
+
+import buildcraft.lib.fluid.Tank;
+
+import buildcraft.factory.tile.TileHeatExchange.ExchangeSection;
+import buildcraft.factory.tile.TileHeatExchange.ExchangeSectionEnd;
+import buildcraft.factory.tile.TileHeatExchange.ExchangeSectionStart;
+
+/** Forms heat exchangers into structures, on the server. Exchangers ask to be (re)formed whenever they are loaded or a
+ * horizontal neighbour changes, and every request is handled once at the end of the world tick. Every row of
+ * exchangers is only scanned once per tick, no matter how many of its exchangers asked, so loading a chunk full of
+ * exchangers doesn't scan each row once per exchanger.
+ * <p>
+ * As the start section of a structure saves how many middle sections it has, a structure that is loaded in the same
+ * shape that it was saved in is kept as-is, and nothing is sent to the client. Otherwise the start and end sections of
+ * the row are kept (or created), and the fluids of any other sections in the row are merged into them. If the fluids
+ * can't be merged without losing any then the row is left unformed and tried again later. */
+public final class HeatExchangeStructureManager {
+    public static final int MIN_LENGTH = 3;
+    public static final int MAX_LENGTH = 5;
+    /** How long to wait before trying to form a row again if it couldn't be formed (because part of it isn't loaded, or
+     * because the fluids couldn't be merged). */
+    private static final int RETRY_DELAY = 20;
+
+    private static final Map<World, HeatExchangeStructureManager> INSTANCES = new WeakHashMap<>();
+
+    private final Set<TileHeatExchange> pending = new LinkedHashSet<>();
+    private final Set<TileHeatExchange> retry = new LinkedHashSet<>();
+    private long nextRetry = 0;
+
+    private HeatExchangeStructureManager() {}
+
+    static HeatExchangeStructureManager get(World world) {
+        return INSTANCES.computeIfAbsent(world, w -> new HeatExchangeStructureManager());
+    }
+
+    /** Forms every structure that has changed this tick. Called at the end of every world tick. */
+    public static void onWorldPostTick(World world) {
+        HeatExchangeStructureManager manager = INSTANCES.get(world);
+        if (manager != null) {
+            manager.process(world);
+        }
+    }
+
+    public static void onWorldUnload(World world) {
+        INSTANCES.remove(world);
+    }
+
+    /** Requests that the row containing the given exchanger is (re)formed at the end of this tick. */
+    void markDirty(TileHeatExchange tile) {
+        pending.add(tile);
+    }
+
+    private void process(World world) {
+        long now = world.getTotalWorldTime();
+        if (!retry.isEmpty() && now >= nextRetry) {
+            pending.addAll(retry);
+            retry.clear();
+        }
+        while (!pending.isEmpty()) {
+            Iterator<TileHeatExchange> iter = pending.iterator();
+            TileHeatExchange tile = iter.next();
+            iter.remove();
+            if (tile.isInvalid() || tile.getWorld() != world) {
+                continue;
+            }
+            BlockPos pos = tile.getPos();
+            if (!world.isBlockLoaded(pos) || world.getTileEntity(pos) != tile) {
+                // Exchangers aren't invalidated when their own chunk unloads, but will queue themselves again (in
+                // onLoad) when it is loaded again
+                continue;
+            }
+            List<TileHeatExchange> row = scanRow(tile);
+            if (row == null) {
+                // Part of the row isn't loaded
+                scheduleRetry(tile, now);
+                continue;
+            }
+            pending.removeAll(row);
+            if (!form(row)) {
+                scheduleRetry(tile, now);
+            }
+        }
+    }
+
+    private void scheduleRetry(TileHeatExchange tile, long now) {
+        if (retry.isEmpty()) {
+            nextRetry = now + RETRY_DELAY;
+        }
+        retry.add(tile);
+    }
+
+    /** @return Every exchanger in the same row as the given one (ordered from the start to the end), or null if the row
+     *         might continue into a part of the world that isn't loaded. Rows longer than {@link #MAX_LENGTH} might
+     *         not be completely scanned, but will always be longer than {@link #MAX_LENGTH}. */
+    static List<TileHeatExchange> scanRow(TileHeatExchange tile) {
+        EnumFacing thisFacing = tile.getFacing();
+        if (thisFacing == null) {
+            return new ArrayList<>();
+        }
+        Deque<TileHeatExchange> exchangers = new ArrayDeque<>();
+        exchangers.add(tile);
+        if (!scan(tile, thisFacing, thisFacing.rotateY(), exchangers, true)) {
+            return null;
+        }
+        if (!scan(tile, thisFacing, thisFacing.rotateYCCW(), exchangers, false)) {
+            return null;
+        }
+        return new ArrayList<>(exchangers);
+    }
+
+    private static boolean scan(TileHeatExchange tile, EnumFacing thisFacing, EnumFacing dir,
+        Deque<TileHeatExchange> exchangers, boolean toStart) {
+        World world = tile.getWorld();
+        for (int i = 1; i <= MAX_LENGTH; i++) {
+            BlockPos offset = tile.getPos().offset(dir, i);
+            if (!world.isBlockLoaded(offset)) {
+                return false;
+            }
+            TileEntity neighbour = world.getTileEntity(offset);
+            if (!(neighbour instanceof TileHeatExchange)) {
+                break;
+            }
+            TileHeatExchange other = (TileHeatExchange) neighbour;
+            if (other.getFacing() != thisFacing) {
+                break;
+            }
+            if (toStart) {
+                exchangers.addFirst(other);
+            } else {
+                exchangers.addLast(other);
+            }
+        }
+        return true;
+    }
+
+    /** @return False if the row couldn't be formed, and should be tried again later. */
+    private static boolean form(List<TileHeatExchange> row) {
+        if (row.isEmpty()) {
+            return true;
+        }
+        if (row.size() < MIN_LENGTH || row.size() > MAX_LENGTH) {
+            unform(row);
+            return true;
+        }
+        TileHeatExchange first = row.get(0);
+        TileHeatExchange last = row.get(row.size() - 1);
+
+        ExchangeSectionStart start = first.section instanceof ExchangeSectionStart
+            ? (ExchangeSectionStart) first.section : null;
+        ExchangeSectionEnd end = last.section instanceof ExchangeSectionEnd ? (ExchangeSectionEnd) last.section
+            : null;
+        List<ExchangeSection> extraStarts = new ArrayList<>();
+        List<ExchangeSection> extraEnds = new ArrayList<>();
+        for (TileHeatExchange tile : row) {
+            ExchangeSection section = tile.section;
+            if (section instanceof ExchangeSectionStart && section != start) {
+                if (start == null) {
+                    start = (ExchangeSectionStart) section;
+                } else {
+                    extraStarts.add(section);
+                }
+            } else if (section instanceof ExchangeSectionEnd && section != end) {
+                if (end == null) {
+                    end = (ExchangeSectionEnd) section;
+                } else {
+                    extraEnds.add(section);
+                }
+            }
+        }
+        if (start != null && !canMerge(start, extraStarts)) {
+            return false;
+        }
+        if (end != null && !canMerge(end, extraEnds)) {
+            return false;
+        }
+        if (start == null) {
+            start = new ExchangeSectionStart(first);
+        } else {
+            merge(start, extraStarts);
+        }
+        if (end == null) {
+            end = new ExchangeSectionEnd(last);
+        } else {
+            merge(end, extraEnds);
+        }
+
+        boolean changed = start.middleCount != row.size() - 2;
+        start.middleCount = row.size() - 2;
+        start.endSection = end;
+        for (TileHeatExchange tile : row) {
+            ExchangeSection section = tile == first ? start : tile == last ? end : null;
+            changed |= tile.setSectionQuietly(section);
+        }
+        if (changed) {
+            first.sendStructureUpdate(row.size());
+        }
+        return true;
+    }
+
+    /** Unlinks every section in the row. Sections that are empty are removed, but sections that still hold some fluid
+     * are kept so that it can be drained, or merged into a structure later on. */
+    private static void unform(List<TileHeatExchange> row) {
+        boolean changed = false;
+        for (TileHeatExchange tile : row) {
+            ExchangeSection section = tile.section;
+            if (section == null) {
+                continue;
+            }
+            if (section instanceof ExchangeSectionStart) {
+                ExchangeSectionStart start = (ExchangeSectionStart) section;
+                start.endSection = null;
+                if (start.middleCount != 0) {
+                    // Stop the client from linking it to an end section
+                    start.middleCount = 0;
+                    changed = true;
+                }
+            }
+            if (section.tankInput.isEmpty() && section.tankOutput.isEmpty()) {
+                changed |= tile.setSectionQuietly(null);
+            }
+        }
+        if (changed) {
+            row.get(0).sendStructureUpdate(row.size());
+        }
+    }
+
+    private static boolean canMerge(ExchangeSection into, List<ExchangeSection> from) {
+        if (from.isEmpty()) {
+            return true;
+        }
+        List<Tank> inputs = new ArrayList<>();
+        List<Tank> outputs = new ArrayList<>();
+        for (ExchangeSection section : from) {
+            inputs.add(section.tankInput);
+            outputs.add(section.tankOutput);
+        }
+        return canMerge(into.tankInput, inputs) && canMerge(into.tankOutput, outputs);
+    }
+
+    private static boolean canMerge(Tank into, List<Tank> from) {
+        FluidStack total = into.getFluid() == null ? null : into.getFluid().copy();
+        for (Tank tank : from) {
+            FluidStack fluid = tank.getFluid();
+            if (fluid == null || fluid.amount <= 0) {
+                continue;
+            }
+            if (total == null || total.amount <= 0) {
+                total = fluid.copy();
+            } else if (!total.isFluidEqual(fluid)) {
+                return false;
+            } else {
+                total.amount += fluid.amount;
+            }
+        }
+        return total == null || total.amount <= into.getCapacity();
+    }
+
+    /** Moves all of the fluid from the given sections into the other one. {@link #canMerge(ExchangeSection, List)}
+     * must have returned true beforehand. */
+    private static void merge(ExchangeSection into, List<ExchangeSection> from) {
+        for (ExchangeSection section : from) {
+            move(section.tankInput, into.tankInput);
+            move(section.tankOutput, into.tankOutput);
+        }
+    }
+
+    private static void move(Tank from, Tank to) {
+        FluidStack drained = from.drainInternal(from.getFluidAmount(), true);
+        if (drained != null && drained.amount > 0) {
+            int filled = to.fillInternal(drained, true);
+            if (filled != drained.amount) {
+                throw new IllegalStateException("Lost " + (drained.amount - filled) + " of " + drained.getFluid()
+                    + " while merging into " + to);
+            }
+        }
+    }
+}
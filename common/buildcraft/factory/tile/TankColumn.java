@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.factory.tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraftforge.fluids.FluidStack;
+
+import buildcraft.api.core.IFluidFilter;
+
+import buildcraft.lib.fluid.Tank;
+
+/** A column of connected {@link TileTank}'s, from bottom to top. This is formed once (by the first tank in it that
+ * needs it) and shared between every tank in the column, until any of them is removed or a tank is placed above or
+ * below it.
+ * <p>
+ * On the server, if every tank holds the same fluid (or nothing) then the whole column is treated as a single logical
+ * tank: {@link #fill(FluidStack, boolean)} and {@link #drain(IFluidFilter, int, boolean)} only change the total
+ * amount, and the individual tanks are only updated to match it in {@link #flush(boolean)}, which happens at most once
+ * per tick. Otherwise (or on the client) the individual tanks are filled and drained directly. */
+final class TankColumn {
+    /** Every tank, ordered by position from bottom to top. */
+    final TileTank[] tanks;
+    /** True if {@link #fluid} holds the contents of the entire column. */
+    final boolean logical;
+    final int capacity;
+    boolean valid = true;
+
+    /** The fluid in the whole column, or null if it is empty. Only used if {@link #logical} is true. */
+    private FluidStack fluid;
+    /** True if {@link #fluid} has changed since the individual tanks were updated to match it. */
+    private boolean dirty;
+
+    private TankColumn(TileTank[] tanks, boolean isRemote) {
+        this.tanks = tanks;
+        int cap = 0;
+        boolean plain = !isRemote;
+        FluidStack total = null;
+        for (TileTank tile : tanks) {
+            cap += tile.tank.getCapacity();
+            // Subclasses of tank could override how they fill or drain
+            plain &= tile.tank.getClass() == Tank.class;
+            FluidStack held = tile.tank.getFluid();
+            if (held == null || held.amount <= 0) {
+                continue;
+            }
+            if (total == null) {
+                total = held.copy();
+            } else if (total.isFluidEqual(held)) {
+                total.amount += held.amount;
+            } else {
+                plain = false;
+            }
+        }
+        capacity = cap;
+        logical = plain;
+        if (logical) {
+            fluid = total;
+            // Move everything to its preferred position
+            dirty = true;
+        }
+    }
+
+    /** Finds every tank connected to the given one, and sets the column of each of them to the new column. */
+    static TankColumn form(TileTank from) {
+        List<TileTank> list = from.getTanks();
+        TankColumn column = new TankColumn(list.toArray(new TileTank[0]), from.getWorld().isRemote);
+        for (TileTank tile : column.tanks) {
+            tile.column = column;
+        }
+        return column;
+    }
+
+    /** @return A new list of every tank in this column, ordered by position from bottom to top. */
+    List<TileTank> getTankList() {
+        return new ArrayList<>(Arrays.asList(tanks));
+    }
+
+    /** @return The fluid in this column. Only valid if {@link #logical} is true. */
+    FluidStack getFluid() {
+        return fluid == null ? null : fluid.copy();
+    }
+
+    int fill(FluidStack resource, boolean doFill) {
+        if (fluid == null) {
+            for (TileTank tile : tanks) {
+                if (!tile.tank.canFillFluidType(resource)) {
+                    return 0;
+                }
+            }
+        } else if (!fluid.isFluidEqual(resource)) {
+            return 0;
+        }
+        int stored = fluid == null ? 0 : fluid.amount;
+        int filled = Math.min(capacity - stored, resource.amount);
+        if (filled > 0 && doFill) {
+            if (fluid == null) {
+                fluid = resource.copy();
+                fluid.amount = filled;
+            } else {
+                fluid.amount += filled;
+            }
+            dirty = true;
+        }
+        return Math.max(0, filled);
+    }
+
+    FluidStack drain(IFluidFilter filter, int maxDrain, boolean doDrain) {
+        if (fluid == null || !filter.matches(fluid)) {
+            return null;
+        }
+        FluidStack drained = fluid.copy();
+        drained.amount = Math.min(maxDrain, fluid.amount);
+        if (doDrain) {
+            fluid.amount -= drained.amount;
+            if (fluid.amount <= 0) {
+                fluid = null;
+            }
+            dirty = true;
+        }
+        return drained;
+    }
+
+    /** Moves the fluid in the column to its preferred position. Only does anything if {@link #logical} is true. */
+    void rebalance() {
+        if (logical) {
+            dirty = true;
+        }
+    }
+
+    /** Updates every tank in this column to hold its part of {@link #fluid}. (For gaseous fluids the top tanks are
+     * filled first, for liquid fluids the bottom tanks are filled first).
+     *
+     * @param sendUpdates If true then every tank that changed will send its new contents to the client straight
+     *            away. */
+    void flush(boolean sendUpdates) {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        int remaining = fluid == null ? 0 : fluid.amount;
+        boolean gas = fluid != null && fluid.getFluid().isGaseous(fluid);
+        for (int i = 0; i < tanks.length; i++) {
+            TileTank tile = tanks[gas ? tanks.length - 1 - i : i];
+            int amount = Math.min(remaining, tile.tank.getCapacity());
+            remaining -= amount;
+            FluidStack current = tile.tank.getFluid();
+            int currentAmount = current == null ? 0 : current.amount;
+            if (amount == currentAmount && (amount == 0 || current.isFluidEqual(fluid))) {
+                continue;
+            }
+            FluidStack next = null;
+            if (amount > 0) {
+                next = fluid.copy();
+                next.amount = amount;
+            }
+            tile.tank.setFluid(next);
+            tile.onColumnFluidChanged(sendUpdates);
+        }
+    }
+
+    /** Updates every tank to match the column, and then stops it from being used. */
+    void invalidate() {
+        if (valid) {
+            flush(false);
+            valid = false;
+        }
+    }
+}
@@ -7,20 +7,12 @@
 package buildcraft.factory.tile;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.Deque;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import com.google.common.collect.ImmutableList;
-
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTPrimitive;
 import net.minecraft.nbt.NBTTagByteArray;
@@ -30,6 +22,8 @@ import net.minecraft.util.EnumFacing.Axis;
 import net.minecraft.util.EnumFacing.AxisDirection;
 import net.minecraft.util.ITickable;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 
 import net.minecraftforge.common.util.FakePlayer;
@@ -43,12 +37,15 @@ import buildcraft.api.core.BuildCraftAPI;
 import buildcraft.api.core.EnumPipePart;
 import buildcraft.api.tiles.IDebuggable;
 
+import buildcraft.lib.block.ILocalBlockUpdateSubscriber;
+import buildcraft.lib.block.LocalBlockUpdateNotifier;
 import buildcraft.lib.fluid.Tank;
 import buildcraft.lib.misc.BlockUtil;
 import buildcraft.lib.misc.CapUtil;
 import buildcraft.lib.misc.FluidUtilBC;
 import buildcraft.lib.misc.MessageUtil;
 import buildcraft.lib.misc.VecUtil;
+import buildcraft.lib.misc.data.BlockPathTree;
 import buildcraft.lib.net.PacketBufferBC;
 import buildcraft.lib.tile.TileBC_Neptune;
 
@@ -63,12 +60,56 @@ public class TileFloodGate extends TileBC_Neptune implements ITickable, IDebugga
 
     private static final int[] REBUILD_DELAYS = { 16, 32, 64, 128, 256 };
 
+    /** The maximum amount of time that the search can take up in a single tick, in nanoseconds. Searches that don't
+     * finish in time are resumed on the next tick. */
+    private static final long SEARCH_TIME_LIMIT = 1_000_000;
+    private static final int MAX_QUEUE_SIZE = 4096;
+    private static final int SEARCH_RANGE = 64;
+
     private final Tank tank = new Tank("tank", 2 * Fluid.BUCKET_VOLUME, this);
     public final Set<EnumFacing> openSides = EnumSet.copyOf(BlockFloodGate.CONNECTED_MAP.keySet());
-    public final Deque<BlockPos> queue = new ArrayDeque<>();
-    private final Map<BlockPos, List<BlockPos>> paths = new HashMap<>();
+    /** The indices (in {@link #paths}) of every block that can be filled. The lowest index is filled first, so closer
+     * blocks are filled before those further away. */
+    private final BitSet queue = new BitSet();
+    private int queueSize = 0;
+    /** Every block that has been searched, with the path back to this flood gate. */
+    private final BlockPathTree paths = new BlockPathTree();
+    private final MutableBlockPos searchPos = new MutableBlockPos();
+    private boolean isSearching = false;
     private int delayIndex = 0;
     private int tick = 0;
+    /** Makes the flood gate search again soon after a block that it has already searched changes, rather than waiting
+     * for the full (backed off) delay. */
+    private final ILocalBlockUpdateSubscriber blockUpdateSubscriber = new ILocalBlockUpdateSubscriber() {
+        @Override
+        public BlockPos getUpdateMin() {
+            return pos.add(-SEARCH_RANGE, -SEARCH_RANGE, -SEARCH_RANGE);
+        }
+
+        @Override
+        public BlockPos getUpdateMax() {
+            return pos.add(SEARCH_RANGE, SEARCH_RANGE, SEARCH_RANGE);
+        }
+
+        @Override
+        public boolean isBatched() {
+            return true;
+        }
+
+        @Override
+        public void setWorldUpdatedBatch(World world, Set<BlockPos> positions) {
+            if (queueSize > 0 || isSearching || delayIndex == 0) {
+                return;
+            }
+            for (BlockPos changed : positions) {
+                if (paths.indexOf(changed) != -1) {
+                    delayIndex = 0;
+                    tick = 0;
+                    return;
+                }
+            }
+        }
+    };
 
     public TileFloodGate() {
         caps.addCapabilityInstance(CapUtil.CAP_FLUIDS, tank, EnumPipePart.VALUES);
@@ -79,64 +120,75 @@ public class TileFloodGate extends TileBC_Neptune implements ITickable, IDebugga
         return REBUILD_DELAYS[delayIndex];
     }
 
-    private void buildQueue() {
-        world.profiler.startSection("prepare");
+    /** Discards the current queue (and any search in progress), so it will be rebuilt when it is next needed. */
+    public void clearQueue() {
         queue.clear();
+        queueSize = 0;
         paths.clear();
+        isSearching = false;
+    }
+
+    /** Starts a new search for blocks to fill. The search itself is performed by {@link #continueSearch()} over as
+     * many ticks as it needs. */
+    private void buildQueue() {
+        world.profiler.startSection("prepare");
+        clearQueue();
         if (tank.isEmpty()) {
             world.profiler.endSection();
             return;
         }
-        Set<BlockPos> checked = new HashSet<>();
-        checked.add(pos);
-        List<BlockPos> nextPosesToCheck = new ArrayList<>();
         for (EnumFacing face : openSides) {
-            BlockPos offset = pos.offset(face);
-            nextPosesToCheck.add(offset);
-            paths.put(offset, ImmutableList.of(offset));
+            paths.addRoot(pos.offset(face));
         }
-        world.profiler.endStartSection("build");
-        outer: while (!nextPosesToCheck.isEmpty()) {
-            List<BlockPos> nextPosesToCheckCopy = new ArrayList<>(nextPosesToCheck);
-            nextPosesToCheck.clear();
-            for (BlockPos toCheck : nextPosesToCheckCopy) {
-                if (toCheck.distanceSq(pos) > 64 * 64) {
-                    continue;
+        isSearching = true;
+        world.profiler.endSection();
+        continueSearch();
+    }
+
+    /** Continues the current search for at most {@link #SEARCH_TIME_LIMIT} nanoseconds. */
+    private void continueSearch() {
+        world.profiler.startSection("build");
+        long end = System.nanoTime() + SEARCH_TIME_LIMIT;
+        int checks = 0;
+        while (paths.hasUnexpanded()) {
+            if ((++checks & 63) == 0 && System.nanoTime() > end) {
+                world.profiler.endSection();
+                return;
+            }
+            int index = paths.nextToExpand();
+            BlockPos toCheck = paths.getPos(index);
+            if (toCheck.distanceSq(pos) > SEARCH_RANGE * SEARCH_RANGE) {
+                continue;
+            }
+            if (canSearch(toCheck)) {
+                if (canFill(toCheck)) {
+                    queue.set(index);
+                    queueSize++;
+                    if (queueSize >= MAX_QUEUE_SIZE) {
+                        break;
+                    }
                 }
-                if (checked.add(toCheck)) {
-                    if (canSearch(toCheck)) {
-                        if (canFill(toCheck)) {
-                            queue.push(toCheck);
-                            if (queue.size() >= 4096) {
-                                break outer;
-                            }
+                for (EnumFacing side : SEARCH_DIRECTIONS) {
+                    searchPos.setPos(toCheck).move(side);
+                    if (!openSides.contains(side)) {
+                        Axis axis = side.getAxis();
+                        int dist = VecUtil.getValue(searchPos, axis) - VecUtil.getValue(getPos(), axis);
+                        if (side.getAxisDirection() == AxisDirection.NEGATIVE) {
+                            dist = -dist;
                         }
-                        List<BlockPos> checkPath = paths.get(toCheck);
-                        for (EnumFacing side : SEARCH_DIRECTIONS) {
-                            BlockPos next = toCheck.offset(side);
-                            if (!openSides.contains(side)) {
-                                Axis axis = side.getAxis();
-                                int dist = VecUtil.getValue(next, axis) - VecUtil.getValue(getPos(), axis);
-                                if (side.getAxisDirection() == AxisDirection.NEGATIVE) {
-                                    dist = -dist;
-                                }
-                                if (dist > 0) {
-                                    continue;
-                                }
-                            }
-                            if (checked.contains(next)) {
-                                continue;
-                            }
-                            ImmutableList.Builder<BlockPos> pathBuilder = ImmutableList.builder();
-                            pathBuilder.addAll(checkPath);
-                            pathBuilder.add(next);
-                            paths.put(next, pathBuilder.build());
-                            nextPosesToCheck.add(next);
+                        if (dist > 0) {
+                            continue;
                         }
                     }
+                    if (searchPos.equals(pos)) {
+                        continue;
+                    }
+                    paths.add(searchPos.toLong(), index);
                 }
             }
         }
+        paths.finishExpanding();
+        isSearching = false;
         world.profiler.endSection();
     }
 
@@ -177,23 +229,27 @@ public class TileFloodGate extends TileBC_Neptune implements ITickable, IDebugga
             return;
         }
 
+        if (isSearching) {
+            continueSearch();
+            if (isSearching) {
+                return;
+            }
+        }
+
         tick++;
         if (tick % 16 == 0) {
-            if (!tank.isEmpty() && !queue.isEmpty()) {
+            if (!tank.isEmpty() && queueSize > 0) {
                 FluidStack fluid = tank.drain(Fluid.BUCKET_VOLUME, false);
                 if (fluid != null && fluid.amount >= Fluid.BUCKET_VOLUME) {
-                    BlockPos currentPos = queue.removeLast();
-                    List<BlockPos> path = paths.get(currentPos);
+                    int currentIndex = queue.nextSetBit(0);
+                    queue.clear(currentIndex);
+                    queueSize--;
+                    BlockPos currentPos = paths.getPos(currentIndex);
                     boolean canFill = true;
-                    if (path != null) {
-                        for (BlockPos p : path) {
-                            if (p.equals(currentPos)) {
-                                continue;
-                            }
-                            if (!canFillThrough(currentPos)) {
-                                canFill = false;
-                                break;
-                            }
+                    for (int i = paths.getParent(currentIndex); i != BlockPathTree.NO_PARENT; i = paths.getParent(i)) {
+                        if (!canFillThrough(paths.getPos(i, searchPos))) {
+                            canFill = false;
+                            break;
                         }
                     }
                     if (canFill && canFill(currentPos)) {
@@ -214,13 +270,29 @@ public class TileFloodGate extends TileBC_Neptune implements ITickable, IDebugga
             }
         }
 
-        if (queue.isEmpty() && tick % getCurrentDelay() == 0) {
+        if (queueSize == 0 && !isSearching && tick % getCurrentDelay() == 0) {
             delayIndex = Math.min(delayIndex + 1, REBUILD_DELAYS.length - 1);
             tick = 0;
             buildQueue();
         }
     }
 
+    @Override
+    public void validate() {
+        super.validate();
+        if (!world.isRemote) {
+            LocalBlockUpdateNotifier.instance(world).registerSubscriberForUpdateNotifications(blockUpdateSubscriber);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (!world.isRemote) {
+            LocalBlockUpdateNotifier.instance(world).removeSubscriberFromUpdateNotifications(blockUpdateSubscriber);
+        }
+    }
+
     // NBT
 
     @Override
@@ -300,6 +372,7 @@ public class TileFloodGate extends TileBC_Neptune implements ITickable, IDebugga
         left.add("open sides = " + openSides.stream().map(Enum::name).collect(Collectors.joining(", ")));
         left.add("delay = " + getCurrentDelay());
         left.add("tick = " + tick);
-        left.add("queue size = " + queue.size());
+        left.add("queue size = " + queueSize);
+        left.add("searched = " + paths.size() + (isSearching ? " (searching)" : ""));
     }
 }
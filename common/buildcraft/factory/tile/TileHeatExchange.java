@@ -1,13 +1,13 @@
 package buildcraft.factory.tile;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.List;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import io.netty.buffer.Unpooled;
+
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.Minecraft;
@@ -64,6 +64,9 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
     public static final int NET_ID_TANK_IN = IDS.allocId("TANK_IN");
     public static final int NET_ID_TANK_OUT = IDS.allocId("TANK_OUT");
     public static final int NET_ID_STATE = IDS.allocId("STATE");
+    /** Sent by the first exchanger in a row whenever the sections of that row change, with the section of every
+     * exchanger in the row. */
+    public static final int NET_ID_STRUCTURE = IDS.allocId("STRUCTURE");
 
     /** Fluid amount multipliers -- this is the maximum amount of fluid that can be transfered per tick. All numbers
      * need to be divisors of 1000 */
@@ -75,7 +78,6 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
     }
 
     protected ExchangeSection section;
-    private boolean checkNeighbours;
 
     @Override
     public void readFromNBT(NBTTagCompound nbt) {
@@ -89,7 +91,6 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
                 section = new ExchangeSectionEnd(this, nbtSection);
             }
         }
-        checkNeighbours = true;
     }
 
     @Override
@@ -103,103 +104,63 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
 
     @Override
     public void update() {
-        if (checkNeighbours) {
-            checkNeighbours = false;
-            Deque<TileHeatExchange> exchangers = findAdjacentExchangers();
-            if (world.isRemote) {
-                // Find the start + end sections and link them up
-                if (exchangers.size() > 2) {
-                    TileHeatExchange start = exchangers.getFirst();
-                    TileHeatExchange end = exchangers.getLast();
-                    if (start.isStart() && end.isEnd()) {
-                        ((ExchangeSectionStart) start.section).endSection = (ExchangeSectionEnd) end.section;
-                    }
-                }
-            } else {
-                if (exchangers.size() < 3) {
-                    // TODO: Remove all exchangers sections
-                } else if (exchangers.size() > 5) {
-                    // TODO: Remove all exchangers sections
-                } else {
-                    ExchangeSectionStart sectionStart = null;
-                    ExchangeSectionEnd sectionEnd = null;
-                    for (TileHeatExchange exchange : exchangers) {
-                        // For efficiency, only run this check once.
-                        exchange.checkNeighbours = false;
-                        if (exchange.section instanceof ExchangeSectionStart) {
-                            if (sectionStart == null) {
-                                sectionStart = (ExchangeSectionStart) exchange.section;
-                            } else {
-                                // TODO: Attempt to merge sections together!
-                            }
-                        } else if (exchange.section instanceof ExchangeSectionEnd) {
-                            if (sectionEnd == null) {
-                                sectionEnd = (ExchangeSectionEnd) exchange.section;
-                            } else {
-                                // TODO: Attempt to merge sections together!
-                            }
-                        }
-                        exchange.section = null;
-                    }
-                    if (sectionStart == null) {
-                        sectionStart = new ExchangeSectionStart(exchangers.getFirst());
-                    }
-                    if (sectionEnd == null) {
-                        sectionEnd = new ExchangeSectionEnd(exchangers.getLast());
-                    }
-                    sectionStart.endSection = sectionEnd;
-                    sectionStart.middleCount = exchangers.size() - 2;
-                    exchangers.getFirst().setSection(sectionStart);
-                    exchangers.getLast().setSection(sectionEnd);
-                    for (TileHeatExchange exchange : exchangers) {
-                        exchange.sendNetworkUpdate(NET_ID_CHANGE_SECTION);
-                    }
-                }
-            }
-        }
         if (section != null) {
             section.tick();
         }
     }
 
-    private Deque<TileHeatExchange> findAdjacentExchangers() {
-        EnumFacing thisFacing = getFacing();
-        EnumFacing dirToStart = thisFacing.rotateY();
-        EnumFacing dirToEnd = thisFacing.rotateYCCW();
-        Deque<TileHeatExchange> exchangers = new ArrayDeque<>();
-        exchangers.add(this);
-        for (int i = 1; i < 6; i++) {
-            TileEntity neighbour = getLocalTile(pos.offset(dirToStart, i));
-            if (neighbour instanceof TileHeatExchange) {
-                TileHeatExchange other = (TileHeatExchange) neighbour;
-                if (other.getFacing() != thisFacing) {
-                    break;
-                }
-                exchangers.addFirst(other);
-            } else {
-                break;
-            }
+    /** Sets the section of this tile without sending it to the client, as {@link HeatExchangeStructureManager} sends
+     * the sections of a whole row together.
+     * 
+     * @return True if the section changed. */
+    boolean setSectionQuietly(@Nullable ExchangeSection section) {
+        if (this.section == section) {
+            return false;
         }
-        for (int i = 1; i < 6; i++) {
-            TileEntity neighbour = getLocalTile(pos.offset(dirToEnd, i));
-            if (neighbour instanceof TileHeatExchange) {
-                TileHeatExchange other = (TileHeatExchange) neighbour;
-                if (other.getFacing() != thisFacing) {
-                    break;
-                }
-                exchangers.addLast(other);
-            } else {
-                break;
+        this.section = section;
+        if (section != null) {
+            section.tile = this;
+        }
+        markDirty();
+        return true;
+    }
+
+    /** Sends the section of every exchanger in the row starting at this tile to the client, in a single message. */
+    void sendStructureUpdate(int length) {
+        createAndSendMessage(NET_ID_STRUCTURE, buffer -> writeStructure(buffer, length));
+    }
+
+    private void writeStructure(PacketBufferBC buffer, int length) {
+        EnumFacing facing = getFacing();
+        if (facing == null) {
+            length = 0;
+        }
+        buffer.writeByte(length);
+        for (int i = 0; i < length; i++) {
+            TileEntity tile = getLocalTile(pos.offset(facing.rotateYCCW(), i));
+            PacketBufferBC sectionBuffer = new PacketBufferBC(Unpooled.buffer());
+            if (tile instanceof TileHeatExchange) {
+                ((TileHeatExchange) tile).writePayload(NET_ID_CHANGE_SECTION, sectionBuffer, Side.SERVER);
             }
+            // Prefixed with the length, so the client can skip exchangers that it doesn't have
+            buffer.writeInt(sectionBuffer.readableBytes());
+            buffer.writeBytes(sectionBuffer);
         }
-        return exchangers;
     }
 
-    private void setSection(ExchangeSection section) {
-        if (this.section != section) {
-            this.section = section;
-            section.tile = this;
-            sendNetworkUpdate(NET_ID_CHANGE_SECTION);
+    private void readStructure(PacketBufferBC buffer, Side side, MessageContext ctx) throws IOException {
+        EnumFacing facing = getFacing();
+        int length = buffer.readUnsignedByte();
+        for (int i = 0; i < length; i++) {
+            int size = buffer.readInt();
+            PacketBufferBC sectionBuffer = new PacketBufferBC(buffer.readBytes(size));
+            if (facing == null || size == 0) {
+                continue;
+            }
+            TileEntity tile = world.getTileEntity(pos.offset(facing.rotateYCCW(), i));
+            if (tile instanceof TileHeatExchange) {
+                ((TileHeatExchange) tile).readPayload(NET_ID_CHANGE_SECTION, sectionBuffer, side, ctx);
+            }
         }
     }
 
@@ -220,7 +181,8 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
                 } else {
                     section = null;
                 }
-                checkNeighbours = true;
+            } else if (id == NET_ID_STRUCTURE) {
+                readStructure(buffer, side, ctx);
             } else if (section != null) {
                 section.readPayload(id, buffer, side, ctx);
             }
@@ -283,9 +245,11 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
     }
 
     @Override
-    public void validate() {
-        super.validate();
-        checkNeighbours = true;
+    public void onLoad() {
+        super.onLoad();
+        if (!world.isRemote) {
+            HeatExchangeStructureManager.get(world).markDirty(this);
+        }
     }
 
     @Override
@@ -294,7 +258,9 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
             // Heat exchange tiles can only be horizontally adjacent
             return;
         }
-        checkNeighbours = true;
+        if (!world.isRemote) {
+            HeatExchangeStructureManager.get(world).markDirty(this);
+        }
     }
 
     @Override
@@ -421,7 +387,7 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
 
     public static class ExchangeSectionStart extends ExchangeSection {
 
-        private ExchangeSectionEnd endSection;
+        ExchangeSectionEnd endSection;
         public int middleCount;
         private int progress = 0;
         private int progressLast = 0;
@@ -444,12 +410,14 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
             super(tile, nbt);
             inputCoolantAmountCharge = nbt.getInteger("coolantCharge");
             inputHeatantAmountCharge = nbt.getInteger("heatantCharge");
+            middleCount = nbt.getInteger("middleCount");
         }
 
         @Override
         NBTTagCompound writeToNbt() {
-            NBTTagCompound nbt = new NBTTagCompound();
+            NBTTagCompound nbt = super.writeToNbt();
             nbt.setBoolean("start", true);
+            nbt.setInteger("middleCount", middleCount);
             nbt.setInteger("coolantCharge", inputCoolantAmountCharge);
             nbt.setInteger("heatantCharge", inputHeatantAmountCharge);
             return nbt;
@@ -509,6 +477,7 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
 
             updateProgress();
             if (tile.world.isRemote) {
+                linkClientEnd();
                 spawnParticles();
                 return;
             }
@@ -524,6 +493,24 @@ public class TileHeatExchange extends TileBC_Neptune implements ITickable, IDebu
             }
         }
 
+        /** The server doesn't send which end section this is linked to, so the client finds it from the number of
+         * middle sections instead. */
+        private void linkClientEnd() {
+            if (endSection != null && endSection.tile.section == endSection && !endSection.tile.isInvalid()) {
+                return;
+            }
+            endSection = null;
+            EnumFacing facing = tile.getFacing();
+            if (facing == null || middleCount <= 0) {
+                return;
+            }
+            BlockPos endPos = tile.getPos().offset(facing.rotateYCCW(), middleCount + 1);
+            TileEntity other = tile.getWorld().getTileEntity(endPos);
+            if (other instanceof TileHeatExchange && ((TileHeatExchange) other).isEnd()) {
+                endSection = (ExchangeSectionEnd) ((TileHeatExchange) other).section;
+            }
+        }
+
         private void updateProgress() {
             progressLast = progress;
             switch (progressState) {
@@ -6,13 +6,11 @@
 
 package buildcraft.factory.tile;
 
-import javax.annotation.Nonnull;
+import java.util.Set;
 
-import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.IWorldEventListener;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 
@@ -20,30 +18,39 @@ import buildcraft.api.core.EnumPipePart;
 import buildcraft.api.core.SafeTimeTracker;
 import buildcraft.api.mj.IMjReceiver;
 
+import buildcraft.lib.block.ILocalBlockUpdateSubscriber;
+import buildcraft.lib.block.LocalBlockUpdateNotifier;
 import buildcraft.lib.inventory.AutomaticProvidingTransactor;
 import buildcraft.lib.misc.BlockUtil;
 import buildcraft.lib.misc.CapUtil;
 import buildcraft.lib.misc.InventoryUtil;
 import buildcraft.lib.mj.MjBatteryReceiver;
-import buildcraft.lib.world.WorldEventListenerAdapter;
 
 import buildcraft.factory.BCFactoryBlocks;
 
 public class TileMiningWell extends TileMiner {
     private boolean shouldCheck = true;
     private final SafeTimeTracker tracker = new SafeTimeTracker(256);
-    private final IWorldEventListener worldEventListener = new WorldEventListenerAdapter() {
+    /** Only listens to the column of blocks below the mining well. */
+    private final ILocalBlockUpdateSubscriber blockUpdateSubscriber = new ILocalBlockUpdateSubscriber() {
         @Override
-        public void notifyBlockUpdate(@Nonnull World world,
-                                      @Nonnull BlockPos pos,
-                                      @Nonnull IBlockState oldState,
-                                      @Nonnull IBlockState newState,
-                                      int flags) {
-            if (pos.getX() == TileMiningWell.this.pos.getX() &&
-                pos.getY() <= TileMiningWell.this.pos.getY() &&
-                pos.getZ() == TileMiningWell.this.pos.getZ()) {
-                shouldCheck = true;
-            }
+        public BlockPos getUpdateMin() {
+            return new BlockPos(pos.getX(), 0, pos.getZ());
+        }
+
+        @Override
+        public BlockPos getUpdateMax() {
+            return pos;
+        }
+
+        @Override
+        public boolean isBatched() {
+            return true;
+        }
+
+        @Override
+        public void setWorldUpdatedBatch(World world, Set<BlockPos> positions) {
+            shouldCheck = true;
         }
     };
 
@@ -104,7 +111,7 @@ public class TileMiningWell extends TileMiner {
     public void validate() {
         super.validate();
         if (!world.isRemote) {
-            world.addEventListener(worldEventListener);
+            LocalBlockUpdateNotifier.instance(world).registerSubscriberForUpdateNotifications(blockUpdateSubscriber);
         }
     }
 
@@ -112,7 +119,7 @@ public class TileMiningWell extends TileMiner {
     public void invalidate() {
         super.invalidate();
         if (!world.isRemote) {
-            world.removeEventListener(worldEventListener);
+            LocalBlockUpdateNotifier.instance(world).removeSubscriberFromUpdateNotifications(blockUpdateSubscriber);
             if (currentPos != null) {
                 world.sendBlockBreakProgress(currentPos.hashCode(), currentPos, -1);
             }
@@ -7,20 +7,14 @@
 package buildcraft.factory.tile;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.Comparator;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import javax.annotation.Nullable;
 
-import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
@@ -28,7 +22,10 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumFacing.Axis;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.world.World;
 
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fluids.Fluid;
 import net.minecraftforge.fluids.FluidRegistry;
 import net.minecraftforge.fluids.FluidStack;
@@ -36,15 +33,19 @@ import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import net.minecraftforge.fml.relauncher.Side;
 
 import buildcraft.api.core.EnumPipePart;
+import buildcraft.api.core.SafeTimeTracker;
 import buildcraft.api.mj.IMjReceiver;
 import buildcraft.api.mj.MjAPI;
 
+import buildcraft.lib.block.ILocalBlockUpdateSubscriber;
+import buildcraft.lib.block.LocalBlockUpdateNotifier;
 import buildcraft.lib.fluid.Tank;
 import buildcraft.lib.misc.BlockUtil;
 import buildcraft.lib.misc.CapUtil;
 import buildcraft.lib.misc.FluidUtilBC;
 import buildcraft.lib.misc.NBTUtilBC;
 import buildcraft.lib.misc.VecUtil;
+import buildcraft.lib.misc.data.BlockPathTree;
 import buildcraft.lib.mj.MjRedstoneBatteryReceiver;
 import buildcraft.lib.net.PacketBufferBC;
 
@@ -60,12 +61,53 @@ public class TilePump extends TileMiner {
         EnumFacing.WEST, EnumFacing.EAST //
     };
 
+    /** The maximum amount of time that the fluid search can take up in a single tick, in nanoseconds. Searches that
+     * don't finish in time are resumed on the next tick. */
+    private static final long SEARCH_TIME_LIMIT = 1_000_000;
+    /** The maximum number of fluid blocks that will be saved to NBT. Bigger fluid bodies are searched again after
+     * loading instead. */
+    private static final int MAX_SAVED_NODES = 1 << 16;
+    private static final int SAVED_ROOT = 7;
+
     private final Tank tank = new Tank("tank", 16 * Fluid.BUCKET_VOLUME, this);
     private boolean queueBuilt = false;
-    private final Map<BlockPos, List<BlockPos>> paths = new HashMap<>();
+    /** Every fluid block that has been found, with the path back to {@link #fluidConnection}. */
+    private final BlockPathTree paths = new BlockPathTree();
+    /** The indices (in {@link #paths}) of every fluid source block that can be drained. The highest index is drained
+     * first, so the furthest blocks are removed before the closer ones. */
+    private final BitSet queue = new BitSet();
+    /** Positions that have been checked by the current search, but didn't contain the correct fluid. */
+    private final LongOpenHashSet rejected = new LongOpenHashSet();
+    private final MutableBlockPos searchPos = new MutableBlockPos();
     private BlockPos fluidConnection;
-    private final Deque<BlockPos> queue = new ArrayDeque<>();
+    private Fluid queueFluid;
+    private boolean isSearching;
     private boolean isInfiniteWaterSource;
+    private int currentIndex = -1;
+    /** True if the fluid body might have changed in a way that can't be patched in, so it should be searched again
+     * once the queue is empty. */
+    private boolean needsRebuild = false;
+    private final SafeTimeTracker rebuildTracker = new SafeTimeTracker(256);
+    private final ILocalBlockUpdateSubscriber blockUpdateSubscriber = new ILocalBlockUpdateSubscriber() {
+        @Override
+        public BlockPos getUpdateMin() {
+            int dist = BCCoreConfig.pumpMaxDistance;
+            return TilePump.this.pos.add(-dist, -dist, -dist);
+        }
+
+        @Override
+        public BlockPos getUpdateMax() {
+            int dist = BCCoreConfig.pumpMaxDistance;
+            return TilePump.this.pos.add(dist, dist, dist);
+        }
+
+        @Override
+        public void setWorldUpdated(World world, BlockPos pos, IBlockState oldState, IBlockState newState, int flags) {
+            if (oldState.getBlock() != BCFactoryBlocks.tube && newState.getBlock() != BCFactoryBlocks.tube) {
+                onBlockChange(pos);
+            }
+        }
+    };
 
     @Nullable
     private BlockPos oilSpringPos;
@@ -81,78 +123,111 @@ public class TilePump extends TileMiner {
         return new MjRedstoneBatteryReceiver(battery);
     }
 
+    /** Starts a new search for fluid blocks. The search itself is performed by {@link #continueSearch()} over as many
+     * ticks as it needs. */
     private void buildQueue() {
         world.profiler.startSection("prepare");
         queue.clear();
         paths.clear();
-        Fluid queueFluid = null;
+        rejected.clear();
+        currentIndex = -1;
+        queueFluid = null;
+        isSearching = false;
         isInfiniteWaterSource = false;
-        Set<BlockPos> checked = new HashSet<>();
-        List<BlockPos> nextPosesToCheck = new ArrayList<>();
+        needsRebuild = false;
         for (BlockPos posToCheck = pos.down(); posToCheck.getY() > 0; posToCheck = posToCheck.down()) {
-            if (BlockUtil.getFluidWithFlowing(world, posToCheck) != null) {
-                queueFluid = BlockUtil.getFluidWithFlowing(world, posToCheck);
-                nextPosesToCheck.add(posToCheck);
-                paths.put(posToCheck, Collections.singletonList(posToCheck));
-                checked.add(posToCheck);
+            Fluid fluid = BlockUtil.getFluidWithFlowing(world, posToCheck);
+            if (fluid != null) {
+                queueFluid = fluid;
+                int index = paths.addRoot(posToCheck);
                 if (BlockUtil.getFluid(world, posToCheck) != null) {
-                    queue.add(posToCheck);
+                    queue.set(index);
                 }
                 fluidConnection = posToCheck;
+                isSearching = true;
                 break;
             } else if (!world.isAirBlock(posToCheck) &&
                 world.getBlockState(posToCheck).getBlock() != BCFactoryBlocks.tube) {
                 break;
             }
         }
-        if (nextPosesToCheck.isEmpty()) {
-            world.profiler.endSection();
-            return;
+        world.profiler.endSection();
+        if (isSearching) {
+            continueSearch();
+        }
+    }
+
+    /** Continues the current search for at most {@link #SEARCH_TIME_LIMIT} nanoseconds. */
+    private void continueSearch() {
+        world.profiler.startSection("build");
+        boolean finished = expandSearch();
+        world.profiler.endSection();
+        if (finished) {
+            isSearching = false;
+            rejected.clear();
+            findOilSpring();
+            nextPos();
         }
-        world.profiler.endStartSection("build");
+    }
+
+    /** Expands the un-expanded nodes of {@link #paths} for at most {@link #SEARCH_TIME_LIMIT} nanoseconds. This is
+     * used both by full searches and to extend the fluid body when a block next to it changes.
+     *
+     * @return True if every node has been expanded. */
+    private boolean expandSearch() {
+        long end = System.nanoTime() + SEARCH_TIME_LIMIT;
         boolean isWater = !BCCoreConfig.pumpsConsumeWater && FluidUtilBC.areFluidsEqual(queueFluid, FluidRegistry.WATER);
         final int maxLengthSquared = BCCoreConfig.pumpMaxDistance * BCCoreConfig.pumpMaxDistance;
-        outer: while (!nextPosesToCheck.isEmpty()) {
-            List<BlockPos> nextPosesToCheckCopy = new ArrayList<>(nextPosesToCheck);
-            nextPosesToCheck.clear();
-            for (BlockPos posToCheck : nextPosesToCheckCopy) {
-                int count = 0;
-                for (EnumFacing side : SEARCH_DIRECTIONS) {
-                    BlockPos offsetPos = posToCheck.offset(side);
-                    if (offsetPos.distanceSq(pos) > maxLengthSquared) {
-                        continue;
-                    }
-                    if (checked.add(offsetPos)) {
-                        if (FluidUtilBC.areFluidsEqual(BlockUtil.getFluidWithFlowing(world, offsetPos), queueFluid)) {
-                            ImmutableList.Builder<BlockPos> pathBuilder = new ImmutableList.Builder<>();
-                            pathBuilder.addAll(paths.get(posToCheck));
-                            pathBuilder.add(offsetPos);
-                            paths.put(offsetPos, pathBuilder.build());
-                            if (BlockUtil.getFluid(world, offsetPos) != null) {
-                                queue.add(offsetPos);
-                            }
-                            nextPosesToCheck.add(offsetPos);
-                            count++;
-                        }
-                    } else {
-                        // We've already tested this block: it *must* be a valid water source
-                        count++;
-                    }
+        int checks = 0;
+        while (paths.hasUnexpanded()) {
+            if ((++checks & 63) == 0 && System.nanoTime() > end) {
+                return false;
+            }
+            int index = paths.nextToExpand();
+            long packed = paths.getPackedPos(index);
+            int x = BlockPathTree.unpackX(packed);
+            int y = BlockPathTree.unpackY(packed);
+            int z = BlockPathTree.unpackZ(packed);
+            int count = 0;
+            for (EnumFacing side : SEARCH_DIRECTIONS) {
+                searchPos.setPos(x + side.getFrontOffsetX(), y + side.getFrontOffsetY(), z + side.getFrontOffsetZ());
+                if (searchPos.distanceSq(pos) > maxLengthSquared) {
+                    continue;
                 }
-                if (isWater && count >= 2) {
-                    IBlockState below = world.getBlockState(posToCheck.down());
-                    // Same check as in BlockDynamicLiquid.updateTick:
-                    // if that method changes how it checks for adjacent
-                    // water sources then this also needs updating
-                    Fluid fluidBelow = BlockUtil.getFluidWithoutFlowing(below);
-                    if (FluidUtilBC.areFluidsEqual(fluidBelow, FluidRegistry.WATER) || below.getMaterial().isSolid()) {
-                        isInfiniteWaterSource = true;
-                        break outer;
+                long offsetPacked = searchPos.toLong();
+                if (rejected.contains(offsetPacked)) {
+                    continue;
+                }
+                if (paths.contains(searchPos)) {
+                    // We've already found this block: it *must* be a valid water source
+                    count++;
+                } else if (FluidUtilBC.areFluidsEqual(BlockUtil.getFluidWithFlowing(world, searchPos), queueFluid)) {
+                    int offsetIndex = paths.add(offsetPacked, index);
+                    if (BlockUtil.getFluid(world, searchPos) != null) {
+                        queue.set(offsetIndex);
                     }
+                    count++;
+                } else {
+                    rejected.add(offsetPacked);
+                }
+            }
+            if (isWater && count >= 2) {
+                IBlockState below = world.getBlockState(searchPos.setPos(x, y - 1, z));
+                // Same check as in BlockDynamicLiquid.updateTick:
+                // if that method changes how it checks for adjacent
+                // water sources then this also needs updating
+                Fluid fluidBelow = BlockUtil.getFluidWithoutFlowing(below);
+                if (FluidUtilBC.areFluidsEqual(fluidBelow, FluidRegistry.WATER) || below.getMaterial().isSolid()) {
+                    isInfiniteWaterSource = true;
+                    paths.finishExpanding();
                 }
             }
         }
-        world.profiler.endStartSection("oil_spring_search");
+        return true;
+    }
+
+    private void findOilSpring() {
+        world.profiler.startSection("oil_spring_search");
         if (FluidUtilBC.areFluidsEqual(queueFluid, BCEnergyFluids.crudeOil[0])) {
             List<BlockPos> springPositions = new ArrayList<>();
             BlockPos center = VecUtil.replaceValue(getPos(), Axis.Y, 0);
@@ -179,19 +254,71 @@ public class TilePump extends TileMiner {
         world.profiler.endSection();
     }
 
+    /** Patches the fluid body after a block has changed, rather than searching the whole body again. */
+    private void onBlockChange(BlockPos changed) {
+        if (!queueBuilt || isSearching) {
+            return;
+        }
+        if (changed.getX() == pos.getX() && changed.getZ() == pos.getZ() && changed.getY() < pos.getY()
+            && (fluidConnection == null || changed.getY() >= fluidConnection.getY())) {
+            // Something changed between the pump and the fluid
+            needsRebuild = true;
+            return;
+        }
+        if (paths.isEmpty() || isInfiniteWaterSource) {
+            return;
+        }
+        int index = paths.indexOf(changed);
+        if (index != -1) {
+            if (index != currentIndex) {
+                queue.set(index, FluidUtilBC.areFluidsEqual(BlockUtil.getFluid(world, changed), queueFluid));
+            }
+            return;
+        }
+        if (changed.distanceSq(pos) > BCCoreConfig.pumpMaxDistance * BCCoreConfig.pumpMaxDistance
+            || !FluidUtilBC.areFluidsEqual(BlockUtil.getFluidWithFlowing(world, changed), queueFluid)) {
+            return;
+        }
+        for (EnumFacing side : SEARCH_DIRECTIONS) {
+            // The search only moves in SEARCH_DIRECTIONS, so the parent has to be on the opposite side
+            int parent = paths.indexOf(changed.offset(side.getOpposite()));
+            if (parent != -1) {
+                int added = paths.add(changed, parent);
+                if (BlockUtil.getFluid(world, changed) != null) {
+                    queue.set(added);
+                }
+                // The new block will be expanded on the next tick, to find anything that it connects to
+                return;
+            }
+        }
+    }
+
     private boolean canDrain(BlockPos blockPos) {
         Fluid fluid = BlockUtil.getFluid(world, blockPos);
         return tank.isEmpty() ? fluid != null : FluidUtilBC.areFluidsEqual(fluid, tank.getFluidType());
     }
 
+    /** @return True if every block from the given node back to the fluid connection still contains fluid. */
+    private boolean isPathValid(int index) {
+        for (int i = index; i != BlockPathTree.NO_PARENT; i = paths.getParent(i)) {
+            if (BlockUtil.getFluidWithFlowing(world, paths.getPos(i, searchPos)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void nextPos() {
         while (!queue.isEmpty()) {
-            currentPos = queue.removeLast();
+            currentIndex = queue.previousSetBit(queue.length() - 1);
+            queue.clear(currentIndex);
+            currentPos = paths.getPos(currentIndex);
             if (canDrain(currentPos)) {
                 updateLength();
                 return;
             }
         }
+        currentIndex = -1;
         currentPos = null;
         updateLength();
     }
@@ -218,6 +345,16 @@ public class TilePump extends TileMiner {
 
     @Override
     public void mine() {
+        if (isSearching) {
+            continueSearch();
+            if (isSearching) {
+                return;
+            }
+        } else if (paths.hasUnexpanded()) {
+            world.profiler.startSection("extend");
+            expandSearch();
+            world.profiler.endSection();
+        }
         boolean prevResult = true;
         while (prevResult) {
             prevResult = false;
@@ -225,14 +362,11 @@ public class TilePump extends TileMiner {
                 return;
             }
             long target = 10 * MjAPI.MJ;
-            if (currentPos != null && paths.containsKey(currentPos)) {
+            if (currentPos != null && currentIndex != -1) {
                 progress += battery.extractPower(0, target - progress);
                 if (progress >= target) {
                     FluidStack drain = BlockUtil.drainBlock(world, currentPos, false);
-                    if (drain != null &&
-                        paths.get(currentPos).stream()
-                            .allMatch(blockPos -> BlockUtil.getFluidWithFlowing(world, blockPos) != null) &&
-                        canDrain(currentPos)) {
+                    if (drain != null && isPathValid(currentIndex) && canDrain(currentPos)) {
                         tank.fillInternal(drain, true);
                         progress = 0;
                         if (isInfiniteWaterSource) {
@@ -254,14 +388,16 @@ public class TilePump extends TileMiner {
                             nextPos();
                         }
                     } else {
-                        buildQueue();
+                        // Skip this block rather than searching everything again straight away
+                        needsRebuild = true;
                         nextPos();
                     }
                     prevResult = true;
                 }
-            } else {
-                buildQueue();
+            } else if (!queue.isEmpty()) {
                 nextPos();
+            } else if (needsRebuild || rebuildTracker.markTimeIfDelay(world)) {
+                buildQueue();
             }
         }
     }
@@ -272,6 +408,9 @@ public class TilePump extends TileMiner {
     public void readFromNBT(NBTTagCompound nbt) {
         super.readFromNBT(nbt);
         oilSpringPos = NBTUtilBC.readBlockPos(nbt.getTag("oilSpringPos"));
+        if (nbt.hasKey("fluidBody", Constants.NBT.TAG_COMPOUND)) {
+            queueBuilt = readFluidBody(nbt.getCompoundTag("fluidBody"));
+        }
     }
 
     @Override
@@ -280,9 +419,81 @@ public class TilePump extends TileMiner {
         if (oilSpringPos != null) {
             nbt.setTag("oilSpringPos", NBTUtilBC.writeBlockPos(oilSpringPos));
         }
+        if (queueBuilt && !isSearching && fluidConnection != null && queueFluid != null
+            && paths.size() <= MAX_SAVED_NODES) {
+            nbt.setTag("fluidBody", writeFluidBody());
+        }
         return nbt;
     }
 
+    /** Writes out the fluid body. Every node is stored as a single int: its offset from this pump (9 bits per axis)
+     * and the side that its parent is on, as each node is always adjacent to its parent. */
+    private NBTTagCompound writeFluidBody() {
+        NBTTagCompound nbt = new NBTTagCompound();
+        nbt.setString("fluid", queueFluid.getName());
+        nbt.setTag("connection", NBTUtilBC.writeBlockPos(fluidConnection));
+        nbt.setBoolean("infinite", isInfiniteWaterSource);
+        nbt.setBoolean("needsRebuild", needsRebuild);
+        int[] nodes = new int[paths.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            long packed = paths.getPackedPos(i);
+            int x = BlockPathTree.unpackX(packed) - pos.getX();
+            int y = BlockPathTree.unpackY(packed) - pos.getY();
+            int z = BlockPathTree.unpackZ(packed) - pos.getZ();
+            int parent = paths.getParent(i);
+            int side = SAVED_ROOT;
+            if (parent != BlockPathTree.NO_PARENT) {
+                long parentPacked = paths.getPackedPos(parent);
+                int dx = BlockPathTree.unpackX(parentPacked) - pos.getX() - x;
+                int dy = BlockPathTree.unpackY(parentPacked) - pos.getY() - y;
+                int dz = BlockPathTree.unpackZ(parentPacked) - pos.getZ() - z;
+                side = EnumFacing.getFacingFromVector(dx, dy, dz).getIndex();
+            }
+            // Every offset is within BCCoreConfig.pumpMaxDistance (at most 128), so always fits in 9 bits
+            nodes[i] = ((x + 256) & 0x1FF) | ((y + 256) & 0x1FF) << 9 | ((z + 256) & 0x1FF) << 18 | side << 27;
+        }
+        nbt.setIntArray("nodes", nodes);
+        nbt.setByteArray("queue", queue.toByteArray());
+        return nbt;
+    }
+
+    /** @return True if the fluid body was read successfully. */
+    private boolean readFluidBody(NBTTagCompound nbt) {
+        Fluid fluid = FluidRegistry.getFluid(nbt.getString("fluid"));
+        BlockPos connection = NBTUtilBC.readBlockPos(nbt.getTag("connection"));
+        if (fluid == null || connection == null) {
+            return false;
+        }
+        paths.clear();
+        queue.clear();
+        int[] nodes = nbt.getIntArray("nodes");
+        for (int node : nodes) {
+            int x = (node & 0x1FF) - 256 + pos.getX();
+            int y = ((node >> 9) & 0x1FF) - 256 + pos.getY();
+            int z = ((node >> 18) & 0x1FF) - 256 + pos.getZ();
+            int side = (node >> 27) & 7;
+            BlockPos nodePos = new BlockPos(x, y, z);
+            int parent = BlockPathTree.NO_PARENT;
+            if (side != SAVED_ROOT) {
+                parent = paths.indexOf(nodePos.offset(EnumFacing.getFront(side)));
+                if (parent == -1) {
+                    paths.clear();
+                    return false;
+                }
+            }
+            paths.add(nodePos, parent);
+        }
+        paths.finishExpanding();
+        queue.or(BitSet.valueOf(nbt.getByteArray("queue")));
+        queueFluid = fluid;
+        fluidConnection = connection;
+        isInfiniteWaterSource = nbt.getBoolean("infinite");
+        needsRebuild = nbt.getBoolean("needsRebuild");
+        isSearching = false;
+        currentIndex = -1;
+        return true;
+    }
+
     // Networking
 
     @Override
@@ -309,12 +520,30 @@ public class TilePump extends TileMiner {
         }
     }
 
+    @Override
+    public void validate() {
+        super.validate();
+        if (!world.isRemote) {
+            LocalBlockUpdateNotifier.instance(world).registerSubscriberForUpdateNotifications(blockUpdateSubscriber);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (!world.isRemote) {
+            LocalBlockUpdateNotifier.instance(world).removeSubscriberFromUpdateNotifications(blockUpdateSubscriber);
+        }
+    }
+
     @Override
     public void getDebugInfo(List<String> left, List<String> right, EnumFacing side) {
         super.getDebugInfo(left, right, side);
         left.add("fluid = " + tank.getDebugString());
-        left.add("queue size = " + queue.size());
+        left.add("queue size = " + queue.cardinality());
+        left.add("searched = " + paths.size() + (isSearching ? " (searching)" : ""));
         left.add("infinite = " + isInfiniteWaterSource);
+        left.add("needs rebuild = " + needsRebuild);
     }
 
     @Override
@@ -14,9 +14,11 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 
+import net.minecraft.block.Block;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
@@ -56,6 +58,9 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
 
     private int lastComparatorLevel;
 
+    /** The column that this tank is a part of, or null if it hasn't been formed yet. */
+    TankColumn column;
+
     public TileTank() {
         this(16 * Fluid.BUCKET_VOLUME);
     }
@@ -87,6 +92,9 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
 
     @Override
     public void update() {
+        if (!world.isRemote && column != null && column.valid) {
+            column.flush(false);
+        }
         smoothedTank.tick(world);
 
         if (!world.isRemote) {
@@ -100,6 +108,35 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
 
     // TileEntity
 
+    @Override
+    public NBTTagCompound writeToNBT(NBTTagCompound nbt) {
+        if (column != null && column.valid) {
+            column.flush(false);
+        }
+        return super.writeToNBT(nbt);
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        invalidateColumn();
+    }
+
+    @Override
+    public void onChunkUnload() {
+        super.onChunkUnload();
+        invalidateColumn();
+    }
+
+    @Override
+    public void onNeighbourBlockChanged(Block block, BlockPos neighbour) {
+        super.onNeighbourBlockChanged(block, neighbour);
+        if (neighbour.getX() == pos.getX() && neighbour.getZ() == pos.getZ()) {
+            // A tank might have been added or removed above or below
+            invalidateColumn();
+        }
+    }
+
     @Override
     public void onPlacedBy(EntityLivingBase placer, ItemStack stack) {
         super.onPlacedBy(placer, stack);
@@ -113,7 +150,12 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
     /** Moves fluids around to their preferred positions. (For gaseous fluids this will move everything as high as
      * possible, for liquid fluids this will move everything as low as possible.) */
     public void balanceTankFluids() {
-        List<TileTank> tanks = getTanks();
+        TankColumn col = getColumn();
+        if (col.logical) {
+            col.rebalance();
+            return;
+        }
+        List<TileTank> tanks = col.getTankList();
         FluidStack fluid = null;
         for (TileTank tile : tanks) {
             FluidStack held = tile.tank.getFluid();
@@ -181,7 +223,13 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
 
     @Override
     public void getDebugInfo(List<String> left, List<String> right, EnumFacing side) {
+        if (column != null && column.valid && !world.isRemote) {
+            column.flush(false);
+        }
         left.add("fluid = " + tank.getDebugString());
+        if (column != null && column.valid) {
+            left.add("column = " + column.tanks.length + " tanks" + (column.logical ? " (logical)" : ""));
+        }
         smoothedTank.getDebugInfo(left, right, side);
     }
 
@@ -219,8 +267,36 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
         return from.canConnectTo(to, direction) && to.canConnectTo(from, direction.getOpposite());
     }
 
-    /** @return A list of all connected tanks around this block, ordered by position from bottom to top. */
-    private List<TileTank> getTanks() {
+    /** @return The column that this tank is in, forming it if necessary. */
+    TankColumn getColumn() {
+        if (column == null || !column.valid) {
+            column = TankColumn.form(this);
+        }
+        return column;
+    }
+
+    private void invalidateColumn() {
+        if (column != null) {
+            column.invalidate();
+            column = null;
+        }
+    }
+
+    /** Called by {@link TankColumn#flush(boolean)} when it changes the fluid in this tank. */
+    void onColumnFluidChanged(boolean sendUpdates) {
+        if (world.isBlockLoaded(pos)) {
+            markDirty();
+        }
+        if (sendUpdates) {
+            sendNetworkUpdate(NET_RENDER_DATA);
+        }
+    }
+
+    /** Finds every tank connected to this one. This walks up and down the column, so only {@link TankColumn#form}
+     * should call this: everything else should use {@link #getColumn()}.
+     * 
+     * @return A list of all connected tanks around this block, ordered by position from bottom to top. */
+    List<TileTank> getTanks() {
         // double-ended queue rather than array list to avoid
         // the copy operation when we search downwards
         Deque<TileTank> tanks = new ArrayDeque<>();
@@ -260,7 +336,11 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
 
     @Override
     public IFluidTankProperties[] getTankProperties() {
-        List<TileTank> tanks = getTanks();
+        TankColumn col = getColumn();
+        if (col.logical) {
+            return new IFluidTankProperties[] { new FluidTankProperties(col.getFluid(), col.capacity) };
+        }
+        List<TileTank> tanks = col.getTankList();
         TileTank bottom = tanks.get(0);
         FluidStack total = bottom.tank.getFluid();
         int capacity = 0;
@@ -287,8 +367,16 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
         if (resource == null || resource.amount <= 0) {
             return 0;
         }
+        TankColumn col = getColumn();
+        if (col.logical) {
+            int filled = col.fill(resource, doFill);
+            if (isPlayerInteracting & doFill) {
+                col.flush(true);
+            }
+            return filled;
+        }
         int filled = 0;
-        List<TileTank> tanks = getTanks();
+        List<TileTank> tanks = col.getTankList();
         for (TileTank t : tanks) {
             FluidStack current = t.tank.getFluid();
             if (current != null && !current.isFluidEqual(resource)) {
@@ -336,7 +424,15 @@ public class TileTank extends TileBC_Neptune implements ITickable, IDebuggable,
         if (maxDrain <= 0) {
             return null;
         }
-        List<TileTank> tanks = getTanks();
+        TankColumn col = getColumn();
+        if (col.logical) {
+            FluidStack drained = col.drain(filter, maxDrain, doDrain);
+            if (isPlayerInteracting & doDrain) {
+                col.flush(true);
+            }
+            return drained;
+        }
+        List<TileTank> tanks = col.getTankList();
         boolean gas = false;
         for (TileTank tile : tanks) {
             FluidStack fluid = tile.tank.getFluid();
@@ -26,10 +26,12 @@ import buildcraft.lib.block.VanillaRotationHandlers;
 import buildcraft.lib.chunkload.ChunkLoaderManager;
 import buildcraft.lib.command.CommandBuildCraft;
 import buildcraft.lib.expression.ExpressionDebugManager;
+import buildcraft.lib.expression.NodeBytecodeCompiler;
 import buildcraft.lib.expression.minecraft.ExpressionCompat;
 import buildcraft.lib.fluid.FluidManager;
 import buildcraft.lib.list.VanillaListHandlers;
 import buildcraft.lib.marker.MarkerCache;
+import buildcraft.lib.misc.CraftingUtil;
 import buildcraft.lib.net.MessageManager;
 import buildcraft.lib.net.cache.BuildCraftObjectCaches;
 import buildcraft.lib.registry.MigrationManager;
@@ -94,6 +96,7 @@ public class BCLib {
         BCLog.logger.info("");
 
         ExpressionDebugManager.logger = BCLog.logger::info;
+        BCLibConfig.configChangeListeners.add(() -> NodeBytecodeCompiler.enabled = BCLibConfig.compileExpressions);
         ExpressionCompat.setup();
 
         BCLibRegistries.fmlPreInit();
@@ -137,6 +140,7 @@ public class BCLib {
     @Mod.EventHandler
     public static void serverStarting(FMLServerStartingEvent event) {
         event.registerServerCommand(new CommandBuildCraft());
+        CraftingUtil.invalidateRecipeCache();
     }
 
     static {
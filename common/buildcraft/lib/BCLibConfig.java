@@ -69,6 +69,14 @@ public class BCLibConfig {
     /** If true then ItemRenderUtil.renderItemStack will use the facing parameter to rotate the item */
     public static RenderRotation rotateTravelingItems = RenderRotation.ENABLED;
 
+    /** The distance (in blocks) beyond which items travelling in pipes are rendered as simple cubes rather than with
+     * their full item model. 0 disables this, so items always use their full model. */
+    public static int itemRenderLodDistance = 24;
+
+    /** If true then expressions (used by json models and guis) are compiled into bytecode, rather than evaluated
+     * node by node. */
+    public static boolean compileExpressions = false;
+
     public static ChunkLoaderType chunkLoadingType = ChunkLoaderType.AUTO;
 
     public static ChunkLoaderLevel chunkLoadingLevel = ChunkLoaderLevel.SELF_TILES;
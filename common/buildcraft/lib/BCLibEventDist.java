@@ -29,23 +29,30 @@ import net.minecraftforge.fml.common.ModContainer;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent.ClientTickEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.RenderTickEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.WorldTickEvent;
 import net.minecraftforge.fml.common.network.FMLNetworkEvent.ClientConnectedToServerEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
+import net.minecraftforge.oredict.OreDictionary;
 
 import buildcraft.api.tiles.IDebuggable;
 
+import buildcraft.lib.block.LocalBlockUpdateNotifier;
 import buildcraft.lib.client.model.ModelHolderRegistry;
 import buildcraft.lib.client.reload.ReloadManager;
 import buildcraft.lib.client.render.DetachedRenderer;
+import buildcraft.lib.client.render.LightCache;
 import buildcraft.lib.client.render.fluid.FluidRenderer;
 import buildcraft.lib.client.render.laser.LaserRenderer_BC8;
 import buildcraft.lib.client.sprite.SpriteHolderRegistry;
 import buildcraft.lib.debug.BCAdvDebugging;
 import buildcraft.lib.debug.ClientDebuggables;
 import buildcraft.lib.item.ItemDebugger;
+import buildcraft.lib.list.ListMatcher;
 import buildcraft.lib.marker.MarkerCache;
+import buildcraft.lib.misc.CraftingUtil;
 import buildcraft.lib.misc.FakePlayerProvider;
 import buildcraft.lib.misc.MessageUtil;
 import buildcraft.lib.misc.data.ModelVariableData;
@@ -176,6 +183,14 @@ public enum BCLibEventDist {
         DetachedRenderer.INSTANCE.renderWorldLastEvent(player, partialTicks);
     }
 
+    @SubscribeEvent
+    @SideOnly(Side.CLIENT)
+    public static void renderTick(RenderTickEvent event) {
+        if (event.phase == Phase.START) {
+            LightCache.onFrameStart();
+        }
+    }
+
     @SubscribeEvent
     public static void serverTick(ServerTickEvent event) {
         if (event.phase == Phase.END) {
@@ -184,6 +199,19 @@ public enum BCLibEventDist {
         }
     }
 
+    @SubscribeEvent
+    public static void worldTick(WorldTickEvent event) {
+        if (event.phase == Phase.END) {
+            LocalBlockUpdateNotifier.onWorldPostTick(event.world);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onOreRegister(OreDictionary.OreRegisterEvent event) {
+        CraftingUtil.invalidateRecipeCache();
+        ListMatcher.invalidateAll();
+    }
+
     @SubscribeEvent
     @SideOnly(Side.CLIENT)
     public static void clientTick(ClientTickEvent event) {
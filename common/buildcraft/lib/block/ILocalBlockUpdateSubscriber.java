@@ -1,5 +1,7 @@
 package buildcraft.lib.block;
 
+import java.util.Set;
+
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
@@ -7,26 +9,36 @@ import net.minecraft.world.World;
 public interface ILocalBlockUpdateSubscriber {
 
     /**
-     * Returns the position of the subscriber. Used with the result of @{getUpdateRange} to determine if a subscriber
-     * should be notified about an update. This method should be kept lightweight as it can be called multiple times per
-     * tick.
+     * Returns the minimum corner (inclusive) of the box that this subscriber wants to be notified about updates in.
+     * This is only read when the subscriber is registered, or when
+     * {@link LocalBlockUpdateNotifier#updateSubscriber(ILocalBlockUpdateSubscriber)} is called, so the subscriber must
+     * call that whenever the box changes.
+     *
+     * @return the minimum @{BlockPos} of the box where block update events will trigger a notification
+     */
+    BlockPos getUpdateMin();
+
+    /**
+     * Returns the maximum corner (inclusive) of the box that this subscriber wants to be notified about updates in.
      *
-     * @return the @{BlockPos} used to determine if a block update event is in range
+     * @return the maximum @{BlockPos} of the box where block update events will trigger a notification
+     * @see #getUpdateMin()
      */
-    BlockPos getSubscriberPos();
+    BlockPos getUpdateMax();
 
     /**
-     * The distance from the @{BlockPos} that subscribers should be notified about updates. This method should be kept
-     * lightweight as it can be called multiple times per tick.
+     * If true then updates will be collected together, and passed to @{setWorldUpdatedBatch} once at the end of every
+     * tick that had at least one update inside the box, rather than to @{setWorldUpdated} as soon as they happen.
      *
-     * @return the range from the @{BlockPos} returned by @{getSubscriberPos} where block update events will trigger a
-     * notification
+     * @return true if updates should be batched
      */
-    int getUpdateRange();
+    default boolean isBatched() {
+        return false;
+    }
 
     /**
-     * Called to indicate an update happened within the listener's update range returned by the @{getUpdateRange} call.
-     * This method should be kept lightweight as it can be called multiple times per tick.
+     * Called to indicate an update happened within the listener's update box, if @{isBatched} returns false. This
+     * method should be kept lightweight as it can be called multiple times per tick.
      *
      * @param world    from the block update event
      * @param eventPos from the block update event
@@ -34,5 +46,15 @@ public interface ILocalBlockUpdateSubscriber {
      * @param newState from the block update event
      * @param flags    from the block update event
      */
-    void setWorldUpdated(World world, BlockPos eventPos, IBlockState oldState, IBlockState newState, int flags);
+    default void setWorldUpdated(World world, BlockPos eventPos, IBlockState oldState, IBlockState newState,
+                                 int flags) {}
+
+    /**
+     * Called at the end of a tick with every position within the listener's update box that was updated during it, if
+     * @{isBatched} returns true.
+     *
+     * @param world     the world that the updates happened in
+     * @param positions every updated position. This set is only valid for the duration of this call.
+     */
+    default void setWorldUpdatedBatch(World world, Set<BlockPos> positions) {}
 }
@@ -1,12 +1,18 @@
 package buildcraft.lib.block;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 
 import javax.annotation.Nonnull;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IWorldEventListener;
@@ -17,12 +23,28 @@ import buildcraft.lib.world.WorldEventListenerAdapter;
 
 /**
  * Listens for BlockUpdates in a given world and notifies all registered IBlockUpdateSubscribers of the update provided
- * it was within the update range of the ILocalBlockUpdateSubscriber
+ * it was within the update box of the ILocalBlockUpdateSubscriber. This is the only world listener that machines
+ * should need: subscribers are indexed by the chunk sections that their boxes cover, so each block update only
+ * looks at the subscribers that could care about it, rather than every subscriber (or world listener) in the world.
  */
 public class LocalBlockUpdateNotifier {
 
+    /**
+     * Subscribers with boxes that cover more than this many chunk sections aren't indexed, and are checked for every
+     * update instead.
+     */
+    private static final int MAX_INDEXED_SECTIONS = 4096;
+    private static final Registration[] NO_REGISTRATIONS = new Registration[0];
+
     private static final Map<World, LocalBlockUpdateNotifier> instanceMap = new WeakHashMap<>();
-    private final Set<ILocalBlockUpdateSubscriber> subscriberSet = new HashSet<>();
+    private final Map<ILocalBlockUpdateSubscriber, Registration> subscribers = new IdentityHashMap<>();
+    /** Every registration, by packed chunk section. Arrays are replaced rather than modified, so they can be iterated
+     * over while subscribers are added or removed. */
+    private final Long2ObjectOpenHashMap<Registration[]> sectionMap = new Long2ObjectOpenHashMap<>();
+    /** Registrations that cover too many sections to be indexed. */
+    private Registration[] unindexed = NO_REGISTRATIONS;
+    /** Batched registrations that have had at least one update this tick. */
+    private final List<Registration> pendingBatches = new ArrayList<>();
 
 
     private LocalBlockUpdateNotifier(World world) {
@@ -50,13 +72,46 @@ public class LocalBlockUpdateNotifier {
         return instanceMap.get(world);
     }
 
+    /**
+     * Passes every batched update to its subscriber. Called at the end of every world tick.
+     *
+     * @param world the world that has just ticked
+     */
+    public static void onWorldPostTick(World world) {
+        LocalBlockUpdateNotifier notifier = instanceMap.get(world);
+        if (notifier != null) {
+            notifier.flushBatches(world);
+        }
+    }
+
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0x3F_FFFF) << 42 | ((long) sectionY & 0xF_FFFF) << 22 | ((long) sectionZ & 0x3F_FFFF);
+    }
+
     /**
      * Register an @{ILocalBlockUpdateSubscriber} to receive notifications about block updates
      *
      * @param subscriber the subscriber to receive notifications about local block updates
      */
     public void registerSubscriberForUpdateNotifications(ILocalBlockUpdateSubscriber subscriber) {
-        subscriberSet.add(subscriber);
+        if (subscribers.containsKey(subscriber)) {
+            return;
+        }
+        Registration reg = new Registration(subscriber);
+        subscribers.put(subscriber, reg);
+        if (reg.sectionCount() > MAX_INDEXED_SECTIONS) {
+            unindexed = add(unindexed, reg);
+            return;
+        }
+        for (int sx = reg.minX >> 4; sx <= reg.maxX >> 4; sx++) {
+            for (int sy = reg.minY >> 4; sy <= reg.maxY >> 4; sy++) {
+                for (int sz = reg.minZ >> 4; sz <= reg.maxZ >> 4; sz++) {
+                    long key = sectionKey(sx, sy, sz);
+                    Registration[] existing = sectionMap.get(key);
+                    sectionMap.put(key, add(existing == null ? NO_REGISTRATIONS : existing, reg));
+                }
+            }
+        }
     }
 
     /**
@@ -65,13 +120,68 @@ public class LocalBlockUpdateNotifier {
      * @param subscriber the subscriber to no longer receive notifications about local block update
      */
     public void removeSubscriberFromUpdateNotifications(ILocalBlockUpdateSubscriber subscriber) {
-        subscriberSet.remove(subscriber);
+        Registration reg = subscribers.remove(subscriber);
+        if (reg == null) {
+            return;
+        }
+        reg.removed = true;
+        pendingBatches.remove(reg);
+        if (reg.sectionCount() > MAX_INDEXED_SECTIONS) {
+            unindexed = remove(unindexed, reg);
+            return;
+        }
+        for (int sx = reg.minX >> 4; sx <= reg.maxX >> 4; sx++) {
+            for (int sy = reg.minY >> 4; sy <= reg.maxY >> 4; sy++) {
+                for (int sz = reg.minZ >> 4; sz <= reg.maxZ >> 4; sz++) {
+                    long key = sectionKey(sx, sy, sz);
+                    Registration[] existing = sectionMap.get(key);
+                    if (existing == null) {
+                        continue;
+                    }
+                    Registration[] removed = remove(existing, reg);
+                    if (removed.length == 0) {
+                        sectionMap.remove(key);
+                    } else {
+                        sectionMap.put(key, removed);
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * Notifies all subscribers near the given position that a world update took place. The distance used to determine
-     * if a subscriber is close enough to notify is determined by a call to the subscriber's implementation of
-     * getUpdateRange
+     * Reads the update box of an already registered subscriber again. Does nothing if the subscriber isn't
+     * registered.
+     *
+     * @param subscriber the subscriber whose box has changed
+     */
+    public void updateSubscriber(ILocalBlockUpdateSubscriber subscriber) {
+        if (subscribers.containsKey(subscriber)) {
+            removeSubscriberFromUpdateNotifications(subscriber);
+            registerSubscriberForUpdateNotifications(subscriber);
+        }
+    }
+
+    private static Registration[] add(Registration[] array, Registration reg) {
+        Registration[] added = Arrays.copyOf(array, array.length + 1);
+        added[array.length] = reg;
+        return added;
+    }
+
+    private static Registration[] remove(Registration[] array, Registration reg) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == reg) {
+                Registration[] removed = new Registration[array.length - 1];
+                System.arraycopy(array, 0, removed, 0, i);
+                System.arraycopy(array, i + 1, removed, i, array.length - i - 1);
+                return removed;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Notifies all subscribers whose update box contains the given position that a world update took place.
      *
      * @param world    from the Block Update
      * @param eventPos from the Block Update
@@ -81,15 +191,78 @@ public class LocalBlockUpdateNotifier {
      */
     private void notifySubscribersInRange(World world, BlockPos eventPos, IBlockState oldState, IBlockState newState,
                                           int flags) {
-        for (ILocalBlockUpdateSubscriber subscriber : subscriberSet) {
-            BlockPos keyPos = subscriber.getSubscriberPos();
-            int updateRange = subscriber.getUpdateRange();
-            if (Math.abs(keyPos.getX() - eventPos.getX()) <= updateRange &&
-                    Math.abs(keyPos.getY() - eventPos.getY()) <= updateRange &&
-                    Math.abs(keyPos.getZ() - eventPos.getZ()) <= updateRange) {
-                subscriber.setWorldUpdated(world, eventPos, oldState, newState, flags);
+        long key = sectionKey(eventPos.getX() >> 4, eventPos.getY() >> 4, eventPos.getZ() >> 4);
+        Registration[] indexed = sectionMap.get(key);
+        if (indexed != null) {
+            notify(indexed, world, eventPos, oldState, newState, flags);
+        }
+        if (unindexed.length > 0) {
+            notify(unindexed, world, eventPos, oldState, newState, flags);
+        }
+    }
+
+    private void notify(Registration[] registrations, World world, BlockPos eventPos, IBlockState oldState,
+                        IBlockState newState, int flags) {
+        for (Registration reg : registrations) {
+            if (reg.removed || !reg.contains(eventPos)) {
+                continue;
+            }
+            if (reg.batched) {
+                if (reg.pending.isEmpty()) {
+                    pendingBatches.add(reg);
+                }
+                reg.pending.add(eventPos.toImmutable());
+            } else {
+                reg.subscriber.setWorldUpdated(world, eventPos, oldState, newState, flags);
             }
         }
     }
 
+    private void flushBatches(World world) {
+        if (pendingBatches.isEmpty()) {
+            return;
+        }
+        Registration[] batches = pendingBatches.toArray(NO_REGISTRATIONS);
+        pendingBatches.clear();
+        for (Registration reg : batches) {
+            if (!reg.removed) {
+                reg.subscriber.setWorldUpdatedBatch(world, reg.pending);
+            }
+            reg.pending.clear();
+        }
+    }
+
+    static final class Registration {
+        final ILocalBlockUpdateSubscriber subscriber;
+        final boolean batched;
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+        final Set<BlockPos> pending = new HashSet<>();
+        boolean removed = false;
+
+        Registration(ILocalBlockUpdateSubscriber subscriber) {
+            this.subscriber = subscriber;
+            this.batched = subscriber.isBatched();
+            BlockPos min = subscriber.getUpdateMin();
+            BlockPos max = subscriber.getUpdateMax();
+            minX = Math.min(min.getX(), max.getX());
+            minY = Math.max(0, Math.min(min.getY(), max.getY()));
+            minZ = Math.min(min.getZ(), max.getZ());
+            maxX = Math.max(min.getX(), max.getX());
+            maxY = Math.min(255, Math.max(min.getY(), max.getY()));
+            maxZ = Math.max(min.getZ(), max.getZ());
+        }
+
+        long sectionCount() {
+            long sizeX = (maxX >> 4) - (minX >> 4) + 1;
+            long sizeY = maxY < minY ? 0 : (maxY >> 4) - (minY >> 4) + 1;
+            long sizeZ = (maxZ >> 4) - (minZ >> 4) + 1;
+            return sizeX * sizeY * sizeZ;
+        }
+
+        boolean contains(BlockPos pos) {
+            return pos.getX() >= minX && pos.getX() <= maxX//
+                && pos.getY() >= minY && pos.getY() <= maxY//
+                && pos.getZ() >= minZ && pos.getZ() <= maxZ;
+        }
+    }
 }
@@ -394,7 +394,7 @@ public class MutableVertex {
     }
 
     public int lightc() {
-        return light_block << 4 + light_sky << 20;
+        return light_block << 4 | light_sky << 20;
     }
 
     public int[] lighti() {
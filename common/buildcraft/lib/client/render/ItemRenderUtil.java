@@ -103,6 +103,39 @@ public class ItemRenderUtil {
 
     // Batch item rendering
 
+    /** @return The model to use for rendering the given stack in a pipe, with any item overrides applied. */
+    public static IBakedModel getItemModel(ItemStack stack) {
+        IBakedModel model = Minecraft.getMinecraft().getRenderItem().getItemModelMesher().getItemModel(stack);
+        return model.getOverrides().handleItemState(model, stack, null, null);
+    }
+
+    /** @return True if the given stack can be rendered by adding its quads to a {@link BufferBuilder}, or false if it
+     *         needs to be rendered with GL calls (for the enchantment glint or a built in renderer). */
+    public static boolean canRenderInBuffer(ItemStack stack, IBakedModel model) {
+        return !stack.hasEffect() && !model.isBuiltInRenderer();
+    }
+
+    /** Sets the given {@link MutableQuad} to the given item quad, scaled down, centered on the origin and rotated to
+     * face the given direction, with the item's tint and shading applied. The lightmap is left for the caller to set.
+     * Only valid when {@link #canRenderInBuffer(ItemStack, IBakedModel)} is true. */
+    public static void transformItemQuad(MutableQuad q, BakedQuad quad, ItemStack stack, EnumFacing dir) {
+        float scale = 0.30f;
+        q.fromBakedItem(quad);
+        q.translated(-0.5, -0.5, -0.5);
+        q.scaled(scale);
+        q.rotate(EnumFacing.SOUTH, dir, 0, 0, 0);
+        if (quad.hasTintIndex()) {
+            int colour = Minecraft.getMinecraft().getItemColors().colorMultiplier(stack, quad.getTintIndex());
+            if (EntityRenderer.anaglyphEnable) {
+                colour = TextureUtil.anaglyphColor(colour);
+            }
+            q.multColouri(colour, colour >> 8, colour >> 16, 0xFF);
+        }
+        Vector3f normal = q.getCalculatedNormal();
+        q.normalvf(normal);
+        q.multShade();
+    }
+
     private static boolean inBatch = false;
 
     /** Used to render a lot of items in sequential order. Assumes that you don't change the glstate inbetween calls.
@@ -116,32 +149,16 @@ public class ItemRenderUtil {
         }
         dir = BCLibConfig.rotateTravelingItems.changeFacing(dir);
 
-        IBakedModel model = Minecraft.getMinecraft().getRenderItem().getItemModelMesher().getItemModel(stack);
-        model = model.getOverrides().handleItemState(model, stack, null, null);
-        boolean requireGl = stack.hasEffect() || model.isBuiltInRenderer();
+        IBakedModel model = getItemModel(stack);
 
-        if (bb != null && !requireGl) {
+        if (bb != null && canRenderInBuffer(stack, model)) {
             bb.setTranslation(x, y, z);
-            float scale = 0.30f;
 
             MutableQuad q = new MutableQuad(-1, null);
             for (EnumPipePart part : EnumPipePart.VALUES) {
                 for (BakedQuad quad : model.getQuads(null, part.face, 0)) {
-                    q.fromBakedItem(quad);
-                    q.translated(-0.5, -0.5, -0.5);
-                    q.scaled(scale);
-                    q.rotate(EnumFacing.SOUTH, dir, 0, 0, 0);
-                    if (quad.hasTintIndex()) {
-                        int colour = Minecraft.getMinecraft().getItemColors().colorMultiplier(stack, quad.getTintIndex());
-                        if (EntityRenderer.anaglyphEnable) {
-                            colour = TextureUtil.anaglyphColor(colour);
-                        }
-                        q.multColouri(colour, colour >> 8, colour >> 16, 0xFF);
-                    }
+                    transformItemQuad(q, quad, stack, dir);
                     q.lighti(lightc);
-                    Vector3f normal = q.getCalculatedNormal();
-                    q.normalvf(normal);
-                    q.multShade();
                     q.render(bb);
                 }
             }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.client.render;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/** Caches the light values of blocks for a single frame, so that renderers which sample the light of the same blocks
+ * many times (such as lasers, which sample the blocks around every vertex) only look each one up once. Positions are
+ * keyed on their packed co-ordinates, so nothing is allocated for a lookup. The cache is cleared at the start of every
+ * frame, and whenever a different world is passed in. */
+@SideOnly(Side.CLIENT)
+public class LightCache {
+    /** Above this many entries the maps are shrunk back down when cleared, so that one frame with a lot of lasers
+     * doesn't make every following clear more expensive. */
+    private static final int TRIM_SIZE = 4096;
+
+    /** Stores (sky light << 4 | block light), from {@link World#getLightFor(EnumSkyBlock, BlockPos)}. */
+    private static final Long2IntOpenHashMap RAW_LIGHT = new Long2IntOpenHashMap();
+    /** Stores the output of {@link World#getCombinedLight(BlockPos, int)}, with a minimum block light of 0. */
+    private static final Long2IntOpenHashMap COMBINED_LIGHT = new Long2IntOpenHashMap();
+    private static final BlockPos.MutableBlockPos MUTABLE_POS = new BlockPos.MutableBlockPos();
+    private static World cachedWorld = null;
+
+    static {
+        RAW_LIGHT.defaultReturnValue(-1);
+        COMBINED_LIGHT.defaultReturnValue(-1);
+    }
+
+    /** Called at the start of every frame. */
+    public static void onFrameStart() {
+        clear(RAW_LIGHT);
+        clear(COMBINED_LIGHT);
+        cachedWorld = null;
+    }
+
+    private static void clear(Long2IntOpenHashMap map) {
+        if (map.size() > TRIM_SIZE) {
+            map.clear();
+            map.trim(TRIM_SIZE);
+        } else {
+            map.clear();
+        }
+    }
+
+    private static void checkWorld(World world) {
+        if (world != cachedWorld) {
+            RAW_LIGHT.clear();
+            COMBINED_LIGHT.clear();
+            cachedWorld = world;
+        }
+    }
+
+    /** Packs the given co-ordinates in the same way as {@link BlockPos#toLong()}. */
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) y & 0xFFF) << 26 | ((long) z & 0x3FFFFFF);
+    }
+
+    /** @return (sky light << 4 | block light) for the given block. */
+    public static int getRawLight(World world, int x, int y, int z) {
+        checkWorld(world);
+        long key = pack(x, y, z);
+        int light = RAW_LIGHT.get(key);
+        if (light == -1) {
+            MUTABLE_POS.setPos(x, y, z);
+            int sky = world.getLightFor(EnumSkyBlock.SKY, MUTABLE_POS);
+            int block = world.getLightFor(EnumSkyBlock.BLOCK, MUTABLE_POS);
+            light = sky << 4 | block;
+            RAW_LIGHT.put(key, light);
+        }
+        return light;
+    }
+
+    /** A cached version of {@link World#getCombinedLight(BlockPos, int)}. */
+    public static int getCombinedLight(World world, BlockPos pos, int minBlockLight) {
+        checkWorld(world);
+        long key = pack(pos.getX(), pos.getY(), pos.getZ());
+        int light = COMBINED_LIGHT.get(key);
+        if (light == -1) {
+            light = world.getCombinedLight(pos, 0);
+            COMBINED_LIGHT.put(key, light);
+        }
+        int blockLight = (light >> 4) & 0xF;
+        if (blockLight < minBlockLight) {
+            light = light & ~0xF0 | minBlockLight << 4;
+        }
+        return light;
+    }
+}
@@ -20,13 +20,13 @@ import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.vertex.VertexFormat;
 import net.minecraft.profiler.Profiler;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import buildcraft.lib.client.render.LightCache;
 import buildcraft.lib.client.render.laser.LaserData_BC8.LaserType;
 import buildcraft.lib.misc.SpriteUtil;
 
@@ -99,21 +99,15 @@ public class LaserRenderer_BC8 {
     public static int computeLightmap(double x, double y, double z, int minBlockLight) {
         World world = Minecraft.getMinecraft().world;
         if (world == null) return 0;
-        int blockLight = minBlockLight >= 15 ? 15 : Math.max(minBlockLight, getLightFor(world, EnumSkyBlock.BLOCK, x, y, z));
-        int skyLight = getLightFor(world, EnumSkyBlock.SKY, x, y, z);
-        return skyLight << 20 | blockLight << 4;
-    }
-
-    private static int getLightFor(World world, EnumSkyBlock type, double x, double y, double z) {
-        int max = 0;
-        int count = 0;
-        int sum = 0;
 
         boolean ao = Minecraft.isAmbientOcclusionEnabled();
 
-        double xn = (x % 1 + 1) % 1;
-        double yn = (y % 1 + 1) % 1;
-        double zn = (z % 1 + 1) % 1;
+        int bx = MathHelper.floor(x);
+        int by = MathHelper.floor(y);
+        int bz = MathHelper.floor(z);
+        double xn = x - bx;
+        double yn = y - by;
+        double zn = z - bz;
 
         final double lowerBound = 0.3;
         final double upperBound = 1 - lowerBound;
@@ -125,24 +119,40 @@ public class LaserRenderer_BC8 {
         int yu = ao ? (yn > upperBound ? 1 : 0) : 1;
         int zu = ao ? (zn > upperBound ? 1 : 0) : 1;
 
+        // Both light types are sampled from the same blocks, so look them up together (through the per-frame cache)
+        int skyMax = 0, skyCount = 0, skySum = 0;
+        int blockMax = 0, blockCount = 0, blockSum = 0;
         for (int xp = xl; xp <= xu; xp++) {
             for (int yp = yl; yp <= yu; yp++) {
                 for (int zp = zl; zp <= zu; zp++) {
-                    int light = world.getLightFor(type, new BlockPos(x + xp, y + yp, z + zp));
-                    if (light > 0) {
-                        sum += light;
-                        count++;
+                    int light = LightCache.getRawLight(world, bx + xp, by + yp, bz + zp);
+                    int sky = light >> 4;
+                    int block = light & 0xF;
+                    if (sky > 0) {
+                        skySum += sky;
+                        skyCount++;
                     }
-                    max = Math.max(max, light);
+                    if (block > 0) {
+                        blockSum += block;
+                        blockCount++;
+                    }
+                    skyMax = Math.max(skyMax, sky);
+                    blockMax = Math.max(blockMax, block);
                 }
             }
         }
 
+        int skyLight;
+        int blockLight;
         if (ao) {
-            return count == 0 ? 0 : sum / count;
+            skyLight = skyCount == 0 ? 0 : skySum / skyCount;
+            blockLight = blockCount == 0 ? 0 : blockSum / blockCount;
         } else {
-            return max;
+            skyLight = skyMax;
+            blockLight = blockMax;
         }
+        blockLight = minBlockLight >= 15 ? 15 : Math.max(minBlockLight, blockLight);
+        return skyLight << 20 | blockLight << 4;
     }
 
     public static void renderLaserStatic(LaserData_BC8 data) {
@@ -8,17 +8,33 @@ package buildcraft.lib.client.render.tile;
 
 import javax.annotation.Nonnull;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.profiler.Profiler;
 
 import net.minecraftforge.client.model.animation.FastTESR;
 
 import buildcraft.lib.client.model.MutableQuad;
+import buildcraft.lib.client.model.MutableVertex;
+import buildcraft.lib.client.render.LightCache;
 import buildcraft.lib.engine.TileEngineBase_BC8;
+import buildcraft.lib.misc.data.ModelVariableData;
 
+/** Renders an engine from the quads returned by {@link #getEngineModel(TileEngineBase_BC8, float)}. As engine models
+ * only depend on a few inputs (see {@link TileEngineBase_BC8#getClientModelKey(float)}) the quads are cached for each
+ * key, already shaded and in the {@link DefaultVertexFormats#BLOCK} format, so rendering an engine only needs to copy
+ * the data in and apply the light of the world. */
 public abstract class RenderEngine_BC8<T extends TileEngineBase_BC8> extends FastTESR<T> {
-    // TODO: Cache the model!
+    /** If the cache grows past this size then it is cleared, rather than letting it grow forever. This is every key
+     * that an engine can have (every progress step, power stage and facing), so it is never cleared when all of them
+     * are in use. */
+    private static final int MAX_CACHE_SIZE = TileEngineBase_BC8.CLIENT_MODEL_KEY_COUNT;
+
+    private final Int2ObjectOpenHashMap<CachedModel> cache = new Int2ObjectOpenHashMap<>();
+    private int cacheBakeId = -1;
 
     @Override
     public void renderTileEntityFast(@Nonnull T engine, double x, double y, double z, float partialTicks, int destroyStage, float partial, @Nonnull BufferBuilder vb) {
@@ -28,10 +44,47 @@ public abstract class RenderEngine_BC8<T extends TileEngineBase_BC8> extends Fas
 
         profiler.startSection("compute");
         vb.setTranslation(x, y, z);
-        MutableQuad[] quads = getEngineModel(engine, partialTicks);
-        profiler.endStartSection("render");
+        int lightc = LightCache.getCombinedLight(engine.getWorld(), engine.getPos(), 0);
+        ModelVariableData data = engine.clientModelData;
+        boolean canCache = vb.getVertexFormat() == DefaultVertexFormats.BLOCK;
+        CachedModel cached = null;
+        int key = 0;
+        if (canCache) {
+            if (cacheBakeId != ModelVariableData.getCurrentBakeId()) {
+                cacheBakeId = ModelVariableData.getCurrentBakeId();
+                cache.clear();
+            }
+            key = engine.getClientModelKey(partialTicks);
+            if (!data.hasNoNodes() && !data.hasTickableNodes()) {
+                cached = cache.get(key);
+            }
+        }
+        if (cached == null) {
+            MutableQuad[] quads = getEngineModel(engine, partialTicks);
+            if (canCache && !data.hasTickableNodes()) {
+                if (cache.size() >= MAX_CACHE_SIZE) {
+                    cache.clear();
+                }
+                cached = new CachedModel(quads);
+                cache.put(key, cached);
+            } else {
+                profiler.endStartSection("render");
+                renderDirect(quads, lightc, vb);
+            }
+        }
+        if (cached != null) {
+            profiler.endStartSection("render");
+            cached.render(lightc, vb);
+        }
+        vb.setTranslation(0, 0, 0);
+
+        profiler.endSection();
+        profiler.endSection();
+        profiler.endSection();
+    }
+
+    private static void renderDirect(MutableQuad[] quads, int lightc, BufferBuilder vb) {
         MutableQuad copy = new MutableQuad(0, null);
-        int lightc = engine.getWorld().getCombinedLight(engine.getPos(), 0);
         int light_block = (lightc >> 4) & 15;
         int light_sky = (lightc >> 20) & 15;
         for (MutableQuad q : quads) {
@@ -40,12 +93,56 @@ public abstract class RenderEngine_BC8<T extends TileEngineBase_BC8> extends Fas
             copy.multShade();
             copy.render(vb);
         }
-        vb.setTranslation(0, 0, 0);
-
-        profiler.endSection();
-        profiler.endSection();
-        profiler.endSection();
     }
 
     protected abstract MutableQuad[] getEngineModel(T engine, float partialTicks);
+
+    /** The quads of an engine model, shaded and in the {@link DefaultVertexFormats#BLOCK} format. */
+    static final class CachedModel {
+        final int[][] vertexData;
+        /** The light of each vertex from the model itself, as (sky << 20 | block << 4), which is combined with the
+         * light of the world when rendering. */
+        final int[] vertexLight;
+
+        CachedModel(MutableQuad[] quads) {
+            vertexData = new int[quads.length][];
+            vertexLight = new int[quads.length * 4];
+            MutableQuad copy = new MutableQuad(0, null);
+            for (int i = 0; i < quads.length; i++) {
+                copy.copyFrom(quads[i]);
+                copy.multShade();
+                int[] quadData = new int[28];
+                copy.vertex_0.toBakedBlock(quadData, 0);
+                copy.vertex_1.toBakedBlock(quadData, 7);
+                copy.vertex_2.toBakedBlock(quadData, 14);
+                copy.vertex_3.toBakedBlock(quadData, 21);
+                vertexData[i] = quadData;
+                vertexLight[i * 4] = copy.vertex_0.lightc();
+                vertexLight[i * 4 + 1] = copy.vertex_1.lightc();
+                vertexLight[i * 4 + 2] = copy.vertex_2.lightc();
+                vertexLight[i * 4 + 3] = copy.vertex_3.lightc();
+            }
+        }
+
+        /** Renders this model with the current translation of the buffer. */
+        void render(int lightc, BufferBuilder vb) {
+            for (int i = 0; i < vertexData.length; i++) {
+                vb.addVertexData(vertexData[i]);
+                vb.putBrightness4(
+                    maxLight(vertexLight[i * 4], lightc),
+                    maxLight(vertexLight[i * 4 + 1], lightc),
+                    maxLight(vertexLight[i * 4 + 2], lightc),
+                    maxLight(vertexLight[i * 4 + 3], lightc)
+                );
+                // addVertexData doesn't use the translation, but putPosition adds it
+                vb.putPosition(0, 0, 0);
+            }
+        }
+
+        /** @return The maximum of the block and sky light of both packed light values, in the same way as
+         *         {@link MutableVertex#maxLighti(int, int)}. */
+        private static int maxLight(int a, int b) {
+            return Math.max(a & 0xFF, b & 0xFF) | Math.max(a & 0xFF_0000, b & 0xFF_0000);
+        }
+    }
 }
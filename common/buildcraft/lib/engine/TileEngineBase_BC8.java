@@ -50,6 +50,12 @@ public abstract class TileEngineBase_BC8 extends TileBC_Neptune implements ITick
     public static final double IDEAL_HEAT = 100;
     public static final double MAX_HEAT = 250;
 
+    /** The number of distinct piston positions that engines are rendered with. */
+    public static final int MODEL_PROGRESS_STEPS = 64;
+    private static final int POWER_STAGE_COUNT = EnumPowerStage.values().length;
+    /** The number of different values that {@link #getClientModelKey(float)} can return. */
+    public static final int CLIENT_MODEL_KEY_COUNT = MODEL_PROGRESS_STEPS * POWER_STAGE_COUNT * 7;
+
     @Nonnull
     public final IMjConnector mjConnector = createConnector();
     private final MjCapabilityHelper mjCaps = new MjCapabilityHelper(mjConnector);
@@ -568,6 +574,27 @@ public abstract class TileEngineBase_BC8 extends TileBC_Neptune implements ITick
         return interp % 1;
     }
 
+    @SideOnly(Side.CLIENT)
+    private int getProgressStepClient(float partialTicks) {
+        return Math.round(getProgressClient(partialTicks) * MODEL_PROGRESS_STEPS) % MODEL_PROGRESS_STEPS;
+    }
+
+    /** @return The piston progress, rounded to one of {@link #MODEL_PROGRESS_STEPS} positions so that the model can be
+     *         cached. */
+    @SideOnly(Side.CLIENT)
+    public float getProgressClientModel(float partialTicks) {
+        return getProgressStepClient(partialTicks) / (float) MODEL_PROGRESS_STEPS;
+    }
+
+    /** @return A key that is unique for every combination of the inputs to the model: the power stage, the rounded
+     *         progress (from {@link #getProgressClientModel(float)}) and the facing. */
+    @SideOnly(Side.CLIENT)
+    public int getClientModelKey(float partialTicks) {
+        int key = getProgressStepClient(partialTicks);
+        key = key * POWER_STAGE_COUNT + getPowerStage().ordinal();
+        return key * 7 + (currentDirection == null ? 6 : currentDirection.ordinal());
+    }
+
     public EnumFacing getCurrentFacing() {
         return currentDirection;
     }
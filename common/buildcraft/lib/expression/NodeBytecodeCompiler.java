@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.expression;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Table;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import buildcraft.lib.expression.api.IConstantNode;
+import buildcraft.lib.expression.api.IExpressionNode;
+import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
+import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
+import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
+import buildcraft.lib.expression.api.IExpressionNode.INodeObject;
+import buildcraft.lib.expression.api.INodeFunc;
+import buildcraft.lib.expression.api.NodeTypes;
+import buildcraft.lib.expression.node.cast.NodeCastLongToDouble;
+import buildcraft.lib.expression.node.condition.NodeConditionalBoolean;
+import buildcraft.lib.expression.node.condition.NodeConditionalDouble;
+import buildcraft.lib.expression.node.condition.NodeConditionalLong;
+import buildcraft.lib.expression.node.func.IFunctionCallNode;
+import buildcraft.lib.expression.node.func.NodeFuncBooleanBooleanToBoolean;
+import buildcraft.lib.expression.node.func.NodeFuncBooleanToBoolean;
+import buildcraft.lib.expression.node.func.NodeFuncDoubleDoubleToBoolean;
+import buildcraft.lib.expression.node.func.NodeFuncDoubleDoubleToDouble;
+import buildcraft.lib.expression.node.func.NodeFuncDoubleToDouble;
+import buildcraft.lib.expression.node.func.NodeFuncLongLongToBoolean;
+import buildcraft.lib.expression.node.func.NodeFuncLongLongToLong;
+import buildcraft.lib.expression.node.func.NodeFuncLongToDouble;
+import buildcraft.lib.expression.node.func.NodeFuncLongToLong;
+import buildcraft.lib.expression.node.value.NodeVariableBoolean;
+import buildcraft.lib.expression.node.value.NodeVariableDouble;
+import buildcraft.lib.expression.node.value.NodeVariableLong;
+
+/** Compiles (inlined) node trees into a generated class, with a single evaluate method that does the work of the
+ * entire tree. This removes all of the virtual calls between nodes, reads variables directly from their fields, and
+ * turns the basic operators (from {@link NodeTypes}) into the equivalent bytecode instructions. Every other function is
+ * called directly on its functional interface, so the JIT sees one implementation at every call site.
+ * <p>
+ * Compiled classes are cached per expression and {@link FunctionContext}, so compiling the same expression again only
+ * creates a new instance. Every class compiled for the same context is defined by the same class loader, so they can
+ * all be unloaded together once the context is no longer used. If anything goes wrong during compilation then the (inlined) tree is returned instead, so
+ * this can always be used in place of the tree. */
+public class NodeBytecodeCompiler {
+
+    /** Modifiable field to enable or disable compilation. Set by BCLib from the config. */
+    public static boolean enabled = false;
+
+    private static final String GENERATED_PACKAGE = "buildcraft/lib/expression/generated/";
+    private static final String FIELD_PREFIX = "leaf";
+    private static final String OBJECT = Type.getInternalName(Object.class);
+
+    private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+    private static final Map<FunctionContext, ContextCache> CACHE = new WeakHashMap<>();
+    private static final Map<Object, Intrinsic> INTRINSICS = new IdentityHashMap<>();
+
+    static {
+        addIntrinsics(NodeTypes.LONG);
+        addIntrinsics(NodeTypes.DOUBLE);
+        addIntrinsics(NodeTypes.BOOLEAN);
+    }
+
+    public static INodeLong compileLong(String expression, FunctionContext context, INodeLong node) {
+        if (!enabled) {
+            return node;
+        }
+        return (INodeLong) compile(expression, context, node.inline(), NodeKind.LONG);
+    }
+
+    public static INodeDouble compileDouble(String expression, FunctionContext context, INodeDouble node) {
+        if (!enabled) {
+            return node;
+        }
+        return (INodeDouble) compile(expression, context, node.inline(), NodeKind.DOUBLE);
+    }
+
+    public static INodeBoolean compileBoolean(String expression, FunctionContext context, INodeBoolean node) {
+        if (!enabled) {
+            return node;
+        }
+        return (INodeBoolean) compile(expression, context, node.inline(), NodeKind.BOOLEAN);
+    }
+
+    /** Compiles the given node without caching the generated class, regardless of {@link #enabled}. */
+    public static INodeLong compile(INodeLong node) {
+        return (INodeLong) compile(null, null, node.inline(), NodeKind.LONG);
+    }
+
+    /** Compiles the given node without caching the generated class, regardless of {@link #enabled}. */
+    public static INodeDouble compile(INodeDouble node) {
+        return (INodeDouble) compile(null, null, node.inline(), NodeKind.DOUBLE);
+    }
+
+    /** Compiles the given node without caching the generated class, regardless of {@link #enabled}. */
+    public static INodeBoolean compile(INodeBoolean node) {
+        return (INodeBoolean) compile(null, null, node.inline(), NodeKind.BOOLEAN);
+    }
+
+    private static IExpressionNode compile(String expression, FunctionContext context, IExpressionNode node,
+        NodeKind kind) {
+        if (node instanceof IConstantNode) {
+            return node;
+        }
+        try {
+            if (context == null) {
+                Generator gen = new Generator(nextClassName(kind), kind, node);
+                if (gen.compiledNodes == 0) {
+                    // Just a variable or an unknown node, so there's nothing to gain
+                    return node;
+                }
+                return instantiate(node, gen.define(new GeneratedClassLoader()), gen.leaves);
+            }
+            synchronized (CACHE) {
+                ContextCache cache = CACHE.computeIfAbsent(context, c -> new ContextCache());
+                CompiledClass compiled = cache.classes.get(expression);
+                if (compiled != null) {
+                    // Only walk the tree to find its shape and leaves, without writing any bytecode
+                    Generator scan = new Generator(null, kind, node);
+                    if (scan.compiledNodes == 0) {
+                        return node;
+                    }
+                    if (compiled.shape.equals(scan.shape)) {
+                        return instantiate(node, compiled.constructor, scan.leaves);
+                    }
+                }
+                Generator gen = new Generator(nextClassName(kind), kind, node);
+                if (gen.compiledNodes == 0) {
+                    return node;
+                }
+                compiled = new CompiledClass(gen.shape, gen.define(cache.loader));
+                cache.classes.put(expression, compiled);
+                return instantiate(node, compiled.constructor, gen.leaves);
+            }
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            ExpressionDebugManager.logger.accept("[lib.expression] Failed to compile " + node + ": " + e);
+            return node;
+        }
+    }
+
+    private static String nextClassName(NodeKind kind) {
+        return GENERATED_PACKAGE + "Compiled" + kind.name + "_" + CLASS_COUNT.incrementAndGet();
+    }
+
+    private static IExpressionNode instantiate(IExpressionNode node, Constructor<?> constructor, List<Object> leaves)
+        throws ReflectiveOperationException {
+        ExpressionDebugManager.debugPrintln("Compiled " + node + " into " + constructor.getDeclaringClass());
+        return (IExpressionNode) constructor.newInstance((Object) leaves.toArray());
+    }
+
+    private static void addIntrinsics(FunctionContext ctx) {
+        Table<String, List<Class<?>>, INodeFunc> functions = ctx.getAllFunctions();
+        for (Table.Cell<String, List<Class<?>>, INodeFunc> cell : functions.cellSet()) {
+            String name = cell.getRowKey();
+            INodeFunc func = cell.getValue();
+            if (func instanceof NodeFuncLongToLong) {
+                if ("-".equals(name)) {
+                    addIntrinsic(((NodeFuncLongToLong) func).function, Opcodes.LNEG);
+                }
+            } else if (func instanceof NodeFuncLongToDouble) {
+                if ("(double)".equals(name)) {
+                    addIntrinsic(((NodeFuncLongToDouble) func).function, Opcodes.L2D);
+                }
+            } else if (func instanceof NodeFuncLongLongToLong) {
+                Object function = ((NodeFuncLongLongToLong) func).function;
+                switch (name) {
+                    case "+":
+                        addIntrinsic(function, Opcodes.LADD);
+                        break;
+                    case "-":
+                        addIntrinsic(function, Opcodes.LSUB);
+                        break;
+                    case "*":
+                        addIntrinsic(function, Opcodes.LMUL);
+                        break;
+                    case "/":
+                        addIntrinsic(function, Opcodes.LDIV);
+                        break;
+                    case "%":
+                        addIntrinsic(function, Opcodes.LREM);
+                        break;
+                    case "^":
+                        addIntrinsic(function, Opcodes.LXOR);
+                        break;
+                    case "&":
+                        addIntrinsic(function, Opcodes.LAND);
+                        break;
+                    case "|":
+                        addIntrinsic(function, Opcodes.LOR);
+                        break;
+                    case "<<":
+                        addIntrinsic(function, Opcodes.L2I, Opcodes.LSHL);
+                        break;
+                    case ">>":
+                        addIntrinsic(function, Opcodes.L2I, Opcodes.LSHR);
+                        break;
+                    case ">>>":
+                        addIntrinsic(function, Opcodes.L2I, Opcodes.LUSHR);
+                        break;
+                    default:
+                        break;
+                }
+            } else if (func instanceof NodeFuncLongLongToBoolean) {
+                addComparison(((NodeFuncLongLongToBoolean) func).function, name, Opcodes.LCMP, Opcodes.LCMP);
+            } else if (func instanceof NodeFuncDoubleToDouble) {
+                if ("-".equals(name)) {
+                    addIntrinsic(((NodeFuncDoubleToDouble) func).function, Opcodes.DNEG);
+                }
+            } else if (func instanceof NodeFuncDoubleDoubleToDouble) {
+                Object function = ((NodeFuncDoubleDoubleToDouble) func).function;
+                switch (name) {
+                    case "+":
+                        addIntrinsic(function, Opcodes.DADD);
+                        break;
+                    case "-":
+                        addIntrinsic(function, Opcodes.DSUB);
+                        break;
+                    case "*":
+                        addIntrinsic(function, Opcodes.DMUL);
+                        break;
+                    case "/":
+                        addIntrinsic(function, Opcodes.DDIV);
+                        break;
+                    case "%":
+                        addIntrinsic(function, Opcodes.DREM);
+                        break;
+                    default:
+                        break;
+                }
+            } else if (func instanceof NodeFuncDoubleDoubleToBoolean) {
+                // The same comparisons that javac uses, so that NaN is never less than or greater than anything
+                addComparison(((NodeFuncDoubleDoubleToBoolean) func).function, name, Opcodes.DCMPG, Opcodes.DCMPL);
+            } else if (func instanceof NodeFuncBooleanToBoolean) {
+                if ("!".equals(name)) {
+                    addIntrinsic(((NodeFuncBooleanToBoolean) func).function, Opcodes.ICONST_1, Opcodes.IXOR);
+                }
+            } else if (func instanceof NodeFuncBooleanBooleanToBoolean) {
+                // Both arguments have already been evaluated, so "&&" and "||" are the same as "&" and "|"
+                Object function = ((NodeFuncBooleanBooleanToBoolean) func).function;
+                switch (name) {
+                    case "^":
+                    case "!=":
+                        addIntrinsic(function, Opcodes.IXOR);
+                        break;
+                    case "&":
+                    case "&&":
+                        addIntrinsic(function, Opcodes.IAND);
+                        break;
+                    case "|":
+                    case "||":
+                        addIntrinsic(function, Opcodes.IOR);
+                        break;
+                    case "==":
+                        addIntrinsic(function, Opcodes.IXOR, Opcodes.ICONST_1, Opcodes.IXOR);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    private static void addIntrinsic(Object function, int... opcodes) {
+        INTRINSICS.put(function, new Intrinsic(opcodes, 0));
+    }
+
+    /** @param lessCompare The comparison to use for "&lt;" and "&lt;=".
+     * @param greaterCompare The comparison to use for everything else. */
+    private static void addComparison(Object function, String name, int lessCompare, int greaterCompare) {
+        switch (name) {
+            case "<":
+                INTRINSICS.put(function, new Intrinsic(new int[] { lessCompare }, Opcodes.IFLT));
+                break;
+            case "<=":
+                INTRINSICS.put(function, new Intrinsic(new int[] { lessCompare }, Opcodes.IFLE));
+                break;
+            case ">":
+                INTRINSICS.put(function, new Intrinsic(new int[] { greaterCompare }, Opcodes.IFGT));
+                break;
+            case ">=":
+                INTRINSICS.put(function, new Intrinsic(new int[] { greaterCompare }, Opcodes.IFGE));
+                break;
+            case "==":
+                INTRINSICS.put(function, new Intrinsic(new int[] { greaterCompare }, Opcodes.IFEQ));
+                break;
+            case "!=":
+                INTRINSICS.put(function, new Intrinsic(new int[] { greaterCompare }, Opcodes.IFNE));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** @return True if the generated classes can refer to the given class. */
+    static boolean isAccessible(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(clazz.getName(), false, NodeBytecodeCompiler.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /** @return The single abstract method of the given functional interface, or null if it isn't one. */
+    static Method getFunctionMethod(Class<?> type) {
+        if (!type.isInterface()) {
+            return null;
+        }
+        Method found = null;
+        for (Method method : type.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers())) {
+                if (found != null) {
+                    return null;
+                }
+                found = method;
+            }
+        }
+        return found;
+    }
+
+    enum NodeKind {
+        LONG("Long", long.class, INodeLong.class, Opcodes.LRETURN),
+        DOUBLE("Double", double.class, INodeDouble.class, Opcodes.DRETURN),
+        BOOLEAN("Boolean", boolean.class, INodeBoolean.class, Opcodes.IRETURN);
+
+        final String name;
+        final Class<?> primitive;
+        final Class<?> nodeClass;
+        final String descriptor;
+        final int returnOpcode;
+
+        NodeKind(String name, Class<?> primitive, Class<?> nodeClass, int returnOpcode) {
+            this.name = name;
+            this.primitive = primitive;
+            this.nodeClass = nodeClass;
+            this.descriptor = "()" + Type.getDescriptor(primitive);
+            this.returnOpcode = returnOpcode;
+        }
+
+        static NodeKind of(Class<?> primitive) {
+            for (NodeKind kind : values()) {
+                if (kind.primitive == primitive) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final class Intrinsic {
+        final int[] opcodes;
+        /** If non-zero then this is a comparison, and this is the branch to take if the comparison is true. */
+        final int branch;
+
+        /** Used in the shape of a tree. */
+        final String key;
+
+        Intrinsic(int[] opcodes, int branch) {
+            this.opcodes = opcodes;
+            this.branch = branch;
+            this.key = Arrays.toString(opcodes) + branch;
+        }
+    }
+
+    static final class CompiledClass {
+        final String shape;
+        final Constructor<?> constructor;
+
+        CompiledClass(String shape, Constructor<?> constructor) {
+            this.shape = shape;
+            this.constructor = constructor;
+        }
+    }
+
+    /** Every class compiled for a single {@link FunctionContext}. */
+    static final class ContextCache {
+        final GeneratedClassLoader loader = new GeneratedClassLoader();
+        final Map<String, CompiledClass> classes = new HashMap<>();
+    }
+
+    static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader() {
+            super(NodeBytecodeCompiler.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /** Writes a single class for a node tree. Every node that can't be compiled becomes a "leaf": a field in the
+     * generated class, set from {@link #leaves} in the constructor. The first leaf is always the source tree, which is
+     * only used for {@link Object#toString()}.
+     * <p>
+     * If the class name is null then no bytecode is written, and only the shape and leaves of the tree are found. */
+    static final class Generator {
+        final String className;
+        final ClassWriter cw;
+        final MethodVisitor mv;
+        final List<Object> leaves = new ArrayList<>();
+        final List<Class<?>> leafTypes = new ArrayList<>();
+        /** A description of the structure of the tree. Two trees with the same shape can use the same class. */
+        final String shape;
+        /** The number of nodes that were actually compiled, rather than becoming leaves. */
+        int compiledNodes = 0;
+
+        private final StringBuilder shapeBuilder = new StringBuilder();
+
+        Generator(String className, NodeKind kind, IExpressionNode node) {
+            this.className = className;
+            if (className == null) {
+                cw = null;
+                mv = new MethodVisitor(Opcodes.ASM5) {};
+                addLeaf(node, IExpressionNode.class);
+                emit(node, kind);
+                shape = kind.name + ":" + shapeBuilder;
+                return;
+            }
+            cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+                @Override
+                protected String getCommonSuperClass(String type1, String type2) {
+                    // Only needed for merging frames, which never have different objects in the same place
+                    return OBJECT;
+                }
+            };
+            String[] interfaces = { Type.getInternalName(kind.nodeClass) };
+            cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null,
+                OBJECT, interfaces);
+
+            addLeaf(node, IExpressionNode.class);
+
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", kind.descriptor, null, null);
+            mv.visitCode();
+            emit(node, kind);
+            mv.visitInsn(kind.returnOpcode);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+            shape = kind.name + ":" + shapeBuilder;
+        }
+
+        Constructor<?> define(GeneratedClassLoader loader) throws ReflectiveOperationException {
+            writeConstructor();
+            writeToString();
+            cw.visitEnd();
+            Class<?> clazz = loader.define(className.replace('/', '.'), cw.toByteArray());
+            return clazz.getConstructor(Object[].class);
+        }
+
+        private void writeConstructor() {
+            MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+            init.visitCode();
+            init.visitVarInsn(Opcodes.ALOAD, 0);
+            init.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+            for (int i = 0; i < leafTypes.size(); i++) {
+                Class<?> type = leafTypes.get(i);
+                cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, FIELD_PREFIX + i, Type.getDescriptor(type),
+                    null, null).visitEnd();
+                init.visitVarInsn(Opcodes.ALOAD, 0);
+                init.visitVarInsn(Opcodes.ALOAD, 1);
+                init.visitLdcInsn(i);
+                init.visitInsn(Opcodes.AALOAD);
+                init.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+                init.visitFieldInsn(Opcodes.PUTFIELD, className, FIELD_PREFIX + i, Type.getDescriptor(type));
+            }
+            init.visitInsn(Opcodes.RETURN);
+            init.visitMaxs(0, 0);
+            init.visitEnd();
+        }
+
+        private void writeToString() {
+            MethodVisitor toString = cw.visitMethod(Opcodes.ACC_PUBLIC, "toString", "()Ljava/lang/String;", null,
+                null);
+            toString.visitCode();
+            toString.visitLdcInsn("[compiled] ");
+            toString.visitVarInsn(Opcodes.ALOAD, 0);
+            toString.visitFieldInsn(Opcodes.GETFIELD, className, FIELD_PREFIX + 0,
+                Type.getDescriptor(IExpressionNode.class));
+            toString.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/String", "valueOf",
+                "(Ljava/lang/Object;)Ljava/lang/String;", false);
+            toString.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "concat",
+                "(Ljava/lang/String;)Ljava/lang/String;", false);
+            toString.visitInsn(Opcodes.ARETURN);
+            toString.visitMaxs(0, 0);
+            toString.visitEnd();
+        }
+
+        private int addLeaf(Object leaf, Class<?> type) {
+            leaves.add(leaf);
+            leafTypes.add(type);
+            return leaves.size() - 1;
+        }
+
+        private void loadLeaf(Object leaf, Class<?> type) {
+            int index = addLeaf(leaf, type);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, className, FIELD_PREFIX + index, Type.getDescriptor(type));
+        }
+
+        /** Writes the instructions to push the value of the given node onto the stack. */
+        private void emit(IExpressionNode node, NodeKind kind) {
+            if (node instanceof IConstantNode) {
+                emitConstant(node, kind);
+            } else if (node.getClass() == NodeVariableLong.class || node.getClass() == NodeVariableDouble.class
+                || node.getClass() == NodeVariableBoolean.class) {
+                shapeBuilder.append('V');
+                loadLeaf(node, node.getClass());
+                mv.visitFieldInsn(Opcodes.GETFIELD, Type.getInternalName(node.getClass()), "value",
+                    Type.getDescriptor(kind.primitive));
+            } else if (node instanceof NodeConditionalLong) {
+                NodeConditionalLong cond = (NodeConditionalLong) node;
+                emitConditional(cond.condition, cond.ifTrue, cond.ifFalse, kind);
+            } else if (node instanceof NodeConditionalDouble) {
+                NodeConditionalDouble cond = (NodeConditionalDouble) node;
+                emitConditional(cond.condition, cond.ifTrue, cond.ifFalse, kind);
+            } else if (node instanceof NodeConditionalBoolean) {
+                NodeConditionalBoolean cond = (NodeConditionalBoolean) node;
+                emitConditional(cond.condition, cond.ifTrue, cond.ifFalse, kind);
+            } else if (node instanceof NodeCastLongToDouble) {
+                compiledNodes++;
+                shapeBuilder.append("D(");
+                emit(((NodeCastLongToDouble) node).from, NodeKind.LONG);
+                mv.visitInsn(Opcodes.L2D);
+                shapeBuilder.append(')');
+            } else if (node instanceof IFunctionCallNode && canCall((IFunctionCallNode) node, kind)) {
+                emitCall((IFunctionCallNode) node);
+            } else {
+                shapeBuilder.append('L');
+                loadLeaf(node, kind.nodeClass);
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(kind.nodeClass), "evaluate",
+                    kind.descriptor, true);
+            }
+        }
+
+        private void emitConstant(IExpressionNode node, NodeKind kind) {
+            Object value;
+            switch (kind) {
+                case LONG:
+                    value = ((INodeLong) node).evaluate();
+                    break;
+                case DOUBLE:
+                    value = ((INodeDouble) node).evaluate();
+                    break;
+                default:
+                    value = ((INodeBoolean) node).evaluate() ? 1 : 0;
+                    break;
+            }
+            shapeBuilder.append('C').append(value).append(';');
+            mv.visitLdcInsn(value);
+        }
+
+        private void emitConditional(INodeBoolean condition, IExpressionNode ifTrue, IExpressionNode ifFalse,
+            NodeKind kind) {
+            compiledNodes++;
+            Label labelFalse = new Label();
+            Label labelEnd = new Label();
+            shapeBuilder.append("?(");
+            emit(condition, NodeKind.BOOLEAN);
+            mv.visitJumpInsn(Opcodes.IFEQ, labelFalse);
+            shapeBuilder.append(',');
+            emit(ifTrue, kind);
+            mv.visitJumpInsn(Opcodes.GOTO, labelEnd);
+            mv.visitLabel(labelFalse);
+            shapeBuilder.append(',');
+            emit(ifFalse, kind);
+            mv.visitLabel(labelEnd);
+            shapeBuilder.append(')');
+        }
+
+        /** @return True if {@link #emitCall(IFunctionCallNode)} can call the function of the given node directly. */
+        private static boolean canCall(IFunctionCallNode node, NodeKind kind) {
+            Class<?> type = node.getFunctionType();
+            Method method = getFunctionMethod(type);
+            if (method == null || method.getReturnType() != kind.primitive || !isAccessible(type)) {
+                return false;
+            }
+            Class<?>[] params = method.getParameterTypes();
+            IExpressionNode[] args = node.getArguments();
+            if (params.length != args.length) {
+                return false;
+            }
+            for (int i = 0; i < params.length; i++) {
+                NodeKind argKind = NodeKind.of(params[i]);
+                if (argKind != null) {
+                    if (!argKind.nodeClass.isInstance(args[i])) {
+                        return false;
+                    }
+                } else if (params[i].isPrimitive() || !(args[i] instanceof INodeObject)
+                    || !isAccessible(params[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void emitCall(IFunctionCallNode node) {
+            compiledNodes++;
+            Object function = node.getFunction();
+            Intrinsic intrinsic = INTRINSICS.get(function);
+            Class<?> type = node.getFunctionType();
+            Method method = getFunctionMethod(type);
+            if (intrinsic == null) {
+                shapeBuilder.append('F').append(type.getName());
+                loadLeaf(function, type);
+            } else {
+                shapeBuilder.append('I').append(intrinsic.key);
+            }
+            shapeBuilder.append('(');
+            Class<?>[] params = method.getParameterTypes();
+            IExpressionNode[] args = node.getArguments();
+            for (int i = 0; i < params.length; i++) {
+                NodeKind argKind = NodeKind.of(params[i]);
+                if (argKind != null) {
+                    emit(args[i], argKind);
+                } else {
+                    shapeBuilder.append('O');
+                    loadLeaf(args[i], INodeObject.class);
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(INodeObject.class), "evaluate",
+                        "()Ljava/lang/Object;", true);
+                    if (params[i] != Object.class) {
+                        mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(params[i]));
+                    }
+                }
+                shapeBuilder.append(',');
+            }
+            shapeBuilder.append(')');
+            if (intrinsic == null) {
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(type), method.getName(),
+                    Type.getMethodDescriptor(method), true);
+            } else {
+                for (int opcode : intrinsic.opcodes) {
+                    mv.visitInsn(opcode);
+                }
+                if (intrinsic.branch != 0) {
+                    Label labelTrue = new Label();
+                    Label labelEnd = new Label();
+                    mv.visitJumpInsn(intrinsic.branch, labelTrue);
+                    mv.visitInsn(Opcodes.ICONST_0);
+                    mv.visitJumpInsn(Opcodes.GOTO, labelEnd);
+                    mv.visitLabel(labelTrue);
+                    mv.visitInsn(Opcodes.ICONST_1);
+                    mv.visitLabel(labelEnd);
+                }
+            }
+        }
+    }
+}
@@ -11,8 +11,8 @@ import buildcraft.lib.expression.node.value.NodeConstantBoolean;
 import buildcraft.lib.expression.node.value.NodeConstantDouble;
 
 public class NodeConditionalDouble implements INodeDouble {
-    private final INodeBoolean condition;
-    private final INodeDouble ifTrue, ifFalse;
+    public final INodeBoolean condition;
+    public final INodeDouble ifTrue, ifFalse;
 
     public NodeConditionalDouble(INodeBoolean condition, INodeDouble ifTrue, INodeDouble ifFalse) {
         this.condition = condition;
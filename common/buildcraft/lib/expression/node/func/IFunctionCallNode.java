@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.expression.node.func;
+
+import buildcraft.lib.expression.NodeBytecodeCompiler;
+import buildcraft.lib.expression.api.IExpressionNode;
+
+/** A node that calls a function with the values of other nodes. This exposes the parts of the call so that
+ * {@link NodeBytecodeCompiler} can call the function directly, rather than through this node. */
+public interface IFunctionCallNode extends IExpressionNode {
+    /** @return The functional interface that {@link #getFunction()} implements. */
+    Class<?> getFunctionType();
+
+    Object getFunction();
+
+    /** @return The nodes that are evaluated to get the arguments to the function, in order. */
+    IExpressionNode[] getArguments();
+}
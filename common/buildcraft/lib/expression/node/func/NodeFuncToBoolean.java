@@ -6,12 +6,13 @@
 
 package buildcraft.lib.expression.node.func;
 
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.INodeFunc.INodeFuncBoolean;
 import buildcraft.lib.expression.api.INodeStack;
 import buildcraft.lib.expression.api.InvalidExpressionException;
 
-public class NodeFuncToBoolean implements INodeFuncBoolean, INodeBoolean {
+public class NodeFuncToBoolean implements INodeFuncBoolean, INodeBoolean, IFunctionCallNode {
 
     private final String name;
     private final IFuncToBoolean func;
@@ -36,6 +37,21 @@ public class NodeFuncToBoolean implements INodeFuncBoolean, INodeBoolean {
         return this;
     }
 
+    @Override
+    public Class<?> getFunctionType() {
+        return IFuncToBoolean.class;
+    }
+
+    @Override
+    public Object getFunction() {
+        return func;
+    }
+
+    @Override
+    public IExpressionNode[] getArguments() {
+        return new IExpressionNode[0];
+    }
+
     @Override
     public String toString() {
         return "[ -> boolean] { " + name + " }";
@@ -6,12 +6,13 @@
 
 package buildcraft.lib.expression.node.func;
 
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.INodeFunc.INodeFuncDouble;
 import buildcraft.lib.expression.api.INodeStack;
 import buildcraft.lib.expression.api.InvalidExpressionException;
 
-public class NodeFuncToDouble implements INodeFuncDouble, INodeDouble {
+public class NodeFuncToDouble implements INodeFuncDouble, INodeDouble, IFunctionCallNode {
 
     private final String name;
     private final IFuncToDouble func;
@@ -36,6 +37,21 @@ public class NodeFuncToDouble implements INodeFuncDouble, INodeDouble {
         return this;
     }
 
+    @Override
+    public Class<?> getFunctionType() {
+        return IFuncToDouble.class;
+    }
+
+    @Override
+    public Object getFunction() {
+        return func;
+    }
+
+    @Override
+    public IExpressionNode[] getArguments() {
+        return new IExpressionNode[0];
+    }
+
     @Override
     public String toString() {
         return "[ -> double] { " + name + " }";
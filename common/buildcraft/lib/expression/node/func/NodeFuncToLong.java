@@ -6,12 +6,13 @@
 
 package buildcraft.lib.expression.node.func;
 
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
 import buildcraft.lib.expression.api.INodeFunc.INodeFuncLong;
 import buildcraft.lib.expression.api.INodeStack;
 import buildcraft.lib.expression.api.InvalidExpressionException;
 
-public class NodeFuncToLong implements INodeFuncLong, INodeLong {
+public class NodeFuncToLong implements INodeFuncLong, INodeLong, IFunctionCallNode {
 
     private final String name;
     private final IFuncToLong func;
@@ -36,6 +37,21 @@ public class NodeFuncToLong implements INodeFuncLong, INodeLong {
         return this;
     }
 
+    @Override
+    public Class<?> getFunctionType() {
+        return IFuncToLong.class;
+    }
+
+    @Override
+    public Object getFunction() {
+        return func;
+    }
+
+    @Override
+    public IExpressionNode[] getArguments() {
+        return new IExpressionNode[0];
+    }
+
     @Override
     public String toString() {
         return "[ -> long] { " + name + " }";
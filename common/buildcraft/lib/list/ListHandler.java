@@ -285,18 +285,9 @@ public final class ListHandler {
         }
     }
 
+    /** Uses the {@link ListMatcher} of the given list, which is only built again when the lines of the list are
+     * changed. */
     public static boolean matches(@Nonnull ItemStack stackList, @Nonnull ItemStack item) {
-        NBTTagCompound data = NBTUtilBC.getItemData(stackList);
-        if (data.hasKey("written") && data.hasKey("lines")) {
-            NBTTagList list = data.getTagList("lines", 10);
-            for (int i = 0; i < list.tagCount(); i++) {
-                Line line = Line.fromNBT(list.getCompoundTagAt(i));
-                if (line.matches(item)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return ListMatcher.get(stackList).matches(item);
     }
 }
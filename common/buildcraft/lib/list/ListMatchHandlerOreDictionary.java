@@ -10,6 +10,9 @@ import java.util.Set;
 
 import javax.annotation.Nonnull;
 
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
 import net.minecraft.creativetab.CreativeTabs;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.NonNullList;
@@ -83,6 +86,37 @@ public class ListMatchHandlerOreDictionary extends ListMatchHandler {
         return OreDictionary.getOreIDs(stack).length > 0;
     }
 
+    /** Resolves every ore id that {@link #matches(Type, ItemStack, ItemStack, boolean)} would accept for the given
+     * list stack, so that matching a target only needs to check if any of its ore ids are in the returned set.
+     *
+     * @return The set of matching ore ids. Empty if nothing can match. */
+    public static IntSet getMatchingOreIds(Type type, @Nonnull ItemStack stack) {
+        IntSet matching = new IntOpenHashSet();
+        int[] oreIds = OreDictionary.getOreIDs(stack);
+        if (oreIds.length == 0) {
+            return matching;
+        }
+        if (type == Type.CLASS) {
+            for (int i : oreIds) {
+                matching.add(i);
+            }
+        } else {
+            String[] oreNames = new String[oreIds.length];
+            for (int i = 0; i < oreIds.length; i++) {
+                oreNames[i] = OreDictionary.getOreName(oreIds[i]);
+            }
+            String s = getBestOreString(oreNames);
+            if (s != null) {
+                Set<Integer> stackIds = ListOreDictionaryCache.INSTANCE.getListOfPartialMatches(
+                    type == Type.MATERIAL ? ListOreDictionaryCache.getMaterial(s) : ListOreDictionaryCache.getType(s));
+                if (stackIds != null) {
+                    matching.addAll(stackIds);
+                }
+            }
+        }
+        return matching;
+    }
+
     private static String getBestOreString(String[] oreIds) {
         String s = null;
         int suc = 0, suct;
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.list;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+
+import net.minecraftforge.oredict.OreDictionary;
+
+import buildcraft.api.lists.ListMatchHandler;
+import buildcraft.api.lists.ListMatchHandler.Type;
+import buildcraft.api.lists.ListRegistry;
+
+import buildcraft.lib.list.ListHandler.Line;
+import buildcraft.lib.misc.NBTUtilBC;
+import buildcraft.lib.misc.StackUtil;
+
+/** An immutable, pre-compiled version of every {@link Line} in a list, so that matching an item against a list
+ * doesn't need to read the lines back from NBT. This gives the same results as {@link Line#matches(ItemStack)}, but:
+ * <ul>
+ * <li>Lines that match items directly are stored in a single map, keyed on the {@link Item}.</li>
+ * <li>Lines that match by type or material have the ore dictionary ids that they accept resolved up-front, and only
+ * check the other {@link ListMatchHandler}'s directly.</li>
+ * </ul>
+ * Matchers are cached on the identity of the "lines" {@link NBTTagList} of the list, as
+ * {@link ListHandler#saveLines(ItemStack, Line[])} always replaces it. */
+public final class ListMatcher {
+    private static final ListMatcher EMPTY = new ListMatcher(new Line[0]);
+
+    private static final LoadingCache<NBTTagList, ListMatcher> CACHE = CacheBuilder.newBuilder()//
+        .weakKeys()//
+        .build(CacheLoader.from(ListMatcher::fromNBT));
+
+    private final Map<Item, ItemEntry[]> itemEntries = new IdentityHashMap<>();
+    private final OneStackLine[] oneStackLines;
+    /** The number of handlers that were registered when this was built, in case any are registered later. */
+    private final int handlerCount;
+
+    private ListMatcher(Line[] lines) {
+        handlerCount = ListRegistry.getHandlers().size();
+        List<OneStackLine> oneStack = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.isOneStackMode()) {
+                ItemStack compare = line.stacks.get(0);
+                if (!compare.isEmpty()) {
+                    oneStack.add(new OneStackLine(line, compare));
+                }
+            } else {
+                for (ItemStack stack : line.stacks) {
+                    if (stack.isEmpty()) {
+                        continue;
+                    }
+                    ItemEntry entry = new ItemEntry(stack, line.precise);
+                    ItemEntry[] existing = itemEntries.get(stack.getItem());
+                    if (existing == null) {
+                        itemEntries.put(stack.getItem(), new ItemEntry[] { entry });
+                    } else {
+                        ItemEntry[] added = new ItemEntry[existing.length + 1];
+                        System.arraycopy(existing, 0, added, 0, existing.length);
+                        added[existing.length] = entry;
+                        itemEntries.put(stack.getItem(), added);
+                    }
+                }
+            }
+        }
+        oneStackLines = oneStack.toArray(new OneStackLine[0]);
+    }
+
+    private static ListMatcher fromNBT(NBTTagList list) {
+        Line[] lines = new Line[list.tagCount()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = Line.fromNBT(list.getCompoundTagAt(i));
+        }
+        return new ListMatcher(lines);
+    }
+
+    /** @return The (cached) matcher for the given list stack. */
+    public static ListMatcher get(@Nonnull ItemStack stackList) {
+        NBTTagCompound data = NBTUtilBC.getItemData(stackList);
+        if (!data.hasKey("written") || !data.hasKey("lines")) {
+            return EMPTY;
+        }
+        NBTTagList list = data.getTagList("lines", 10);
+        ListMatcher matcher = CACHE.getUnchecked(list);
+        if (matcher.handlerCount != ListRegistry.getHandlers().size()) {
+            CACHE.invalidate(list);
+            matcher = CACHE.getUnchecked(list);
+        }
+        return matcher;
+    }
+
+    /** Discards every cached matcher. Called whenever anything is registered with the ore dictionary (even under an
+     * existing name), as matchers read the ore ids and names of their stacks when they are built. */
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    public boolean matches(@Nonnull ItemStack target) {
+        if (target.isEmpty()) {
+            return false;
+        }
+        ItemEntry[] entries = itemEntries.get(target.getItem());
+        if (entries != null) {
+            for (ItemEntry entry : entries) {
+                if (entry.matches(target)) {
+                    return true;
+                }
+            }
+        }
+        for (OneStackLine line : oneStackLines) {
+            if (line.matches(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class ItemEntry {
+        final ItemStack stack;
+        final boolean precise;
+
+        ItemEntry(ItemStack stack, boolean precise) {
+            this.stack = stack;
+            this.precise = precise;
+        }
+
+        boolean matches(ItemStack target) {
+            if (!StackUtil.isMatchingItem(stack, target, true, precise)) {
+                return false;
+            }
+            // If precise, re-check damage
+            return !precise || stack.getItemDamage() == target.getItemDamage();
+        }
+    }
+
+    /** A line that matches by type or material. */
+    static final class OneStackLine {
+        final ItemStack compare;
+        final Type type;
+        final boolean precise;
+        /** Every handler apart from the ore dictionary handler, which is replaced by {@link #oreIds}. */
+        final ListMatchHandler[] handlers;
+        /** Null if there isn't an ore dictionary handler registered. */
+        final IntSet oreIds;
+
+        OneStackLine(Line line, ItemStack compare) {
+            this.compare = compare;
+            this.type = line.getSortingType();
+            this.precise = line.precise;
+            List<ListMatchHandler> others = new ArrayList<>();
+            IntSet ores = null;
+            for (ListMatchHandler handler : ListRegistry.getHandlers()) {
+                if (handler.getClass() == ListMatchHandlerOreDictionary.class) {
+                    ores = ListMatchHandlerOreDictionary.getMatchingOreIds(type, compare);
+                } else {
+                    others.add(handler);
+                }
+            }
+            this.handlers = others.toArray(new ListMatchHandler[0]);
+            this.oreIds = ores;
+        }
+
+        boolean matches(ItemStack target) {
+            boolean anyHandled = false;
+            if (oreIds != null) {
+                int[] targetIds = OreDictionary.getOreIDs(target);
+                if (targetIds.length > 0) {
+                    anyHandled = true;
+                    for (int id : targetIds) {
+                        if (oreIds.contains(id)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            for (ListMatchHandler h : handlers) {
+                if (h.matches(type, compare, target, precise)) {
+                    return true;
+                } else if (h.isValidSource(type, target)) {
+                    anyHandled = true;
+                }
+            }
+            if (!anyHandled) {
+                if (type == Type.TYPE && target.getHasSubtypes()) {
+                    return StackUtil.isMatchingItem(compare, target, false, false);
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -97,5 +97,6 @@ public final class ListOreDictionaryCache {
         addToNamingCache(getMaterial(name), oreID);
 
         registeredNames.add(name);
+        ListMatcher.invalidateAll();
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+/** A spatial index of marker positions, bucketed by the chunk that they are in. This allows range queries to only
+ * look at the markers in the chunks that they cover, rather than every marker in the world. */
+public class MarkerPositionIndex {
+    private final Map<Long, Set<BlockPos>> chunks = new ConcurrentHashMap<>();
+
+    private static long key(int chunkX, int chunkZ) {
+        return ChunkPos.asLong(chunkX, chunkZ);
+    }
+
+    public void add(BlockPos pos) {
+        chunks.compute(key(pos.getX() >> 4, pos.getZ() >> 4), (k, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(pos);
+            return set;
+        });
+    }
+
+    public void remove(BlockPos pos) {
+        chunks.computeIfPresent(key(pos.getX() >> 4, pos.getZ() >> 4), (k, set) -> {
+            set.remove(pos);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public void clear() {
+        chunks.clear();
+    }
+
+    /** Calls the given consumer with every position in this index. */
+    public void forEach(Consumer<BlockPos> consumer) {
+        for (Set<BlockPos> set : chunks.values()) {
+            set.forEach(consumer);
+        }
+    }
+
+    /** Calls the given consumer with every position that is inside the box between min and max (inclusive). */
+    public void forEachInBox(BlockPos min, BlockPos max, Consumer<BlockPos> consumer) {
+        int minCx = min.getX() >> 4;
+        int minCz = min.getZ() >> 4;
+        int maxCx = max.getX() >> 4;
+        int maxCz = max.getZ() >> 4;
+        long chunkCount = (maxCx - minCx + 1L) * (maxCz - minCz + 1L);
+        if (chunkCount > chunks.size()) {
+            // Faster to just look at every chunk with a marker in it
+            for (Set<BlockPos> set : chunks.values()) {
+                forEachInBox(set, min, max, consumer);
+            }
+            return;
+        }
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cz = minCz; cz <= maxCz; cz++) {
+                Set<BlockPos> set = chunks.get(key(cx, cz));
+                if (set != null) {
+                    forEachInBox(set, min, max, consumer);
+                }
+            }
+        }
+    }
+
+    private static void forEachInBox(Set<BlockPos> set, BlockPos min, BlockPos max, Consumer<BlockPos> consumer) {
+        for (BlockPos p : set) {
+            if (p.getX() >= min.getX() && p.getX() <= max.getX()//
+                && p.getY() >= min.getY() && p.getY() <= max.getY()//
+                && p.getZ() >= min.getZ() && p.getZ() <= max.getZ()) {
+                consumer.accept(p);
+            }
+        }
+    }
+
+    public List<BlockPos> getInBox(BlockPos min, BlockPos max) {
+        List<BlockPos> list = new ArrayList<>();
+        forEachInBox(min, max, list::add);
+        return list;
+    }
+
+    /** @return Every position that is at most the given distance away from the centre. */
+    public List<BlockPos> getWithin(BlockPos centre, double distance) {
+        int r = (int) Math.ceil(distance);
+        double maxDistSq = distance * distance;
+        List<BlockPos> list = new ArrayList<>();
+        forEachInBox(centre.add(-r, -r, -r), centre.add(r, r, r), p -> {
+            if (p.distanceSq(centre) <= maxDistSq) {
+                list.add(p);
+            }
+        });
+        return list;
+    }
+}
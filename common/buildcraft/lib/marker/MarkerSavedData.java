@@ -70,7 +70,7 @@ public abstract class MarkerSavedData<S extends MarkerSubCache<C>, C extends Mar
         markerPositions.clear();
         markerConnections.clear();
 
-        markerPositions.addAll(subCache.getAllMarkers());
+        subCache.forEachMarker(markerPositions::add);
         for (C connection : subCache.getConnections()) {
             markerConnections.add(new ArrayList<>(connection.getMarkerPositions()));
         }
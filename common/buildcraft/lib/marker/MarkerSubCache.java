@@ -14,6 +14,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -44,6 +45,8 @@ public abstract class MarkerSubCache<C extends MarkerConnection<C>> {
     private final Map<BlockPos, C> posToConnection = new ConcurrentHashMap<>();
     private final Map<C, Set<BlockPos>> connectionToPos = new ConcurrentHashMap<>();
     private final Map<BlockPos, Optional<TileMarker<C>>> tileCache = new ConcurrentHashMap<>();
+    /** Every position in {@link #tileCache}, indexed by chunk. */
+    private final MarkerPositionIndex markerIndex = new MarkerPositionIndex();
 
     public MarkerSubCache(World world, int cacheId) {
         this.isServer = !world.isRemote;
@@ -91,6 +94,9 @@ public abstract class MarkerSubCache<C extends MarkerConnection<C>> {
     public void loadMarker(BlockPos pos, @Nullable TileMarker<C> marker) {
         boolean did = tileCache.containsKey(pos);
         tileCache.put(pos, Optional.ofNullable(marker));
+        if (!did) {
+            markerIndex.add(pos);
+        }
         if (DEBUG_FULL) {
             BCLog.logger.info("[lib.marker.full] Set a marker at " + pos + " as " + marker);
         }
@@ -115,6 +121,7 @@ public abstract class MarkerSubCache<C extends MarkerConnection<C>> {
             BCLog.logger.info("[lib.marker.full] Removed a marker at " + pos);
         }
         tileCache.remove(pos);
+        markerIndex.remove(pos);
         C connection = getConnection(pos);
         if (connection != null) {
             connection.removeMarker(pos);
@@ -132,10 +139,27 @@ public abstract class MarkerSubCache<C extends MarkerConnection<C>> {
         }
     }
 
+    /** Note that this copies every marker position, so it's much better to use one of the range queries
+     * ({@link #getMarkersWithin(BlockPos, double)} or {@link #getMarkersInBox(BlockPos, BlockPos)}) when possible. */
     public ImmutableList<BlockPos> getAllMarkers() {
         return ImmutableList.copyOf(tileCache.keySet());
     }
 
+    /** Calls the given consumer with every marker position, without copying them into a new list. */
+    public void forEachMarker(Consumer<BlockPos> consumer) {
+        markerIndex.forEach(consumer);
+    }
+
+    /** @return Every marker (loaded or unloaded) inside the box between min and max (inclusive). */
+    public List<BlockPos> getMarkersInBox(BlockPos min, BlockPos max) {
+        return markerIndex.getInBox(min, max);
+    }
+
+    /** @return Every marker (loaded or unloaded) that is at most the given distance away from the centre. */
+    public List<BlockPos> getMarkersWithin(BlockPos centre, double distance) {
+        return markerIndex.getWithin(centre, distance);
+    }
+
     @Nullable
     public C getConnection(BlockPos pos) {
         return posToConnection.get(pos);
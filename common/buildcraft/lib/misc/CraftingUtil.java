@@ -6,16 +6,51 @@
 
 package buildcraft.lib.misc;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.NonNullList;
 import net.minecraft.world.World;
 
-import net.minecraftforge.fml.common.registry.GameRegistry;
+import net.minecraftforge.fml.common.registry.ForgeRegistries;
+import net.minecraftforge.oredict.ShapedOreRecipe;
+import net.minecraftforge.oredict.ShapelessOreRecipe;
+import net.minecraftforge.registries.ForgeRegistry;
+import net.minecraftforge.registries.IForgeRegistry;
 
 public final class CraftingUtil {
 
+    /** The maximum number of grids that {@link #findMatchingRecipe(InventoryCrafting, World, IRecipe)} remembers the
+     * result of. This is shared between every auto workbench and advanced crafting table. */
+    private static final int GRID_CACHE_SIZE = 1024;
+
+    private static RecipeIndex index = null;
+
+    private static final Map<GridKey, RecipeEntry> GRID_CACHE = new LinkedHashMap<GridKey, RecipeEntry>(64, 0.75f,
+        true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GridKey, RecipeEntry> eldest) {
+            return size() > GRID_CACHE_SIZE;
+        }
+    };
+
     /**
      * Deactivate constructor
      */
@@ -23,13 +58,276 @@ public final class CraftingUtil {
     }
 
     public static IRecipe findMatchingRecipe(InventoryCrafting par1InventoryCrafting, World par2World) {
-            List<IRecipe> recipes = GameRegistry.findRegistry(IRecipe.class).getValues();
-            for (IRecipe recipe : recipes) {
-                if (recipe.matches(par1InventoryCrafting, par2World)) {
+        return findMatchingRecipe(par1InventoryCrafting, par2World, null);
+    }
+
+    /** Finds the first recipe (in registry order) that matches the given inventory. This is the same as
+     * {@link net.minecraft.item.crafting.CraftingManager#findMatchingRecipe(InventoryCrafting, World)} except that
+     * once the recipe registry has been frozen:
+     * <ul>
+     * <li>The last few hundred grids are remembered, along with the recipe that they matched.</li>
+     * <li>Otherwise only the recipes that use at least one of the items in the grid, and take up the same number of
+     * slots (and the same shape, for shaped recipes) are checked.</li>
+     * </ul>
+     * Only call this from the server thread.
+     *
+     * @param lastMatch The previous recipe that matched for this inventory. If it still matches then only the recipes
+     *            that come before it in the registry need to be checked. */
+    @Nullable
+    public static IRecipe findMatchingRecipe(InventoryCrafting inv, World world, @Nullable IRecipe lastMatch) {
+        IForgeRegistry<IRecipe> registry = ForgeRegistries.RECIPES;
+        if (!(registry instanceof ForgeRegistry) || !((ForgeRegistry<IRecipe>) registry).isLocked()) {
+            // Recipes can still be added or removed, so there's nothing to cache
+            for (IRecipe recipe : registry) {
+                if (recipe.matches(inv, world)) {
                     return recipe;
                 }
             }
             return null;
+        }
+        if (index == null) {
+            index = new RecipeIndex(registry);
+        }
+
+        GridKey key = new GridKey(inv);
+        RecipeEntry cached = GRID_CACHE.get(key);
+        if (cached != null) {
+            if (cached == RecipeEntry.NONE) {
+                return null;
+            }
+            // Some recipes (like fireworks) need matches to be called before getCraftingResult
+            if (cached.recipe.matches(inv, world)) {
+                return cached.recipe;
+            }
+        }
+        RecipeEntry last = lastMatch == null ? null : index.entries.get(lastMatch);
+        RecipeEntry found;
+        if (last != null && last.recipe.matches(inv, world)) {
+            RecipeEntry earlier = index.find(inv, world, key, last.order);
+            found = earlier == RecipeEntry.NONE ? last : earlier;
+        } else {
+            found = index.find(inv, world, key, Integer.MAX_VALUE);
+        }
+        GRID_CACHE.put(key, found);
+        return found.recipe;
+    }
+
+    /** Discards the recipe index, and every remembered grid. Called whenever the ore dictionary changes, or the
+     * server starts. */
+    public static void invalidateRecipeCache() {
+        index = null;
+        GRID_CACHE.clear();
+    }
+
+    static final class RecipeEntry {
+        static final RecipeEntry NONE = new RecipeEntry(null, Integer.MAX_VALUE, 0, 0, 0);
+
+        final IRecipe recipe;
+        /** The position of this recipe in the registry, as the first matching recipe should always be returned. */
+        final int order;
+        /** The number of slots that must be non-empty. */
+        final int slotCount;
+        /** The size of shaped recipes, or 0 for shapeless ones. */
+        final int width, height;
+
+        RecipeEntry(IRecipe recipe, int order, int slotCount, int width, int height) {
+            this.recipe = recipe;
+            this.order = order;
+            this.slotCount = slotCount;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /** Every recipe in the registry, keyed on the items of one of its ingredients. Only the standard shaped and
+     * shapeless recipes are indexed, as other recipes don't have to match based on their ingredients. The ingredient
+     * with the fewest items is used, so common items (like planks) only list the recipes that can't be found by
+     * anything else. */
+    static final class RecipeIndex {
+        final Map<Item, List<RecipeEntry>> byItem = new IdentityHashMap<>();
+        final List<RecipeEntry> unindexed = new ArrayList<>();
+        final Map<IRecipe, RecipeEntry> entries = new IdentityHashMap<>();
+
+        RecipeIndex(IForgeRegistry<IRecipe> registry) {
+            int order = 0;
+            for (IRecipe recipe : registry) {
+                add(recipe, order++);
+            }
+        }
+
+        private void add(IRecipe recipe, int order) {
+            Class<?> cls = recipe.getClass();
+            boolean shaped = cls == ShapedRecipes.class || cls == ShapedOreRecipe.class;
+            boolean shapeless = cls == ShapelessRecipes.class || cls == ShapelessOreRecipe.class;
+            if (!shaped && !shapeless) {
+                addUnindexed(recipe, order);
+                return;
+            }
+            int recipeWidth = 0;
+            if (recipe instanceof ShapedRecipes) {
+                recipeWidth = ((ShapedRecipes) recipe).getWidth();
+            } else if (recipe instanceof ShapedOreRecipe) {
+                recipeWidth = ((ShapedOreRecipe) recipe).getRecipeWidth();
+            }
+            int slotCount = 0;
+            Set<Item> keyItems = null;
+            // Ore recipes don't trim empty rows or columns from their pattern, so the footprint is the bounds of the
+            // ingredients that aren't empty rather than the size of the pattern
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+            NonNullList<Ingredient> ingredients = recipe.getIngredients();
+            for (int i = 0; i < ingredients.size(); i++) {
+                Ingredient ingredient = ingredients.get(i);
+                if (ingredient == Ingredient.EMPTY) {
+                    continue;
+                }
+                ItemStack[] matching = ingredient.getMatchingStacks();
+                if (matching.length == 0) {
+                    // Either a custom ingredient, or one that can never match
+                    addUnindexed(recipe, order);
+                    return;
+                }
+                slotCount++;
+                if (shaped) {
+                    int x = i % recipeWidth;
+                    int y = i / recipeWidth;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+                Set<Item> items = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (ItemStack stack : matching) {
+                    items.add(stack.getItem());
+                }
+                if (keyItems == null || items.size() < keyItems.size()) {
+                    keyItems = items;
+                }
+            }
+            if (keyItems == null) {
+                addUnindexed(recipe, order);
+                return;
+            }
+            int width = shaped ? maxX - minX + 1 : 0;
+            int height = shaped ? maxY - minY + 1 : 0;
+            RecipeEntry entry = new RecipeEntry(recipe, order, slotCount, width, height);
+            entries.put(recipe, entry);
+            for (Item item : keyItems) {
+                byItem.computeIfAbsent(item, k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        private void addUnindexed(IRecipe recipe, int order) {
+            RecipeEntry entry = new RecipeEntry(recipe, order, 0, 0, 0);
+            unindexed.add(entry);
+            entries.put(recipe, entry);
+        }
+
+        /** @param beforeOrder Only recipes that come before this position in the registry are checked.
+         * @return The first candidate recipe that matches, or {@link RecipeEntry#NONE}. */
+        RecipeEntry find(InventoryCrafting inv, World world, GridKey grid, int beforeOrder) {
+            List<RecipeEntry> candidates = new ArrayList<>(unindexed);
+            Set<Item> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Item item : grid.items) {
+                if (item == null || !seen.add(item)) {
+                    continue;
+                }
+                List<RecipeEntry> list = byItem.get(item);
+                if (list == null) {
+                    continue;
+                }
+                for (RecipeEntry entry : list) {
+                    if (entry.slotCount != grid.slotCount) {
+                        continue;
+                    }
+                    if (entry.width != 0 && (entry.width != grid.footprintWidth
+                        || entry.height != grid.footprintHeight)) {
+                        continue;
+                    }
+                    candidates.add(entry);
+                }
+            }
+            candidates.sort((a, b) -> Integer.compare(a.order, b.order));
+            RecipeEntry last = null;
+            for (RecipeEntry entry : candidates) {
+                if (entry.order >= beforeOrder) {
+                    break;
+                }
+                if (entry == last) {
+                    // Recipes with several key items can be found more than once
+                    continue;
+                }
+                last = entry;
+                if (entry.recipe.matches(inv, world)) {
+                    return entry;
+                }
+            }
+            return RecipeEntry.NONE;
+        }
+    }
+
+    /** The item, meta and NBT of every slot in a crafting grid, along with the size of the area that isn't empty. */
+    static final class GridKey {
+        final int width;
+        final Item[] items;
+        final int[] metas;
+        final NBTTagCompound[] tags;
+        final int slotCount;
+        final int footprintWidth, footprintHeight;
+        final int hash;
+
+        GridKey(InventoryCrafting inv) {
+            width = inv.getWidth();
+            int size = inv.getSizeInventory();
+            items = new Item[size];
+            metas = new int[size];
+            tags = new NBTTagCompound[size];
+            int count = 0;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+            int h = width;
+            for (int i = 0; i < size; i++) {
+                ItemStack stack = inv.getStackInSlot(i);
+                if (!stack.isEmpty()) {
+                    items[i] = stack.getItem();
+                    metas[i] = stack.getMetadata();
+                    NBTTagCompound nbt = stack.getTagCompound();
+                    tags[i] = nbt == null ? null : nbt.copy();
+                    count++;
+                    int x = i % width;
+                    int y = i / width;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+                h = h * 31 + System.identityHashCode(items[i]);
+                h = h * 31 + metas[i];
+                h = h * 31 + (tags[i] == null ? 0 : tags[i].hashCode());
+            }
+            slotCount = count;
+            footprintWidth = count == 0 ? 0 : maxX - minX + 1;
+            footprintHeight = count == 0 ? 0 : maxY - minY + 1;
+            hash = h;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof GridKey)) return false;
+            GridKey other = (GridKey) obj;
+            if (hash != other.hash || width != other.width || items.length != other.items.length) {
+                return false;
+            }
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] != other.items[i] || !Objects.equals(tags[i], other.tags[i])) {
+                    return false;
+                }
+            }
+            return Arrays.equals(metas, other.metas);
+        }
 
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 }
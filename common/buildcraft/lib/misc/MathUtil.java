@@ -6,6 +6,8 @@
 
 package buildcraft.lib.misc;
 
+import java.math.BigInteger;
+
 public class MathUtil {
     // ItemStacks are commonly found in small stacks -- precompute for smaller numbers
     private static final short HCF_SIZE = 64;
@@ -53,6 +55,49 @@ public class MathUtil {
         return Math.max(Math.min(toClamp, max), min);
     }
 
+    /** Adds two longs, returning {@link Long#MAX_VALUE} or {@link Long#MIN_VALUE} rather than overflowing. */
+    public static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        // Only overflows if both have the same sign, and the sum has the other sign
+        if (((a ^ sum) & (b ^ sum)) < 0) {
+            return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+    }
+
+    /** Calculates a * b / c (rounded down) for non-negative a and b and positive c, without overflowing as long as
+     * the result fits in a long. This is intended for proportional splits, where b &lt;= c so the result is at most
+     * a. */
+    public static long mulDiv(long a, long b, long c) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        if (a <= Long.MAX_VALUE / b) {
+            return a * b / c;
+        }
+        // a * b / c = (qa * c + ra) * b / c = qa * b + ra * b / c
+        long result = (a / c) * b;
+        long ra = a % c;
+        if (ra == 0) {
+            return result;
+        }
+        if (ra <= Long.MAX_VALUE / b) {
+            return result + ra * b / c;
+        }
+        // ra * b / c = (qb * c + rb) * ra / c = qb * ra + rb * ra / c
+        result += (b / c) * ra;
+        long rb = b % c;
+        if (rb == 0) {
+            return result;
+        }
+        if (rb <= Long.MAX_VALUE / ra) {
+            return result + rb * ra / c;
+        }
+        // Both remainders are huge (and less than c), which is rare enough to not be worth doing by hand
+        return result + BigInteger.valueOf(rb).multiply(BigInteger.valueOf(ra)).divide(BigInteger.valueOf(c))
+            .longValue();
+    }
+
     public static int findHighestCommonFactor(int a, int b) {
         if (b > a) {
             int t = b;
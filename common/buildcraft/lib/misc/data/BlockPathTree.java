@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.misc.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+
+/** A breadth-first search tree over block positions. Every position is stored once, as a packed long (from
+ * {@link BlockPos#toLong()}), along with the index of the node that it was reached from. This means that the full path
+ * from a root to any node can be rebuilt on demand by following the parent indices, rather than storing a path list
+ * for every position.
+ * <p>
+ * Nodes are indexed in the order that they were added, so the un-expanded nodes (between {@link #getExpandedCount()}
+ * and {@link #size()}) form the frontier of the search. This allows a search to be paused and resumed at any point
+ * simply by keeping this object around. */
+public class BlockPathTree {
+    /** The parent index of root nodes. */
+    public static final int NO_PARENT = -1;
+
+    private final LongArrayList positions = new LongArrayList();
+    private final IntArrayList parents = new IntArrayList();
+    private final Long2IntOpenHashMap indices = new Long2IntOpenHashMap();
+    private int expanded = 0;
+
+    public BlockPathTree() {
+        indices.defaultReturnValue(-1);
+    }
+
+    public void clear() {
+        positions.clear();
+        parents.clear();
+        indices.clear();
+        expanded = 0;
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+
+    /** Adds the given position as a root of the tree.
+     *
+     * @return The index of the new node, or -1 if the position is already in this tree. */
+    public int addRoot(BlockPos pos) {
+        return add(pos.toLong(), NO_PARENT);
+    }
+
+    /** Adds the given position as a child of the node at the given index.
+     *
+     * @return The index of the new node, or -1 if the position is already in this tree. */
+    public int add(BlockPos pos, int parent) {
+        return add(pos.toLong(), parent);
+    }
+
+    /** @return The index of the new node, or -1 if the position is already in this tree. */
+    public int add(long packedPos, int parent) {
+        if (parent < NO_PARENT || parent >= positions.size()) {
+            throw new IndexOutOfBoundsException("Invalid parent " + parent + " (size = " + positions.size() + ")");
+        }
+        if (indices.containsKey(packedPos)) {
+            return -1;
+        }
+        int index = positions.size();
+        indices.put(packedPos, index);
+        positions.add(packedPos);
+        parents.add(parent);
+        return index;
+    }
+
+    public boolean contains(BlockPos pos) {
+        return indices.containsKey(pos.toLong());
+    }
+
+    /** @return The index of the given position, or -1 if it is not in this tree. */
+    public int indexOf(BlockPos pos) {
+        return indices.get(pos.toLong());
+    }
+
+    public long getPackedPos(int index) {
+        return positions.getLong(index);
+    }
+
+    public BlockPos getPos(int index) {
+        return BlockPos.fromLong(positions.getLong(index));
+    }
+
+    /** Sets the given mutable position to the position of the given node, to avoid allocating a new one.
+     *
+     * @return The given mutable position. */
+    public MutableBlockPos getPos(int index, MutableBlockPos into) {
+        long packed = positions.getLong(index);
+        return into.setPos(unpackX(packed), unpackY(packed), unpackZ(packed));
+    }
+
+    // These match the bit layout used by BlockPos.toLong() and BlockPos.fromLong()
+
+    public static int unpackX(long packed) {
+        return (int) (packed << 64 - 38 - 26 >> 64 - 26);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 64 - 26 - 12 >> 64 - 12);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 64 - 26 >> 64 - 26);
+    }
+
+    /** @return The index of the parent of the given node, or {@link #NO_PARENT} if the node is a root. */
+    public int getParent(int index) {
+        return parents.getInt(index);
+    }
+
+    /** @return The number of nodes from the given node back to its root, including both of them. */
+    public int getDepth(int index) {
+        int depth = 0;
+        for (int i = index; i != NO_PARENT; i = parents.getInt(i)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    // Search frontier
+
+    /** @return True if there are still nodes that haven't been returned by {@link #nextToExpand()}. */
+    public boolean hasUnexpanded() {
+        return expanded < positions.size();
+    }
+
+    /** @return The index of the next node that should be expanded. */
+    public int nextToExpand() {
+        if (expanded >= positions.size()) {
+            throw new IllegalStateException("Nothing left to expand!");
+        }
+        return expanded++;
+    }
+
+    /** @return The number of nodes that have been returned by {@link #nextToExpand()}. */
+    public int getExpandedCount() {
+        return expanded;
+    }
+
+    /** Stops the search from expanding any more nodes, without removing any nodes from this tree. */
+    public void finishExpanding() {
+        expanded = positions.size();
+    }
+
+    // Serialisation
+
+    public long[] getPackedPositions() {
+        return positions.toLongArray();
+    }
+
+    public int[] getParents() {
+        return parents.toIntArray();
+    }
+
+    /** Replaces the contents of this tree with the given arrays, as returned by {@link #getPackedPositions()} and
+     * {@link #getParents()}. Invalid input (such as mismatched lengths or parents that point forwards) clears this tree
+     * instead.
+     *
+     * @return True if the arrays were valid. */
+    public boolean set(long[] packedPositions, int[] parentIndices, int expandedCount) {
+        clear();
+        if (packedPositions.length != parentIndices.length) {
+            return false;
+        }
+        for (int i = 0; i < packedPositions.length; i++) {
+            int parent = parentIndices[i];
+            if (parent >= i || parent < NO_PARENT || add(packedPositions[i], parent) == -1) {
+                clear();
+                return false;
+            }
+        }
+        expanded = Math.max(0, Math.min(expandedCount, positions.size()));
+        return true;
+    }
+}
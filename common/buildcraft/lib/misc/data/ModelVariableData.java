@@ -24,10 +24,22 @@ public class ModelVariableData {
         currentBakeId++;
     }
 
+    /** @return An id that changes every time the models are baked, so that anything cached from a model can tell
+     *         when it needs to be discarded. */
+    public static int getCurrentBakeId() {
+        return currentBakeId;
+    }
+
     public boolean hasNoNodes() {
         return tickableNodes == null;
     }
 
+    /** @return True if the current model has any nodes that change between ticks, and so can't be cached based on
+     *         its variable inputs alone. */
+    public boolean hasTickableNodes() {
+        return tickableNodes != null && tickableNodes.length > 0;
+    }
+
     public void setNodes(ITickableNode[] nodes) {
         bakeId = currentBakeId;
         tickableNodes = nodes;
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.lib.misc.data;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import buildcraft.api.core.InvalidInputDataException;
+
+/** A fixed length array of non-negative ints, that only uses as many bits per value as the largest value needs. The
+ * width grows automatically when a bigger value is set. Values never span two longs, so every access is a single
+ * shift and mask.
+ * <p>
+ * This is intended for palette indices (such as the blocks of a blueprint) where there are very few distinct values
+ * compared to the number of entries. */
+public final class PackedIntArray {
+    public static final int MAX_BITS = 31;
+
+    private final int size;
+    private int bits;
+    private int valuesPerLong;
+    private long mask;
+    private long[] longs;
+
+    /** Creates a new array with every value set to 0. */
+    public PackedIntArray(int size) {
+        this(size, 1);
+    }
+
+    public PackedIntArray(int size, int bits) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size " + size);
+        }
+        if (bits < 1 || bits > MAX_BITS) {
+            throw new IllegalArgumentException("Invalid bit count " + bits);
+        }
+        this.size = size;
+        setBits(bits);
+        longs = new long[longCount(size, valuesPerLong)];
+    }
+
+    private PackedIntArray(PackedIntArray from) {
+        size = from.size;
+        setBits(from.bits);
+        longs = from.longs.clone();
+    }
+
+    public static PackedIntArray of(int[] values) {
+        int max = 0;
+        for (int value : values) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value " + value);
+            }
+            max = Math.max(max, value);
+        }
+        PackedIntArray array = new PackedIntArray(values.length, bitsFor(max));
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    private void setBits(int bits) {
+        this.bits = bits;
+        this.valuesPerLong = 64 / bits;
+        this.mask = (1L << bits) - 1;
+    }
+
+    private static int longCount(int size, int valuesPerLong) {
+        return (size + valuesPerLong - 1) / valuesPerLong;
+    }
+
+    /** @return The number of bits needed to store the given (non-negative) value. */
+    public static int bitsFor(int value) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(value));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " (size = " + size + ")");
+        }
+        int shift = (index % valuesPerLong) * bits;
+        return (int) ((longs[index / valuesPerLong] >>> shift) & mask);
+    }
+
+    public void set(int index, int value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " (size = " + size + ")");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        if (value > mask) {
+            resize(bitsFor(value));
+        }
+        int longIndex = index / valuesPerLong;
+        int shift = (index % valuesPerLong) * bits;
+        longs[longIndex] = longs[longIndex] & ~(mask << shift) | (long) value << shift;
+    }
+
+    private void resize(int newBits) {
+        PackedIntArray bigger = new PackedIntArray(size, newBits);
+        for (int i = 0; i < size; i++) {
+            int value = get(i);
+            if (value != 0) {
+                bigger.set(i, value);
+            }
+        }
+        setBits(newBits);
+        longs = bigger.longs;
+    }
+
+    public PackedIntArray copy() {
+        return new PackedIntArray(this);
+    }
+
+    public int[] toIntArray() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = get(i);
+        }
+        return values;
+    }
+
+    /** @return The approximate number of bytes that this array uses in memory. */
+    public long getMemoryUsage() {
+        return longs.length * 8L;
+    }
+
+    // Serialisation
+
+    /** Writes this array as a list of runs: the value and then the length of the run, both as var ints. */
+    public byte[] writeRuns() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int index = 0;
+        while (index < size) {
+            int value = get(index);
+            int end = index + 1;
+            while (end < size && get(end) == value) {
+                end++;
+            }
+            writeVarInt(out, value);
+            writeVarInt(out, end - index);
+            index = end;
+        }
+        return out.toByteArray();
+    }
+
+    /** Reads an array of the given size from the output of {@link #writeRuns()}. */
+    public static PackedIntArray readRuns(byte[] bytes, int size) throws InvalidInputDataException {
+        PackedIntArray array = new PackedIntArray(size);
+        int[] cursor = { 0 };
+        int index = 0;
+        while (cursor[0] < bytes.length) {
+            int value = readVarInt(bytes, cursor);
+            int length = readVarInt(bytes, cursor);
+            if (value < 0 || length <= 0 || length > size - index) {
+                throw new InvalidInputDataException("Invalid run of " + length + " * " + value + " at " + index
+                    + " (size = " + size + ")");
+            }
+            if (value != 0) {
+                for (int i = 0; i < length; i++) {
+                    array.set(index + i, value);
+                }
+            }
+            index += length;
+        }
+        if (index != size) {
+            throw new InvalidInputDataException("Runs only covered " + index + " values, but expected " + size);
+        }
+        return array;
+    }
+
+    /** @return The raw packed longs of this array, as little-endian bytes. */
+    public byte[] writePacked() {
+        byte[] bytes = new byte[longs.length * 8];
+        for (int i = 0; i < longs.length; i++) {
+            long value = longs[i];
+            for (int b = 0; b < 8; b++) {
+                bytes[i * 8 + b] = (byte) (value >>> (b * 8));
+            }
+        }
+        return bytes;
+    }
+
+    /** Reads an array from the output of {@link #writePacked()}. */
+    public static PackedIntArray readPacked(byte[] bytes, int size, int bits) throws InvalidInputDataException {
+        if (bits < 1 || bits > MAX_BITS) {
+            throw new InvalidInputDataException("Invalid bit count " + bits);
+        }
+        PackedIntArray array = new PackedIntArray(size, bits);
+        if (bytes.length != array.longs.length * 8) {
+            throw new InvalidInputDataException("Expected " + array.longs.length * 8 + " bytes, but got "
+                + bytes.length);
+        }
+        for (int i = 0; i < array.longs.length; i++) {
+            long value = 0;
+            for (int b = 0; b < 8; b++) {
+                value |= (bytes[i * 8 + b] & 0xFFL) << (b * 8);
+            }
+            array.longs[i] = value;
+        }
+        return array;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] cursor) throws InvalidInputDataException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (cursor[0] >= bytes.length) {
+                throw new InvalidInputDataException("Truncated var int at " + cursor[0]);
+            }
+            byte b = bytes[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidInputDataException("Var int too long at " + cursor[0]);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PackedIntArray)) return false;
+        PackedIntArray other = (PackedIntArray) obj;
+        if (size != other.size) return false;
+        if (bits == other.bits) return Arrays.equals(longs, other.longs);
+        for (int i = 0; i < size; i++) {
+            if (get(i) != other.get(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = size;
+        for (int i = 0; i < size; i++) {
+            hash = hash * 31 + get(i);
+        }
+        return hash;
+    }
+}
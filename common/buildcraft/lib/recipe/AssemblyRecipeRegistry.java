@@ -7,34 +7,156 @@
 package buildcraft.lib.recipe;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.ResourceLocation;
 
 import buildcraft.api.recipes.AssemblyRecipe;
+import buildcraft.api.recipes.IngredientStack;
 
 public class AssemblyRecipeRegistry  {
-    public static final Map<ResourceLocation, AssemblyRecipe> REGISTRY = new HashMap<>();
+    public static final Map<ResourceLocation, AssemblyRecipe> REGISTRY = new RecipeMap();
+
+    /** Incremented whenever {@link #REGISTRY} changes. */
+    private static int version = 0;
+    private static IngredientIndex index = null;
 
     public static void register(AssemblyRecipe recipe) {
         REGISTRY.put(recipe.getRegistryName(), recipe);
     }
 
+    /** @return A number that changes whenever a recipe is added or removed, so that callers can tell when anything
+     *         they computed from the registry is out of date. */
+    public static int getVersion() {
+        return version;
+    }
 
     @Nonnull
     public static List<AssemblyRecipe> getRecipesFor(@Nonnull NonNullList<ItemStack> possibleIn) {
         List<AssemblyRecipe> all = new ArrayList<>();
-        for (AssemblyRecipe ar : REGISTRY.values()) {
+        for (AssemblyRecipe ar : getCandidateRecipes(possibleIn)) {
             if (!ar.getOutputs(possibleIn).isEmpty()) {
                 all.add(ar);
             }
         }
         return all;
     }
+
+    /** @return Every recipe that might have an output for the given inputs. This is every recipe that uses at least
+     *         one of the given items, and every recipe that doesn't list its inputs (via
+     *         {@link AssemblyRecipe#getOutputPreviews()} and {@link AssemblyRecipe#getInputsFor(ItemStack)}). */
+    @Nonnull
+    public static Set<AssemblyRecipe> getCandidateRecipes(@Nonnull NonNullList<ItemStack> possibleIn) {
+        IngredientIndex idx = index;
+        if (idx == null || idx.version != version) {
+            idx = new IngredientIndex();
+            index = idx;
+        }
+        Set<AssemblyRecipe> candidates = new LinkedHashSet<>(idx.unindexed);
+        for (ItemStack stack : possibleIn) {
+            if (stack.isEmpty()) {
+                continue;
+            }
+            List<AssemblyRecipe> recipes = idx.byItem.get(stack.getItem());
+            if (recipes != null) {
+                candidates.addAll(recipes);
+            }
+        }
+        return candidates;
+    }
+
+    /** Every recipe, grouped by the items that it can accept as an ingredient. A recipe can only have an output if the
+     * inventory contains one of its ingredients, so only the recipes for the items present need to be checked. */
+    private static final class IngredientIndex {
+        final int version = AssemblyRecipeRegistry.version;
+        final Map<Item, List<AssemblyRecipe>> byItem = new IdentityHashMap<>();
+        final List<AssemblyRecipe> unindexed = new ArrayList<>();
+
+        IngredientIndex() {
+            for (AssemblyRecipe recipe : REGISTRY.values()) {
+                Set<Item> items = getIngredientItems(recipe);
+                if (items == null) {
+                    unindexed.add(recipe);
+                } else {
+                    for (Item item : items) {
+                        byItem.computeIfAbsent(item, k -> new ArrayList<>()).add(recipe);
+                    }
+                }
+            }
+        }
+
+        /** @return Every item that the recipe could use, or null if that can't be determined. */
+        private static Set<Item> getIngredientItems(AssemblyRecipe recipe) {
+            Set<ItemStack> outputs = recipe.getOutputPreviews();
+            if (outputs.isEmpty()) {
+                // Such as facades, which can have an output for almost anything
+                return null;
+            }
+            Set<Item> items = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (ItemStack output : outputs) {
+                Set<IngredientStack> inputs = recipe.getInputsFor(output);
+                if (inputs.isEmpty()) {
+                    return null;
+                }
+                for (IngredientStack input : inputs) {
+                    ItemStack[] matching = input.ingredient.getMatchingStacks();
+                    if (matching.length == 0) {
+                        // Custom ingredients don't have to list what they match
+                        return null;
+                    }
+                    for (ItemStack stack : matching) {
+                        items.add(stack.getItem());
+                    }
+                }
+            }
+            return items;
+        }
+    }
+
+    /** A {@link HashMap} that increments {@link #version} whenever it is modified, as some recipes are added to
+     * {@link #REGISTRY} directly rather than through {@link #register(AssemblyRecipe)}. */
+    private static final class RecipeMap extends HashMap<ResourceLocation, AssemblyRecipe> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public AssemblyRecipe put(ResourceLocation key, AssemblyRecipe value) {
+            version++;
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends ResourceLocation, ? extends AssemblyRecipe> m) {
+            version++;
+            super.putAll(m);
+        }
+
+        @Override
+        public AssemblyRecipe putIfAbsent(ResourceLocation key, AssemblyRecipe value) {
+            version++;
+            return super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public AssemblyRecipe remove(Object key) {
+            version++;
+            return super.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            version++;
+            super.clear();
+        }
+    }
 }
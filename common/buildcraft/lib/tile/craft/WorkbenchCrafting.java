@@ -88,7 +88,7 @@ public class WorkbenchCrafting extends InventoryCrafting {
             throw new IllegalStateException("Never call this on the client side!");
         }
         if (isBlueprintDirty) {
-            currentRecipe = CraftingUtil.findMatchingRecipe(this, tile.getWorld());
+            currentRecipe = CraftingUtil.findMatchingRecipe(this, tile.getWorld(), currentRecipe);
             if (currentRecipe == null) {
                 assumedResult = ItemStack.EMPTY;
                 recipeType = null;
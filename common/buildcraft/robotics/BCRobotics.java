@@ -8,6 +8,7 @@ package buildcraft.robotics;
 
 import java.util.function.Consumer;
 
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
@@ -21,6 +22,7 @@ import buildcraft.lib.registry.TagManager.EnumTagType;
 import buildcraft.lib.registry.TagManager.TagEntry;
 
 import buildcraft.core.BCCore;
+import buildcraft.robotics.zone.ZonePlannerMapDataServer;
 
 //@formatter:off
 @Mod(
@@ -45,6 +47,7 @@ public class BCRobotics {
         BCRoboticsProxy.getProxy().fmlPreInit();
 
         NetworkRegistry.INSTANCE.registerGuiHandler(INSTANCE, BCRoboticsProxy.getProxy());
+        MinecraftForge.EVENT_BUS.register(ZonePlannerMapDataServer.INSTANCE);
     }
 
     @Mod.EventHandler
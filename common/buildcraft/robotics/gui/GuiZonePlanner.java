@@ -41,7 +41,6 @@ import buildcraft.core.item.ItemPaintbrush_BC8;
 import buildcraft.robotics.container.ContainerZonePlanner;
 import buildcraft.robotics.zone.ZonePlan;
 import buildcraft.robotics.zone.ZonePlannerMapChunk;
-import buildcraft.robotics.zone.ZonePlannerMapChunk.MapColourData;
 import buildcraft.robotics.zone.ZonePlannerMapChunkKey;
 import buildcraft.robotics.zone.ZonePlannerMapDataClient;
 import buildcraft.robotics.zone.ZonePlannerMapRenderer;
@@ -232,9 +231,9 @@ public class GuiZonePlanner extends GuiBC8<ContainerZonePlanner> {
                     Math.round(rayPosition.getY()),
                     Math.round(rayPosition.getZ()) - (chunkZ << 4)
                 );
-                MapColourData data = zonePlannerMapChunk.getData(pos.getX(), pos.getZ());
-                if (data != null && data.posY >= pos.getY()) {
-                    found = new BlockPos(pos.getX() + (chunkX << 4), data.posY, pos.getZ() + (chunkZ << 4));
+                int height = zonePlannerMapChunk.getHeight(pos.getX(), pos.getZ());
+                if (zonePlannerMapChunk.hasData(pos.getX(), pos.getZ()) && height >= pos.getY()) {
+                    found = new BlockPos(pos.getX() + (chunkX << 4), height, pos.getZ() + (chunkZ << 4));
                     break;
                 }
             } else {
@@ -265,9 +264,8 @@ public class GuiZonePlanner extends GuiBC8<ContainerZonePlanner> {
             );
             BlockPos pos = null;
             if (zonePlannerMapChunk != null) {
-                MapColourData data = zonePlannerMapChunk.getData(posX, posZ);
-                if (data != null) {
-                    pos = new BlockPos(posX, data.posY, posZ);
+                if (zonePlannerMapChunk.hasData(posX, posZ)) {
+                    pos = new BlockPos(posX, zonePlannerMapChunk.getHeight(posX, posZ), posZ);
                 }
             }
             if (pos != null && pos.getY() + 10 > camY) {
@@ -387,9 +385,8 @@ public class GuiZonePlanner extends GuiBC8<ContainerZonePlanner> {
                 )
             );
             if (zonePlannerMapChunk != null) {
-                MapColourData data = zonePlannerMapChunk.getData(found.getX(), found.getZ());
-                if (data != null) {
-                    foundColor = data.colour;
+                if (zonePlannerMapChunk.hasData(found.getX(), found.getZ())) {
+                    foundColor = zonePlannerMapChunk.getColour(found.getX(), found.getZ());
                 }
             }
         }
@@ -447,9 +444,8 @@ public class GuiZonePlanner extends GuiBC8<ContainerZonePlanner> {
                                     )
                                 );
                                 if (zonePlannerMapChunk != null) {
-                                    MapColourData data = zonePlannerMapChunk.getData(blockX, blockZ);
-                                    if (data != null) {
-                                        height = data.posY;
+                                    if (zonePlannerMapChunk.hasData(blockX, blockZ)) {
+                                        height = zonePlannerMapChunk.getHeight(blockX, blockZ);
                                     } else {
                                         continue;
                                     }
@@ -8,10 +8,12 @@ package buildcraft.robotics.zone;
 
 import io.netty.buffer.ByteBuf;
 
+import net.minecraft.entity.player.EntityPlayerMP;
+
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 
-import buildcraft.lib.misc.MessageUtil;
+import buildcraft.lib.net.MessageManager;
 
 public class MessageZoneMapRequest implements IMessage {
     private ZonePlannerMapChunkKey key;
@@ -35,15 +37,11 @@ public class MessageZoneMapRequest implements IMessage {
     }
 
     public static final IMessageHandler<MessageZoneMapRequest, IMessage> HANDLER = (message, ctx) -> {
-        MessageUtil.sendReturnMessage(
-                ctx,
-                new MessageZoneMapResponse(
-                        message.key,
-                        ZonePlannerMapDataServer.INSTANCE.getChunk(
-                                ctx.getServerHandler().player.world,
-                                message.key
-                        )
-                )
+        EntityPlayerMP player = ctx.getServerHandler().player;
+        ZonePlannerMapDataServer.INSTANCE.requestChunk(
+                player.getServerWorld(),
+                message.key,
+                chunk -> MessageManager.sendTo(new MessageZoneMapResponse(message.key, chunk), player)
         );
         return null;
     };
@@ -25,6 +25,7 @@ public class ZoneChunk {
     public ZoneChunk() {}
 
     public ZoneChunk(ZoneChunk old) {
+        fullSet = old.fullSet;
         if (old.property != null) {
             property = BitSet.valueOf(old.property.toLongArray());
         }
@@ -53,7 +54,7 @@ public class ZoneChunk {
         } else {
             if (fullSet) {
                 property = new BitSet(16 * 16);
-                property.flip(0, 16 * 16 - 1);
+                property.flip(0, 16 * 16);
                 fullSet = false;
             } else if (property == null) {
                 // Note - ZonePlan should usually destroy such chunks
@@ -93,31 +94,38 @@ public class ZoneChunk {
     }
 
     public BlockPos getRandomBlockPos(Random rand) {
-        int x, z;
-
-        if (fullSet) {
-            x = rand.nextInt(16);
-            z = rand.nextInt(16);
-        } else {
-            int bitId = rand.nextInt(property.cardinality());
-            int bitPosition = property.nextSetBit(0);
-
-            while (bitId > 0) {
-                bitId--;
+        int bitPosition = getBlockIndex(rand.nextInt(cardinality()));
+        int z = bitPosition / 16;
+        int x = bitPosition - 16 * z;
+        int y = rand.nextInt(255);
 
-                bitPosition = property.nextSetBit(bitPosition + 1);
-            }
+        return new BlockPos(x, y, z);
+    }
 
-            z = bitPosition / 16;
-            x = bitPosition - 16 * z;
+    /** @return The number of blocks in this chunk that are set. */
+    public int cardinality() {
+        if (fullSet) {
+            return 16 * 16;
         }
-        int y = rand.nextInt(255);
+        return property == null ? 0 : property.cardinality();
+    }
 
-        return new BlockPos(x, y, z);
+    /** @param n The index of the set block to find, from 0 (inclusive) to {@link #cardinality()} (exclusive).
+     * @return The position (x + z * 16) of the n'th set block in this chunk. */
+    public int getBlockIndex(int n) {
+        if (fullSet) {
+            return n;
+        }
+        int bitPosition = property.nextSetBit(0);
+        while (n > 0) {
+            n--;
+            bitPosition = property.nextSetBit(bitPosition + 1);
+        }
+        return bitPosition;
     }
 
     public boolean isEmpty() {
-        return !fullSet && property.isEmpty();
+        return !fullSet && (property == null || property.isEmpty());
     }
 
     public ZoneChunk readFromByteBuf(PacketBuffer buf) {
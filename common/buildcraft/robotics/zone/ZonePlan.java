@@ -6,6 +6,7 @@
 
 package buildcraft.robotics.zone;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,8 @@ import buildcraft.lib.misc.NBTUtilBC;
 
 public class ZonePlan implements IZone {
     private final HashMap<ChunkPos, ZoneChunk> chunkMapping = new HashMap<>();
+    /** Built lazily from {@link #chunkMapping}, and cleared whenever that changes. */
+    private ZonePlanIndex index = null;
 
     public ZonePlan() {}
 
@@ -67,6 +70,7 @@ public class ZonePlan implements IZone {
             property = chunkMapping.get(chunkId);
         }
 
+        index = null;
         property.set(x & 0xF, z & 0xF, val);
 
         if (property.isEmpty()) {
@@ -74,25 +78,44 @@ public class ZonePlan implements IZone {
         }
     }
 
+    private ZonePlanIndex getIndex() {
+        if (index == null) {
+            index = new ZonePlanIndex(chunkMapping);
+        }
+        return index;
+    }
+
+    /** @return The total number of blocks in this zone. */
+    public int getBlockCount() {
+        return getIndex().getTotalBlocks();
+    }
+
     public List<Point2i> getAll() {
+        ZonePlanIndex idx = getIndex();
         ImmutableList.Builder<Point2i> builder = ImmutableList.builder();
-        for (int zChunk = 0; zChunk < 16; zChunk++) {
-            for (int xChunk = 0; xChunk < 16; xChunk++) {
-                if (get(xChunk, zChunk)) {
-                    builder.add(new Point2i(xChunk, zChunk));
-                }
+        for (int i = 0; i < idx.getChunkCount(); i++) {
+            ChunkPos chunkPos = idx.getChunk(i);
+            ZoneChunk zoneChunk = idx.getZoneChunk(i);
+            for (int n = 0; n < zoneChunk.cardinality(); n++) {
+                int bitPosition = zoneChunk.getBlockIndex(n);
+                int x = chunkPos.getXStart() + (bitPosition & 15);
+                int z = chunkPos.getZStart() + (bitPosition >> 4);
+                builder.add(new Point2i(x, z));
             }
         }
-        chunkMapping.forEach((chunkPos, zoneChunk) -> {
-            List<Point2i> zoneChunkAll = zoneChunk.getAll();
-            zoneChunkAll.forEach(p -> p.add(new Point2i(chunkPos.getXStart(), chunkPos.getZStart())));
-            builder.addAll(zoneChunkAll);
-        });
         return builder.build();
     }
 
     public ZonePlan getWithOffset(int offsetX, int offsetY) {
         ZonePlan zonePlan = new ZonePlan();
+        if ((offsetX & 15) == 0 && (offsetY & 15) == 0) {
+            // Whole chunks can be moved without splitting them up
+            chunkMapping.forEach((chunkPos, zoneChunk) -> zonePlan.chunkMapping.put(
+                new ChunkPos(chunkPos.x + (offsetX >> 4), chunkPos.z + (offsetY >> 4)),
+                new ZoneChunk(zoneChunk)
+            ));
+            return zonePlan;
+        }
         getAll().forEach(p -> zonePlan.set(p.x + offsetX, p.y + offsetY, true));
         return zonePlan;
     }
@@ -102,11 +125,12 @@ public class ZonePlan implements IZone {
     }
 
     public Set<ChunkPos> getChunkPoses() {
-        return chunkMapping.keySet();
+        return Collections.unmodifiableSet(chunkMapping.keySet());
     }
 
-    public HashMap<ChunkPos, ZoneChunk> getChunkMapping() {
-        return chunkMapping;
+    /** @return An unmodifiable view of every chunk in this zone. */
+    public Map<ChunkPos, ZoneChunk> getChunkMapping() {
+        return Collections.unmodifiableMap(chunkMapping);
     }
 
     public void writeToNBT(NBTTagCompound nbt) {
@@ -126,6 +150,7 @@ public class ZonePlan implements IZone {
     }
 
     public void readFromNBT(NBTTagCompound nbt) {
+        index = null;
         NBTUtilBC.readCompoundList(nbt.getTag("chunkMapping"))
                 .forEach(zoneChunkTag -> {
                     ZoneChunk chunk = new ZoneChunk();
@@ -145,22 +170,10 @@ public class ZonePlan implements IZone {
         return Math.sqrt(distanceToSquared(index));
     }
 
+    /** @return The squared distance to the centre of the closest chunk in this zone. */
     @Override
     public double distanceToSquared(BlockPos index) {
-        double maxSqrDistance = Double.MAX_VALUE;
-
-        for (Map.Entry<ChunkPos, ZoneChunk> e : chunkMapping.entrySet()) {
-            double dx = (e.getKey().x << 4 + 8) - index.getX();
-            double dz = (e.getKey().z << 4 + 8) - index.getZ();
-
-            double sqrDistance = dx * dx + dz * dz;
-
-            if (sqrDistance < maxSqrDistance) {
-                maxSqrDistance = sqrDistance;
-            }
-        }
-
-        return maxSqrDistance;
+        return getIndex().distanceToSquared(index.getX(), index.getZ());
     }
 
     @Override
@@ -171,31 +184,15 @@ public class ZonePlan implements IZone {
         return get(xBlock, zBlock);
     }
 
+    /** @return A block picked uniformly from every block in this zone, with a random y. */
     @Override
     public BlockPos getRandomBlockPos(Random rand) {
-        if (chunkMapping.size() == 0) {
-            return null;
-        }
-
-        int chunkId = rand.nextInt(chunkMapping.size());
-
-        for (Map.Entry<ChunkPos, ZoneChunk> e : chunkMapping.entrySet()) {
-            if (chunkId == 0) {
-                BlockPos i = e.getValue().getRandomBlockPos(rand);
-                int x = (e.getKey().x << 4) + i.getX();
-                int z = (e.getKey().z << 4) + i.getZ();
-
-                return new BlockPos(x, i.getY(), z);
-            }
-
-            chunkId--;
-        }
-
-        return null;
+        return getIndex().getRandomBlockPos(rand);
     }
 
     public ZonePlan readFromByteBuf(PacketBuffer buf) {
         chunkMapping.clear();
+        index = null;
         int size = buf.readInt();
         for (int i = 0; i < size; i++) {
             ChunkPos key = new ChunkPos(buf.readInt(), buf.readInt());
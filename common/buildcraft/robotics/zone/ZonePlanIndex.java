@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.robotics.zone;
+
+import java.util.Map;
+import java.util.Random;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+/** An immutable snapshot of the chunks in a {@link ZonePlan}, for answering the queries that robots make often:
+ * <ul>
+ * <li>Picking a uniformly random block uses a prefix sum of the number of blocks in every chunk, so it only needs a
+ * binary search.</li>
+ * <li>Finding the nearest chunk uses a coarse grid of cells (each {@link #CELL_SIZE} chunks wide), searched in rings
+ * outwards from the query position until no closer chunk is possible.</li>
+ * </ul>
+ * {@link ZonePlan} throws this away whenever it's modified, and rebuilds it the next time that it's needed. */
+final class ZonePlanIndex {
+    static final int CELL_SHIFT = 3;
+    static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final ChunkPos[] chunks;
+    private final ZoneChunk[] zones;
+    /** The total number of blocks in every chunk before the one at the same index. */
+    private final int[] blockPrefix;
+    private final int totalBlocks;
+
+    /** Every populated cell, to the indices of the chunks inside of it. */
+    private final Long2ObjectOpenHashMap<int[]> cells = new Long2ObjectOpenHashMap<>();
+    private final int minCellX, minCellZ, maxCellX, maxCellZ;
+
+    ZonePlanIndex(Map<ChunkPos, ZoneChunk> chunkMapping) {
+        int count = chunkMapping.size();
+        chunks = new ChunkPos[count];
+        zones = new ZoneChunk[count];
+        blockPrefix = new int[count];
+        int total = 0;
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        Long2ObjectOpenHashMap<IntArrayList> cellBuilders = new Long2ObjectOpenHashMap<>();
+        int i = 0;
+        for (Map.Entry<ChunkPos, ZoneChunk> entry : chunkMapping.entrySet()) {
+            ChunkPos chunkPos = entry.getKey();
+            chunks[i] = chunkPos;
+            zones[i] = entry.getValue();
+            blockPrefix[i] = total;
+            total += entry.getValue().cardinality();
+
+            int cellX = chunkPos.x >> CELL_SHIFT;
+            int cellZ = chunkPos.z >> CELL_SHIFT;
+            minX = Math.min(minX, cellX);
+            minZ = Math.min(minZ, cellZ);
+            maxX = Math.max(maxX, cellX);
+            maxZ = Math.max(maxZ, cellZ);
+            long key = ChunkPos.asLong(cellX, cellZ);
+            IntArrayList cell = cellBuilders.get(key);
+            if (cell == null) {
+                cell = new IntArrayList(4);
+                cellBuilders.put(key, cell);
+            }
+            cell.add(i);
+            i++;
+        }
+        for (Long2ObjectMap.Entry<IntArrayList> entry : cellBuilders.long2ObjectEntrySet()) {
+            cells.put(entry.getLongKey(), entry.getValue().toIntArray());
+        }
+        totalBlocks = total;
+        minCellX = minX;
+        minCellZ = minZ;
+        maxCellX = maxX;
+        maxCellZ = maxZ;
+    }
+
+    int getChunkCount() {
+        return chunks.length;
+    }
+
+    int getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    ChunkPos getChunk(int index) {
+        return chunks[index];
+    }
+
+    ZoneChunk getZoneChunk(int index) {
+        return zones[index];
+    }
+
+    /** @return A block picked uniformly from every block in the zone (with a random y), or null if the zone is
+     *         empty. */
+    BlockPos getRandomBlockPos(Random rand) {
+        if (totalBlocks == 0) {
+            return null;
+        }
+        int n = rand.nextInt(totalBlocks);
+        // Find the last chunk that starts at or before n. Empty chunks share their prefix with the next chunk, so
+        // taking the last one always gives a chunk that actually contains n.
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blockPrefix[mid] <= n) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int bitPosition = zones[low].getBlockIndex(n - blockPrefix[low]);
+        int x = (chunks[low].x << 4) + (bitPosition & 15);
+        int z = (chunks[low].z << 4) + (bitPosition >> 4);
+        return new BlockPos(x, rand.nextInt(255), z);
+    }
+
+    /** @return The squared distance from the given position to the centre of the closest chunk in the zone, or
+     *         {@link Double#MAX_VALUE} if the zone is empty. */
+    double distanceToSquared(int x, int z) {
+        if (chunks.length == 0) {
+            return Double.MAX_VALUE;
+        }
+        int queryCellX = x >> 4 >> CELL_SHIFT;
+        int queryCellZ = z >> 4 >> CELL_SHIFT;
+        int startRing = Math.max(
+            Math.max(0, Math.max(minCellX - queryCellX, queryCellX - maxCellX)),
+            Math.max(minCellZ - queryCellZ, queryCellZ - maxCellZ)
+        );
+        int endRing = Math.max(
+            Math.max(Math.abs(queryCellX - minCellX), Math.abs(queryCellX - maxCellX)),
+            Math.max(Math.abs(queryCellZ - minCellZ), Math.abs(queryCellZ - maxCellZ))
+        );
+
+        double best = Double.MAX_VALUE;
+        int visited = 0;
+        for (int ring = startRing; ring <= endRing; ring++) {
+            if (ring > 1) {
+                // Every chunk in this ring is at least (ring - 1) whole cells away on one axis
+                double minDistance = (ring - 1) * (double) (CELL_SIZE * 16);
+                if (minDistance * minDistance >= best) {
+                    break;
+                }
+            }
+            int fromZ = Math.max(queryCellZ - ring, minCellZ);
+            int toZ = Math.min(queryCellZ + ring, maxCellZ);
+            for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                // The top and bottom rows of the ring are complete, every other row only has its two ends
+                boolean fullRow = Math.abs(cellZ - queryCellZ) == ring;
+                int step = fullRow ? 1 : ring * 2;
+                int fromX = queryCellX - ring;
+                if (fullRow) {
+                    fromX = Math.max(fromX, minCellX);
+                }
+                int toX = Math.min(queryCellX + ring, maxCellX);
+                for (int cellX = fromX; cellX <= toX; cellX += step) {
+                    if (cellX < minCellX) {
+                        continue;
+                    }
+                    if (++visited > chunks.length) {
+                        // The zone is too sparse for the grid to help
+                        return distanceToSquaredLinear(x, z);
+                    }
+                    int[] cell = cells.get(ChunkPos.asLong(cellX, cellZ));
+                    if (cell != null) {
+                        for (int index : cell) {
+                            best = Math.min(best, distanceToSquared(chunks[index], x, z));
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private double distanceToSquaredLinear(int x, int z) {
+        double best = Double.MAX_VALUE;
+        for (ChunkPos chunkPos : chunks) {
+            best = Math.min(best, distanceToSquared(chunkPos, x, z));
+        }
+        return best;
+    }
+
+    private static double distanceToSquared(ChunkPos chunkPos, int x, int z) {
+        double dx = (chunkPos.x << 4) + 8 - x;
+        double dz = (chunkPos.z << 4) + 8 - z;
+        return dx * dx + dz * dz;
+    }
+}
@@ -6,75 +6,162 @@
 
 package buildcraft.robotics.zone;
 
-import javax.annotation.Nullable;
+import java.util.Arrays;
 
+import io.netty.handler.codec.DecoderException;
+
+import net.minecraft.block.material.MapColor;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 
+/** The top-down colours of a single chunk, as seen from a zone planner at a given level. The data is stored as two flat
+ * arrays (indexed by x * 16 + z) rather than as an object per column. A height of 0 means that nothing was found in
+ * that column. */
 public class ZonePlannerMapChunk {
-    private final MapColourData[][] data = new MapColourData[16][16];
+    private static final int COLUMNS = 16 * 16;
+
+    private final short[] heights = new short[COLUMNS];
+    private final int[] colours = new int[COLUMNS];
 
-    public ZonePlannerMapChunk(World world, ZonePlannerMapChunkKey key) {
-        Chunk chunk = world.getChunkFromChunkCoords(key.chunkPos.x, key.chunkPos.z);
+    private ZonePlannerMapChunk() {}
+
+    /** @return A chunk with no data in any column. */
+    public static ZonePlannerMapChunk empty() {
+        return new ZonePlannerMapChunk();
+    }
+
+    /** Scans the given chunk. This must be called from the thread that owns the world, as block states (and their map
+     * colours) can't be read safely from anywhere else. The returned chunk is a copy of the colours however, so it can
+     * be handed to any other thread. */
+    public static ZonePlannerMapChunk generate(World world, Chunk chunk, int level) {
+        ZonePlannerMapChunk mapChunk = new ZonePlannerMapChunk();
+        int maxY = level * ZonePlannerMapChunkKey.LEVEL_HEIGHT;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int baseX = chunk.x << 4;
+        int baseZ = chunk.z << 4;
         for (int x = 0; x < 16; x++) {
             for (int z = 0; z < 16; z++) {
-                // Scan down from the max height value of a chunk until we find a block
-                for (int y = key.level * ZonePlannerMapChunkKey.LEVEL_HEIGHT; y > 0; y--) {
-                    int colour = chunk.getBlockState(x, y, z).getMapColor(world, new BlockPos(x, y, z)).colorValue;
-                    if (colour != 0) {
-                        data[x][z] = new MapColourData(y, colour);
+                // Start from the height map rather than the top of the level (like vanilla maps do) so that most
+                // columns only need to look at one or two blocks.
+                int startY = Math.min(maxY, chunk.getHeightValue(x, z));
+                for (int y = startY; y > 0; y--) {
+                    IBlockState state = chunk.getBlockState(x, y, z);
+                    pos.setPos(baseX + x, y, baseZ + z);
+                    MapColor mapColor = state.getMapColor(world, pos);
+                    if (mapColor.colorValue != 0) {
+                        int index = x << 4 | z;
+                        mapChunk.heights[index] = (short) y;
+                        mapChunk.colours[index] = mapColor.colorValue;
                         break;
                     }
                 }
             }
         }
+        return mapChunk;
     }
 
+    /** Reads a chunk written by {@link #write(PacketBuffer)}. */
     public ZonePlannerMapChunk(PacketBuffer buffer) {
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                int posY = buffer.readInt();
-                if (posY > 0) {
-                    int colour = buffer.readInt();
-                    data[x][z] = new MapColourData(posY, colour);
+        int paletteSize = buffer.readVarInt();
+        if (paletteSize < 0 || paletteSize > COLUMNS) {
+            throw new DecoderException("Invalid palette size " + paletteSize);
+        }
+        int[] palette = new int[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            palette[i] = buffer.readInt();
+        }
+        int lastHeight = 0;
+        for (int i = 0; i < COLUMNS; i++) {
+            int height = lastHeight + zigZagDecode(buffer.readVarInt());
+            if (height < 0 || height > Short.MAX_VALUE) {
+                throw new DecoderException("Invalid height " + height);
+            }
+            if (height != 0) {
+                int paletteIndex = buffer.readVarInt();
+                if (paletteIndex < 0 || paletteIndex >= paletteSize) {
+                    throw new DecoderException("Invalid palette index " + paletteIndex + " (size = " + paletteSize
+                        + ")");
                 }
+                heights[i] = (short) height;
+                colours[i] = palette[paletteIndex];
             }
+            lastHeight = height;
         }
     }
 
+    /** Writes this chunk in a compact form: a palette of the (few) distinct colours, followed by every column's height
+     * as the difference from the previous column and its palette index, all as var ints. Neighbouring columns usually
+     * have very similar heights, so most columns only take 2 bytes. */
     public void write(PacketBuffer buffer) {
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                MapColourData colour = data[x][z];
-                if (colour == null) {
-                    buffer.writeInt(-1);
-                } else {
-                    buffer.writeInt(colour.posY);
-                    buffer.writeInt(colour.colour);
-                }
+        int[] palette = new int[COLUMNS];
+        int paletteSize = 0;
+        int[] indices = new int[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            if (heights[i] == 0) {
+                continue;
+            }
+            int colour = colours[i];
+            int index = 0;
+            while (index < paletteSize && palette[index] != colour) {
+                index++;
             }
+            if (index == paletteSize) {
+                palette[paletteSize++] = colour;
+            }
+            indices[i] = index;
+        }
+        buffer.writeVarInt(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            buffer.writeInt(palette[i]);
+        }
+        int lastHeight = 0;
+        for (int i = 0; i < COLUMNS; i++) {
+            int height = heights[i];
+            buffer.writeVarInt(zigZagEncode(height - lastHeight));
+            if (height != 0) {
+                buffer.writeVarInt(indices[i]);
+            }
+            lastHeight = height;
         }
     }
 
-    public int getColour(int x, int z) {
-        MapColourData col = getData(x, z);
-        return col == null ? -1 : col.colour;
+    private static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
     }
 
-    @Nullable
-    public MapColourData getData(int x, int z) {
-        return data[x & 15][z & 15];
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
     }
 
-    public static final class MapColourData {
-        public final int posY;
-        public final int colour;
+    /** @return True if a block was found in the given column. */
+    public boolean hasData(int x, int z) {
+        return heights[(x & 15) << 4 | (z & 15)] != 0;
+    }
 
-        public MapColourData(int posY, int colour) {
-            this.posY = posY;
-            this.colour = colour;
-        }
+    /** @return The y co-ordinate of the top block in the given column, or 0 if no block was found. */
+    public int getHeight(int x, int z) {
+        return heights[(x & 15) << 4 | (z & 15)];
+    }
+
+    /** @return The map colour of the top block in the given column, or -1 if no block was found. */
+    public int getColour(int x, int z) {
+        int index = (x & 15) << 4 | (z & 15);
+        return heights[index] == 0 ? -1 : colours[index];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || obj.getClass() != getClass()) return false;
+        ZonePlannerMapChunk other = (ZonePlannerMapChunk) obj;
+        return Arrays.equals(heights, other.heights) && Arrays.equals(colours, other.colours);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(heights) * 31 + Arrays.hashCode(colours);
     }
 }
@@ -6,8 +6,8 @@
 
 package buildcraft.robotics.zone;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 import net.minecraft.world.World;
 
@@ -16,12 +16,11 @@ import buildcraft.lib.net.MessageManager;
 public class ZonePlannerMapDataClient extends ZonePlannerMapData {
     public static final ZonePlannerMapDataClient INSTANCE = new ZonePlannerMapDataClient();
 
-    private final List<ZonePlannerMapChunkKey> pending = new ArrayList<>();
+    private final Set<ZonePlannerMapChunkKey> pending = new HashSet<>();
 
     @Override
     public ZonePlannerMapChunk loadChunk(World world, ZonePlannerMapChunkKey key) {
-        if (!pending.contains(key)) {
-            pending.add(key);
+        if (pending.add(key)) {
             MessageManager.sendToServer(new MessageZoneMapRequest(key));
         }
         return null;
@@ -6,13 +6,147 @@
 
 package buildcraft.robotics.zone;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+import buildcraft.api.core.BCLog;
 
+/** Generates map chunks for zone planners. Chunks are generated on the server thread (as that's the only place that
+ * block states can be read from), but are read from and written to disk on worker threads. Chunks are stored on disk
+ * (per dimension) so that chunks that aren't loaded don't need to be loaded again just to show them on a map. Stored
+ * chunks are removed whenever their chunk is saved with changes. */
 public class ZonePlannerMapDataServer extends ZonePlannerMapData {
     public static final ZonePlannerMapDataServer INSTANCE = new ZonePlannerMapDataServer();
 
+    /** Every key that is currently being loaded or generated, to all of the callbacks waiting for it. Only accessed
+     * from the server thread. */
+    private final Map<ZonePlannerMapChunkKey, List<Consumer<ZonePlannerMapChunk>>> pending = new HashMap<>();
+    private final Map<Integer, ZonePlannerMapStore> stores = new HashMap<>();
+
     @Override
     public ZonePlannerMapChunk loadChunk(World world, ZonePlannerMapChunkKey key) {
-        return new ZonePlannerMapChunk(world, key);
+        return ZonePlannerMapChunk.generate(world, world.getChunkFromChunkCoords(key.chunkPos.x, key.chunkPos.z),
+            key.level);
+    }
+
+    /** Gets a map chunk without blocking the server thread for more than it takes to load the chunk (if it's not
+     * stored). The callback is always called on the server thread, either immediately if the chunk is already in
+     * memory or later on once it has been read or generated. If the chunk couldn't be generated then the callback is
+     * given an {@link ZonePlannerMapChunk#empty() empty} chunk. Must be called from the server thread. */
+    public void requestChunk(WorldServer world, ZonePlannerMapChunkKey key, Consumer<ZonePlannerMapChunk> callback) {
+        ZonePlannerMapChunk existing = data.getIfPresent(key);
+        if (existing != null) {
+            callback.accept(existing);
+            return;
+        }
+        List<Consumer<ZonePlannerMapChunk>> waiting = pending.get(key);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        pending.put(key, waiting);
+
+        Chunk loaded = world.getChunkProvider().getLoadedChunk(key.chunkPos.x, key.chunkPos.z);
+        if (loaded != null) {
+            // Loaded chunks are regenerated as they are likely to have changed, and it's cheap to do
+            generate(world, loaded, key);
+            return;
+        }
+        ZonePlannerMapStore store = getStore(world);
+        store.execute(() -> {
+            ZonePlannerMapChunk stored = store.read(key);
+            world.addScheduledTask(() -> {
+                if (stored != null) {
+                    complete(key, stored, true);
+                } else {
+                    generate(world, world.getChunkFromChunkCoords(key.chunkPos.x, key.chunkPos.z), key);
+                }
+            });
+        });
+    }
+
+    /** Generates the map chunk on the server thread, and then only hands the generated copy to a worker thread to be
+     * written to disk. */
+    private void generate(WorldServer world, Chunk chunk, ZonePlannerMapChunkKey key) {
+        ZonePlannerMapChunk generated;
+        try {
+            generated = ZonePlannerMapChunk.generate(world, chunk, key.level);
+        } catch (RuntimeException e) {
+            BCLog.logger.warn("[robotics.zone] Failed to generate the map for " + key.chunkPos, e);
+            // Still reply to everyone waiting, but don't remember the failure so it can be tried again later
+            complete(key, ZonePlannerMapChunk.empty(), false);
+            return;
+        }
+        complete(key, generated, true);
+        ZonePlannerMapStore store = getStore(world);
+        store.execute(() -> store.write(key, generated));
+    }
+
+    private void complete(ZonePlannerMapChunkKey key, ZonePlannerMapChunk chunk, boolean cache) {
+        if (cache) {
+            data.put(key, chunk);
+        }
+        List<Consumer<ZonePlannerMapChunk>> waiting = pending.remove(key);
+        if (waiting != null) {
+            for (Consumer<ZonePlannerMapChunk> callback : waiting) {
+                callback.accept(chunk);
+            }
+        }
+    }
+
+    private ZonePlannerMapStore getStore(World world) {
+        int dimension = world.provider.getDimension();
+        return stores.computeIfAbsent(dimension,
+            dim -> new ZonePlannerMapStore(world.getSaveHandler().getWorldDirectory(), dim));
+    }
+
+    @SubscribeEvent
+    public void onChunkSave(ChunkDataEvent.Save event) {
+        Chunk chunk = event.getChunk();
+        World world = chunk.getWorld();
+        if (world.isRemote || !chunk.isModified()) {
+            return;
+        }
+        int dimension = world.provider.getDimension();
+        ChunkPos chunkPos = chunk.getPos();
+        int maxLevel = world.getHeight() / ZonePlannerMapChunkKey.LEVEL_HEIGHT;
+        List<ZonePlannerMapChunkKey> keys = new ArrayList<>(maxLevel + 1);
+        for (int level = 0; level <= maxLevel; level++) {
+            ZonePlannerMapChunkKey key = new ZonePlannerMapChunkKey(chunkPos, dimension, level);
+            data.invalidate(key);
+            keys.add(key);
+        }
+        ZonePlannerMapStore store = getStore(world);
+        store.execute(() -> {
+            for (ZonePlannerMapChunkKey key : keys) {
+                store.remove(key);
+            }
+        });
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        World world = event.getWorld();
+        if (world.isRemote) {
+            return;
+        }
+        int dimension = world.provider.getDimension();
+        stores.remove(dimension);
+        data.asMap().keySet().removeIf(key -> key.dimensionalId == dimension);
+        pending.keySet().removeIf(key -> key.dimensionalId == dimension);
     }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.robotics.zone;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.ChunkPos;
+
+import buildcraft.api.core.BCLog;
+
+import buildcraft.lib.misc.WorkerThreadUtil;
+
+/** Stores generated {@link ZonePlannerMapChunk}'s on disk for a single dimension, as one small file per chunk and level
+ * in "buildcraft/zone_planner/DIM[id]/[level]/" in the world save directory. The set of stored files is listed once
+ * (lazily) and then kept in memory, so checking for a stored chunk never touches the disk.
+ * <p>
+ * All methods are synchronized, and may block on IO. They should only be called from tasks given to
+ * {@link #execute(Runnable)}, which runs them on worker threads in the order that they were given, so (for example) a
+ * chunk that is removed after it was written can't be written again afterwards. */
+final class ZonePlannerMapStore {
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final int dimension;
+    private Set<ZonePlannerMapChunkKey> stored = null;
+
+    /** Every task that is waiting to run, in order. Also the lock for {@link #running}. */
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    /** True if a task from {@link #tasks} has been given to a worker thread and hasn't finished yet. */
+    private boolean running = false;
+
+    ZonePlannerMapStore(File worldDirectory, int dimension) {
+        this.directory = new File(worldDirectory, "buildcraft/zone_planner/DIM" + dimension);
+        this.dimension = dimension;
+    }
+
+    /** Runs the given task on a worker thread, once every task previously given to this store has finished. Only one
+     * task per store runs at a time. */
+    void execute(Runnable task) {
+        synchronized (tasks) {
+            tasks.add(task);
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        WorkerThreadUtil.executeWorkTask(this::runNext);
+    }
+
+    private void runNext() {
+        Runnable task;
+        synchronized (tasks) {
+            task = tasks.poll();
+        }
+        try {
+            task.run();
+        } finally {
+            synchronized (tasks) {
+                if (tasks.isEmpty()) {
+                    running = false;
+                    task = null;
+                }
+            }
+            if (task != null) {
+                // Queue the next task separately, so each worker task stays short
+                WorkerThreadUtil.executeWorkTask(this::runNext);
+            }
+        }
+    }
+
+    private Set<ZonePlannerMapChunkKey> getStored() {
+        if (stored == null) {
+            stored = new HashSet<>();
+            File[] levels = directory.listFiles(File::isDirectory);
+            if (levels != null) {
+                for (File levelDir : levels) {
+                    int level;
+                    try {
+                        level = Integer.parseInt(levelDir.getName());
+                    } catch (NumberFormatException ignored) {
+                        continue;
+                    }
+                    String[] names = levelDir.list();
+                    if (names == null) {
+                        continue;
+                    }
+                    for (String name : names) {
+                        ZonePlannerMapChunkKey key = parseKey(name, level);
+                        if (key != null) {
+                            stored.add(key);
+                        }
+                    }
+                }
+            }
+        }
+        return stored;
+    }
+
+    private ZonePlannerMapChunkKey parseKey(String name, int level) {
+        if (!name.endsWith(".dat")) {
+            return null;
+        }
+        String[] parts = name.substring(0, name.length() - 4).split("\\.");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new ZonePlannerMapChunkKey(
+                new ChunkPos(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])), dimension, level
+            );
+        } catch (NumberFormatException ignored) {
+            return null;
+        }
+    }
+
+    private File getFile(ZonePlannerMapChunkKey key) {
+        return new File(directory, key.level + "/" + key.chunkPos.x + "." + key.chunkPos.z + ".dat");
+    }
+
+    synchronized boolean contains(ZonePlannerMapChunkKey key) {
+        return getStored().contains(key);
+    }
+
+    /** @return The stored chunk, or null if it isn't stored or couldn't be read. */
+    synchronized ZonePlannerMapChunk read(ZonePlannerMapChunkKey key) {
+        if (!getStored().contains(key)) {
+            return null;
+        }
+        File file = getFile(key);
+        try {
+            PacketBuffer buffer = new PacketBuffer(Unpooled.wrappedBuffer(Files.readAllBytes(file.toPath())));
+            int version = buffer.readVarInt();
+            if (version != VERSION) {
+                remove(key);
+                return null;
+            }
+            return new ZonePlannerMapChunk(buffer);
+        } catch (IOException | RuntimeException e) {
+            BCLog.logger.warn("[robotics.zone] Failed to read " + file + ", it will be regenerated", e);
+            remove(key);
+            return null;
+        }
+    }
+
+    synchronized void write(ZonePlannerMapChunkKey key, ZonePlannerMapChunk chunk) {
+        File file = getFile(key);
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+        buffer.writeVarInt(VERSION);
+        chunk.write(buffer);
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes);
+        try {
+            File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Failed to make the directory " + parent);
+            }
+            File temp = new File(parent, file.getName() + ".tmp");
+            Files.write(temp.toPath(), bytes);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            getStored().add(key);
+        } catch (IOException e) {
+            BCLog.logger.warn("[robotics.zone] Failed to write " + file, e);
+        }
+    }
+
+    synchronized void remove(ZonePlannerMapChunkKey key) {
+        if (getStored().remove(key)) {
+            try {
+                Files.deleteIfExists(getFile(key).toPath());
+            } catch (IOException e) {
+                BCLog.logger.warn("[robotics.zone] Failed to delete " + getFile(key), e);
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.minecraft.item.ItemStack;
@@ -27,6 +28,7 @@ import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.items.IItemHandlerModifiable;
 
 import buildcraft.api.core.EnumPipePart;
 import buildcraft.api.recipes.AssemblyRecipe;
@@ -58,26 +60,32 @@ public class TileAssemblyTable extends TileLaserTableBase {
 
     private static final ResourceLocation ADVANCEMENT = new ResourceLocation("buildcraftsilicon:precision_crafting");
 
+    /** True if the inventory or the saved recipes have changed since {@link #recipesStates} was last updated. */
+    private boolean recipesDirty = true;
+    /** The {@link AssemblyRecipeRegistry#getVersion()} that {@link #recipesStates} was last updated against. */
+    private int registryVersion = -1;
+
     @Override
     public IdAllocator getIdAllocator() {
         return IDS;
     }
 
+    @Override
+    protected void onSlotChange(IItemHandlerModifiable handler, int slot, @Nonnull ItemStack before,
+        @Nonnull ItemStack after) {
+        super.onSlotChange(handler, slot, before, after);
+        if (handler == inv) {
+            recipesDirty = true;
+        }
+    }
+
     private void updateRecipes() {
-        //TODO: rework this to not iterate over every recipe every tick
         int count = recipesStates.size();
-        for (AssemblyRecipe recipe: AssemblyRecipeRegistry.REGISTRY.values()) {
+        for (AssemblyRecipe recipe : AssemblyRecipeRegistry.getCandidateRecipes(inv.stacks)) {
             Set<ItemStack> outputs = recipe.getOutputs(inv.stacks);
-            for (ItemStack out: outputs) {
-                boolean found = false;
-                for (AssemblyInstruction instruction: recipesStates.keySet()) {
-                    if (instruction.recipe == recipe && out == instruction.output) {
-                        found = true;
-                        break;
-                    }
-                }
+            for (ItemStack out : outputs) {
                 AssemblyInstruction instruction = new AssemblyInstruction(recipe, out);
-                if (!found && !recipesStates.containsKey(instruction)) {
+                if (!recipesStates.containsKey(instruction)) {
                     recipesStates.put(instruction, EnumAssemblyRecipeState.POSSIBLE);
                 }
             }
@@ -178,7 +186,11 @@ public class TileAssemblyTable extends TileLaserTableBase {
             return;
         }
 
-        updateRecipes();
+        if (recipesDirty || registryVersion != AssemblyRecipeRegistry.getVersion()) {
+            recipesDirty = false;
+            registryVersion = AssemblyRecipeRegistry.getVersion();
+            updateRecipes();
+        }
 
         if (getTarget() > 0) {
             AdvancementUtil.unlockAdvancement(getOwner().getId(), ADVANCEMENT);
@@ -224,6 +236,7 @@ public class TileAssemblyTable extends TileLaserTableBase {
                     recipesStates.put(instruction, EnumAssemblyRecipeState.values()[entryTag.getInteger("state")]);
             }
         }
+        recipesDirty = true;
     }
 
     @Override
@@ -258,6 +271,7 @@ public class TileAssemblyTable extends TileLaserTableBase {
             EnumAssemblyRecipeState state = EnumAssemblyRecipeState.values()[buffer.readInt()];
             if (recipesStates.containsKey(recipe)) {
                 recipesStates.put(recipe, state);
+                recipesDirty = true;
             }
         }
     }
@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 
@@ -74,17 +75,23 @@ public class TileLaser extends TileBC_Neptune implements ITickable, IDebuggable,
     }
 
     @Override
-    public int getUpdateRange() {
-        return TARGETING_RANGE;
+    public BlockPos getUpdateMin() {
+        return getPos().add(-TARGETING_RANGE, -TARGETING_RANGE, -TARGETING_RANGE);
     }
 
     @Override
-    public BlockPos getSubscriberPos() {
-        return getPos();
+    public BlockPos getUpdateMax() {
+        return getPos().add(TARGETING_RANGE, TARGETING_RANGE, TARGETING_RANGE);
     }
 
     @Override
-    public void setWorldUpdated(World world, BlockPos eventPos, IBlockState oldState, IBlockState newState, int flags) {
+    public boolean isBatched() {
+        // The targets are only searched for once per tick anyway
+        return true;
+    }
+
+    @Override
+    public void setWorldUpdatedBatch(World world, Set<BlockPos> positions) {
         this.worldHasUpdated = true;
     }
 
@@ -8,12 +8,14 @@ package buildcraft.transport;
 
 import net.minecraftforge.client.event.TextureStitchEvent;
 import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
 import buildcraft.transport.client.render.PipeWireRenderer;
+import buildcraft.transport.wire.ClientWireSystems;
 import buildcraft.transport.wire.WorldSavedDataWireSystems;
 
 public enum BCTransportEventDist {
@@ -27,8 +29,21 @@ public enum BCTransportEventDist {
     }
 
     @SubscribeEvent
-    public void onChunkWatch(ChunkWatchEvent event) {
-        WorldSavedDataWireSystems.get(event.getPlayer().world).changedPlayers.add(event.getPlayer());
+    public void onChunkWatch(ChunkWatchEvent.Watch event) {
+        WorldSavedDataWireSystems.get(event.getPlayer().world).onChunkWatch(event.getPlayer(), event.getChunk());
+    }
+
+    @SubscribeEvent
+    public void onChunkUnwatch(ChunkWatchEvent.UnWatch event) {
+        WorldSavedDataWireSystems.get(event.getPlayer().world).onChunkUnwatch(event.getPlayer(), event.getChunk());
+    }
+
+    @SubscribeEvent
+    @SideOnly(Side.CLIENT)
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isRemote) {
+            ClientWireSystems.INSTANCE.wireSystems.clear();
+        }
     }
 
     @SubscribeEvent
@@ -44,7 +44,6 @@ import buildcraft.transport.pipe.behaviour.PipeBehaviourWoodDiamond;
 import buildcraft.transport.plug.PluggableGate;
 import buildcraft.transport.tile.TileFilteredBuffer;
 import buildcraft.transport.wire.MessageWireSystems;
-import buildcraft.transport.wire.MessageWireSystemsPowered;
 
 public abstract class BCTransportProxy implements IGuiHandler {
     @SidedProxy(modId = BCTransport.MODID)
@@ -131,7 +130,6 @@ public abstract class BCTransportProxy implements IGuiHandler {
 
     public void fmlPreInit() {
         MessageManager.registerMessageClass(BCModules.TRANSPORT, MessageWireSystems.class, Side.CLIENT);
-        MessageManager.registerMessageClass(BCModules.TRANSPORT, MessageWireSystemsPowered.class, Side.CLIENT);
     }
 
     public void fmlInit() {
@@ -157,7 +155,6 @@ public abstract class BCTransportProxy implements IGuiHandler {
             PipeWireRenderer.init();
 
             MessageManager.setHandler(MessageWireSystems.class, MessageWireSystems.HANDLER, Side.CLIENT);
-            MessageManager.setHandler(MessageWireSystemsPowered.class, MessageWireSystemsPowered.HANDLER, Side.CLIENT);
         }
 
         @Override
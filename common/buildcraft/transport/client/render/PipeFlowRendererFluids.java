@@ -32,6 +32,7 @@ import buildcraft.api.core.EnumPipePart;
 import buildcraft.api.transport.pipe.IPipeFlowRenderer;
 import buildcraft.api.transport.pipe.IPipeHolder;
 
+import buildcraft.lib.client.render.LightCache;
 import buildcraft.lib.client.render.fluid.FluidRenderer;
 import buildcraft.lib.client.render.fluid.FluidSpriteType;
 import buildcraft.lib.misc.VecUtil;
@@ -61,7 +62,7 @@ public enum PipeFlowRendererFluids implements IPipeFlowRenderer<PipeFlowFluids>
 
         int blocklight = forRender.getFluid().getLuminosity(forRender);
         IPipeHolder holder = flow.pipe.getHolder();
-        int combinedLight = holder.getPipeWorld().getCombinedLight(holder.getPipePos(), blocklight);
+        int combinedLight = LightCache.getCombinedLight(holder.getPipeWorld(), holder.getPipePos(), blocklight);
 
         FluidRenderer.vertex.lighti(combinedLight);
 
@@ -13,6 +13,7 @@ import javax.vecmath.Tuple3f;
 import javax.vecmath.Vector3f;
 
 import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.item.EnumDyeColor;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
@@ -29,6 +30,7 @@ import buildcraft.lib.client.model.ModelUtil;
 import buildcraft.lib.client.model.ModelUtil.UvFaceData;
 import buildcraft.lib.client.model.MutableQuad;
 import buildcraft.lib.client.render.ItemRenderUtil;
+import buildcraft.lib.client.render.LightCache;
 import buildcraft.lib.misc.ColourUtil;
 
 import buildcraft.transport.BCTransportSprites;
@@ -40,8 +42,14 @@ public enum PipeFlowRendererItems implements IPipeFlowRenderer<PipeFlowItems> {
     INSTANCE;
 
     private static final MutableQuad[] COLOURED_QUADS = new MutableQuad[6];
+    /** The quads in {@link #COLOURED_QUADS}, already multiplied by the light colour of every {@link EnumDyeColor}. */
+    private static final MutableQuad[][] COLOURED_QUADS_BY_COLOUR = new MutableQuad[ColourUtil.COLOURS.length][6];
+    /** Reused for every coloured quad rendered, to avoid allocating a new quad for each one every frame. */
+    private static final MutableQuad RENDER_QUAD = new MutableQuad();
 
     public static void onModelBake() {
+        PipeItemBatchRenderer.INSTANCE.onModelBake();
+
         Tuple3f center = new Point3f();
         Tuple3f radius = new Vector3f(0.2f, 0.2f, 0.2f);
 
@@ -57,13 +65,25 @@ public enum PipeFlowRendererItems implements IPipeFlowRenderer<PipeFlowItems> {
             q.setCalculatedDiffuse();
             COLOURED_QUADS[face.ordinal()] = q;
         }
+
+        for (EnumDyeColor colour : ColourUtil.COLOURS) {
+            int col = ColourUtil.getLightHex(colour);
+            int r = (col >> 16) & 0xFF;
+            int g = (col >> 8) & 0xFF;
+            int b = col & 0xFF;
+            for (int i = 0; i < 6; i++) {
+                MutableQuad q = new MutableQuad(COLOURED_QUADS[i]);
+                q.multColouri(r, g, b, 255);
+                COLOURED_QUADS_BY_COLOUR[colour.ordinal()][i] = q;
+            }
+        }
     }
 
     @Override
     public void render(PipeFlowItems flow, double x, double y, double z, float partialTicks, BufferBuilder bb) {
         World world = flow.pipe.getHolder().getPipeWorld();
         long now = world.getTotalWorldTime();
-        int lightc = world.getCombinedLight(flow.pipe.getHolder().getPipePos(), 0);
+        int lightc = LightCache.getCombinedLight(world, flow.pipe.getHolder().getPipePos(), 0);
 
         List<TravellingItem> toRender = flow.getAllItemsForRender();
 
@@ -72,24 +92,21 @@ public enum PipeFlowRendererItems implements IPipeFlowRenderer<PipeFlowItems> {
 
             ItemStack stack = item.clientItemLink.get();
             if (stack != null && !stack.isEmpty()) {
-                if (item.stackSize != stack.getCount()) {
-                    stack = stack.copy();
-                    stack.setCount(item.stackSize);
+                EnumFacing dir = item.getRenderDirection(now, partialTicks);
+                if (!PipeItemBatchRenderer.INSTANCE.renderItem(stack, x + pos.x, y + pos.y, z + pos.z, lightc, dir, bb)) {
+                    if (item.stackSize != stack.getCount()) {
+                        stack = stack.copy();
+                        stack.setCount(item.stackSize);
+                    }
+                    ItemRenderUtil.renderItemStack(x + pos.x, y + pos.y, z + pos.z, stack, lightc, dir, bb);
                 }
-                ItemRenderUtil.renderItemStack(x + pos.x, y + pos.y, z + pos.z,//
-                        stack, lightc, item.getRenderDirection(now, partialTicks), bb);
             }
             if (item.colour != null) {
                 bb.setTranslation(x + pos.x, y + pos.y, z + pos.z);
-                int col = ColourUtil.getLightHex(item.colour);
-                int r = (col >> 16) & 0xFF;
-                int g = (col >> 8) & 0xFF;
-                int b = col & 0xFF;
-                for (MutableQuad q : COLOURED_QUADS) {
-                    MutableQuad q2 = new MutableQuad(q);
-                    q2.lighti(lightc);
-                    q2.multColouri(r, g, b, 255);
-                    q2.render(bb);
+                for (MutableQuad q : COLOURED_QUADS_BY_COLOUR[item.colour.ordinal()]) {
+                    RENDER_QUAD.copyFrom(q);
+                    RENDER_QUAD.lighti(lightc);
+                    RENDER_QUAD.render(bb);
                 }
                 bb.setTranslation(0, 0, 0);
             }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.transport.client.render;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.vecmath.Point3f;
+import javax.vecmath.Vector3f;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.EntityRenderer;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.IBakedModel;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.texture.TextureUtil;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.EnumFacing;
+
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import buildcraft.api.core.EnumPipePart;
+
+import buildcraft.lib.BCLibConfig;
+import buildcraft.lib.client.model.ModelUtil;
+import buildcraft.lib.client.model.ModelUtil.UvFaceData;
+import buildcraft.lib.client.model.MutableQuad;
+import buildcraft.lib.client.render.ItemRenderUtil;
+
+/** Renders items travelling through pipes into the {@link net.minecraftforge.client.model.animation.FastTESR} batch
+ * buffer, so they are drawn along with every other pipe before the translucent layer (and so are correctly hidden
+ * behind water and stained glass).
+ * <p>
+ * The quads of every item are transformed once (for each direction) and then cached, so drawing an item only copies
+ * its quads with an offset and the current light. Items further away than {@link BCLibConfig#itemRenderLodDistance}
+ * are drawn as a small cube of their particle texture instead of their full model.
+ * <p>
+ * Items that need GL calls to render (enchanted items and items with a built in renderer) aren't batched, and are
+ * still rendered by {@link PipeFlowRendererItems} directly. */
+@SideOnly(Side.CLIENT)
+public enum PipeItemBatchRenderer {
+    INSTANCE;
+
+    /** Keyed on the identity of the canonical client-side stack that travelling items link to, so looking up an item
+     * never has to compare stacks. */
+    private final LoadingCache<ItemStack, BatchedItem> cache = CacheBuilder.newBuilder()//
+        .weakKeys()//
+        .expireAfterAccess(40, TimeUnit.SECONDS)//
+        .build(CacheLoader.from(BatchedItem::new));
+
+    private final MutableQuad renderQuad = new MutableQuad();
+
+    /** Renders an item into the given buffer, using its cached quads.
+     *
+     * @param stack The canonical stack (from {@link buildcraft.transport.pipe.flow.TravellingItem#clientItemLink}).
+     * @param x The x position of the item, relative to the camera.
+     * @return False if the item can't be batched, and so it must be rendered directly instead. */
+    public boolean renderItem(ItemStack stack, double x, double y, double z, int lightc, EnumFacing dir,
+        BufferBuilder bb) {
+        BatchedItem item = cache.getUnchecked(stack);
+        if (!item.canBatch) {
+            return false;
+        }
+        int lodDistance = BCLibConfig.itemRenderLodDistance;
+        boolean lod = lodDistance > 0 && x * x + y * y + z * z > lodDistance * lodDistance;
+        if (dir == null) {
+            dir = EnumFacing.EAST;
+        }
+        dir = BCLibConfig.rotateTravelingItems.changeFacing(dir);
+        bb.setTranslation(x, y, z);
+        for (MutableQuad q : lod ? item.lodQuads : item.quadsByDirection[dir.ordinal()]) {
+            renderQuad.copyFrom(q);
+            renderQuad.lighti(lightc);
+            renderQuad.render(bb);
+        }
+        bb.setTranslation(0, 0, 0);
+        return true;
+    }
+
+    public void onModelBake() {
+        cache.invalidateAll();
+    }
+
+    static final class BatchedItem {
+        final boolean canBatch;
+        /** The full quads of the item, for every (rotated) direction. */
+        final MutableQuad[][] quadsByDirection = new MutableQuad[6][];
+        /** A small cube of the item's particle texture, used for items that are far away. */
+        final MutableQuad[] lodQuads;
+
+        BatchedItem(ItemStack stack) {
+            IBakedModel model = stack.isEmpty() ? null : ItemRenderUtil.getItemModel(stack);
+            canBatch = model != null && ItemRenderUtil.canRenderInBuffer(stack, model);
+            if (!canBatch) {
+                lodQuads = null;
+                return;
+            }
+            int tint = -1;
+            for (EnumFacing dir : EnumFacing.VALUES) {
+                List<MutableQuad> quads = new ArrayList<>();
+                for (EnumPipePart part : EnumPipePart.VALUES) {
+                    for (BakedQuad quad : model.getQuads(null, part.face, 0)) {
+                        MutableQuad q = new MutableQuad(-1, null);
+                        ItemRenderUtil.transformItemQuad(q, quad, stack, dir);
+                        quads.add(q);
+                        if (tint == -1 && quad.hasTintIndex()) {
+                            tint = quad.getTintIndex();
+                        }
+                    }
+                }
+                quadsByDirection[dir.ordinal()] = quads.toArray(new MutableQuad[0]);
+            }
+            lodQuads = createLodQuads(stack, model.getParticleTexture(), tint);
+        }
+
+        private static MutableQuad[] createLodQuads(ItemStack stack, TextureAtlasSprite sprite, int tint) {
+            UvFaceData uvs = new UvFaceData();
+            uvs.minU = sprite.getMinU();
+            uvs.maxU = sprite.getMaxU();
+            uvs.minV = sprite.getMinV();
+            uvs.maxV = sprite.getMaxV();
+            int colour = -1;
+            if (tint != -1) {
+                colour = Minecraft.getMinecraft().getItemColors().colorMultiplier(stack, tint);
+                if (EntityRenderer.anaglyphEnable) {
+                    colour = TextureUtil.anaglyphColor(colour);
+                }
+            }
+            MutableQuad[] quads = new MutableQuad[6];
+            for (EnumFacing face : EnumFacing.VALUES) {
+                MutableQuad q = ModelUtil.createFace(face, new Point3f(), new Vector3f(0.12f, 0.12f, 0.12f), uvs);
+                q.setCalculatedDiffuse();
+                if (colour != -1) {
+                    q.multColouri(colour, colour >> 8, colour >> 16, 0xFF);
+                }
+                quads[face.ordinal()] = q;
+            }
+            return quads;
+        }
+    }
+}
@@ -57,6 +57,7 @@ import buildcraft.transport.gate.TriggerWrapper.TriggerWrapperInternal;
 import buildcraft.transport.gate.TriggerWrapper.TriggerWrapperInternalSided;
 import buildcraft.transport.plug.PluggableGate;
 import buildcraft.transport.wire.IWireEmitter;
+import buildcraft.transport.wire.WireSystem;
 import buildcraft.transport.wire.WorldSavedDataWireSystems;
 
 public class GateLogic implements IGate, IWireEmitter, IRedstoneStatementContainer {
@@ -409,7 +410,10 @@ public class GateLogic implements IGate, IWireEmitter, IRedstoneStatementContain
             // FIXME: add call to "wires.emittingColour(turnedOff)"
 
             if (!getPipeHolder().getPipeWorld().isRemote) {
-                WorldSavedDataWireSystems.get(getPipeHolder().getPipeWorld()).gatesChanged = true;
+                EnumSet<EnumDyeColor> changed = EnumSet.copyOf(turnedOff);
+                changed.addAll(turnedOn);
+                WireSystem.WireElement emitter = new WireSystem.WireElement(getPipeHolder().getPipePos(), pluggable.side);
+                WorldSavedDataWireSystems.get(getPipeHolder().getPipeWorld()).markEmitterChanged(emitter, changed);
             }
         }
 
@@ -28,7 +28,12 @@ public class PipeEventBus {
 
     private static final Map<Class<?>, List<Handler>> allHandlers = new HashMap<>();
 
+    private static final LocalHandler[] NO_HANDLERS = new LocalHandler[0];
+
     private final List<LocalHandler> currentHandlers = new ArrayList<>();
+    /** The handlers (in priority order) for every event class that has been fired or queried since the handlers were
+     * last changed. */
+    private final Map<Class<?>, LocalHandler[]> handlersByEvent = new HashMap<>();
 
     private static List<LocalHandler> getAndBindHandlers(Object obj) {
         Class<?> cls = obj instanceof Class ? (Class<?>) obj : obj.getClass();
@@ -90,6 +95,7 @@ public class PipeEventBus {
         }
         currentHandlers.addAll(getAndBindHandlers(obj));
         Collections.sort(currentHandlers);
+        handlersByEvent.clear();
     }
 
     public void unregisterHandler(Object obj) {
@@ -97,7 +103,30 @@ public class PipeEventBus {
             return;
         }
 
-        currentHandlers.removeIf(next -> next.target == obj);
+        if (currentHandlers.removeIf(next -> next.target == obj)) {
+            handlersByEvent.clear();
+        }
+    }
+
+    private LocalHandler[] getHandlersFor(Class<?> eventClass) {
+        LocalHandler[] handlers = handlersByEvent.get(eventClass);
+        if (handlers == null) {
+            List<LocalHandler> list = new ArrayList<>();
+            for (LocalHandler handler : currentHandlers) {
+                if (handler.classHandled.isAssignableFrom(eventClass)) {
+                    list.add(handler);
+                }
+            }
+            handlers = list.isEmpty() ? NO_HANDLERS : list.toArray(new LocalHandler[list.size()]);
+            handlersByEvent.put(eventClass, handlers);
+        }
+        return handlers;
+    }
+
+    /** @return True if firing an event of the given class would call at least one handler. Callers can use this to
+     *         skip creating and firing events that nothing listens to. */
+    public boolean hasHandlers(Class<? extends PipeEvent> eventClass) {
+        return getHandlersFor(eventClass).length > 0;
     }
 
     /** Sends this event to all of the registered handlers.
@@ -112,7 +141,7 @@ public class PipeEventBus {
                     + "(error = " + error + ")");
             }
         }
-        for (LocalHandler handler : currentHandlers) {
+        for (LocalHandler handler : getHandlersFor(event.getClass())) {
             handled |= handler.handleEvent(event);
             if (DEBUG) {
                 String error = event.checkStateForErrors();
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.transport.pipe.behaviour;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.EnumFacing;
+
+import buildcraft.api.items.IList;
+
+import buildcraft.lib.misc.StackUtil;
+
+/** The routes of every item through a diamond pipe, for one set of filters. This is rebuilt whenever the filters
+ * change.
+ * <p>
+ * Plain filter stacks only ever match items of the same {@link Item}, so they are grouped by item, and the route for
+ * each (item, meta) pair is computed once. Lists can match based on anything (including NBT and the ore dictionary)
+ * so the routes of items when any lists are used are cached in a small LRU, keyed on the item, meta and NBT.
+ * <p>
+ * Travelling items that are lists themselves are matched against every filter with
+ * {@link StackUtil#isMatchingItemOrList(ItemStack, ItemStack)} (so a plain filter matches if any line of the list
+ * does), and their routes are cached in the same LRU. */
+final class DiamondRoutingTable {
+    private static final int LIST_ROUTE_CACHE_SIZE = 256;
+
+    /** The route of an item that doesn't match any filters. */
+    static final Route NO_MATCH = new Route(new int[6]);
+
+    /** A bit mask (of {@link EnumFacing#ordinal()}) of every side that has at least one filter in it. */
+    final int filteredSides;
+
+    private final Map<Item, ItemRoutes> plainRoutes = new IdentityHashMap<>();
+    private final FilterSlot[] listFilters;
+    private final Map<StackKey, Route> listRoutes = new LinkedHashMap<StackKey, Route>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<StackKey, Route> eldest) {
+            return size() > LIST_ROUTE_CACHE_SIZE;
+        }
+    };
+    private final StackKey lookupKey = new StackKey();
+
+    DiamondRoutingTable(PipeBehaviourDiamond diamond) {
+        int sides = 0;
+        Map<Item, List<FilterSlot>> plain = new IdentityHashMap<>();
+        List<FilterSlot> lists = new ArrayList<>();
+        for (EnumFacing face : EnumFacing.VALUES) {
+            int offset = PipeBehaviourDiamond.FILTERS_PER_SIDE * face.ordinal();
+            for (int i = 0; i < PipeBehaviourDiamond.FILTERS_PER_SIDE; i++) {
+                ItemStack filter = diamond.filters.getStackInSlot(offset + i);
+                if (filter.isEmpty()) continue;
+                sides |= 1 << face.ordinal();
+                FilterSlot slot = new FilterSlot(face, filter.copy());
+                if (filter.getItem() instanceof IList) {
+                    lists.add(slot);
+                } else {
+                    plain.computeIfAbsent(filter.getItem(), k -> new ArrayList<>()).add(slot);
+                }
+            }
+        }
+        filteredSides = sides;
+        for (Map.Entry<Item, List<FilterSlot>> entry : plain.entrySet()) {
+            plainRoutes.put(entry.getKey(), new ItemRoutes(entry.getValue().toArray(new FilterSlot[0])));
+        }
+        listFilters = lists.toArray(new FilterSlot[0]);
+    }
+
+    /** @return The route for the given stack. Never null. */
+    Route getRoute(@Nonnull ItemStack stack) {
+        if (stack.isEmpty()) {
+            return NO_MATCH;
+        }
+        boolean isList = stack.getItem() instanceof IList;
+        Route plain = NO_MATCH;
+        if (!isList) {
+            ItemRoutes itemRoutes = plainRoutes.get(stack.getItem());
+            plain = itemRoutes == null ? NO_MATCH : itemRoutes.getRoute(stack);
+            if (listFilters.length == 0) {
+                return plain;
+            }
+        }
+        lookupKey.set(stack.getItem(), stack.getMetadata(), stack.getTagCompound());
+        Route route = listRoutes.get(lookupKey);
+        if (route == null) {
+            int[] counts = plain.countPerFace.clone();
+            if (isList) {
+                // A list can match plain filters of any item, so every one of them has to be checked
+                for (ItemRoutes itemRoutes : plainRoutes.values()) {
+                    addMatching(itemRoutes.filters, stack, counts);
+                }
+            }
+            addMatching(listFilters, stack, counts);
+            route = new Route(counts);
+            NBTTagCompound nbt = stack.getTagCompound();
+            StackKey key = new StackKey();
+            key.set(stack.getItem(), stack.getMetadata(), nbt == null ? null : nbt.copy());
+            listRoutes.put(key, route);
+        }
+        return route;
+    }
+
+    private static void addMatching(FilterSlot[] filters, ItemStack stack, int[] counts) {
+        for (FilterSlot filter : filters) {
+            if (StackUtil.isMatchingItemOrList(filter.stack, stack)) {
+                counts[filter.face.ordinal()] += filter.stack.getCount();
+            }
+        }
+    }
+
+    /** Where an item can go, and with what weight. */
+    static final class Route {
+        /** The sum of the counts of every matching filter, for every {@link EnumFacing#ordinal()}. */
+        final int[] countPerFace;
+        /** A bit mask (of {@link EnumFacing#ordinal()}) of the sides with at least one matching filter. */
+        final int matchingSides;
+
+        Route(int[] countPerFace) {
+            this.countPerFace = countPerFace;
+            int sides = 0;
+            for (int i = 0; i < 6; i++) {
+                if (countPerFace[i] > 0) {
+                    sides |= 1 << i;
+                }
+            }
+            matchingSides = sides;
+        }
+
+        boolean matches(EnumFacing face) {
+            return (matchingSides & (1 << face.ordinal())) != 0;
+        }
+    }
+
+    static final class FilterSlot {
+        final EnumFacing face;
+        final ItemStack stack;
+
+        FilterSlot(EnumFacing face, ItemStack stack) {
+            this.face = face;
+            this.stack = stack;
+        }
+    }
+
+    /** Every plain filter of a single {@link Item}, with the routes for each meta of it that has been seen. */
+    static final class ItemRoutes {
+        final FilterSlot[] filters;
+        final boolean hasSubtypes;
+        final Int2ObjectOpenHashMap<Route> routesByMeta = new Int2ObjectOpenHashMap<>();
+        Route anyMeta;
+
+        ItemRoutes(FilterSlot[] filters) {
+            this.filters = filters;
+            this.hasSubtypes = filters[0].stack.getHasSubtypes();
+        }
+
+        Route getRoute(ItemStack stack) {
+            if (!hasSubtypes) {
+                // The damage isn't checked, so every stack of this item matches the same filters
+                if (anyMeta == null) {
+                    anyMeta = computeRoute(stack);
+                }
+                return anyMeta;
+            }
+            Route route = routesByMeta.get(stack.getMetadata());
+            if (route == null) {
+                route = computeRoute(stack);
+                routesByMeta.put(stack.getMetadata(), route);
+            }
+            return route;
+        }
+
+        private Route computeRoute(ItemStack stack) {
+            int[] counts = new int[6];
+            for (FilterSlot filter : filters) {
+                // Plain filters never check NBT, so this only depends on the item and meta
+                if (StackUtil.isMatchingItem(filter.stack, stack, true, false)) {
+                    counts[filter.face.ordinal()] += filter.stack.getCount();
+                }
+            }
+            return new Route(counts);
+        }
+    }
+
+    /** Identifies a stack by its item, meta and NBT. */
+    static final class StackKey {
+        Item item;
+        int meta;
+        NBTTagCompound nbt;
+        int hash;
+
+        void set(Item item, int meta, NBTTagCompound nbt) {
+            this.item = item;
+            this.meta = meta;
+            this.nbt = nbt;
+            this.hash = (System.identityHashCode(item) * 31 + meta) * 31 + (nbt == null ? 0 : nbt.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof StackKey)) return false;
+            StackKey other = (StackKey) obj;
+            return item == other.item && meta == other.meta && hash == other.hash && Objects.equals(nbt, other.nbt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -7,10 +7,13 @@
 package buildcraft.transport.pipe.behaviour;
 
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.RayTraceResult;
 
+import net.minecraftforge.items.IItemHandlerModifiable;
+
 import buildcraft.api.core.EnumPipePart;
 import buildcraft.api.transport.pipe.IPipe;
 import buildcraft.api.transport.pipe.PipeBehaviour;
@@ -23,7 +26,7 @@ public abstract class PipeBehaviourDiamond extends PipeBehaviour {
 
     public static final int FILTERS_PER_SIDE = 9;
 
-    public final ItemHandlerSimple filters = new ItemHandlerSimple(FILTERS_PER_SIDE * 6, null);
+    public final ItemHandlerSimple filters = new ItemHandlerSimple(FILTERS_PER_SIDE * 6, this::onFilterChange);
 
     public PipeBehaviourDiamond(IPipe pipe) {
         super(pipe);
@@ -34,6 +37,9 @@ public abstract class PipeBehaviourDiamond extends PipeBehaviour {
         filters.deserializeNBT(nbt.getCompoundTag("filters"));
     }
 
+    /** Called whenever any of the {@link #filters} change. */
+    protected void onFilterChange(IItemHandlerModifiable handler, int slot, ItemStack before, ItemStack after) {}
+
     @Override
     public NBTTagCompound writeToNbt() {
         NBTTagCompound nbt = super.writeToNbt();
@@ -14,13 +14,16 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 
+import net.minecraftforge.items.IItemHandlerModifiable;
+
 import buildcraft.api.transport.pipe.IPipe;
 import buildcraft.api.transport.pipe.PipeEventHandler;
 import buildcraft.api.transport.pipe.PipeEventItem;
 import buildcraft.api.transport.pipe.PipeEventItem.ItemEntry;
 
 import buildcraft.lib.misc.MathUtil;
-import buildcraft.lib.misc.StackUtil;
+
+import buildcraft.transport.pipe.behaviour.DiamondRoutingTable.Route;
 
 public class PipeBehaviourDiamondItem extends PipeBehaviourDiamond {
 
@@ -32,29 +35,37 @@ public class PipeBehaviourDiamondItem extends PipeBehaviourDiamond {
         super(pipe, nbt);
     }
 
+    /** The routes for the current filters, or null if the filters have changed since it was last built. */
+    private DiamondRoutingTable routingTable;
+
+    @Override
+    protected void onFilterChange(IItemHandlerModifiable handler, int slot, ItemStack before, ItemStack after) {
+        routingTable = null;
+    }
+
+    private DiamondRoutingTable getRoutingTable() {
+        if (routingTable == null) {
+            routingTable = new DiamondRoutingTable(this);
+        }
+        return routingTable;
+    }
+
     @PipeEventHandler
     public void sideCheck(PipeEventItem.SideCheck sideCheck) {
-        ItemStack toCompare = sideCheck.stack;
+        DiamondRoutingTable table = getRoutingTable();
+        if (table.filteredSides == 0) {
+            return;
+        }
+        Route route = table.getRoute(sideCheck.stack);
         for (EnumFacing face : EnumFacing.VALUES) {
+            if ((table.filteredSides & (1 << face.ordinal())) == 0) {
+                continue;
+            }
             if (sideCheck.isAllowed(face) && pipe.isConnected(face)) {
-                int offset = FILTERS_PER_SIDE * face.ordinal();
-                boolean sideAllowed = false;
-                boolean foundItem = false;
-                for (int i = 0; i < FILTERS_PER_SIDE; i++) {
-                    ItemStack compareTo = filters.getStackInSlot(offset + i);
-                    if (compareTo.isEmpty()) continue;
-                    foundItem = true;
-                    if (StackUtil.isMatchingItemOrList(compareTo, toCompare)) {
-                        sideAllowed = true;
-                        break;
-                    }
-                }
-                if (foundItem) {
-                    if (sideAllowed) {
-                        sideCheck.increasePriority(face, 12);
-                    } else {
-                        sideCheck.disallow(face);
-                    }
+                if (route.matches(face)) {
+                    sideCheck.increasePriority(face, 12);
+                } else {
+                    sideCheck.disallow(face);
                 }
             }
         }
@@ -69,23 +80,19 @@ public class PipeBehaviourDiamondItem extends PipeBehaviourDiamond {
             return;
         }
 
+        DiamondRoutingTable table = getRoutingTable();
         ItemEntry[] items = split.items.toArray(new ItemEntry[0]);
         split.items.clear();
+        int[] countPerSide = new int[allSides.length];
+        ItemEntry[] entries = new ItemEntry[allSides.length];
         // Note that the order doesn't matter
         for (ItemEntry item : items) {
-            int[] countPerSide = new int[allSides.length];
+            Route route = table.getRoute(item.stack);
             int totalCount = 0;
             for (int s = 0; s < allSides.length; s++) {
-                int offset = FILTERS_PER_SIDE * allSides[s].ordinal();
-                for (int i = 0; i < FILTERS_PER_SIDE; i++) {
-                    ItemStack compareTo = filters.getStackInSlot(offset + i);
-                    if (compareTo.isEmpty()) continue;
-                    if (StackUtil.isMatchingItemOrList(compareTo, item.stack)) {
-                        int count = compareTo.getCount();
-                        totalCount += count;
-                        countPerSide[s] += count;
-                    }
-                }
+                int count = route.countPerFace[allSides[s].ordinal()];
+                countPerSide[s] = count;
+                totalCount += count;
             }
             if (totalCount == 0) {
                 totalCount = allSides.length;
@@ -104,7 +111,6 @@ public class PipeBehaviourDiamondItem extends PipeBehaviourDiamond {
             }
             /* If the stack count is divisible by the possible directions then we can just split the stack up evenly -
              * making the distribution perfect. */
-            ItemEntry[] entries = new ItemEntry[allSides.length];
             ItemStack toSplit = item.stack;
             if (toSplit.getCount() >= totalCount) {
                 int leftOver = toSplit.getCount() % totalCount;
@@ -120,37 +126,32 @@ public class PipeBehaviourDiamondItem extends PipeBehaviourDiamond {
                 }
                 toSplit.setCount(leftOver);
             }
-            if (!toSplit.isEmpty()) {
-                int[] randLookup = new int[totalCount];
-                int j = 0;
-                for (int s = 0; s < allSides.length; s++) {
-                    int len = countPerSide[s];
-                    Arrays.fill(randLookup, j, j + len, s);
-                    j += len;
+            while (!toSplit.isEmpty()) {
+                // Pick a random number between 0 and total count, and find the side that it lands in.
+                int rand = split.holder.getPipeWorld().rand.nextInt(totalCount);
+                int face = 0;
+                while (rand >= countPerSide[face]) {
+                    rand -= countPerSide[face];
+                    face++;
                 }
-
-                while (!toSplit.isEmpty()) {
-                    // Pick a random number between 0 and total count.
-                    int rand = split.holder.getPipeWorld().rand.nextInt(totalCount);
-                    int face = randLookup[rand];
-                    if (entries[face] == null) {
-                        ItemStack stack = toSplit.copy();
-                        stack.setCount(1);
-                        ItemEntry entry = new ItemEntry(item.colour, stack, item.from);
-                        List<EnumFacing> dests = entry.to = new ArrayList<>(1);
-                        dests.add(allSides[face]);
-                        entries[face] = entry;
-                    } else {
-                        entries[face].stack.grow(1);
-                    }
-                    toSplit.shrink(1);
+                if (entries[face] == null) {
+                    ItemStack stack = toSplit.copy();
+                    stack.setCount(1);
+                    ItemEntry entry = new ItemEntry(item.colour, stack, item.from);
+                    List<EnumFacing> dests = entry.to = new ArrayList<>(1);
+                    dests.add(allSides[face]);
+                    entries[face] = entry;
+                } else {
+                    entries[face].stack.grow(1);
                 }
+                toSplit.shrink(1);
             }
             for (int s = 0; s < allSides.length; s++) {
                 ItemEntry entry = entries[s];
                 if (entry == null) {
                     continue;
                 }
+                entries[s] = null;
                 split.items.add(entry);
             }
         }
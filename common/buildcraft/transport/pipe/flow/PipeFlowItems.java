@@ -42,6 +42,7 @@ import buildcraft.api.transport.pipe.IPipe;
 import buildcraft.api.transport.pipe.IPipe.ConnectedType;
 import buildcraft.api.transport.pipe.IPipeHolder;
 import buildcraft.api.transport.pipe.PipeApi;
+import buildcraft.api.transport.pipe.PipeEvent;
 import buildcraft.api.transport.pipe.PipeEventItem;
 import buildcraft.api.transport.pipe.PipeFlow;
 
@@ -50,15 +51,18 @@ import buildcraft.lib.inventory.NoSpaceTransactor;
 import buildcraft.lib.misc.CapUtil;
 import buildcraft.lib.misc.MessageUtil;
 import buildcraft.lib.misc.StackUtil;
-import buildcraft.lib.misc.data.DelayedList;
 import buildcraft.lib.net.PacketBufferBC;
 import buildcraft.lib.net.cache.BuildCraftObjectCaches;
 
+import buildcraft.transport.tile.TilePipeHolder;
+
 public final class PipeFlowItems extends PipeFlow implements IFlowItems {
     private static final double EXTRACT_SPEED = 0.08;
+    private static final double DEFAULT_TARGET_SPEED = 0.04;
+    private static final double DEFAULT_MAX_SPEED_CHANGE = 0.01;
     public static final int NET_CREATE_ITEM = 2;
 
-    private final DelayedList<TravellingItem> items = new DelayedList<>();
+    private final TravellingItemStore items = new TravellingItemStore();
 
     public PipeFlowItems(IPipe pipe) {
         super(pipe);
@@ -79,14 +83,11 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
     @Override
     public NBTTagCompound writeToNbt() {
         NBTTagCompound nbt = super.writeToNbt();
-        List<List<TravellingItem>> allItems = items.getAllElements();
         NBTTagList list = new NBTTagList();
 
         long tickNow = pipe.getHolder().getPipeWorld().getTotalWorldTime();
-        for (List<TravellingItem> l : allItems) {
-            for (TravellingItem item : l) {
-                list.appendTag(item.writeToNbt(tickNow));
-            }
+        for (int i = 0; i < items.size(); i++) {
+            list.appendTag(items.get(i).writeToNbt(tickNow));
         }
         nbt.setTag("items", list);
         return nbt;
@@ -130,11 +131,10 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
     @Override
     public void addDrops(NonNullList<ItemStack> toDrop, int fortune) {
         super.addDrops(toDrop, fortune);
-        for (List<TravellingItem> list : items.getAllElements()) {
-            for (TravellingItem item : list) {
-                if (!item.isPhantom) {
-                    toDrop.add(item.stack);
-                }
+        for (int i = 0; i < items.size(); i++) {
+            TravellingItem item = items.get(i);
+            if (!item.isPhantom) {
+                toDrop.add(item.stack);
             }
         }
     }
@@ -249,13 +249,14 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
     public void onTick() {
         World world = pipe.getHolder().getPipeWorld();
 
-        List<TravellingItem> toTick = items.advance();
+        int count = items.advance();
         if (world.isRemote) {
             // TODO: Client item advancing/intelligent stuffs
             return;
         }
 
-        for (TravellingItem item : toTick) {
+        for (int i = 0; i < count; i++) {
+            TravellingItem item = items.getDue(i);
             if (item.isPhantom) {
                 continue;
             }
@@ -269,57 +270,65 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
 
     private void onItemReachCenter(TravellingItem item) {
         IPipeHolder holder = pipe.getHolder();
-        PipeEventItem.ReachCenter reachCenter =
-            new PipeEventItem.ReachCenter(holder, this, item.colour, item.stack, item.side);
-        holder.fireEvent(reachCenter);
-        if (reachCenter.getStack().isEmpty()) {
+        EnumDyeColor colour = item.colour;
+        EnumFacing from = item.side;
+        ItemStack stack = item.stack;
+        if (hasHandlers(PipeEventItem.ReachCenter.class)) {
+            PipeEventItem.ReachCenter reachCenter = new PipeEventItem.ReachCenter(holder, this, colour, stack, from);
+            holder.fireEvent(reachCenter);
+            colour = reachCenter.colour;
+            stack = reachCenter.getStack();
+        }
+        if (stack.isEmpty()) {
             return;
         }
 
-        PipeEventItem.SideCheck sideCheck =
-            new PipeEventItem.SideCheck(holder, this, reachCenter.colour, reachCenter.from, reachCenter.getStack());
-        sideCheck.disallow(reachCenter.from);
+        PipeEventItem.SideCheck sideCheck = new PipeEventItem.SideCheck(holder, this, colour, from, stack);
+        sideCheck.disallow(from);
         for (EnumFacing face : EnumFacing.VALUES) {
-            if (item.tried.contains(face) || !pipe.isConnected(face)) {
+            if (item.hasTried(face) || !pipe.isConnected(face)) {
                 sideCheck.disallow(face);
             }
         }
-        holder.fireEvent(sideCheck);
+        fireEvent(sideCheck);
 
         List<EnumSet<EnumFacing>> order = sideCheck.getOrder();
         if (order.isEmpty()) {
-            PipeEventItem.TryBounce tryBounce =
-                new PipeEventItem.TryBounce(holder, this, reachCenter.colour, reachCenter.from, reachCenter.getStack());
-            holder.fireEvent(tryBounce);
+            PipeEventItem.TryBounce tryBounce = new PipeEventItem.TryBounce(holder, this, colour, from, stack);
+            fireEvent(tryBounce);
             if (tryBounce.canBounce) {
-                order = ImmutableList.of(EnumSet.of(reachCenter.from));
+                order = ImmutableList.of(EnumSet.of(from));
             } else {
                 dropItem(item.stack, null, item.side.getOpposite(), item.speed);
                 return;
             }
         }
 
-        PipeEventItem.ItemEntry entry =
-            new PipeEventItem.ItemEntry(reachCenter.colour, reachCenter.getStack(), reachCenter.from);
+        PipeEventItem.ItemEntry entry = new PipeEventItem.ItemEntry(colour, stack, from);
         PipeEventItem.Split split = new PipeEventItem.Split(holder, this, order, entry);
-        holder.fireEvent(split);
+        fireEvent(split);
         ImmutableList<PipeEventItem.ItemEntry> entries = ImmutableList.copyOf(split.items);
 
         PipeEventItem.FindDest findDest = new PipeEventItem.FindDest(holder, this, order, entries);
-        holder.fireEvent(findDest);
+        fireEvent(findDest);
 
         World world = holder.getPipeWorld();
         long now = world.getTotalWorldTime();
+        boolean hasSpeedHandlers = hasHandlers(PipeEventItem.ModifySpeed.class);
         for (PipeEventItem.ItemEntry itemEntry : findDest.items) {
             if (itemEntry.stack.isEmpty()) {
                 continue;
             }
-            PipeEventItem.ModifySpeed modifySpeed = new PipeEventItem.ModifySpeed(holder, this, itemEntry, item.speed);
-            modifySpeed.modifyTo(0.04, 0.01);
-            holder.fireEvent(modifySpeed);
-
-            double target = modifySpeed.targetSpeed;
-            double maxDelta = modifySpeed.maxSpeedChange;
+            double target = DEFAULT_TARGET_SPEED;
+            double maxDelta = DEFAULT_MAX_SPEED_CHANGE;
+            if (hasSpeedHandlers) {
+                PipeEventItem.ModifySpeed modifySpeed =
+                    new PipeEventItem.ModifySpeed(holder, this, itemEntry, item.speed);
+                modifySpeed.modifyTo(DEFAULT_TARGET_SPEED, DEFAULT_MAX_SPEED_CHANGE);
+                holder.fireEvent(modifySpeed);
+                target = modifySpeed.targetSpeed;
+                maxDelta = modifySpeed.maxSpeedChange;
+            }
             double nSpeed = item.speed;
             if (nSpeed < target) {
                 nSpeed += maxDelta;
@@ -341,7 +350,7 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
                 dropItem(itemEntry.stack, null, item.side.getOpposite(), nSpeed);
             } else {
                 TravellingItem newItem = new TravellingItem(itemEntry.stack);
-                newItem.tried.addAll(item.tried);
+                newItem.tried = item.tried;
                 newItem.toCenter = false;
                 newItem.colour = itemEntry.colour;
                 newItem.side = destinations.get(0);
@@ -355,10 +364,13 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
 
     private void onItemReachEnd(TravellingItem item) {
         IPipeHolder holder = pipe.getHolder();
-        PipeEventItem.ReachEnd reachEnd = new PipeEventItem.ReachEnd(holder, this, item.colour, item.stack, item.side);
-        holder.fireEvent(reachEnd);
-        item.colour = reachEnd.colour;
-        item.stack = reachEnd.getStack();
+        if (hasHandlers(PipeEventItem.ReachEnd.class)) {
+            PipeEventItem.ReachEnd reachEnd =
+                new PipeEventItem.ReachEnd(holder, this, item.colour, item.stack, item.side);
+            holder.fireEvent(reachEnd);
+            item.colour = reachEnd.colour;
+            item.stack = reachEnd.getStack();
+        }
         ItemStack excess = item.stack;
         if (excess.isEmpty()) {
             return;
@@ -403,7 +415,7 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
         if (excess.isEmpty()) {
             return;
         }
-        item.tried.add(item.side);
+        item.addTried(item.side);
         item.toCenter = true;
         item.stack = excess;
         item.genTimings(holder.getPipeWorld().getTotalWorldTime(), getPipeLength(item.side));
@@ -430,10 +442,12 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
         ent.motionY = motion.getFrontOffsetY() * speed;
         ent.motionZ = motion.getFrontOffsetZ() * speed;
 
-        PipeEventItem.Drop drop = new PipeEventItem.Drop(holder, this, ent);
-        holder.fireEvent(drop);
-        if (ent.getItem().isEmpty() || ent.isDead) {
-            return;
+        if (hasHandlers(PipeEventItem.Drop.class)) {
+            PipeEventItem.Drop drop = new PipeEventItem.Drop(holder, this, ent);
+            holder.fireEvent(drop);
+            if (ent.getItem().isEmpty() || ent.isDead) {
+                return;
+            }
         }
 
         world.spawnEntity(ent);
@@ -499,7 +513,7 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
         item.speed = speed;
         item.colour = colour;
         item.genTimings(now, 0);
-        item.tried.add(from);
+        item.addTried(from);
         addItemTryMerge(item);
     }
 
@@ -507,10 +521,15 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
     private void insertItemEvents(@Nonnull ItemStack toInsert, EnumDyeColor colour, double speed, EnumFacing from) {
         IPipeHolder holder = pipe.getHolder();
 
-        PipeEventItem.OnInsert onInsert = new PipeEventItem.OnInsert(holder, this, colour, toInsert, from);
-        holder.fireEvent(onInsert);
+        ItemStack stack = toInsert;
+        if (hasHandlers(PipeEventItem.OnInsert.class)) {
+            PipeEventItem.OnInsert onInsert = new PipeEventItem.OnInsert(holder, this, colour, toInsert, from);
+            holder.fireEvent(onInsert);
+            colour = onInsert.colour;
+            stack = onInsert.getStack();
+        }
 
-        if (onInsert.getStack().isEmpty()) {
+        if (stack.isEmpty()) {
             return;
         }
 
@@ -521,25 +540,36 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
         item.side = from;
         item.toCenter = true;
         item.speed = speed;
-        item.colour = onInsert.colour;
-        item.stack = onInsert.getStack();
+        item.colour = colour;
+        item.stack = stack;
         item.genTimings(now, getPipeLength(from));
-        item.tried.add(from);
+        item.addTried(from);
         addItemTryMerge(item);
     }
 
     private void addItemTryMerge(TravellingItem item) {
-        for (List<TravellingItem> list : items.getAllElements()) {
-            for (TravellingItem item2 : list) {
-                if (item2.mergeWith(item)) {
-                    return;
-                }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).mergeWith(item)) {
+                return;
             }
         }
         items.add(item.timeToDest, item);
         sendItemDataToClient(item);
     }
 
+    /** @return True if firing an event of the given class in this pipe would actually call any handlers. Events that
+     *         nothing listens to don't need to be created, as their default outcome is already known. */
+    private boolean hasHandlers(Class<? extends PipeEvent> eventClass) {
+        IPipeHolder holder = pipe.getHolder();
+        return !(holder instanceof TilePipeHolder) || ((TilePipeHolder) holder).eventBus.hasHandlers(eventClass);
+    }
+
+    private void fireEvent(PipeEvent event) {
+        if (hasHandlers(event.getClass())) {
+            pipe.getHolder().fireEvent(event);
+        }
+    }
+
     @Nullable
     private static EnumSet<EnumFacing> getFirstNonEmptySet(List<EnumSet<EnumFacing>> possible) {
         for (EnumSet<EnumFacing> set : possible) {
@@ -564,9 +594,9 @@ public final class PipeFlowItems extends PipeFlow implements IFlowItems {
 
     @SideOnly(Side.CLIENT)
     public List<TravellingItem> getAllItemsForRender() {
-        List<TravellingItem> all = new ArrayList<>();
-        for (List<TravellingItem> innerList : items.getAllElements()) {
-            all.addAll(innerList);
+        List<TravellingItem> all = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            all.add(items.get(i));
         }
         return all;
     }
@@ -7,7 +7,6 @@
 package buildcraft.transport.pipe.flow;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
@@ -21,6 +20,7 @@ import net.minecraft.network.PacketBuffer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.world.World;
 
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.fml.relauncher.Side;
@@ -37,7 +37,9 @@ import buildcraft.api.transport.pipe.IPipe;
 import buildcraft.api.transport.pipe.IPipe.ConnectedType;
 import buildcraft.api.transport.pipe.PipeApi;
 import buildcraft.api.transport.pipe.PipeApi.PowerTransferInfo;
+import buildcraft.api.transport.pipe.PipeEventHandler;
 import buildcraft.api.transport.pipe.PipeEventPower;
+import buildcraft.api.transport.pipe.PipeEventTileState;
 import buildcraft.api.transport.pipe.PipeFlow;
 
 import buildcraft.lib.misc.LocaleUtil;
@@ -50,17 +52,24 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
     private static final long DEFAULT_MAX_POWER = MjAPI.MJ * 10;
     public static final int NET_POWER_AMOUNTS = 2;
 
+    /** The most power that can flow through this pipe in a single tick, and the most that a receiving pipe can
+     * store. */
     private long maxPower = -1;
-    private long powerLoss = -1;
+    /** The fraction of the power flowing through this pipe that is lost, out of {@link MjAPI#MJ}. */
     private long powerResistance = -1;
 
-    private long currentWorldTime;
-
     private boolean isReceiver = false;
     private final EnumMap<EnumFacing, Section> sections;
+    /** Power that has been received from engines but not yet sent anywhere. Only receiving pipes store power. */
+    long storedPower;
+
+    /** The network that this pipe is part of, and the pipe connections that it was built with. */
+    PipePowerNetwork network;
+    int connectionMask;
+    private boolean removed = false;
 
     private final SafeTimeTracker tracker = new SafeTimeTracker(BCCoreConfig.networkUpdateRate);
-    private long[] transferQuery;
+    private boolean displayChanged = false;
 
     public PipeFlowPower(IPipe pipe) {
         super(pipe);
@@ -73,6 +82,7 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
     public PipeFlowPower(IPipe pipe, NBTTagCompound nbt) {
         super(pipe, nbt);
         isReceiver = nbt.getBoolean("isReceiver");
+        storedPower = Math.max(0, nbt.getLong("storedPower"));
         sections = new EnumMap<>(EnumFacing.class);
         for (EnumFacing face : EnumFacing.VALUES) {
             sections.put(face, new Section(face));
@@ -83,6 +93,7 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
     public NBTTagCompound writeToNbt() {
         NBTTagCompound nbt = super.writeToNbt();
         nbt.setBoolean("isReceiver", isReceiver);
+        nbt.setLong("storedPower", storedPower);
         return nbt;
     }
 
@@ -141,17 +152,17 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
         if (maxPower <= 0) {
             maxPower = DEFAULT_MAX_POWER;
         }
-        powerLoss = MathUtil.clamp(configure.getPowerLoss(), -1, maxPower);
+        long powerLoss = MathUtil.clamp(configure.getPowerLoss(), -1, maxPower);
         powerResistance = MathUtil.clamp(configure.getPowerResistance(), -1, MjAPI.MJ);
 
-        if (powerLoss < 0) {
-            if (powerResistance < 0) {
+        if (powerResistance < 0) {
+            // The loss is the amount lost when the pipe is running at its maximum, so it can be applied as a fraction
+            if (powerLoss < 0) {
                 // 1% resistance
                 powerResistance = MjAPI.MJ / 100;
+            } else {
+                powerResistance = MathUtil.mulDiv(powerLoss, MjAPI.MJ, maxPower);
             }
-            powerLoss = maxPower * powerResistance / MjAPI.MJ;
-        } else if (powerResistance < 0) {
-            powerResistance = powerLoss * MjAPI.MJ / maxPower;
         }
     }
 
@@ -195,13 +206,19 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
     @Override
     public void getDebugInfo(List<String> left, List<String> right, EnumFacing side) {
         left.add("maxPower = " + LocaleUtil.localizeMj(maxPower));
+        left.add("resistance = " + String.format("%.2f %%", powerResistance * 100.0 / MjAPI.MJ));
         left.add("isReceiver = " + isReceiver);
-        left.add("internalPower = " + arrayToString(s -> s.internalPower) + " <- "
-            + arrayToString(s -> s.internalNextPower));
-        left.add("- powerQuery: " + arrayToString(s -> s.powerQuery) + " <- " + arrayToString(s -> s.nextPowerQuery));
-        left.add(
-            "- power: IN " + arrayToString(s -> s.debugPowerInput) + ", OUT " + arrayToString(s -> s.debugPowerOutput));
-        left.add("- power: OFFERED " + arrayToString(s -> s.debugPowerOffered));
+        left.add("storedPower = " + LocaleUtil.localizeMj(storedPower));
+        if (network == null) {
+            left.add("network = none");
+        } else {
+            left.add("network = " + network.size() + " pipes" + (network.isValid() ? "" : " (invalid)"));
+            left.add("- requested = " + LocaleUtil.localizeMj(network.getLastRequested()));
+            left.add("- delivered = " + LocaleUtil.localizeMj(network.getLastDelivered()));
+            left.add("- stored = " + LocaleUtil.localizeMj(network.getStoredPower()));
+        }
+        left.add("- power: IN " + arrayToString(s -> s.debugPowerInput) + ", OUT "
+            + arrayToString(s -> s.debugPowerOutput));
     }
 
     private String arrayToString(ToLongFunction<Section> getter) {
@@ -212,150 +229,116 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
         return Arrays.toString(arr);
     }
 
+    @PipeEventHandler
+    public void onInvalidate(PipeEventTileState.Invalidate event) {
+        removed = true;
+        if (network != null) {
+            network.invalidate();
+        }
+    }
+
+    @PipeEventHandler
+    public void onChunkUnload(PipeEventTileState.ChunkUnload event) {
+        removed = true;
+        if (network != null) {
+            network.invalidate();
+        }
+    }
+
+    @PipeEventHandler
+    public void onValidate(PipeEventTileState.Validate event) {
+        removed = false;
+    }
+
     @Override
     public void onTick() {
-        if (pipe.getHolder().getPipeWorld().isRemote) {
+        World world = pipe.getHolder().getPipeWorld();
+        if (world.isRemote) {
             return;
         }
         if (maxPower == -1) {
             reconfigure();
         }
 
-        step();
-
-        init();
+        if (network == null || !network.isValid() || connectionMask != computeConnectionMask()) {
+            network = PipePowerNetwork.build(this);
+        }
+        network.tick(world.getTotalWorldTime());
 
-        for (EnumFacing face : EnumFacing.VALUES) {
-            Section s = sections.get(face);
-            if (s.internalPower > 0) {
-                long totalPowerQuery = 0;
-                for (EnumFacing face2 : EnumFacing.VALUES) {
-                    if (face != face2) {
-                        totalPowerQuery += sections.get(face2).powerQuery;
-                    }
-                }
+        updateDisplay(world);
+    }
 
-                if (totalPowerQuery > 0) {
-                    long unusedPowerQuery = totalPowerQuery;
-                    for (EnumFacing face2 : EnumFacing.VALUES) {
-                        if (face == face2) {
-                            continue;
-                        }
-                        Section s2 = sections.get(face2);
-                        if (s2.powerQuery > 0) {
-                            long watts = Math.min(
-                                BigInteger.valueOf(s.internalPower)
-                                    .multiply(BigInteger.valueOf(s2.powerQuery))
-                                    .divide(BigInteger.valueOf(unusedPowerQuery))
-                                    .longValue(),
-                                s.internalPower
-                            );
-                            unusedPowerQuery -= s2.powerQuery;
-                            IPipe neighbour = pipe.getConnectedPipe(face2);
-                            long leftover = watts;
-                            if (neighbour != null && neighbour.getFlow() instanceof PipeFlowPower
-                                && neighbour.isConnected(face2.getOpposite())) {
-                                PipeFlowPower oFlow = (PipeFlowPower) neighbour.getFlow();
-                                leftover = oFlow.sections.get(face2.getOpposite()).receivePowerInternal(watts);
-                            } else {
-                                IMjReceiver receiver =
-                                    pipe.getHolder().getCapabilityFromPipe(face2, MjAPI.CAP_RECEIVER);
-                                if (receiver != null && receiver.canReceive()) {
-                                    leftover = receiver.receivePower(watts, false);
-                                }
-                            }
-                            long used = watts - leftover;
-                            s.internalPower -= used;
-                            s2.debugPowerOutput += used;
-
-                            s.powerAverage.push((int) used);
-                            s2.powerAverage.push((int) used);
-                        }
-                    }
-                }
-            }
-        }
-        // Render compute goes here
+    /** Pushes the power that flowed through each section this tick into its average. Sections that have been idle
+     * for long enough to have a zero average are skipped entirely, so idle pipes cost almost nothing. */
+    private void updateDisplay(World world) {
         for (Section s : sections.values()) {
-            s.powerAverage.tick();
-            long value = (long) s.powerAverage.getAverage();
-            long temp = Math.min(value * MjAPI.MJ / maxPower, 1 * MjAPI.MJ);
-            s.displayPower = (int) (temp);
-        }
-
-        // Compute the tiles requesting power that are not power pipes
-        for (EnumFacing face : EnumFacing.VALUES) {
-            if (pipe.getConnectedType(face) != ConnectedType.TILE) {
+            if (s.pendingFlow == 0 && s.displayPower == 0 && s.powerAverage.getAverage() == 0) {
                 continue;
             }
-            IMjReceiver recv = pipe.getHolder().getCapabilityFromPipe(face, MjAPI.CAP_RECEIVER);
-            if (recv != null && recv.canReceive()) {
-                long requested = recv.getPowerRequested();
-                if (requested > 0) {
-                    requestPower(face, requested);
-                }
+            s.powerAverage.tick((int) Math.min(Integer.MAX_VALUE, s.pendingFlow));
+            s.pendingFlow = 0;
+            long value = (long) s.powerAverage.getAverage();
+            int display = (int) Math.min(value * MjAPI.MJ / maxPower, MjAPI.MJ);
+            if (display != s.displayPower) {
+                s.displayPower = display;
+                displayChanged = true;
             }
         }
-
-        // Sum the amount of power requested on each side
-        long[] transferQueryTemp = new long[6];
-        for (EnumFacing face : EnumFacing.VALUES) {
-            if (!pipe.isConnected(face)) {
-                continue;
-            }
-            long query = 0;
-            for (EnumFacing face2 : EnumFacing.VALUES) {
-                if (face != face2) {
-                    query += sections.get(face2).powerQuery;
-                }
-            }
-            transferQueryTemp[face.ordinal()] = query;
+        if (displayChanged && tracker.markTimeIfDelay(world)) {
+            displayChanged = false;
+            sendPayload(NET_POWER_AMOUNTS);
         }
+    }
 
-        // Transfer requested power to neighbouring pipes
+    /** @return A bit mask of the sides that are connected to other pipes. */
+    int computeConnectionMask() {
+        int mask = 0;
         for (EnumFacing face : EnumFacing.VALUES) {
-            if (transferQueryTemp[face.ordinal()] <= 0 || !pipe.isConnected(face)) {
-                continue;
-            }
-            IPipe oPipe = pipe.getHolder().getNeighbourPipe(face);
-            if (oPipe == null || !(oPipe.getFlow() instanceof PipeFlowPower)) {
-                continue;
+            if (pipe.getConnectedType(face) == ConnectedType.PIPE) {
+                mask |= 1 << face.ordinal();
             }
-            PipeFlowPower oFlow = (PipeFlowPower) oPipe.getFlow();
-            oFlow.requestPower(face.getOpposite(), transferQueryTemp[face.ordinal()]);
         }
-        // Networking
+        return mask;
+    }
 
-//        if (tracker.markTimeIfDelay(pipe.getHolder().getPipeWorld())) {
-        if (!Arrays.equals(transferQuery, transferQueryTemp)) {
-            sendPayload(NET_POWER_AMOUNTS);
+    boolean isReceiver() {
+        if (maxPower == -1) {
+            reconfigure();
         }
-
-        transferQuery = transferQueryTemp;
-//        }
+        return isReceiver;
     }
 
-    private void step() {
-        long now = pipe.getHolder().getPipeWorld().getTotalWorldTime();
-        if (currentWorldTime != now) {
-            currentWorldTime = now;
-            sections.values().forEach(Section::step);
+    long getMaxPower() {
+        if (maxPower == -1) {
+            reconfigure();
         }
+        return maxPower;
     }
 
-    private void init() {
-        // TODO: use this for initialising the tile cache
+    long getPowerResistance() {
+        if (maxPower == -1) {
+            reconfigure();
+        }
+        return powerResistance;
     }
 
-    private void requestPower(EnumFacing from, long amount) {
-        step();
+    boolean isRemoved() {
+        return removed;
+    }
 
-        Section s = sections.get(from);
+    long getRequestedPower(EnumFacing to, long amount) {
         if (pipe.getBehaviour() instanceof IPipeTransportPowerHook) {
-            s.nextPowerQuery += ((IPipeTransportPowerHook) pipe.getBehaviour()).requestPower(from, amount);
-        } else {
-            s.nextPowerQuery += amount;
+            return ((IPipeTransportPowerHook) pipe.getBehaviour()).requestPower(to, amount);
         }
+        return amount;
+    }
+
+    void addFlow(EnumFacing side, long amount) {
+        sections.get(side).pendingFlow += amount;
+    }
+
+    void addDebugOutput(EnumFacing side, long amount) {
+        sections.get(side).debugPowerOutput += amount;
     }
 
     public double getMaxTransferForRender(float partialTicks) {
@@ -377,64 +360,46 @@ public class PipeFlowPower extends PipeFlow implements IFlowPower, IDebuggable {
         /** Range: 0 to {@link MjAPI#MJ} */
         public int displayPower;
         public EnumFlow displayFlow = EnumFlow.STATIONARY;
-        public long nextPowerQuery;
-        public long internalNextPower;
         public final AverageInt powerAverage = new AverageInt(10);
 
-        long powerQuery;
-        long internalPower;
+        /** The power that has flowed through this section since the last display update. */
+        long pendingFlow;
 
         /** Debugging fields */
-        long debugPowerInput, debugPowerOutput, debugPowerOffered;
+        long debugPowerInput, debugPowerOutput;
 
         public Section(EnumFacing side) {
             this.side = side;
         }
 
-        void step() {
-            powerQuery = nextPowerQuery;
-            nextPowerQuery = 0;
-
-            long next = internalPower;
-            internalPower = internalNextPower;
-            internalNextPower = next;
-        }
-
         @Override
         public boolean canConnect(@Nonnull IMjConnector other) {
             return true;
         }
 
+        /** A receiving pipe asks for whatever its network couldn't supply last tick, limited by the space it has
+         * left. */
         @Override
         public long getPowerRequested() {
-            long req = 0;
-            for (EnumFacing face : EnumFacing.VALUES) {
-                if (face != this.side) {
-                    req += sections.get(face).powerQuery;
-                }
-            }
-            return req;
-        }
-
-        long receivePowerInternal(long sent) {
-            if (sent > 0) {
-                debugPowerOffered += sent;
-                internalNextPower += sent;
+            if (!isReceiver || network == null || !network.isValid()) {
                 return 0;
             }
-            return sent;
+            long missing = network.getLastRequested() - network.getStoredPower();
+            return MathUtil.clamp(missing, 0, Math.max(0, maxPower - storedPower));
         }
 
         @Override
         public long receivePower(long microJoules, boolean simulate) {
-            if (isReceiver) {
-                PipeFlowPower.this.step();
-                if (!simulate) {
-                    return this.receivePowerInternal(microJoules);
-                }
-                return 0;
+            if (!isReceiver() || microJoules <= 0) {
+                return microJoules;
+            }
+            long accepted = Math.min(microJoules, Math.max(0, maxPower - storedPower));
+            if (!simulate) {
+                storedPower += accepted;
+                pendingFlow += accepted;
+                debugPowerInput += accepted;
             }
-            return microJoules;
+            return microJoules - accepted;
         }
 
         @Override
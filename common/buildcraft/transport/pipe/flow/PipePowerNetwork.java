@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.transport.pipe.flow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.util.EnumFacing;
+
+import buildcraft.api.mj.IMjReceiver;
+import buildcraft.api.mj.MjAPI;
+import buildcraft.api.transport.pipe.IPipe;
+import buildcraft.api.transport.pipe.IPipe.ConnectedType;
+
+import buildcraft.lib.misc.MathUtil;
+
+/** A group of power pipes that are all connected to each other. Power is distributed over the whole network once per
+ * tick: every receiving pipe adds its stored power to a single pool, which is then split between every machine that
+ * is requesting power, in proportion to how much each one requested. This means that power arrives in the same tick
+ * that it was requested no matter how long the line is, and each tick only costs a single pass over the network.
+ * <p>
+ * Power sent to a machine is assumed to flow along the shortest path from the nearest receiving pipe, and it loses the
+ * resistance of every pipe on that path. If the power sent along every path would take any pipe over its maximum then
+ * all of it is scaled down until it doesn't.
+ * <p>
+ * Networks are rebuilt (by {@link PipeFlowPower}) whenever the pipe connections of any member change. */
+final class PipePowerNetwork {
+    private final PipeFlowPower[] members;
+    /** For every member, the index of the connected member on each side (at index * 6 + side), or -1. */
+    private final int[] adjacent;
+    /** For every member, the side that leads back towards the nearest receiving pipe, or null if this is a receiving
+     * pipe or there isn't a path to one. Used to work out which sections power flows through (for rendering) without
+     * needing to solve the actual paths. */
+    private final EnumFacing[] towardsSource;
+    /** For every member, the fraction of power (out of {@link MjAPI#MJ}) that is left after flowing from the nearest
+     * receiving pipe to (and through) that member. */
+    private final long[] efficiency;
+
+    private boolean valid = true;
+    private long lastTick = Long.MIN_VALUE;
+    private long lastRequested;
+    private long lastDelivered;
+    private long storedPower;
+
+    // Scratch space for the consumers found in a single tick. This is kept between ticks to avoid re-allocating it.
+    private int consumerCount;
+    private int[] consumerMembers = new int[4];
+    private EnumFacing[] consumerSides = new EnumFacing[4];
+    private IMjReceiver[] consumerReceivers = new IMjReceiver[4];
+    private long[] consumerRequests = new long[4];
+    /** The power that would flow through each member this tick. */
+    private final long[] throughput;
+
+    private PipePowerNetwork(List<PipeFlowPower> members) {
+        this.members = members.toArray(new PipeFlowPower[members.size()]);
+        this.adjacent = new int[this.members.length * 6];
+        this.towardsSource = new EnumFacing[this.members.length];
+        this.efficiency = new long[this.members.length];
+        this.throughput = new long[this.members.length];
+    }
+
+    /** Creates a new network from every power pipe connected to the given one, and assigns it to all of them. */
+    static PipePowerNetwork build(PipeFlowPower start) {
+        Map<PipeFlowPower, Integer> indices = new IdentityHashMap<>();
+        List<PipeFlowPower> found = new ArrayList<>();
+        ArrayDeque<PipeFlowPower> open = new ArrayDeque<>();
+        indices.put(start, 0);
+        found.add(start);
+        open.add(start);
+        while (!open.isEmpty()) {
+            PipeFlowPower flow = open.poll();
+            for (EnumFacing face : EnumFacing.VALUES) {
+                PipeFlowPower other = getConnectedFlow(flow, face);
+                if (other != null && !indices.containsKey(other)) {
+                    indices.put(other, found.size());
+                    found.add(other);
+                    open.add(other);
+                }
+            }
+        }
+
+        PipePowerNetwork network = new PipePowerNetwork(found);
+        Arrays.fill(network.adjacent, -1);
+        ArrayDeque<Integer> fromSources = new ArrayDeque<>();
+        boolean[] reached = new boolean[found.size()];
+        for (int i = 0; i < found.size(); i++) {
+            PipeFlowPower flow = found.get(i);
+            for (EnumFacing face : EnumFacing.VALUES) {
+                PipeFlowPower other = getConnectedFlow(flow, face);
+                if (other != null) {
+                    network.adjacent[i * 6 + face.ordinal()] = indices.get(other);
+                }
+            }
+            if (flow.isReceiver()) {
+                reached[i] = true;
+                fromSources.add(i);
+                network.efficiency[i] = MjAPI.MJ - flow.getPowerResistance();
+            } else {
+                // Power can't reach members that aren't connected to a receiving pipe anyway
+                network.efficiency[i] = MjAPI.MJ;
+            }
+            if (flow.network != null && flow.network != network) {
+                flow.network.invalidate();
+            }
+            flow.network = network;
+            flow.connectionMask = flow.computeConnectionMask();
+        }
+        while (!fromSources.isEmpty()) {
+            int index = fromSources.poll();
+            for (EnumFacing face : EnumFacing.VALUES) {
+                int other = network.adjacent[index * 6 + face.ordinal()];
+                if (other != -1 && !reached[other]) {
+                    reached[other] = true;
+                    network.towardsSource[other] = face.getOpposite();
+                    long kept = MjAPI.MJ - found.get(other).getPowerResistance();
+                    network.efficiency[other] = MathUtil.mulDiv(network.efficiency[index], kept, MjAPI.MJ);
+                    fromSources.add(other);
+                }
+            }
+        }
+        return network;
+    }
+
+    static PipeFlowPower getConnectedFlow(PipeFlowPower flow, EnumFacing face) {
+        if (flow.pipe.getConnectedType(face) != ConnectedType.PIPE) {
+            return null;
+        }
+        IPipe oPipe = flow.pipe.getConnectedPipe(face);
+        if (oPipe == null || !(oPipe.getFlow() instanceof PipeFlowPower) || !oPipe.isConnected(face.getOpposite())) {
+            return null;
+        }
+        return (PipeFlowPower) oPipe.getFlow();
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    int size() {
+        return members.length;
+    }
+
+    long getLastRequested() {
+        return lastRequested;
+    }
+
+    long getLastDelivered() {
+        return lastDelivered;
+    }
+
+    long getStoredPower() {
+        return storedPower;
+    }
+
+    /** Distributes power over the whole network. Only the first call in any given tick does anything, so every member
+     * can call this from its own tick. */
+    void tick(long now) {
+        if (!valid || now == lastTick) {
+            return;
+        }
+        lastTick = now;
+
+        long supply = 0;
+        long totalRequested = 0;
+        consumerCount = 0;
+        for (int i = 0; i < members.length; i++) {
+            PipeFlowPower member = members[i];
+            if (member.isRemoved()) {
+                invalidate();
+                return;
+            }
+            supply = MathUtil.saturatedAdd(supply, member.storedPower);
+            for (EnumFacing face : EnumFacing.VALUES) {
+                if (member.pipe.getConnectedType(face) != ConnectedType.TILE) {
+                    continue;
+                }
+                IMjReceiver receiver = member.pipe.getHolder().getCapabilityFromPipe(face, MjAPI.CAP_RECEIVER);
+                if (receiver == null || !receiver.canReceive()) {
+                    continue;
+                }
+                long requested = member.getRequestedPower(face, receiver.getPowerRequested());
+                if (requested > 0) {
+                    addConsumer(i, face, receiver, requested);
+                    totalRequested = MathUtil.saturatedAdd(totalRequested, requested);
+                }
+            }
+        }
+        lastRequested = totalRequested;
+
+        long delivered = 0;
+        long drawn = 0;
+        if (supply > 0 && totalRequested > 0) {
+            long toSend = Math.min(supply, totalRequested);
+            for (int c = 0; c < consumerCount; c++) {
+                consumerRequests[c] = MathUtil.mulDiv(toSend, consumerRequests[c], totalRequested);
+            }
+            double scale = getThroughputScale();
+            for (int c = 0; c < consumerCount; c++) {
+                long sent = (long) (consumerRequests[c] * scale);
+                long arriving = MathUtil.mulDiv(sent, efficiency[consumerMembers[c]], MjAPI.MJ);
+                if (arriving <= 0) {
+                    continue;
+                }
+                long used = arriving - consumerReceivers[c].receivePower(arriving, false);
+                if (used > 0) {
+                    // Only take what was actually used (plus what was lost on the way) from the pipes
+                    long taken = MathUtil.mulDiv(sent, used, arriving);
+                    delivered += used;
+                    drawn += taken;
+                    addFlow(consumerMembers[c], consumerSides[c], taken);
+                }
+            }
+            long remaining = drawn;
+            for (int i = 0; i < members.length && remaining > 0; i++) {
+                PipeFlowPower member = members[i];
+                long taken = Math.min(member.storedPower, remaining);
+                member.storedPower -= taken;
+                remaining -= taken;
+            }
+        }
+        lastDelivered = delivered;
+        storedPower = supply - drawn;
+        Arrays.fill(consumerReceivers, 0, consumerCount, null);
+    }
+
+    private void addConsumer(int member, EnumFacing side, IMjReceiver receiver, long requested) {
+        if (consumerCount == consumerMembers.length) {
+            int newLength = consumerCount * 2;
+            consumerMembers = Arrays.copyOf(consumerMembers, newLength);
+            consumerSides = Arrays.copyOf(consumerSides, newLength);
+            consumerReceivers = Arrays.copyOf(consumerReceivers, newLength);
+            consumerRequests = Arrays.copyOf(consumerRequests, newLength);
+        }
+        consumerMembers[consumerCount] = member;
+        consumerSides[consumerCount] = side;
+        consumerReceivers[consumerCount] = receiver;
+        consumerRequests[consumerCount] = requested;
+        consumerCount++;
+    }
+
+    /** @return The fraction that every share (in {@link #consumerRequests}) must be multiplied by so that the power
+     *         flowing through each member doesn't exceed its maximum. */
+    private double getThroughputScale() {
+        Arrays.fill(throughput, 0);
+        for (int c = 0; c < consumerCount; c++) {
+            long share = consumerRequests[c];
+            int index = consumerMembers[c];
+            throughput[index] = MathUtil.saturatedAdd(throughput[index], share);
+            EnumFacing face;
+            while ((face = towardsSource[index]) != null) {
+                index = adjacent[index * 6 + face.ordinal()];
+                throughput[index] = MathUtil.saturatedAdd(throughput[index], share);
+            }
+        }
+        double scale = 1;
+        for (int i = 0; i < members.length; i++) {
+            long max = members[i].getMaxPower();
+            if (throughput[i] > max) {
+                scale = Math.min(scale, max / (double) throughput[i]);
+            }
+        }
+        return scale;
+    }
+
+    /** Records the given amount of power as flowing out of the given member, and through every section on the way
+     * back to the nearest receiving pipe. */
+    private void addFlow(int member, EnumFacing side, long amount) {
+        members[member].addFlow(side, amount);
+        members[member].addDebugOutput(side, amount);
+        int index = member;
+        EnumFacing face;
+        while ((face = towardsSource[index]) != null) {
+            members[index].addFlow(face, amount);
+            index = adjacent[index * 6 + face.ordinal()];
+            members[index].addFlow(face.getOpposite(), amount);
+        }
+    }
+}
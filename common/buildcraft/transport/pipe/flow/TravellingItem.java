@@ -6,13 +6,15 @@
 
 package buildcraft.transport.pipe.flow;
 
-import java.util.EnumSet;
 import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 
 import net.minecraft.item.EnumDyeColor;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByte;
+import net.minecraft.nbt.NBTTagByteArray;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
@@ -23,6 +25,8 @@ import buildcraft.lib.misc.StackUtil;
 import buildcraft.lib.misc.VecUtil;
 
 public class TravellingItem {
+    private static final Supplier<ItemStack> NO_CLIENT_LINK = () -> ItemStack.EMPTY;
+
     // Client fields - public for rendering
     @Nonnull
     public final Supplier<ItemStack> clientItemLink;
@@ -43,8 +47,8 @@ public class TravellingItem {
     /** If {@link #toCenter} is true then this represents the side that the item is coming from, otherwise this
      * represents the side that the item is going to. */
     EnumFacing side;
-    /** A set of all the faces that this item has tried to go and failed. */
-    EnumSet<EnumFacing> tried = EnumSet.noneOf(EnumFacing.class);
+    /** A bit mask (of {@link EnumFacing#ordinal()}) of all the faces that this item has tried to go and failed. */
+    int tried = 0;
     /** If true then events won't be fired for this, and this item won't be dropped by the pipe. However it will affect
      * pipe.isEmpty and related gate triggers. */
     boolean isPhantom = false;
@@ -68,7 +72,7 @@ public class TravellingItem {
 
     public TravellingItem(@Nonnull ItemStack stack) {
         this.stack = stack;
-        clientItemLink = () -> ItemStack.EMPTY;
+        clientItemLink = NO_CLIENT_LINK;
     }
 
     public TravellingItem(Supplier<ItemStack> clientStackLink, int count) {
@@ -78,7 +82,7 @@ public class TravellingItem {
     }
 
     public TravellingItem(NBTTagCompound nbt, long tickNow) {
-        clientItemLink = () -> ItemStack.EMPTY;
+        clientItemLink = NO_CLIENT_LINK;
         stack = new ItemStack(nbt.getCompoundTag("stack"));
         int c = nbt.getByte("colour");
         this.colour = c == 0 ? null : EnumDyeColor.byMetadata(c - 1);
@@ -97,7 +101,13 @@ public class TravellingItem {
             // Older 8.0.x. version
             toCenter = true;
         }
-        tried = NBTUtilBC.readEnumSet(nbt.getTag("tried"), EnumFacing.class);
+        NBTBase triedTag = nbt.getTag("tried");
+        if (triedTag instanceof NBTTagByte) {
+            tried = ((NBTTagByte) triedTag).getByte() & 0x3F;
+        } else if (triedTag instanceof NBTTagByteArray && ((NBTTagByteArray) triedTag).getByteArray().length > 0) {
+            // Older versions wrote an empty set as an empty array
+            tried = ((NBTTagByteArray) triedTag).getByteArray()[0] & 0x3F;
+        }
         isPhantom = nbt.getBoolean("isPhantom");
     }
 
@@ -111,13 +121,21 @@ public class TravellingItem {
         nbt.setInteger("tickFinished", (int) (tickFinished - tickNow));
         nbt.setInteger("timeToDest", timeToDest);
         nbt.setTag("side", NBTUtilBC.writeEnum(side));
-        nbt.setTag("tried", NBTUtilBC.writeEnumSet(tried, EnumFacing.class));
+        nbt.setByte("tried", (byte) tried);
         if (isPhantom) {
             nbt.setBoolean("isPhantom", true);
         }
         return nbt;
     }
 
+    boolean hasTried(EnumFacing face) {
+        return (tried & 1 << face.ordinal()) != 0;
+    }
+
+    void addTried(EnumFacing face) {
+        tried |= 1 << face.ordinal();
+    }
+
     public int getCurrentDelay(long tickNow) {
         long diff = tickFinished - tickNow;
         if (diff < 0) {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 SpaceToad and the BuildCraft team
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. If a copy of the MPL was not
+ * distributed with this file, You can obtain one at https://mozilla.org/MPL/2.0/
+ */
+
+package buildcraft.transport.pipe.flow;
+
+import java.util.Arrays;
+
+/** Holds all of the items in a single pipe, as parallel arrays of the items and the tick that each one needs to be
+ * processed on. This behaves like a {@link buildcraft.lib.misc.data.DelayedList}, but finding the items that are due
+ * is a scan over a small primitive array, and nothing is allocated per tick once the arrays have grown to fit the
+ * usual number of items in the pipe. */
+final class TravellingItemStore {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private TravellingItem[] items = new TravellingItem[INITIAL_CAPACITY];
+    private long[] dueTicks = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /** The items returned by the last call to {@link #advance()}. */
+    private TravellingItem[] due = new TravellingItem[INITIAL_CAPACITY];
+    private int dueCount = 0;
+
+    /** The number of times that {@link #advance()} has been called. */
+    private long tick = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public TravellingItem get(int index) {
+        return items[index];
+    }
+
+    /** Adds an item that will be returned by {@link #advance()} after it has been called delay times.
+     *
+     * @param delay The number of times that advance needs to be called for the *next* advance to return this item.
+     *            Negative numbers default up to 0. */
+    public void add(int delay, TravellingItem item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            dueTicks = Arrays.copyOf(dueTicks, size * 2);
+        }
+        items[size] = item;
+        dueTicks[size] = tick + Math.max(0, delay) + 1;
+        size++;
+    }
+
+    /** Removes every item that is due this tick, in the order that they were added. They can then be accessed with
+     * {@link #getDue(int)} until the next call to this.
+     *
+     * @return The number of items that are due. */
+    public int advance() {
+        Arrays.fill(due, 0, dueCount, null);
+        dueCount = 0;
+        tick++;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            TravellingItem item = items[i];
+            if (dueTicks[i] <= tick) {
+                if (dueCount == due.length) {
+                    due = Arrays.copyOf(due, dueCount * 2);
+                }
+                due[dueCount++] = item;
+            } else {
+                items[kept] = item;
+                dueTicks[kept] = dueTicks[i];
+                kept++;
+            }
+        }
+        Arrays.fill(items, kept, size, null);
+        size = kept;
+        return dueCount;
+    }
+
+    public TravellingItem getDue(int index) {
+        return due[index];
+    }
+
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(due, 0, dueCount, null);
+        size = 0;
+        dueCount = 0;
+    }
+}
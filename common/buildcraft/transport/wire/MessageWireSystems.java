@@ -6,62 +6,143 @@
 
 package buildcraft.transport.wire;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import io.netty.buffer.ByteBuf;
 
-import net.minecraft.network.PacketBuffer;
+import net.minecraft.client.Minecraft;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 
+import buildcraft.api.transport.EnumWirePart;
+import buildcraft.api.transport.IWireManager;
+import buildcraft.api.transport.pipe.IPipeHolder;
+
+import buildcraft.lib.net.PacketBufferBC;
+
+/** A delta of the wire systems that a single player can see: systems that the player should forget about, systems
+ * that the player has just started watching (along with their current power state), and systems that the player
+ * already knows about but whose power state has changed. Every system is identified by
+ * {@link WireSystem#getWiresHashCode()}. */
 public class MessageWireSystems implements IMessage {
-    private Map<Integer, WireSystem> wireSystems = new HashMap<>();
+    private final List<Integer> removed = new ArrayList<>();
+    private final Map<Integer, WireSystem> added = new HashMap<>();
+    private final Map<Integer, Boolean> powered = new HashMap<>();
 
     @SuppressWarnings("unused")
     public MessageWireSystems() {
     }
 
-    public MessageWireSystems(Map<Integer, WireSystem> wireSystems) {
-        this.wireSystems = wireSystems;
+    public MessageWireSystems(List<Integer> removed, Map<Integer, WireSystem> added, Map<Integer, Boolean> powered) {
+        this.removed.addAll(removed);
+        this.added.putAll(added);
+        this.powered.putAll(powered);
     }
 
     @Override
     public void toBytes(ByteBuf buf) {
-        PacketBuffer pb = new PacketBuffer(buf);
-        pb.writeInt(wireSystems.size());
-        wireSystems.forEach((wiresHashCode, wireSystem) -> {
+        PacketBufferBC pb = PacketBufferBC.asPacketBufferBc(buf);
+        pb.writeVarInt(removed.size());
+        for (int wiresHashCode : removed) {
+            pb.writeInt(wiresHashCode);
+        }
+        pb.writeVarInt(added.size());
+        added.forEach((wiresHashCode, wireSystem) -> {
+            pb.writeInt(wiresHashCode);
+            int count = 0;
+            for (WireSystem.WireElement element : wireSystem.elements) {
+                if (element.type == WireSystem.WireElement.Type.WIRE_PART) {
+                    count++;
+                }
+            }
+            pb.writeVarInt(count);
+            for (WireSystem.WireElement element : wireSystem.elements) {
+                if (element.type == WireSystem.WireElement.Type.WIRE_PART) {
+                    pb.writeLong(element.blockPos.toLong());
+                    pb.writeFixedBits(element.wirePart.ordinal(), 3);
+                }
+            }
+        });
+        pb.writeVarInt(powered.size());
+        powered.forEach((wiresHashCode, isPowered) -> {
             pb.writeInt(wiresHashCode);
-            List<WireSystem.WireElement> elements = wireSystem.elements.stream()
-                    .filter(element -> element.type == WireSystem.WireElement.Type.WIRE_PART)
-                    .collect(Collectors.toList());
-            pb.writeInt(elements.size());
-            elements.forEach(element -> element.toBytes(pb));
+            pb.writeBoolean(isPowered);
         });
     }
 
     @Override
     public void fromBytes(ByteBuf buf) {
-        PacketBuffer pb = new PacketBuffer(buf);
-        wireSystems.clear();
-        int count = pb.readInt();
-        for (int i = 0; i < count; i++) {
-            WireSystem wireSystem = new WireSystem();
+        PacketBufferBC pb = PacketBufferBC.asPacketBufferBc(buf);
+        removed.clear();
+        added.clear();
+        powered.clear();
+        int removedCount = pb.readVarInt();
+        for (int i = 0; i < removedCount; i++) {
+            removed.add(pb.readInt());
+        }
+        int addedCount = pb.readVarInt();
+        for (int i = 0; i < addedCount; i++) {
             int wiresHashCode = pb.readInt();
-            int localCount = pb.readInt();
+            WireSystem wireSystem = new WireSystem();
+            int localCount = pb.readVarInt();
             for (int j = 0; j < localCount; j++) {
-                wireSystem.elements.add(new WireSystem.WireElement(pb));
+                BlockPos pos = BlockPos.fromLong(pb.readLong());
+                EnumWirePart part = EnumWirePart.VALUES[pb.readFixedBits(3)];
+                wireSystem.elements.add(new WireSystem.WireElement(pos, part));
+            }
+            added.put(wiresHashCode, wireSystem);
+        }
+        int poweredCount = pb.readVarInt();
+        for (int i = 0; i < poweredCount; i++) {
+            powered.put(pb.readInt(), pb.readBoolean());
+        }
+    }
+
+    private static void setPowered(World world, WireSystem wireSystem, boolean isPowered) {
+        for (WireSystem.WireElement element : wireSystem.elements) {
+            if (element.type != WireSystem.WireElement.Type.WIRE_PART) {
+                continue;
+            }
+            TileEntity tile = world.getTileEntity(element.blockPos);
+            if (tile instanceof IPipeHolder) {
+                IWireManager iWireManager = ((IPipeHolder) tile).getWireManager();
+                if (iWireManager instanceof WireManager) {
+                    WireManager wireManager = (WireManager) iWireManager;
+                    if (!isPowered) {
+                        wireManager.poweredClient.remove(element.wirePart);
+                    } else if (wireManager.getColorOfPart(element.wirePart) != null) {
+                        wireManager.poweredClient.add(element.wirePart);
+                    }
+                }
             }
-            wireSystems.put(wiresHashCode, wireSystem);
         }
     }
 
     public static final IMessageHandler<MessageWireSystems, IMessage> HANDLER = (message, ctx) -> {
-        ClientWireSystems.INSTANCE.wireSystems.clear();
-        ClientWireSystems.INSTANCE.wireSystems.putAll(message.wireSystems);
+        World world = Minecraft.getMinecraft().world;
+        Map<Integer, WireSystem> clientSystems = ClientWireSystems.INSTANCE.wireSystems;
+        for (int wiresHashCode : message.removed) {
+            WireSystem wireSystem = clientSystems.remove(wiresHashCode);
+            if (wireSystem != null && world != null) {
+                setPowered(world, wireSystem, false);
+            }
+        }
+        clientSystems.putAll(message.added);
+        if (world != null) {
+            message.powered.forEach((wiresHashCode, isPowered) -> {
+                WireSystem wireSystem = clientSystems.get(wiresHashCode);
+                if (wireSystem != null) {
+                    setPowered(world, wireSystem, isPowered);
+                }
+            });
+        }
         return null;
     };
 }
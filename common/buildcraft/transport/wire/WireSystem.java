@@ -14,16 +14,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import com.google.common.base.Predicates;
-
-import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.EnumDyeColor;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -33,7 +29,6 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
-import net.minecraft.world.WorldServer;
 
 import net.minecraftforge.common.util.Constants;
 
@@ -158,21 +153,21 @@ public class WireSystem {
     }
 
     public boolean update(WorldSavedDataWireSystems wireSystems) {
-        return elements.stream().filter(element -> element.type == WireElement.Type.EMITTER_SIDE).map(element -> wireSystems.isEmitterEmitting(element, color)).reduce(Boolean::logicalOr).orElse(
-            false);
-    }
-
-    public List<ChunkPos> getChunkPoses() {
-        return elements.stream().map(element -> element.blockPos).map(ChunkPos::new).collect(Collectors.toList());
+        for (WireElement element : elements) {
+            if (element.type == WireElement.Type.EMITTER_SIDE && wireSystems.isEmitterEmitting(element, color)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public boolean isPlayerWatching(EntityPlayerMP player) {
-        if (player.world instanceof WorldServer) {
-            WorldServer world = (WorldServer) player.world;
-            return getChunkPoses().stream().map(chunkPos -> world.getPlayerChunkMap().getEntry(chunkPos.x, chunkPos.z)).filter(Objects::nonNull).anyMatch(
-                playerChunkMapEntry -> playerChunkMapEntry.hasPlayerMatching(Predicates.equalTo(player)));
+    /** @return Every distinct chunk that contains at least one element of this system. */
+    public Set<ChunkPos> getChunkPoses() {
+        Set<ChunkPos> chunkPoses = new HashSet<>();
+        for (WireElement element : elements) {
+            chunkPoses.add(new ChunkPos(element.blockPos));
         }
-        return false;
+        return chunkPoses;
     }
 
     public int getWiresHashCode() {
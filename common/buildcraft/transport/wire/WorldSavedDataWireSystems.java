@@ -8,22 +8,23 @@ package buildcraft.transport.wire;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-
-import com.google.common.base.Predicates;
-
-import org.apache.commons.lang3.tuple.Pair;
+import java.util.Set;
 
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.EnumDyeColor;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraft.server.management.PlayerChunkMap;
+import net.minecraft.server.management.PlayerChunkMapEntry;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.storage.MapStorage;
 import net.minecraft.world.storage.WorldSavedData;
 
@@ -41,11 +42,22 @@ public class WorldSavedDataWireSystems extends WorldSavedData {
     public static final String DATA_NAME = "buildcraft_wire_systems";
     public World world;
     public final Map<WireSystem, Boolean> wireSystems = new HashMap<>();
+    /** If true then every system will have its power state recomputed on the next tick. This is only needed after
+     * loading, as every other change marks just the systems that depend on the changed emitter as dirty. */
     public boolean gatesChanged = true;
     public boolean structureChanged = true;
     public final List<WireSystem> changedSystems = new ArrayList<>();
-    public final List<EntityPlayerMP> changedPlayers = new ArrayList<>();
     public final Map<WireSystem.WireElement, IWireEmitter> emittersCache = new HashMap<>();
+    /** Index of every element to the systems that contain it. Wire parts only ever belong to a single system, but
+     * emitters can feed several systems of different colours. */
+    private final Map<WireSystem.WireElement, Set<WireSystem>> elementIndex = new HashMap<>();
+    /** Index of every chunk to the systems that have at least one element inside of it. */
+    private final Map<ChunkPos, Set<WireSystem>> chunkIndex = new HashMap<>();
+    /** The systems that every player in this world has been told about, along with the changes that still need to be
+     * sent to them. Kept up to date by chunk watch events rather than by polling the {@link PlayerChunkMap}. */
+    private final Map<EntityPlayerMP, PlayerTracker> playerTrackers = new HashMap<>();
+    /** Systems whose power state needs to be recomputed on the next tick. */
+    private final Set<WireSystem> dirtySystems = new HashSet<>();
 
     public WorldSavedDataWireSystems() {
         super(DATA_NAME);
@@ -57,28 +69,123 @@ public class WorldSavedDataWireSystems extends WorldSavedData {
 
     public void markStructureChanged() {
         structureChanged = true;
-        gatesChanged = true;
         emittersCache.clear();
     }
 
+    /** @return A copy of every system that contains the given element. Modifying the returned list is safe, and
+     *         removing the returned systems while iterating over it is allowed. */
     public List<WireSystem> getWireSystemsWithElement(WireSystem.WireElement element) {
-        return wireSystems.keySet().stream().filter(wireSystem -> wireSystem.hasElement(element)).collect(Collectors.toList());
+        Set<WireSystem> systems = elementIndex.get(element);
+        if (systems == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(systems);
+    }
+
+    /** @return Every system with at least one element in the given chunk. The returned set must not be modified. */
+    public Set<WireSystem> getWireSystemsInChunk(ChunkPos chunkPos) {
+        Set<WireSystem> systems = chunkIndex.get(chunkPos);
+        return systems == null ? Collections.emptySet() : Collections.unmodifiableSet(systems);
+    }
+
+    /** @return True if any of the systems containing the given element are powered. */
+    public boolean isElementPowered(WireSystem.WireElement element) {
+        Set<WireSystem> systems = elementIndex.get(element);
+        if (systems != null) {
+            for (WireSystem wireSystem : systems) {
+                if (Boolean.TRUE.equals(wireSystems.get(wireSystem))) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public void removeWireSystem(WireSystem wireSystem) {
-        wireSystems.remove(wireSystem);
+        if (wireSystems.remove(wireSystem) != null) {
+            removeFromIndex(wireSystem);
+            dirtySystems.remove(wireSystem);
+            for (PlayerTracker tracker : playerTrackers.values()) {
+                tracker.remove(wireSystem);
+            }
+        }
         markStructureChanged();
     }
 
     public void buildAndAddWireSystem(WireSystem.WireElement element) {
         WireSystem wireSystem = new WireSystem().build(this, element);
         if(!wireSystem.isEmpty()) {
-            wireSystems.put(wireSystem, false);
-            wireSystems.put(wireSystem, wireSystem.update(this));
+            addWireSystem(wireSystem, wireSystem.update(this));
         }
         markStructureChanged();
     }
 
+    /** Marks every system that the given emitter feeds into (for any of the given colours) as dirty, so only those
+     * systems will have their power state recomputed on the next tick. */
+    public void markEmitterChanged(WireSystem.WireElement emitter, Set<EnumDyeColor> colours) {
+        Set<WireSystem> systems = elementIndex.get(emitter);
+        if (systems != null) {
+            for (WireSystem wireSystem : systems) {
+                if (colours.contains(wireSystem.color)) {
+                    dirtySystems.add(wireSystem);
+                }
+            }
+        }
+    }
+
+    private void addWireSystem(WireSystem wireSystem, boolean powered) {
+        Boolean previous = wireSystems.put(wireSystem, powered);
+        if (previous != null) {
+            if (previous != powered) {
+                changedSystems.add(wireSystem);
+            }
+        } else {
+            addToIndex(wireSystem);
+            if (!playerTrackers.isEmpty() && world instanceof WorldServer) {
+                PlayerChunkMap playerChunkMap = ((WorldServer) world).getPlayerChunkMap();
+                Set<ChunkPos> chunkPoses = wireSystem.getChunkPoses();
+                playerTrackers.forEach((player, tracker) -> {
+                    for (ChunkPos chunkPos : chunkPoses) {
+                        if (isWatching(playerChunkMap, player, chunkPos)) {
+                            tracker.add(wireSystem);
+                            break;
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void addToIndex(WireSystem wireSystem) {
+        for (WireSystem.WireElement element : wireSystem.elements) {
+            elementIndex.computeIfAbsent(element, k -> new HashSet<>()).add(wireSystem);
+        }
+        for (ChunkPos chunkPos : wireSystem.getChunkPoses()) {
+            chunkIndex.computeIfAbsent(chunkPos, k -> new HashSet<>()).add(wireSystem);
+        }
+    }
+
+    private void removeFromIndex(WireSystem wireSystem) {
+        for (WireSystem.WireElement element : wireSystem.elements) {
+            Set<WireSystem> systems = elementIndex.get(element);
+            if (systems != null && systems.remove(wireSystem) && systems.isEmpty()) {
+                elementIndex.remove(element);
+            }
+        }
+        for (ChunkPos chunkPos : wireSystem.getChunkPoses()) {
+            Set<WireSystem> systems = chunkIndex.get(chunkPos);
+            if (systems != null && systems.remove(wireSystem) && systems.isEmpty()) {
+                chunkIndex.remove(chunkPos);
+            }
+        }
+    }
+
+    private void rebuildIndex() {
+        elementIndex.clear();
+        chunkIndex.clear();
+        wireSystems.keySet().forEach(this::addToIndex);
+    }
+
     public void rebuildWireSystemsAround(IPipeHolder holder) {
         Arrays.stream(EnumWirePart.values())
                 .flatMap(part -> WireSystem.getConnectedElementsOfElement(world, new WireSystem.WireElement(holder.getPipePos(), part)).stream())
@@ -117,39 +224,78 @@ public class WorldSavedDataWireSystems extends WorldSavedData {
         return false;
     }
 
+    private void updatePower(WireSystem wireSystem) {
+        boolean newPowered = wireSystem.update(this);
+        if (wireSystems.put(wireSystem, newPowered) != newPowered) {
+            changedSystems.add(wireSystem);
+        }
+    }
+
+    /** Called when the given player starts watching a chunk, after the chunk itself has been sent to them. */
+    public void onChunkWatch(EntityPlayerMP player, ChunkPos chunkPos) {
+        Set<WireSystem> systems = chunkIndex.get(chunkPos);
+        PlayerTracker tracker = playerTrackers.computeIfAbsent(player, p -> new PlayerTracker());
+        if (systems != null) {
+            systems.forEach(tracker::add);
+        }
+    }
+
+    /** Called when the given player stops watching a chunk. Systems that have elements in other chunks the player is
+     * still watching are kept. */
+    public void onChunkUnwatch(EntityPlayerMP player, ChunkPos chunkPos) {
+        PlayerTracker tracker = playerTrackers.get(player);
+        Set<WireSystem> systems = chunkIndex.get(chunkPos);
+        if (tracker == null || systems == null || !(world instanceof WorldServer)) {
+            return;
+        }
+        PlayerChunkMap playerChunkMap = ((WorldServer) world).getPlayerChunkMap();
+        outer: for (WireSystem wireSystem : systems) {
+            if (!tracker.known.contains(wireSystem)) {
+                continue;
+            }
+            for (ChunkPos other : wireSystem.getChunkPoses()) {
+                if (!other.equals(chunkPos) && isWatching(playerChunkMap, player, other)) {
+                    continue outer;
+                }
+            }
+            tracker.remove(wireSystem);
+        }
+    }
+
     public void tick() {
-        if(gatesChanged) {
-            wireSystems.keySet().stream()
-                    .filter(wireSystem -> {
-                        boolean newPowered = wireSystem.update(this);
-                        return wireSystems.put(wireSystem, newPowered) != newPowered;
-                    })
-                    .forEach(changedSystems::add);
-        }
-        world.getPlayers(EntityPlayerMP.class, Predicates.alwaysTrue()).forEach(player -> {
-            Map<Integer, WireSystem> changedWires = this.wireSystems.keySet().stream()
-                    .filter(wireSystem -> wireSystem.isPlayerWatching(player) && (structureChanged || changedPlayers.contains(player)))
-                    .collect(Collectors.toMap(WireSystem::getWiresHashCode, Function.identity()));
-            if(!changedWires.isEmpty()) {
-                MessageManager.sendTo(new MessageWireSystems(changedWires), player);
-            }
-            Map<Integer, Boolean> hashesPowered = this.wireSystems.entrySet().stream()
-                    .filter(systemPower ->
-                            systemPower.getKey().isPlayerWatching(player) &&
-                                    (structureChanged || changedSystems.contains(systemPower.getKey()) || changedPlayers.contains(player))
-                    )
-                    .map(systemPowered -> Pair.of(systemPowered.getKey().getWiresHashCode(), systemPowered.getValue()))
-                    .collect(Collectors.toMap(Pair::getLeft, Pair::getRight));
-            if(!hashesPowered.isEmpty()) {
-                MessageManager.sendTo(new MessageWireSystemsPowered(hashesPowered), player);
+        if (gatesChanged) {
+            gatesChanged = false;
+            dirtySystems.clear();
+            wireSystems.keySet().forEach(this::updatePower);
+        } else if (!dirtySystems.isEmpty()) {
+            dirtySystems.forEach(this::updatePower);
+            dirtySystems.clear();
+        }
+        if (!playerTrackers.isEmpty()) {
+            playerTrackers.keySet().removeIf(player -> player.isDead || player.world != world);
+            for (WireSystem wireSystem : changedSystems) {
+                for (PlayerTracker tracker : playerTrackers.values()) {
+                    if (tracker.known.contains(wireSystem) && !tracker.added.contains(wireSystem)) {
+                        tracker.powerChanged.add(wireSystem);
+                    }
+                }
             }
-        });
+            playerTrackers.forEach((player, tracker) -> {
+                if (tracker.hasChanges()) {
+                    MessageManager.sendTo(tracker.createDelta(wireSystems), player);
+                }
+            });
+        }
         if(structureChanged || !changedSystems.isEmpty()) {
             markDirty();
         }
         structureChanged = false;
         changedSystems.clear();
-        changedPlayers.clear();
+    }
+
+    private static boolean isWatching(PlayerChunkMap playerChunkMap, EntityPlayerMP player, ChunkPos chunkPos) {
+        PlayerChunkMapEntry entry = playerChunkMap.getEntry(chunkPos.x, chunkPos.z);
+        return entry != null && entry.containsPlayer(player);
     }
 
     @Override
@@ -173,6 +319,53 @@ public class WorldSavedDataWireSystems extends WorldSavedData {
             NBTTagCompound entry = entriesList.getCompoundTagAt(i);
             wireSystems.put(new WireSystem().readFromNBT(entry.getCompoundTag("wireSystem")), entry.getBoolean("powered"));
         }
+        rebuildIndex();
+    }
+
+    /** The set of systems a single player knows about, and the pending changes to that set. */
+    private static class PlayerTracker {
+        final Set<WireSystem> known = new HashSet<>();
+        final Set<WireSystem> added = new HashSet<>();
+        final Set<Integer> removed = new HashSet<>();
+        final Set<WireSystem> powerChanged = new HashSet<>();
+
+        void add(WireSystem wireSystem) {
+            if (known.add(wireSystem)) {
+                added.add(wireSystem);
+            }
+        }
+
+        void remove(WireSystem wireSystem) {
+            if (known.remove(wireSystem)) {
+                powerChanged.remove(wireSystem);
+                if (!added.remove(wireSystem)) {
+                    // The client never heard about it if it was added this tick
+                    removed.add(wireSystem.getWiresHashCode());
+                }
+            }
+        }
+
+        boolean hasChanges() {
+            return !added.isEmpty() || !removed.isEmpty() || !powerChanged.isEmpty();
+        }
+
+        MessageWireSystems createDelta(Map<WireSystem, Boolean> wireSystems) {
+            Map<Integer, WireSystem> addedWires = new HashMap<>();
+            Map<Integer, Boolean> hashesPowered = new HashMap<>();
+            for (WireSystem wireSystem : added) {
+                int hash = wireSystem.getWiresHashCode();
+                addedWires.put(hash, wireSystem);
+                hashesPowered.put(hash, wireSystems.get(wireSystem));
+            }
+            for (WireSystem wireSystem : powerChanged) {
+                hashesPowered.put(wireSystem.getWiresHashCode(), wireSystems.get(wireSystem));
+            }
+            MessageWireSystems message = new MessageWireSystems(new ArrayList<>(removed), addedWires, hashesPowered);
+            added.clear();
+            removed.clear();
+            powerChanged.clear();
+            return message;
+        }
     }
 
     public static WorldSavedDataWireSystems get(World world) {
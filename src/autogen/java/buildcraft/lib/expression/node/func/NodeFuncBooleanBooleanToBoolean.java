@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -49,7 +50,7 @@ public class NodeFuncBooleanBooleanToBoolean extends NodeFuncBase implements INo
         return new Func(a, b);
     }
 
-    private class Func implements INodeBoolean {
+    private class Func implements INodeBoolean, IFunctionCallNode {
         private final INodeBoolean argA;
         private final INodeBoolean argB;
 
@@ -79,6 +80,21 @@ public class NodeFuncBooleanBooleanToBoolean extends NodeFuncBase implements INo
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncBooleanBooleanToBoolean.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString());
@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -48,7 +49,7 @@ public class NodeFuncBooleanToBoolean extends NodeFuncBase implements INodeFuncB
         return new Func(a);
     }
 
-    private class Func implements INodeBoolean {
+    private class Func implements INodeBoolean, IFunctionCallNode {
         private final INodeBoolean argA;
 
         public Func(INodeBoolean argA) {
@@ -76,6 +77,21 @@ public class NodeFuncBooleanToBoolean extends NodeFuncBase implements INodeFuncB
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncBooleanToBoolean.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString());
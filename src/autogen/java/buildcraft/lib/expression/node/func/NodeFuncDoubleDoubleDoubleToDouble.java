@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -50,7 +51,7 @@ public class NodeFuncDoubleDoubleDoubleToDouble extends NodeFuncBase implements
         return new Func(a, b, c);
     }
 
-    private class Func implements INodeDouble {
+    private class Func implements INodeDouble, IFunctionCallNode {
         private final INodeDouble argA;
         private final INodeDouble argB;
         private final INodeDouble argC;
@@ -82,6 +83,21 @@ public class NodeFuncDoubleDoubleDoubleToDouble extends NodeFuncBase implements
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncDoubleDoubleDoubleToDouble.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB, argC };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString(), argC.toString());
@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -50,7 +51,7 @@ public class NodeFuncLongLongLongToLong extends NodeFuncBase implements INodeFun
         return new Func(a, b, c);
     }
 
-    private class Func implements INodeLong {
+    private class Func implements INodeLong, IFunctionCallNode {
         private final INodeLong argA;
         private final INodeLong argB;
         private final INodeLong argC;
@@ -82,6 +83,21 @@ public class NodeFuncLongLongLongToLong extends NodeFuncBase implements INodeFun
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncLongLongLongToLong.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB, argC };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString(), argC.toString());
@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -49,7 +50,7 @@ public class NodeFuncLongLongToLong extends NodeFuncBase implements INodeFuncLon
         return new Func(a, b);
     }
 
-    private class Func implements INodeLong {
+    private class Func implements INodeLong, IFunctionCallNode {
         private final INodeLong argA;
         private final INodeLong argB;
 
@@ -79,6 +80,21 @@ public class NodeFuncLongLongToLong extends NodeFuncBase implements INodeFuncLon
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncLongLongToLong.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString());
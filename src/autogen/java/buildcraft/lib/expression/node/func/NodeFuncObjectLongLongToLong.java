@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -52,7 +53,7 @@ public class NodeFuncObjectLongLongToLong<A> extends NodeFuncBase implements INo
         return new Func(a, b, c);
     }
 
-    private class Func implements INodeLong {
+    private class Func implements INodeLong, IFunctionCallNode {
         private final INodeObject<A> argA;
         private final INodeLong argB;
         private final INodeLong argC;
@@ -84,6 +85,21 @@ public class NodeFuncObjectLongLongToLong<A> extends NodeFuncBase implements INo
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncObjectLongLongToLong.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB, argC };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString(), argC.toString());
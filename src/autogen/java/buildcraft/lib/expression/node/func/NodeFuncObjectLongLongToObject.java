@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -59,7 +60,7 @@ public class NodeFuncObjectLongLongToObject<A, R> extends NodeFuncBase implement
         return new Func(a, b, c);
     }
 
-    private class Func implements INodeObject<R> {
+    private class Func implements INodeObject<R>, IFunctionCallNode {
         private final INodeObject<A> argA;
         private final INodeLong argB;
         private final INodeLong argC;
@@ -96,6 +97,21 @@ public class NodeFuncObjectLongLongToObject<A, R> extends NodeFuncBase implement
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncObjectLongLongToObject.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB, argC };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString(), argC.toString());
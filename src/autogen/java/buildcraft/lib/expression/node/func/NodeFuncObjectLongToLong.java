@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -51,7 +52,7 @@ public class NodeFuncObjectLongToLong<A> extends NodeFuncBase implements INodeFu
         return new Func(a, b);
     }
 
-    private class Func implements INodeLong {
+    private class Func implements INodeLong, IFunctionCallNode {
         private final INodeObject<A> argA;
         private final INodeLong argB;
 
@@ -81,6 +82,21 @@ public class NodeFuncObjectLongToLong<A> extends NodeFuncBase implements INodeFu
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncObjectLongToLong.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString());
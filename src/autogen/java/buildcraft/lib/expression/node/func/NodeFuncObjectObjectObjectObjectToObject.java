@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -66,7 +67,7 @@ public class NodeFuncObjectObjectObjectObjectToObject<A, B, C, D, R> extends Nod
         return new Func(a, b, c, d);
     }
 
-    private class Func implements INodeObject<R> {
+    private class Func implements INodeObject<R>, IFunctionCallNode {
         private final INodeObject<A> argA;
         private final INodeObject<B> argB;
         private final INodeObject<C> argC;
@@ -105,6 +106,21 @@ public class NodeFuncObjectObjectObjectObjectToObject<A, B, C, D, R> extends Nod
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncObjectObjectObjectObjectToObject.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB, argC, argD };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString(), argC.toString(), argD.toString());
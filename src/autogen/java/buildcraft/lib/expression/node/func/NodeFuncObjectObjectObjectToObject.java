@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -63,7 +64,7 @@ public class NodeFuncObjectObjectObjectToObject<A, B, C, R> extends NodeFuncBase
         return new Func(a, b, c);
     }
 
-    private class Func implements INodeObject<R> {
+    private class Func implements INodeObject<R>, IFunctionCallNode {
         private final INodeObject<A> argA;
         private final INodeObject<B> argB;
         private final INodeObject<C> argC;
@@ -100,6 +101,21 @@ public class NodeFuncObjectObjectObjectToObject<A, B, C, R> extends NodeFuncBase
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncObjectObjectObjectToObject.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB, argC };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString(), argC.toString());
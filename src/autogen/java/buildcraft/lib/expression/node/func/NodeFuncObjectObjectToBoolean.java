@@ -7,6 +7,7 @@
 package buildcraft.lib.expression.node.func;
 
 import buildcraft.lib.expression.NodeInliningHelper;
+import buildcraft.lib.expression.api.IExpressionNode;
 import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
 import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
 import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
@@ -53,7 +54,7 @@ public class NodeFuncObjectObjectToBoolean<A, B> extends NodeFuncBase implements
         return new Func(a, b);
     }
 
-    private class Func implements INodeBoolean {
+    private class Func implements INodeBoolean, IFunctionCallNode {
         private final INodeObject<A> argA;
         private final INodeObject<B> argB;
 
@@ -83,6 +84,21 @@ public class NodeFuncObjectObjectToBoolean<A, B> extends NodeFuncBase implements
             );
         }
 
+        @Override
+        public Class<?> getFunctionType() {
+            return IFuncObjectObjectToBoolean.class;
+        }
+
+        @Override
+        public Object getFunction() {
+            return function;
+        }
+
+        @Override
+        public IExpressionNode[] getArguments() {
+            return new IExpressionNode[] { argA, argB };
+        }
+
         @Override
         public String toString() {
             return stringFunction.apply(argA.toString(), argB.toString());
@@ -0,0 +1,109 @@
+package buildcraft.test.lib.expression;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import buildcraft.lib.expression.DefaultContexts;
+import buildcraft.lib.expression.FunctionContext;
+import buildcraft.lib.expression.GenericExpressionCompiler;
+import buildcraft.lib.expression.NodeBytecodeCompiler;
+import buildcraft.lib.expression.api.IExpressionNode.INodeBoolean;
+import buildcraft.lib.expression.api.IExpressionNode.INodeDouble;
+import buildcraft.lib.expression.api.IExpressionNode.INodeLong;
+import buildcraft.lib.expression.api.InvalidExpressionException;
+import buildcraft.lib.expression.node.value.NodeVariableBoolean;
+import buildcraft.lib.expression.node.value.NodeVariableDouble;
+import buildcraft.lib.expression.node.value.NodeVariableLong;
+import buildcraft.lib.expression.node.value.NodeVariableObject;
+
+public class NodeBytecodeCompilerTester {
+    private static final String[] LONG_EXPRESSIONS = { //
+        "a + 3 * a - a / 2 % 5", "(a << 2) >> 1", "(a & 7) | (a ^ 3)", "-a", "max(a, 4) * abs(a)",
+        "a > 3 ? a : -a", "c ? 1 : 2", "variant == 'gold' ? a : 0", "floor(b) + a" //
+    };
+
+    private static final String[] DOUBLE_EXPRESSIONS = { //
+        "b * 2.5 + sin(b) - b / 3", "b % 1.5", "a > 3 ? b : -b", "clamp(b, 0, 1)", "a + b", "-b", "pi * b * b" //
+    };
+
+    private static final String[] BOOLEAN_EXPRESSIONS = { //
+        "b < 0.5 && c || !c", "b == 0.5", "b != b", "a <= 2", "c == (a >= 5)", "c != (b > 0.25)", "c ^ (a == 3)",
+        "variant == 'gold'", "a < 4 ? c : !c" //
+    };
+
+    private final FunctionContext ctx = new FunctionContext(DefaultContexts.createWithAll());
+    private final NodeVariableLong a = ctx.putVariableLong("a");
+    private final NodeVariableDouble b = ctx.putVariableDouble("b");
+    private final NodeVariableBoolean c = ctx.putVariableBoolean("c");
+    private final NodeVariableObject<String> variant = ctx.putVariableString("variant");
+
+    @Test
+    public void testMatchesTree() throws InvalidExpressionException {
+        for (String expr : LONG_EXPRESSIONS) {
+            INodeLong tree = GenericExpressionCompiler.compileExpressionLong(expr, ctx);
+            INodeLong compiled = NodeBytecodeCompiler.compile(tree);
+            assertCompiled(expr, compiled);
+            Random rand = new Random(expr.hashCode());
+            for (int i = 0; i < 200; i++) {
+                randomise(rand);
+                Assert.assertEquals(expr, tree.evaluate(), compiled.evaluate());
+            }
+        }
+        for (String expr : DOUBLE_EXPRESSIONS) {
+            INodeDouble tree = GenericExpressionCompiler.compileExpressionDouble(expr, ctx);
+            INodeDouble compiled = NodeBytecodeCompiler.compile(tree);
+            assertCompiled(expr, compiled);
+            Random rand = new Random(expr.hashCode());
+            for (int i = 0; i < 200; i++) {
+                randomise(rand);
+                Assert.assertEquals(expr, tree.evaluate(), compiled.evaluate(), 0);
+            }
+        }
+        for (String expr : BOOLEAN_EXPRESSIONS) {
+            INodeBoolean tree = GenericExpressionCompiler.compileExpressionBoolean(expr, ctx);
+            INodeBoolean compiled = NodeBytecodeCompiler.compile(tree);
+            assertCompiled(expr, compiled);
+            Random rand = new Random(expr.hashCode());
+            for (int i = 0; i < 200; i++) {
+                randomise(rand);
+                Assert.assertEquals(expr, tree.evaluate(), compiled.evaluate());
+            }
+        }
+    }
+
+    private static void assertCompiled(String expr, Object node) {
+        Assert.assertTrue(expr + " wasn't compiled: " + node, node.toString().startsWith("[compiled]"));
+    }
+
+    private void randomise(Random rand) {
+        a.value = rand.nextInt(20) - 10;
+        // Include NaN, to check that the comparisons treat it the same way
+        b.value = rand.nextInt(20) == 0 ? Double.NaN : rand.nextInt(4) == 0 ? 0.5 : rand.nextDouble();
+        c.value = rand.nextBoolean();
+        variant.value = rand.nextBoolean() ? "gold" : "iron";
+    }
+
+    @Test
+    public void testCache() throws InvalidExpressionException {
+        boolean wasEnabled = NodeBytecodeCompiler.enabled;
+        NodeBytecodeCompiler.enabled = true;
+        try {
+            INodeDouble first = GenericExpressionCompiler.compileExpressionDouble("b * 2 + a", ctx);
+            INodeDouble second = GenericExpressionCompiler.compileExpressionDouble("b * 2 + a", ctx);
+            assertCompiled("b * 2 + a", first);
+            Assert.assertNotSame(first, second);
+            Assert.assertSame(first.getClass(), second.getClass());
+
+            FunctionContext other = new FunctionContext(ctx);
+            INodeDouble third = GenericExpressionCompiler.compileExpressionDouble("b * 2 + a", other);
+            Assert.assertNotSame(first.getClass(), third.getClass());
+
+            // Just a variable: there's nothing to compile
+            Assert.assertSame(b, GenericExpressionCompiler.compileExpressionDouble("b", ctx));
+        } finally {
+            NodeBytecodeCompiler.enabled = wasEnabled;
+        }
+    }
+}
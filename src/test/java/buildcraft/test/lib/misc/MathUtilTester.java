@@ -0,0 +1,107 @@
+package buildcraft.test.lib.misc;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import buildcraft.lib.misc.MathUtil;
+
+public class MathUtilTester {
+    private static final long MAX = Long.MAX_VALUE;
+    private static final long MIN = Long.MIN_VALUE;
+    private static final BigInteger BIG_MAX = BigInteger.valueOf(MAX);
+    private static final BigInteger BIG_MIN = BigInteger.valueOf(MIN);
+
+    @Test
+    public void testMulDivSmall() {
+        assertMulDiv(0, 0, 1);
+        assertMulDiv(0, 5, 7);
+        assertMulDiv(5, 0, 7);
+        assertMulDiv(7, 5, 3);
+        assertMulDiv(10, 3, 4);
+        assertMulDiv(1, 1, 1);
+    }
+
+    @Test
+    public void testMulDivEqual() {
+        long[] values = { 1, 3, 1000, MAX / 3, MAX - 1, MAX };
+        for (long a : values) {
+            for (long b : values) {
+                Assert.assertEquals(a, MathUtil.mulDiv(a, b, b));
+            }
+        }
+    }
+
+    @Test
+    public void testMulDivLarge() {
+        assertMulDiv(MAX, MAX - 1, MAX);
+        assertMulDiv(MAX - 1, MAX, MAX);
+        assertMulDiv(MAX, 1, MAX);
+        assertMulDiv(MAX, 2, 3);
+        assertMulDiv(MAX - 7, MAX / 3, MAX / 2);
+        assertMulDiv(MAX / 2 + 1, MAX / 2 - 1, MAX - 2);
+        // Both remainders are large, and non-zero
+        assertMulDiv(MAX - 5, MAX - 6, MAX - 3);
+        assertMulDiv(MAX / 2 + 12345, (MAX / 3) * 2 + 7, MAX - 99);
+        assertMulDiv(1L << 62, (1L << 62) + 1, (1L << 62) + 3);
+    }
+
+    @Test
+    public void testMulDivRandom() {
+        Random rand = new Random(0x5EED);
+        for (int i = 0; i < 10_000; i++) {
+            long a = rand.nextLong() & MAX;
+            long c = Math.max(1, rand.nextLong() & MAX);
+            // b <= c, so the result always fits
+            long b = (rand.nextLong() & MAX) % c + (rand.nextInt(8) == 0 ? 1 : 0);
+            if (i % 3 == 0) {
+                // Also check small divisors, where the first quotient is large
+                c = rand.nextInt(1000) + 1;
+                b = rand.nextInt((int) c + 1);
+            }
+            assertMulDiv(a, b, c);
+        }
+    }
+
+    private static void assertMulDiv(long a, long b, long c) {
+        BigInteger expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).divide(BigInteger.valueOf(c));
+        Assert.assertEquals(a + " * " + b + " / " + c, expected.longValueExact(), MathUtil.mulDiv(a, b, c));
+    }
+
+    @Test
+    public void testSaturatedAdd() {
+        assertSaturatedAdd(0, 0);
+        assertSaturatedAdd(3, 4);
+        assertSaturatedAdd(-3, 4);
+        assertSaturatedAdd(MAX, 0);
+        assertSaturatedAdd(MIN, 0);
+        assertSaturatedAdd(MAX, MIN);
+        assertSaturatedAdd(MAX, -1);
+        assertSaturatedAdd(MIN, 1);
+
+        Assert.assertEquals(MAX, MathUtil.saturatedAdd(MAX, 1));
+        Assert.assertEquals(MAX, MathUtil.saturatedAdd(1, MAX));
+        Assert.assertEquals(MAX, MathUtil.saturatedAdd(MAX, MAX));
+        Assert.assertEquals(MAX, MathUtil.saturatedAdd(MAX / 2 + 1, MAX / 2 + 1));
+        Assert.assertEquals(MIN, MathUtil.saturatedAdd(MIN, -1));
+        Assert.assertEquals(MIN, MathUtil.saturatedAdd(-1, MIN));
+        Assert.assertEquals(MIN, MathUtil.saturatedAdd(MIN, MIN));
+        Assert.assertEquals(MIN, MathUtil.saturatedAdd(MIN / 2 - 1, MIN / 2));
+    }
+
+    @Test
+    public void testSaturatedAddRandom() {
+        Random rand = new Random(0xADD);
+        for (int i = 0; i < 10_000; i++) {
+            assertSaturatedAdd(rand.nextLong(), rand.nextLong());
+        }
+    }
+
+    private static void assertSaturatedAdd(long a, long b) {
+        BigInteger sum = BigInteger.valueOf(a).add(BigInteger.valueOf(b));
+        long expected = sum.max(BIG_MIN).min(BIG_MAX).longValue();
+        Assert.assertEquals(a + " + " + b, expected, MathUtil.saturatedAdd(a, b));
+    }
+}
@@ -0,0 +1,46 @@
+package buildcraft.test.lib.misc.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import buildcraft.api.core.InvalidInputDataException;
+
+import buildcraft.lib.misc.data.PackedIntArray;
+
+public class PackedIntArrayTester {
+    @Test
+    public void testGrow() {
+        PackedIntArray array = new PackedIntArray(200);
+        Assert.assertEquals(1, array.getBits());
+        array.set(3, 1);
+        array.set(150, 5);
+        Assert.assertEquals(3, array.getBits());
+        array.set(199, 1000);
+        Assert.assertEquals(10, array.getBits());
+        Assert.assertEquals(1, array.get(3));
+        Assert.assertEquals(5, array.get(150));
+        Assert.assertEquals(1000, array.get(199));
+        Assert.assertEquals(0, array.get(0));
+    }
+
+    @Test
+    public void testSerialisation() throws InvalidInputDataException {
+        int[] values = new int[4096];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 300 < 200 ? 0 : i % 7;
+        }
+        PackedIntArray array = PackedIntArray.of(values);
+        Assert.assertArrayEquals(values, array.toIntArray());
+
+        PackedIntArray fromRuns = PackedIntArray.readRuns(array.writeRuns(), values.length);
+        Assert.assertEquals(array, fromRuns);
+
+        PackedIntArray fromPacked = PackedIntArray.readPacked(array.writePacked(), values.length, array.getBits());
+        Assert.assertEquals(array, fromPacked);
+    }
+
+    @Test(expected = InvalidInputDataException.class)
+    public void testShortRuns() throws InvalidInputDataException {
+        PackedIntArray.readRuns(new PackedIntArray(10).writeRuns(), 11);
+    }
+}
@@ -0,0 +1,80 @@
+package buildcraft.test.robotics.zone;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import javax.vecmath.Point2i;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import buildcraft.robotics.zone.ZonePlan;
+
+public class ZonePlanTester {
+    @Test
+    public void testDistance() {
+        Random rand = new Random(42);
+        for (int test = 0; test < 20; test++) {
+            ZonePlan plan = new ZonePlan();
+            int spread = 16 << (test % 8);
+            for (int i = 0; i < 50; i++) {
+                plan.set(rand.nextInt(spread * 2) - spread, rand.nextInt(spread * 2) - spread, true);
+            }
+            for (int q = 0; q < 100; q++) {
+                BlockPos pos = new BlockPos(rand.nextInt(spread * 8) - spread * 4, 64, rand.nextInt(spread * 8)
+                    - spread * 4);
+                Assert.assertEquals(bruteForceDistanceSq(plan, pos), plan.distanceToSquared(pos), 0);
+            }
+        }
+        Assert.assertEquals(Double.MAX_VALUE, new ZonePlan().distanceToSquared(BlockPos.ORIGIN), 0);
+    }
+
+    private static double bruteForceDistanceSq(ZonePlan plan, BlockPos pos) {
+        double best = Double.MAX_VALUE;
+        for (ChunkPos chunkPos : plan.getChunkPoses()) {
+            double dx = chunkPos.getXStart() + 8 - pos.getX();
+            double dz = chunkPos.getZStart() + 8 - pos.getZ();
+            best = Math.min(best, dx * dx + dz * dz);
+        }
+        return best;
+    }
+
+    @Test
+    public void testRandomAndAll() {
+        Random rand = new Random(7);
+        ZonePlan plan = new ZonePlan();
+        Set<Point2i> expected = new HashSet<>();
+        for (int i = 0; i < 400; i++) {
+            int x = rand.nextInt(100) - 50;
+            int z = rand.nextInt(100) - 50;
+            plan.set(x, z, true);
+            expected.add(new Point2i(x, z));
+        }
+        // A full chunk, and a chunk that is emptied again
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                plan.set(x + 160, z, true);
+                expected.add(new Point2i(x + 160, z));
+            }
+        }
+        plan.set(500, 500, true);
+        plan.set(500, 500, false);
+
+        Assert.assertEquals(expected.size(), plan.getBlockCount());
+        Assert.assertEquals(expected, new HashSet<>(plan.getAll()));
+
+        Set<Point2i> found = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            BlockPos pos = plan.getRandomBlockPos(rand);
+            Point2i point = new Point2i(pos.getX(), pos.getZ());
+            Assert.assertTrue(expected.contains(point));
+            found.add(point);
+        }
+        Assert.assertEquals(expected, found);
+        Assert.assertNull(new ZonePlan().getRandomBlockPos(rand));
+    }
+}